@@ -59,6 +59,19 @@ public class BaseException extends RuntimeException {
         this.resultInfo = resultInfo;
     }
 
+    /**
+     * 公用异常构造方法
+     *
+     * @param resultCode         {@link #resultCode}
+     * @param resultInfo         {@link #resultInfo}
+     * @param writableStackTrace 是否记录堆栈,高频抛出且无需定位调用栈的异常可关闭
+     */
+    protected BaseException(String resultCode, String resultInfo, boolean writableStackTrace) {
+        super(resultInfo, null, false, writableStackTrace);
+        this.resultCode = resultCode;
+        this.resultInfo = resultInfo;
+    }
+
     public String getResultCode() {
         return resultCode;
     }
@@ -17,6 +17,7 @@
 
 package org.jarvisframework.common.exception;
 
+import org.jarvisframework.common.constant.ResponseConstants;
 import org.jarvisframework.common.domain.Response;
 
 /**
@@ -26,7 +27,15 @@ import org.jarvisframework.common.domain.Response;
  * @since 1.0.0
  */
 public class DistributedLockException extends BaseException {
-    
+
+    /**
+     * 获取锁失败时抛出的共享异常
+     * <p>
+     * 预先创建且不记录堆栈、不允许附加异常,可在多线程间安全复用,高竞争下拒绝请求无需每次填充堆栈
+     */
+    public static final DistributedLockException REJECTED = new DistributedLockException(
+            ResponseConstants.DISTRIBUTED_LOCK_ERROR.getResultCode(), ResponseConstants.DISTRIBUTED_LOCK_ERROR.getResultInfo(), false);
+
     /**
      * 公用异常构造方法
      *
@@ -45,4 +54,15 @@ public class DistributedLockException extends BaseException {
     public DistributedLockException(String resultCode, String resultInfo) {
         super(resultCode, resultInfo);
     }
+
+    /**
+     * 公用异常构造方法
+     *
+     * @param resultCode         返回码
+     * @param resultInfo         返回信息
+     * @param writableStackTrace 是否记录堆栈
+     */
+    protected DistributedLockException(String resultCode, String resultInfo, boolean writableStackTrace) {
+        super(resultCode, resultInfo, writableStackTrace);
+    }
 }
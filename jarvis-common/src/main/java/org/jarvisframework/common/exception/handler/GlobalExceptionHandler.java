@@ -40,13 +40,14 @@ public class GlobalExceptionHandler {
 
     /**
      * 分布式锁异常处理
+     * 获取锁失败属于预期内的竞争结果,分布式锁切面已按频率限制记录,此处仅输出调试日志
      *
      * @param e {@link DistributedLockException}
      * @return {@link CommonResult}
      */
     @ExceptionHandler(DistributedLockException.class)
     public CommonResult distributedExceptionHandler(DistributedLockException e) {
-        LOGGER.error(e.getResultInfo());
+        LOGGER.debug(e.getResultInfo());
         return CommonResult.ofFail(e.getResultCode(), e.getResultInfo(), null);
     }
 
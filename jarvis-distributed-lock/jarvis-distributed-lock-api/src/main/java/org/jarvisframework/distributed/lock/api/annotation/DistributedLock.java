@@ -18,6 +18,8 @@
 package org.jarvisframework.distributed.lock.api.annotation;
 
 import org.jarvisframework.distributed.lock.api.constant.DistributedLockType;
+import org.jarvisframework.distributed.lock.api.constant.LockFailureStrategy;
+import org.jarvisframework.distributed.lock.api.constant.LockMode;
 
 import java.lang.annotation.*;
 import java.util.concurrent.TimeUnit;
@@ -35,10 +37,24 @@ import java.util.concurrent.TimeUnit;
 public @interface DistributedLock {
     /**
      * 分布式锁Key值
+     * <p>
+     * 包含{@code #}时按SpEL表达式解析,可引用方法参数,如 {@code 'order:' + #orderId}、{@code #p0};
+     * 否则作为固定Key值。与{@link DistributedLock#lockKeys()}二选一
      *
      * @return 分布式锁Key值
      */
-    String lockKey();
+    String lockKey() default "";
+
+    /**
+     * 多个分布式锁Key值
+     * <p>
+     * 每个Key值的解析规则同{@link DistributedLock#lockKey()}。调用时按Key值自然顺序一次性获取全部锁,
+     * 全部成功才执行方法,任一失败则全部释放,多个方法以不同顺序声明相同Key值也不会死锁
+     * Redis集群模式下全部Key值需以相同的Hash Tag开头,如 {@code '{order:' + #orderId + '}:item:' + #itemId},否则调用时抛出异常
+     *
+     * @return 多个分布式锁Key值
+     */
+    String[] lockKeys() default {};
 
     /**
      * 分布式锁类型
@@ -49,6 +65,16 @@ public @interface DistributedLock {
      */
     String lockType() default DistributedLockType.DISTRIBUTED_LOCK_ZOOKEEPER;
 
+    /**
+     * 分布式锁模式,默认排他的写锁
+     * <p>
+     * {@link LockMode#READ}时同一Key值的读方法可在多个节点并行执行,仅与写方法互斥;
+     * 读锁不支持多个Key值,也不经过本地锁前置
+     *
+     * @return {@link LockMode}
+     */
+    LockMode mode() default LockMode.WRITE;
+
     /**
      * 尝试获取锁的等待时间,时间单位{@link DistributedLock#timeUnit()}
      *
@@ -62,5 +88,69 @@ public @interface DistributedLock {
      * @return {@link TimeUnit}
      */
     TimeUnit timeUnit() default TimeUnit.SECONDS;
-}
 
+    /**
+     * 是否启用本地锁前置
+     * <p>
+     * 开启后同一节点同一Key值只有一个线程竞争远程锁,其余线程在本地按顺序等待,
+     * 适用于热点Key高并发场景,等待时间计入{@link DistributedLock#time()}
+     *
+     * @return 是否启用本地锁前置
+     */
+    boolean localTier() default false;
+
+    /**
+     * 是否启用Key值分段模式
+     * <p>
+     * 开启后求值后的Key值按哈希映射到该Key值模板下固定数量的分段锁,锁实例与远程Key值数量不再随Key值增长,
+     * 代价是落在同一分段的不同Key值相互等待。仅支持单个{@link DistributedLock#lockKey()},
+     * 同一锁类型下使用相同Key值模板的方法必须使用相同的分段配置
+     *
+     * @return 是否启用Key值分段模式
+     */
+    boolean striped() default false;
+
+    /**
+     * Key值分段数,小于等于0时使用{@code jarvis.distributed-lock.key-stripes},仅在{@link DistributedLock#striped()}开启时生效
+     *
+     * @return Key值分段数
+     */
+    int stripes() default 0;
+
+    /**
+     * 是否启用单飞模式
+     * <p>
+     * 开启后同一节点同一Key值的并发调用不再排队获取锁,而是共享正在执行的调用的结果或异常,
+     * 等待共享结果的时间计入{@link DistributedLock#time()},超时按{@link DistributedLock#onFailure()}处理;
+     * 仅适用于幂等方法(如重建缓存),对异步方法不生效
+     *
+     * @return 是否启用单飞模式
+     */
+    boolean singleFlight() default false;
+
+    /**
+     * 是否按观测到的持有时间自适应等待
+     * <p>
+     * 开启后按该方法的历史持有时间选择带抖动的重试间隔,预期等待超过剩余等待时间时直接失败,
+     * 适用于持有时间稳定、等待时间较短的场景
+     *
+     * @return 是否启用自适应等待
+     */
+    boolean adaptiveWait() default false;
+
+    /**
+     * 获取锁失败时的处理策略,默认抛出异常
+     * <p>
+     * 响应式方法仅支持{@link LockFailureStrategy#THROW}
+     *
+     * @return {@link LockFailureStrategy}
+     */
+    LockFailureStrategy onFailure() default LockFailureStrategy.THROW;
+
+    /**
+     * 降级方法名称,{@link DistributedLock#onFailure()}为{@link LockFailureStrategy#FALLBACK}时必填
+     *
+     * @return 降级方法名称
+     */
+    String fallbackMethod() default "";
+}
@@ -17,20 +17,27 @@
 
 package org.jarvisframework.distributed.lock.api.aspect;
 
-import cn.hutool.extra.spring.SpringUtil;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.jarvisframework.common.constant.ResponseConstants;
 import org.jarvisframework.common.exception.DistributedLockException;
 import org.jarvisframework.distributed.lock.api.annotation.DistributedLock;
-import org.slf4j.Logger;
+import org.jarvisframework.distributed.lock.api.metrics.LockMetrics;
+import org.jarvisframework.distributed.lock.api.plan.LockInvocationPlan;
+import org.jarvisframework.distributed.lock.api.plan.LockInvocationPlanRegistry;
+import org.jarvisframework.distributed.lock.api.support.AsyncLockExecutor;
+import org.jarvisframework.distributed.lock.api.support.FencingTokenHolder;
+import org.jarvisframework.distributed.lock.api.support.LockWaitPolicy;
+import org.jarvisframework.distributed.lock.api.support.RateLimitedLogger;
 import org.slf4j.LoggerFactory;
-import org.springframework.integration.support.locks.LockRegistry;
-import org.springframework.stereotype.Component;
+import org.springframework.aop.support.AopUtils;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 
 /**
@@ -40,10 +47,28 @@ import java.util.concurrent.locks.Lock;
  * @since 1.0.0
  */
 @Aspect
-@Component
 public class DistributedLockAspect {
 
-    private static final Logger logger = LoggerFactory.getLogger(DistributedLock.class);
+    /**
+     * 获取锁失败日志,每秒最多输出一条
+     */
+    private static final RateLimitedLogger rejectionLogger = new RateLimitedLogger(
+            LoggerFactory.getLogger(DistributedLock.class), 1L, TimeUnit.SECONDS);
+
+    /**
+     * 分布式锁调用计划
+     */
+    private final LockInvocationPlanRegistry planRegistry;
+
+    /**
+     * 异步分布式锁执行器
+     */
+    private final AsyncLockExecutor asyncLockExecutor;
+
+    public DistributedLockAspect(LockInvocationPlanRegistry planRegistry, AsyncLockExecutor asyncLockExecutor) {
+        this.planRegistry = planRegistry;
+        this.asyncLockExecutor = asyncLockExecutor;
+    }
 
     /**
      * 注解切入点
@@ -63,33 +88,181 @@ public class DistributedLockAspect {
     public Object aroundDistributedLock(ProceedingJoinPoint joinPoint) throws Throwable {
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
 
-        DistributedLock annotation = signature
-                .getMethod()
-                .getAnnotation(DistributedLock.class);
+        LockInvocationPlan plan = planRegistry.getPlan(signature.getMethod(), AopUtils.getTargetClass(joinPoint.getTarget()));
 
-        LockRegistry lockRegistry = getLockRegistryByLockType(annotation.lockType());
+        List<String> lockKeys = plan.lockKeys(joinPoint.getArgs());
 
-        Lock lock = lockRegistry.obtain(annotation.lockKey());
+        switch (plan.getInvocationMode()) {
+            case COMPLETION_STAGE:
+                return proceedWithLockAsync(joinPoint, plan, lockKeys);
+            case MONO:
+                return ReactiveLockSupport.mono(joinPoint, asyncLockExecutor, plan.obtainLock(lockKeys), plan.getWaitNanos(),
+                        plan.getMetrics(), plan.getWaitPolicy());
+            case FLUX:
+                return ReactiveLockSupport.flux(joinPoint, asyncLockExecutor, plan.obtainLock(lockKeys), plan.getWaitNanos(),
+                        plan.getMetrics(), plan.getWaitPolicy());
+            default:
+                break;
+        }
 
+        if (plan.getSingleFlight() != null) {
+            Object flightKey = lockKeys.size() == 1 ? lockKeys.get(0) : lockKeys;
+            return plan.getSingleFlight().execute(flightKey, plan.getWaitNanos(),
+                    () -> proceedWithLock(joinPoint, plan, lockKeys), () -> onLockTimeout(joinPoint, plan, lockKeys));
+        }
+        return proceedWithLock(joinPoint, plan, lockKeys);
+    }
+
+    /**
+     * 持有分布式锁执行目标方法
+     *
+     * @param joinPoint {@link ProceedingJoinPoint}
+     * @param plan      {@link LockInvocationPlan}
+     * @param lockKeys  分布式锁Key值
+     * @return Object
+     * @throws Throwable
+     */
+    private Object proceedWithLock(ProceedingJoinPoint joinPoint, LockInvocationPlan plan, List<String> lockKeys) throws Throwable {
+        Lock lock = plan.obtainLock(lockKeys);
+        LockMetrics metrics = plan.getMetrics();
+        LockWaitPolicy waitPolicy = plan.getWaitPolicy();
+
+        long start = System.nanoTime();
+        boolean locked;
         try {
-            if (lock.tryLock(annotation.time(), annotation.timeUnit())) {
-                return joinPoint.proceed();
-            } else {
-                logger.error("acquire distributed lock failed.");
-                throw new DistributedLockException(ResponseConstants.DISTRIBUTED_LOCK_ERROR);
-            }
+            locked = waitPolicy.tryLock(lock, plan.getWaitNanos());
+        } catch (RuntimeException e) {
+            metrics.recordError();
+            throw e;
+        }
+        long lockedAt = System.nanoTime();
+        metrics.recordWait(lockedAt - start);
+        if (!locked) {
+            return onLockTimeout(joinPoint, plan, lockKeys);
+        }
+        long outerToken = FencingTokenHolder.set(FencingTokenHolder.tokenOf(lock));
+        try {
+            Object result = joinPoint.proceed();
+            plan.getFailureHandler().onSuccess(lockKeys, result);
+            return result;
         } finally {
+            FencingTokenHolder.reset(outerToken);
+            unlock(lock, metrics, waitPolicy, lockedAt);
+        }
+    }
+
+    /**
+     * 等待时间内未获取到锁,按获取锁失败策略给出方法返回值
+     *
+     * @param joinPoint {@link ProceedingJoinPoint}
+     * @param plan      {@link LockInvocationPlan}
+     * @param lockKeys  分布式锁Key值
+     * @return Object
+     * @throws Throwable
+     */
+    private Object onLockTimeout(ProceedingJoinPoint joinPoint, LockInvocationPlan plan, List<String> lockKeys) throws Throwable {
+        plan.getMetrics().recordTimeout();
+        rejectionLogger.warn("acquire distributed lock failed.");
+        return plan.getFailureHandler().onFailure(joinPoint.getTarget(), joinPoint.getArgs(), lockKeys);
+    }
+
+    /**
+     * 释放锁并记录持有时间
+     *
+     * @param lock       {@link Lock}
+     * @param metrics    {@link LockMetrics}
+     * @param waitPolicy {@link LockWaitPolicy}
+     * @param lockedAt   获取到锁的时间({@link System#nanoTime()})
+     */
+    private static void unlock(Lock lock, LockMetrics metrics, LockWaitPolicy waitPolicy, long lockedAt) {
+        try {
             lock.unlock();
+        } catch (RuntimeException e) {
+            metrics.recordError();
+            throw e;
+        } finally {
+            long held = System.nanoTime() - lockedAt;
+            metrics.recordHold(held);
+            waitPolicy.recordHold(held);
         }
     }
 
     /**
-     * 根据分布式锁类型获取实现
+     * 异步获取分布式锁执行目标方法,返回的{@link CompletionStage}完成后释放锁
      *
-     * @param lockType 分布式锁类型
-     * @return {@link LockRegistry}
+     * @param joinPoint {@link ProceedingJoinPoint}
+     * @param plan      {@link LockInvocationPlan}
+     * @param lockKeys  分布式锁Key值
+     * @return {@link CompletableFuture}
      */
-    private LockRegistry getLockRegistryByLockType(String lockType) {
-        return SpringUtil.getBean(lockType, LockRegistry.class);
+    private CompletableFuture<Object> proceedWithLockAsync(ProceedingJoinPoint joinPoint, LockInvocationPlan plan, List<String> lockKeys) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        Lock lock = plan.obtainLock(lockKeys);
+        asyncLockExecutor.acquire(lock, plan.getWaitNanos(), plan.getMetrics(), plan.getWaitPolicy()).whenComplete((lease, acquireError) -> {
+            if (acquireError instanceof DistributedLockException) {
+                onFailureAsync(joinPoint, plan, lockKeys, result);
+                return;
+            }
+            if (acquireError != null) {
+                result.completeExceptionally(acquireError);
+                return;
+            }
+            CompletionStage<?> stage;
+            long outerToken = FencingTokenHolder.set(lease.getFencingToken());
+            try {
+                stage = (CompletionStage<?>) joinPoint.proceed();
+            } catch (Throwable e) {
+                lease.release();
+                result.completeExceptionally(e);
+                return;
+            } finally {
+                FencingTokenHolder.reset(outerToken);
+            }
+            if (stage == null) {
+                lease.release();
+                result.complete(null);
+                return;
+            }
+            stage.whenComplete((value, error) -> {
+                lease.release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    plan.getFailureHandler().onSuccess(lockKeys, value);
+                    result.complete(value);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * 异步获取锁失败,按失败处理策略完成结果
+     *
+     * @param joinPoint {@link ProceedingJoinPoint}
+     * @param plan      {@link LockInvocationPlan}
+     * @param lockKeys  分布式锁Key值
+     * @param result    返回给调用方的{@link CompletableFuture}
+     */
+    private static void onFailureAsync(ProceedingJoinPoint joinPoint, LockInvocationPlan plan, List<String> lockKeys,
+                                       CompletableFuture<Object> result) {
+        CompletionStage<?> stage;
+        try {
+            stage = (CompletionStage<?>) plan.getFailureHandler().onFailure(joinPoint.getTarget(), joinPoint.getArgs(), lockKeys);
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        if (stage == null) {
+            result.complete(null);
+            return;
+        }
+        stage.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
     }
 }
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.aspect;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.jarvisframework.common.exception.DistributedLockException;
+import org.jarvisframework.distributed.lock.api.annotation.DistributedPermits;
+import org.jarvisframework.distributed.lock.api.plan.InvocationMode;
+import org.jarvisframework.distributed.lock.api.plan.LockInvocationPlanRegistry;
+import org.jarvisframework.distributed.lock.api.plan.PermitsInvocationPlan;
+import org.jarvisframework.distributed.lock.api.support.DistributedSemaphore;
+import org.jarvisframework.distributed.lock.api.support.RateLimitedLogger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式信号量切面
+ * <p>
+ * 许可不与线程绑定,返回{@link CompletionStage}的方法在调用线程获取许可,Future完成后归还
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+@Aspect
+public class DistributedPermitsAspect {
+
+    /**
+     * 获取许可失败日志,每秒最多输出一条
+     */
+    private static final RateLimitedLogger rejectionLogger = new RateLimitedLogger(
+            LoggerFactory.getLogger(DistributedPermits.class), 1L, TimeUnit.SECONDS);
+
+    /**
+     * 调用计划
+     */
+    private final LockInvocationPlanRegistry planRegistry;
+
+    public DistributedPermitsAspect(LockInvocationPlanRegistry planRegistry) {
+        this.planRegistry = planRegistry;
+    }
+
+    /**
+     * 注解切入点
+     */
+    @Pointcut("@annotation(org.jarvisframework.distributed.lock.api.annotation.DistributedPermits)")
+    public void distributedPermits() {
+    }
+
+    /**
+     * 环绕通知
+     *
+     * @param joinPoint {@link ProceedingJoinPoint}
+     * @return Object
+     * @throws Throwable
+     */
+    @Around("distributedPermits()")
+    public Object aroundDistributedPermits(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+
+        PermitsInvocationPlan plan = planRegistry.getPermitsPlan(signature.getMethod(), AopUtils.getTargetClass(joinPoint.getTarget()));
+
+        DistributedSemaphore semaphore = plan.obtainSemaphore(joinPoint.getArgs());
+        DistributedSemaphore.Lease lease = semaphore.tryAcquire(plan.getWaitNanos(), TimeUnit.NANOSECONDS);
+        if (lease == null) {
+            rejectionLogger.warn("acquire distributed permit failed.");
+            throw DistributedLockException.REJECTED;
+        }
+
+        if (plan.getInvocationMode() == InvocationMode.COMPLETION_STAGE) {
+            return proceedAsync(joinPoint, lease);
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * 执行异步方法,返回的{@link CompletionStage}完成后归还许可
+     *
+     * @param joinPoint {@link ProceedingJoinPoint}
+     * @param lease     许可租约
+     * @return {@link CompletableFuture}
+     * @throws Throwable
+     */
+    private Object proceedAsync(ProceedingJoinPoint joinPoint, DistributedSemaphore.Lease lease) throws Throwable {
+        CompletionStage<?> stage;
+        try {
+            stage = (CompletionStage<?>) joinPoint.proceed();
+        } catch (Throwable e) {
+            lease.close();
+            throw e;
+        }
+        if (stage == null) {
+            lease.close();
+            return null;
+        }
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        stage.whenComplete((value, error) -> {
+            lease.close();
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.aspect;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.jarvisframework.distributed.lock.api.metrics.LockMetrics;
+import org.jarvisframework.distributed.lock.api.support.AsyncLockExecutor;
+import org.jarvisframework.distributed.lock.api.support.FencingTokenHolder;
+import org.jarvisframework.distributed.lock.api.support.LockWaitPolicy;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Reactor返回类型的分布式锁处理
+ * <p>
+ * 订阅时获取锁,Publisher完成、异常或取消时释放锁,仅在Reactor存在时加载
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+final class ReactiveLockSupport {
+
+    private ReactiveLockSupport() {
+    }
+
+    static Mono<?> mono(ProceedingJoinPoint joinPoint, AsyncLockExecutor executor, Lock lock, long waitNanos,
+                        LockMetrics metrics, LockWaitPolicy waitPolicy) {
+        return Mono.usingWhen(acquire(executor, lock, waitNanos, metrics, waitPolicy),
+                lease -> {
+                    Mono<?> result = (Mono<?>) proceed(joinPoint, lease);
+                    return result != null ? result : Mono.empty();
+                },
+                lease -> Mono.fromRunnable(lease::release));
+    }
+
+    static Flux<?> flux(ProceedingJoinPoint joinPoint, AsyncLockExecutor executor, Lock lock, long waitNanos,
+                        LockMetrics metrics, LockWaitPolicy waitPolicy) {
+        return Flux.usingWhen(acquire(executor, lock, waitNanos, metrics, waitPolicy),
+                lease -> {
+                    Flux<?> result = (Flux<?>) proceed(joinPoint, lease);
+                    return result != null ? result : Flux.empty();
+                },
+                lease -> Mono.fromRunnable(lease::release));
+    }
+
+    /**
+     * 订阅时异步获取锁,获取过程中取消订阅时锁在获取成功后立即释放
+     */
+    private static Mono<AsyncLockExecutor.LockLease> acquire(AsyncLockExecutor executor, Lock lock, long waitNanos,
+                                                             LockMetrics metrics, LockWaitPolicy waitPolicy) {
+        return Mono.defer(() -> {
+            CompletableFuture<AsyncLockExecutor.LockLease> future = executor.acquire(lock, waitNanos, metrics, waitPolicy);
+            return Mono.fromFuture(future).doOnCancel(() -> {
+                future.cancel(false);
+                future.thenAccept(AsyncLockExecutor.LockLease::release);
+            });
+        });
+    }
+
+    /**
+     * 调用目标方法,组装Publisher期间可通过{@link FencingTokenHolder}读取防护令牌
+     */
+    private static Object proceed(ProceedingJoinPoint joinPoint, AsyncLockExecutor.LockLease lease) {
+        long outerToken = FencingTokenHolder.set(lease.getFencingToken());
+        try {
+            return joinPoint.proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw Exceptions.propagate(e);
+        } finally {
+            FencingTokenHolder.reset(outerToken);
+        }
+    }
+}
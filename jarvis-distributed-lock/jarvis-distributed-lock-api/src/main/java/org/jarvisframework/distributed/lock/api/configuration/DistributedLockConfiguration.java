@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.coyote.ProtocolHandler;
+import org.jarvisframework.distributed.lock.api.aspect.DistributedLockAspect;
+import org.jarvisframework.distributed.lock.api.aspect.DistributedPermitsAspect;
+import org.jarvisframework.distributed.lock.api.expression.LockKeyExpressionEvaluator;
+import org.jarvisframework.distributed.lock.api.metrics.LockMetricsFactory;
+import org.jarvisframework.distributed.lock.api.metrics.LockRegistryMetrics;
+import org.jarvisframework.distributed.lock.api.metrics.MicrometerLockMetricsFactory;
+import org.jarvisframework.distributed.lock.api.plan.LockInvocationPlanRegistry;
+import org.jarvisframework.distributed.lock.api.support.AsyncLockExecutor;
+import org.jarvisframework.distributed.lock.api.support.DistributedLockTemplate;
+import org.jarvisframework.distributed.lock.api.support.FailoverLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.LockCircuitBreaker;
+import org.jarvisframework.distributed.lock.api.support.LockRegistryEvictor;
+import org.jarvisframework.distributed.lock.api.support.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.integration.support.locks.LockRegistry;
+import org.springframework.util.StringUtils;
+
+/**
+ * 分布式锁切面自动配置
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+@EnableConfigurationProperties(DistributedLockProperties.class)
+@Import({DistributedLockConfiguration.DistributedLockMetricsConfiguration.class,
+        DistributedLockConfiguration.VirtualThreadWebServerConfiguration.class})
+public class DistributedLockConfiguration {
+
+    /**
+     * 分布式锁Key值表达式解析器
+     *
+     * @return {@link LockKeyExpressionEvaluator}
+     */
+    @Bean
+    @ConditionalOnMissingBean(LockKeyExpressionEvaluator.class)
+    public static LockKeyExpressionEvaluator lockKeyExpressionEvaluator() {
+        return new LockKeyExpressionEvaluator();
+    }
+
+    /**
+     * 分布式锁调用计划注册表
+     * <p>
+     * BeanPostProcessor需静态声明,避免提前实例化配置类
+     *
+     * @param lockKeyExpressionEvaluator {@link LockKeyExpressionEvaluator}
+     * @return {@link LockInvocationPlanRegistry}
+     */
+    @Bean
+    @ConditionalOnMissingBean(LockInvocationPlanRegistry.class)
+    public static LockInvocationPlanRegistry lockInvocationPlanRegistry(LockKeyExpressionEvaluator lockKeyExpressionEvaluator) {
+        return new LockInvocationPlanRegistry(lockKeyExpressionEvaluator);
+    }
+
+    /**
+     * 异步分布式锁执行器
+     *
+     * @param distributedLockProperties {@link DistributedLockProperties}
+     * @return {@link AsyncLockExecutor}
+     */
+    @Bean
+    @ConditionalOnMissingBean(AsyncLockExecutor.class)
+    public AsyncLockExecutor asyncLockExecutor(DistributedLockProperties distributedLockProperties) {
+        return new AsyncLockExecutor(distributedLockProperties.getAsyncMaxThreads(),
+                distributedLockProperties.isVirtualThreads());
+    }
+
+    /**
+     * 分布式锁切面
+     *
+     * @param lockInvocationPlanRegistry {@link LockInvocationPlanRegistry}
+     * @param asyncLockExecutor          {@link AsyncLockExecutor}
+     * @return {@link DistributedLockAspect}
+     */
+    @Bean
+    @ConditionalOnMissingBean(DistributedLockAspect.class)
+    public DistributedLockAspect distributedLockAspect(LockInvocationPlanRegistry lockInvocationPlanRegistry,
+                                                       AsyncLockExecutor asyncLockExecutor) {
+        return new DistributedLockAspect(lockInvocationPlanRegistry, asyncLockExecutor);
+    }
+
+    /**
+     * 分布式信号量切面
+     *
+     * @param lockInvocationPlanRegistry {@link LockInvocationPlanRegistry}
+     * @return {@link DistributedPermitsAspect}
+     */
+    @Bean
+    @ConditionalOnMissingBean(DistributedPermitsAspect.class)
+    public DistributedPermitsAspect distributedPermitsAspect(LockInvocationPlanRegistry lockInvocationPlanRegistry) {
+        return new DistributedPermitsAspect(lockInvocationPlanRegistry);
+    }
+
+    /**
+     * 编程式分布式锁模板,锁实现在首次使用时解析
+     *
+     * @param distributedLockProperties {@link DistributedLockProperties}
+     * @param beanFactory               {@link BeanFactory}
+     * @return {@link DistributedLockTemplate}
+     */
+    @Bean
+    @ConditionalOnMissingBean(DistributedLockTemplate.class)
+    public DistributedLockTemplate distributedLockTemplate(DistributedLockProperties distributedLockProperties,
+                                                           BeanFactory beanFactory) {
+        return new DistributedLockTemplate(beanFactory, distributedLockProperties.getTemplateLockType());
+    }
+
+    /**
+     * 分布式锁注册表空闲淘汰器
+     *
+     * @param distributedLockProperties {@link DistributedLockProperties}
+     * @return {@link LockRegistryEvictor}
+     */
+    @Bean
+    @ConditionalOnMissingBean(LockRegistryEvictor.class)
+    public LockRegistryEvictor lockRegistryEvictor(DistributedLockProperties distributedLockProperties) {
+        return new LockRegistryEvictor(distributedLockProperties.getRegistryIdleTimeout(),
+                distributedLockProperties.getRegistryEvictionInterval());
+    }
+
+    /**
+     * 熔断切换锁实现,Bean名称即{@link org.jarvisframework.distributed.lock.api.constant.DistributedLockType#DISTRIBUTED_LOCK_FAILOVER}
+     *
+     * @param distributedLockProperties {@link DistributedLockProperties}
+     * @param beanFactory               {@link BeanFactory}
+     * @return {@link FailoverLockRegistry}
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "jarvis.distributed-lock", name = "failover-primary")
+    @ConditionalOnMissingBean(FailoverLockRegistry.class)
+    public FailoverLockRegistry failoverLockRegistry(DistributedLockProperties distributedLockProperties, BeanFactory beanFactory) {
+        LockRegistry primary = beanFactory.getBean(distributedLockProperties.getFailoverPrimary(), LockRegistry.class);
+        LockRegistry secondary = StringUtils.hasText(distributedLockProperties.getFailoverSecondary())
+                ? beanFactory.getBean(distributedLockProperties.getFailoverSecondary(), LockRegistry.class) : null;
+        return new FailoverLockRegistry(primary, secondary, new LockCircuitBreaker(
+                distributedLockProperties.getFailoverFailureThreshold(), distributedLockProperties.getFailoverOpenDuration()));
+    }
+
+    /**
+     * 分布式锁指标配置,存在Micrometer时生效
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class DistributedLockMetricsConfiguration {
+
+        /**
+         * 分布式锁注册表指标
+         *
+         * @param beanFactory {@link ListableBeanFactory}
+         * @return {@link LockRegistryMetrics}
+         */
+        @Bean
+        @ConditionalOnMissingBean(LockRegistryMetrics.class)
+        public LockRegistryMetrics lockRegistryMetrics(ListableBeanFactory beanFactory) {
+            return new LockRegistryMetrics(beanFactory);
+        }
+
+        /**
+         * 分布式锁调用指标,记录获取锁等待时间、持有时间、超时及异常次数
+         *
+         * @param meterRegistry {@link MeterRegistry}
+         * @return {@link LockMetricsFactory}
+         */
+        @Bean
+        @ConditionalOnMissingBean(LockMetricsFactory.class)
+        public LockMetricsFactory lockMetricsFactory(ObjectProvider<MeterRegistry> meterRegistry) {
+            return new MicrometerLockMetricsFactory(meterRegistry);
+        }
+    }
+
+    /**
+     * Tomcat虚拟线程配置,开启{@code jarvis.distributed-lock.virtual-threads}且存在Tomcat时生效
+     * <p>
+     * 请求在虚拟线程上处理,同步方法阻塞等待分布式锁时不再占用平台线程
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(ProtocolHandler.class)
+    @ConditionalOnProperty(prefix = "jarvis.distributed-lock", name = "virtual-threads", havingValue = "true")
+    static class VirtualThreadWebServerConfiguration {
+
+        private static final Logger logger = LoggerFactory.getLogger(VirtualThreadWebServerConfiguration.class);
+
+        /**
+         * Tomcat请求处理执行器替换为每个请求一个虚拟线程,运行时不支持虚拟线程时保持原执行器
+         *
+         * @return {@link TomcatProtocolHandlerCustomizer}
+         */
+        @Bean
+        public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+            return protocolHandler -> {
+                if (!VirtualThreads.isSupported()) {
+                    logger.warn("virtual threads are not supported by this runtime, tomcat keeps platform threads.");
+                    return;
+                }
+                protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor("tomcat-handler-"));
+            };
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.configuration;
+
+import org.jarvisframework.distributed.lock.api.constant.DistributedLockType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.StringJoiner;
+
+/**
+ * 分布式锁属性配置类
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "jarvis.distributed-lock")
+public class DistributedLockProperties {
+
+    /**
+     * Key值分段模式下每个Key值模板的默认分段数
+     */
+    private int keyStripes = 256;
+
+    /**
+     * 异步方法同时获取或持有分布式锁的最大数量
+     */
+    private int asyncMaxThreads = 256;
+
+    /**
+     * 是否使用虚拟线程获取异步锁并处理Tomcat请求,需Java 21及以上运行时
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * 每个注册表缓存锁实例的最大数量
+     */
+    private int registryCapacity = 10000;
+
+    /**
+     * 锁实例空闲超过该时间(毫秒)后淘汰
+     */
+    private long registryIdleTimeout = 60000L;
+
+    /**
+     * 空闲锁实例淘汰间隔(毫秒)
+     */
+    private long registryEvictionInterval = 30000L;
+
+    /**
+     * 熔断切换的主锁实现Bean名称,配置后注册{@code failoverLockRegistry}
+     */
+    private String failoverPrimary;
+
+    /**
+     * 熔断切换的备用锁实现Bean名称,为空时熔断期间直接失败
+     */
+    private String failoverSecondary;
+
+    /**
+     * 主锁实现触发熔断的连续异常次数
+     */
+    private int failoverFailureThreshold = 5;
+
+    /**
+     * 主锁实现熔断时间(毫秒),之后放行探测请求
+     */
+    private long failoverOpenDuration = 10000L;
+
+    /**
+     * 编程式分布式锁模板默认使用的锁实现Bean名称,与注解默认值一致
+     */
+    private String templateLockType = DistributedLockType.DISTRIBUTED_LOCK_ZOOKEEPER;
+
+    public int getKeyStripes() {
+        return keyStripes;
+    }
+
+    public void setKeyStripes(int keyStripes) {
+        this.keyStripes = keyStripes;
+    }
+
+    public int getAsyncMaxThreads() {
+        return asyncMaxThreads;
+    }
+
+    public void setAsyncMaxThreads(int asyncMaxThreads) {
+        this.asyncMaxThreads = asyncMaxThreads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getRegistryCapacity() {
+        return registryCapacity;
+    }
+
+    public void setRegistryCapacity(int registryCapacity) {
+        this.registryCapacity = registryCapacity;
+    }
+
+    public long getRegistryIdleTimeout() {
+        return registryIdleTimeout;
+    }
+
+    public void setRegistryIdleTimeout(long registryIdleTimeout) {
+        this.registryIdleTimeout = registryIdleTimeout;
+    }
+
+    public long getRegistryEvictionInterval() {
+        return registryEvictionInterval;
+    }
+
+    public void setRegistryEvictionInterval(long registryEvictionInterval) {
+        this.registryEvictionInterval = registryEvictionInterval;
+    }
+
+    public String getFailoverPrimary() {
+        return failoverPrimary;
+    }
+
+    public void setFailoverPrimary(String failoverPrimary) {
+        this.failoverPrimary = failoverPrimary;
+    }
+
+    public String getFailoverSecondary() {
+        return failoverSecondary;
+    }
+
+    public void setFailoverSecondary(String failoverSecondary) {
+        this.failoverSecondary = failoverSecondary;
+    }
+
+    public int getFailoverFailureThreshold() {
+        return failoverFailureThreshold;
+    }
+
+    public void setFailoverFailureThreshold(int failoverFailureThreshold) {
+        this.failoverFailureThreshold = failoverFailureThreshold;
+    }
+
+    public long getFailoverOpenDuration() {
+        return failoverOpenDuration;
+    }
+
+    public void setFailoverOpenDuration(long failoverOpenDuration) {
+        this.failoverOpenDuration = failoverOpenDuration;
+    }
+
+    public String getTemplateLockType() {
+        return templateLockType;
+    }
+
+    public void setTemplateLockType(String templateLockType) {
+        this.templateLockType = templateLockType;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", DistributedLockProperties.class.getSimpleName() + "[", "]")
+                .add("keyStripes=" + keyStripes)
+                .add("asyncMaxThreads=" + asyncMaxThreads)
+                .add("virtualThreads=" + virtualThreads)
+                .add("registryCapacity=" + registryCapacity)
+                .add("registryIdleTimeout=" + registryIdleTimeout)
+                .add("registryEvictionInterval=" + registryEvictionInterval)
+                .add("failoverPrimary='" + failoverPrimary + "'")
+                .add("failoverSecondary='" + failoverSecondary + "'")
+                .add("failoverFailureThreshold=" + failoverFailureThreshold)
+                .add("failoverOpenDuration=" + failoverOpenDuration)
+                .add("templateLockType='" + templateLockType + "'")
+                .toString();
+    }
+}
@@ -33,4 +33,19 @@ public final class DistributedLockType {
      * Redis分布式锁
      */
     public static final String DISTRIBUTED_LOCK_REDIS = "redisLockRegistry";
+
+    /**
+     * 多数派Redis分布式锁,由{@code jarvis.redis-lock.quorum-enabled}启用
+     */
+    public static final String DISTRIBUTED_LOCK_REDIS_QUORUM = "redisQuorumLockRegistry";
+
+    /**
+     * 进程内锁,只在当前JVM内互斥,适用于单节点部署及测试
+     */
+    public static final String DISTRIBUTED_LOCK_LOCAL = "localLockRegistry";
+
+    /**
+     * 熔断切换锁,由{@code jarvis.distributed-lock.failover-primary}等属性启用
+     */
+    public static final String DISTRIBUTED_LOCK_FAILOVER = "failoverLockRegistry";
 }
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.constant;
+
+/**
+ * 获取分布式锁失败时的处理策略
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public enum LockFailureStrategy {
+
+    /**
+     * 抛出不带堆栈的共享{@link org.jarvisframework.common.exception.DistributedLockException}
+     */
+    THROW,
+
+    /**
+     * 跳过方法执行,返回{@code null};基本类型返回默认值,{@link java.util.Optional}返回空值,异步方法返回已完成的空结果
+     */
+    SKIP,
+
+    /**
+     * 调用同一类中的降级方法,参数列表与原方法相同或为空,返回类型需与原方法兼容
+     */
+    FALLBACK,
+
+    /**
+     * 返回本节点相同Key值最近一次成功执行的结果,没有可用结果时抛出异常
+     */
+    CACHED
+}
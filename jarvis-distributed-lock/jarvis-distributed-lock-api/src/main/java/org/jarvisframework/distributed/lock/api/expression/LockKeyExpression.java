@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.expression;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+
+/**
+ * 已解析的分布式锁Key值
+ * <p>
+ * 字面量Key值直接返回,SpEL表达式在首次求值后由SpEL编译为字节码
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public final class LockKeyExpression {
+
+    /**
+     * Key值模板
+     */
+    private final String template;
+
+    /**
+     * SpEL表达式,字面量时为空
+     */
+    private final Expression expression;
+
+    /**
+     * 共享的只读求值上下文
+     */
+    private final EvaluationContext sharedContext;
+
+    /**
+     * 方法参数名,无法获取时为空
+     */
+    private final String[] parameterNames;
+
+    private LockKeyExpression(String template, Expression expression, EvaluationContext sharedContext, String[] parameterNames) {
+        this.template = template;
+        this.expression = expression;
+        this.sharedContext = sharedContext;
+        this.parameterNames = parameterNames;
+    }
+
+    static LockKeyExpression literal(String template) {
+        return new LockKeyExpression(template, null, null, null);
+    }
+
+    static LockKeyExpression spel(String template, Expression expression, EvaluationContext sharedContext, String[] parameterNames) {
+        return new LockKeyExpression(template, expression, sharedContext, parameterNames);
+    }
+
+    /**
+     * 根据方法参数计算Key值
+     *
+     * @param args 方法参数
+     * @return 分布式锁Key值
+     */
+    public String getValue(Object[] args) {
+        if (expression == null) {
+            return template;
+        }
+        Object value = expression.getValue(new MethodArgumentEvaluationContext(sharedContext, parameterNames, args));
+        if (value == null) {
+            throw new IllegalStateException("lockKey expression [" + template + "] evaluated to null");
+        }
+        return value.toString();
+    }
+
+    /**
+     * 是否为字面量Key值
+     *
+     * @return 是否为字面量Key值
+     */
+    public boolean isLiteral() {
+        return expression == null;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.expression;
+
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分布式锁Key值SpEL表达式解析器
+ * <p>
+ * 每个{@link Method}上的每个Key值模板只解析、编译一次并缓存,调用时只做求值
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class LockKeyExpressionEvaluator {
+
+    /**
+     * SpEL表达式标识,Key值包含该字符时按SpEL表达式解析,否则按字面量处理
+     */
+    public static final String EXPRESSION_MARKER = "#";
+
+    private final SpelExpressionParser parser;
+
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    /**
+     * 共享的只读求值上下文,提供属性访问器、类型转换等基础设施
+     */
+    private final StandardEvaluationContext sharedContext = new StandardEvaluationContext();
+
+    private final Map<ExpressionKey, LockKeyExpression> expressionCache = new ConcurrentHashMap<>(64);
+
+    public LockKeyExpressionEvaluator() {
+        this.parser = new SpelExpressionParser(
+                new SpelParserConfiguration(SpelCompilerMode.MIXED, LockKeyExpressionEvaluator.class.getClassLoader()));
+        // 提前初始化共享上下文的惰性属性,保证多线程只读访问安全
+        this.sharedContext.getPropertyAccessors();
+        this.sharedContext.getConstructorResolvers();
+        this.sharedContext.getMethodResolvers();
+        this.sharedContext.getTypeLocator();
+    }
+
+    /**
+     * 计算分布式锁Key值
+     *
+     * @param method   注解所在方法,用于缓存及解析参数名
+     * @param template Key值模板,如 {@code 'order:' + #orderId}
+     * @param args     方法参数
+     * @return 分布式锁Key值
+     */
+    public String evaluate(Method method, String template, Object[] args) {
+        return getExpression(method, template).getValue(args);
+    }
+
+    /**
+     * 获取(必要时解析并缓存)方法上Key值模板对应的Key值表达式,同一方法可有多个模板(如多Key值锁)
+     *
+     * @param method   注解所在方法
+     * @param template Key值模板
+     * @return {@link LockKeyExpression}
+     */
+    public LockKeyExpression getExpression(Method method, String template) {
+        ExpressionKey cacheKey = new ExpressionKey(method, template);
+        LockKeyExpression expression = expressionCache.get(cacheKey);
+        if (expression == null) {
+            expression = expressionCache.computeIfAbsent(cacheKey, key -> parse(method, template));
+        }
+        return expression;
+    }
+
+    /**
+     * 解析Key值模板
+     *
+     * @param method   注解所在方法
+     * @param template Key值模板
+     * @return {@link LockKeyExpression}
+     */
+    public LockKeyExpression parse(Method method, String template) {
+        if (!StringUtils.hasText(template)) {
+            throw new IllegalArgumentException("lockKey must not be empty: " + method);
+        }
+        if (!template.contains(EXPRESSION_MARKER)) {
+            return LockKeyExpression.literal(template);
+        }
+        Expression expression = parser.parseExpression(template);
+        String[] parameterNames = parameterNameDiscoverer.getParameterNames(method);
+        return LockKeyExpression.spel(template, expression, sharedContext, parameterNames);
+    }
+
+    /**
+     * 表达式缓存Key值
+     */
+    private static final class ExpressionKey {
+
+        private final Method method;
+
+        private final String template;
+
+        ExpressionKey(Method method, String template) {
+            this.method = method;
+            this.template = template;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ExpressionKey)) {
+                return false;
+            }
+            ExpressionKey that = (ExpressionKey) o;
+            return method.equals(that.method) && Objects.equals(template, that.template);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * method.hashCode() + Objects.hashCode(template);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.metrics;
+
+/**
+ * 分布式锁调用指标
+ * <p>
+ * 每个调用计划持有一个实例,指标在生成计划时预先注册,调用时只做记录,成功路径不产生额外对象
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public interface LockMetrics {
+
+    /**
+     * 不记录任何指标
+     */
+    LockMetrics NOOP = new LockMetrics() {
+        @Override
+        public void recordWait(long nanos) {
+        }
+
+        @Override
+        public void recordHold(long nanos) {
+        }
+
+        @Override
+        public void recordTimeout() {
+        }
+
+        @Override
+        public void recordError() {
+        }
+
+        @Override
+        public void recordStripeContention() {
+        }
+    };
+
+    /**
+     * 记录获取锁的等待时间,包括超时未获取到的等待
+     *
+     * @param nanos 等待时间(纳秒)
+     */
+    void recordWait(long nanos);
+
+    /**
+     * 记录持有锁的时间
+     *
+     * @param nanos 持有时间(纳秒)
+     */
+    void recordHold(long nanos);
+
+    /**
+     * 记录等待超时未获取到锁
+     */
+    void recordTimeout();
+
+    /**
+     * 记录锁实现(Redis、Zookeeper)加锁或解锁异常
+     */
+    void recordError();
+
+    /**
+     * 记录Key值分段模式下分段锁已被本节点其他Key值持有,即不同Key值落在同一分段造成的等待
+     */
+    void recordStripeContention();
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.metrics;
+
+/**
+ * 分布式锁调用指标工厂
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public interface LockMetricsFactory {
+
+    /**
+     * 不记录任何指标
+     */
+    LockMetricsFactory NOOP = (lockType, lockName) -> LockMetrics.NOOP;
+
+    /**
+     * 创建调用计划的指标
+     *
+     * @param lockType 分布式锁类型
+     * @param lockName 锁名称,取注解中的Key值模板而非求值后的Key值,取值数量有限
+     * @return {@link LockMetrics}
+     */
+    LockMetrics create(String lockType, String lockName);
+}
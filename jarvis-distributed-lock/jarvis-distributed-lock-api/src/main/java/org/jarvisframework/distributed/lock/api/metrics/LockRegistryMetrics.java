@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jarvisframework.distributed.lock.api.support.BoundedLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.FailoverLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.LockCircuitBreaker;
+import org.springframework.beans.factory.ListableBeanFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁注册表指标
+ * <p>
+ * 按注册表Bean名称暴露当前缓存的锁实例数量与累计淘汰数量,以及熔断切换锁实现的主锁耗时、熔断状态与切换次数
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class LockRegistryMetrics implements MeterBinder {
+
+    /**
+     * 锁实例数量指标名称
+     */
+    public static final String REGISTRY_SIZE = "jarvis.distributed.lock.registry.size";
+
+    /**
+     * 淘汰数量指标名称
+     */
+    public static final String REGISTRY_EVICTIONS = "jarvis.distributed.lock.registry.evictions";
+
+    /**
+     * 主锁实现获取锁耗时指标名称
+     */
+    public static final String FAILOVER_PRIMARY_LATENCY = "jarvis.distributed.lock.failover.primary.latency";
+
+    /**
+     * 主锁实现异常次数指标名称
+     */
+    public static final String FAILOVER_PRIMARY_FAILURES = "jarvis.distributed.lock.failover.primary.failures";
+
+    /**
+     * 熔断状态指标名称,熔断或探测中为1
+     */
+    public static final String FAILOVER_CIRCUIT_OPEN = "jarvis.distributed.lock.failover.circuit.open";
+
+    /**
+     * 转到备用锁实现次数指标名称
+     */
+    public static final String FAILOVER_SWITCHES = "jarvis.distributed.lock.failover.switches";
+
+    /**
+     * 熔断期间直接失败次数指标名称
+     */
+    public static final String FAILOVER_REJECTIONS = "jarvis.distributed.lock.failover.rejections";
+
+    private final ListableBeanFactory beanFactory;
+
+    public LockRegistryMetrics(ListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        beanFactory.getBeansOfType(BoundedLockRegistry.class).forEach((name, registry) -> {
+            Gauge.builder(REGISTRY_SIZE, registry, BoundedLockRegistry::size)
+                    .tag("registry", name)
+                    .description("Number of lock instances cached by the registry")
+                    .register(meterRegistry);
+            FunctionCounter.builder(REGISTRY_EVICTIONS, registry, BoundedLockRegistry::getEvictionCount)
+                    .tag("registry", name)
+                    .description("Number of lock instances evicted from the registry")
+                    .register(meterRegistry);
+        });
+        beanFactory.getBeansOfType(FailoverLockRegistry.class).forEach((name, registry) -> {
+            FunctionTimer.builder(FAILOVER_PRIMARY_LATENCY, registry, FailoverLockRegistry::getPrimaryAcquisitions,
+                            FailoverLockRegistry::getPrimaryLatencyNanos, TimeUnit.NANOSECONDS)
+                    .tag("registry", name)
+                    .description("Time spent acquiring locks from the primary registry")
+                    .register(meterRegistry);
+            FunctionCounter.builder(FAILOVER_PRIMARY_FAILURES, registry, FailoverLockRegistry::getPrimaryFailures)
+                    .tag("registry", name)
+                    .description("Primary registry failures while locking or unlocking")
+                    .register(meterRegistry);
+            Gauge.builder(FAILOVER_CIRCUIT_OPEN, registry,
+                            r -> r.getCircuitState() == LockCircuitBreaker.State.CLOSED ? 0 : 1)
+                    .tag("registry", name)
+                    .description("Whether the primary registry circuit is open")
+                    .register(meterRegistry);
+            FunctionCounter.builder(FAILOVER_SWITCHES, registry, FailoverLockRegistry::getFailovers)
+                    .tag("registry", name)
+                    .description("Lock acquisitions routed to the secondary registry")
+                    .register(meterRegistry);
+            FunctionCounter.builder(FAILOVER_REJECTIONS, registry, FailoverLockRegistry::getRejections)
+                    .tag("registry", name)
+                    .description("Lock acquisitions failed fast while the circuit was open")
+                    .register(meterRegistry);
+        });
+    }
+}
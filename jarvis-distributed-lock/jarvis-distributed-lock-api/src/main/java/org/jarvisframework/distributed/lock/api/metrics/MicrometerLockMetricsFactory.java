@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 基于Micrometer的分布式锁调用指标
+ * <p>
+ * 按锁类型({@code registry})与Key值模板({@code lock})打标签,计时器与计数器在生成调用计划时注册
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class MicrometerLockMetricsFactory implements LockMetricsFactory {
+
+    /**
+     * 获取锁等待时间指标名称
+     */
+    public static final String LOCK_WAIT = "jarvis.distributed.lock.wait";
+
+    /**
+     * 持有锁时间指标名称
+     */
+    public static final String LOCK_HELD = "jarvis.distributed.lock.held";
+
+    /**
+     * 获取锁超时次数指标名称
+     */
+    public static final String LOCK_TIMEOUTS = "jarvis.distributed.lock.timeouts";
+
+    /**
+     * 锁实现异常次数指标名称
+     */
+    public static final String LOCK_ERRORS = "jarvis.distributed.lock.errors";
+
+    /**
+     * 分段锁被其他Key值占用次数指标名称
+     */
+    public static final String LOCK_STRIPE_CONTENTION = "jarvis.distributed.lock.stripe.contention";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    /**
+     * 基于Micrometer的分布式锁调用指标工厂构造方法
+     *
+     * @param meterRegistry {@link MeterRegistry},在生成调用计划时获取,不存在时不记录指标
+     */
+    public MicrometerLockMetricsFactory(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public LockMetrics create(String lockType, String lockName) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return LockMetrics.NOOP;
+        }
+        Tags tags = Tags.of("registry", lockType, "lock", lockName);
+        return new MicrometerLockMetrics(
+                Timer.builder(LOCK_WAIT).tags(tags)
+                        .description("Time spent waiting to acquire the distributed lock").register(registry),
+                Timer.builder(LOCK_HELD).tags(tags)
+                        .description("Time the distributed lock was held").register(registry),
+                Counter.builder(LOCK_TIMEOUTS).tags(tags)
+                        .description("Lock acquisitions that timed out").register(registry),
+                Counter.builder(LOCK_ERRORS).tags(tags)
+                        .description("Lock registry failures while locking or unlocking").register(registry),
+                () -> Counter.builder(LOCK_STRIPE_CONTENTION).tags(tags)
+                        .description("Lock acquisitions that found the stripe held by a different key").register(registry));
+    }
+
+    /**
+     * 预先注册的计时器与计数器
+     */
+    private static final class MicrometerLockMetrics implements LockMetrics {
+
+        private final Timer wait;
+
+        private final Timer held;
+
+        private final Counter timeouts;
+
+        private final Counter errors;
+
+        /**
+         * 分段竞争计数器仅在Key值分段模式下使用,首次记录时注册
+         */
+        private final Supplier<Counter> stripeContentionRegistrar;
+
+        private volatile Counter stripeContention;
+
+        MicrometerLockMetrics(Timer wait, Timer held, Counter timeouts, Counter errors, Supplier<Counter> stripeContentionRegistrar) {
+            this.wait = wait;
+            this.held = held;
+            this.timeouts = timeouts;
+            this.errors = errors;
+            this.stripeContentionRegistrar = stripeContentionRegistrar;
+        }
+
+        @Override
+        public void recordWait(long nanos) {
+            wait.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void recordHold(long nanos) {
+            held.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void recordTimeout() {
+            timeouts.increment();
+        }
+
+        @Override
+        public void recordError() {
+            errors.increment();
+        }
+
+        @Override
+        public void recordStripeContention() {
+            Counter counter = stripeContention;
+            if (counter == null) {
+                // 重复注册返回同一计数器
+                counter = stripeContentionRegistrar.get();
+                stripeContention = counter;
+            }
+            counter.increment();
+        }
+    }
+}
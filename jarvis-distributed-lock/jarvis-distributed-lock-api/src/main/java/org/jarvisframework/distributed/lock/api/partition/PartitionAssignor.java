@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.partition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 基于有界负载Rendezvous哈希的分区分配
+ * <p>
+ * 每个分区按(分区组, 分区, 节点)的哈希权重对节点排序,依次分配给权重最高且未达到上限的节点,
+ * 上限为{@code ceil(分区数 / 节点数)}。分配只依赖成员列表,各节点独立计算得到一致的结果;
+ * 节点加入或离开时绝大多数分区保持原归属
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public final class PartitionAssignor {
+
+    private PartitionAssignor() {
+    }
+
+    /**
+     * 计算节点应持有的分区
+     *
+     * @param group      分区组名称
+     * @param partitions 分区数
+     * @param members    存活的节点
+     * @param memberId   节点标识
+     * @return 分配给该节点的分区,节点不在成员列表中时为空
+     */
+    public static Set<Integer> assign(String group, int partitions, List<String> members, String memberId) {
+        List<String> sorted = new ArrayList<>(new HashSet<>(members));
+        Collections.sort(sorted);
+        int self = sorted.indexOf(memberId);
+        Set<Integer> assigned = new HashSet<>();
+        if (self < 0) {
+            return assigned;
+        }
+        int size = sorted.size();
+        int capacity = (partitions + size - 1) / size;
+        int[] loads = new int[size];
+        long[] memberHashes = new long[size];
+        for (int i = 0; i < size; i++) {
+            memberHashes[i] = mix(group.hashCode() * 0x9E3779B97F4A7C15L ^ sorted.get(i).hashCode());
+        }
+        for (int partition = 0; partition < partitions; partition++) {
+            int owner = -1;
+            long best = 0;
+            for (int i = 0; i < size; i++) {
+                if (loads[i] >= capacity) {
+                    continue;
+                }
+                long weight = mix(memberHashes[i] + partition * 0xC2B2AE3D27D4EB4FL);
+                if (owner < 0 || Long.compareUnsigned(weight, best) > 0) {
+                    owner = i;
+                    best = weight;
+                }
+            }
+            loads[owner]++;
+            if (owner == self) {
+                assigned.add(partition);
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * MurmurHash3 64位混淆
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.partition;
+
+import org.jarvisframework.distributed.lock.api.support.FencedLock;
+import org.jarvisframework.distributed.lock.api.support.FencingTokenHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.integration.support.locks.LockRegistry;
+import org.springframework.util.Assert;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 分区归属协调器
+ * <p>
+ * 把一组固定数量的分区分摊到存活节点上,替代只有一个节点工作的全局锁。每个调度周期:
+ * <ol>
+ *     <li>通过{@link PartitionMembership}续约并读取存活节点</li>
+ *     <li>按{@link PartitionAssignor}计算本节点应持有的分区</li>
+ *     <li>先回调{@link PartitionListener#onPartitionsRevoked(Set)}再释放不再属于本节点的分区锁</li>
+ *     <li>非阻塞获取新分区的分区锁,成功后回调{@link PartitionListener#onPartitionsAssigned(Set)}</li>
+ * </ol>
+ * 分区锁保证同一分区同时只有一个持有者:新归属节点要等原节点释放后的下一个周期才能获得分区,
+ * 交接最多延迟约两个调度周期。分区锁在调度线程上获取和释放,防护令牌在获取时记录;
+ * 每个周期开始时核实已持有的分区锁,租约丢失的分区同样回调{@link PartitionListener#onPartitionsRevoked(Set)}
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class PartitionCoordinator implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionCoordinator.class);
+
+    /**
+     * 默认调度周期(毫秒)
+     */
+    public static final long DEFAULT_REBALANCE_INTERVAL = 5000L;
+
+    /**
+     * 分区锁Key值前缀
+     */
+    public static final String PARTITION_LOCK_PREFIX = "partition:";
+
+    private final String group;
+
+    private final int partitions;
+
+    private final LockRegistry lockRegistry;
+
+    private final PartitionMembership membership;
+
+    private final PartitionListener listener;
+
+    private String memberId = UUID.randomUUID().toString();
+
+    private long rebalanceInterval = DEFAULT_REBALANCE_INTERVAL;
+
+    /**
+     * 持有中的分区锁,仅在调度线程上访问
+     */
+    private final Map<Integer, Lock> held = new HashMap<>();
+
+    /**
+     * 持有中的分区及其防护令牌
+     */
+    private final Map<Integer, Long> fencingTokens = new ConcurrentHashMap<>();
+
+    private volatile ScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> rebalanceTask;
+
+    /**
+     * 分区归属协调器构造方法
+     *
+     * @param group        分区组名称
+     * @param partitions   分区数
+     * @param lockRegistry 分区锁实现
+     * @param membership   分区成员注册
+     * @param listener     分区分配监听
+     */
+    public PartitionCoordinator(String group, int partitions, LockRegistry lockRegistry, PartitionMembership membership,
+                                PartitionListener listener) {
+        Assert.hasText(group, "'group' must not be empty");
+        Assert.isTrue(partitions > 0, "'partitions' must be positive");
+        Assert.notNull(lockRegistry, "'lockRegistry' must not be null");
+        Assert.notNull(membership, "'membership' must not be null");
+        Assert.notNull(listener, "'listener' must not be null");
+        this.group = group;
+        this.partitions = partitions;
+        this.lockRegistry = lockRegistry;
+        this.membership = membership;
+        this.listener = listener;
+    }
+
+    /**
+     * 设置节点标识,默认随机生成
+     *
+     * @param memberId 节点标识,同一分区组内唯一
+     */
+    public void setMemberId(String memberId) {
+        Assert.hasText(memberId, "'memberId' must not be empty");
+        this.memberId = memberId;
+    }
+
+    /**
+     * 设置调度周期
+     *
+     * @param rebalanceInterval 调度周期(毫秒),应小于成员注册的租约时间
+     */
+    public void setRebalanceInterval(long rebalanceInterval) {
+        Assert.isTrue(rebalanceInterval > 0, "'rebalanceInterval' must be positive");
+        this.rebalanceInterval = rebalanceInterval;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "distributed-lock-partition-" + group);
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebalanceTask = scheduler.scheduleWithFixedDelay(this::rebalance, 0L, rebalanceInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止调度,等待进行中的周期结束后收回全部分区并离开分区组
+     */
+    @Override
+    public synchronized void stop() {
+        ScheduledExecutorService current = scheduler;
+        if (current == null) {
+            return;
+        }
+        rebalanceTask.cancel(false);
+        try {
+            current.submit(this::release).get(rebalanceInterval + 5000L, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("release partitions of group {} failed.", group, e);
+        } finally {
+            current.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * 执行一个调度周期,异常不中断后续调度
+     */
+    void rebalance() {
+        try {
+            revokeLost();
+            List<String> members;
+            try {
+                membership.join(group, memberId);
+                members = membership.members(group);
+            } catch (RuntimeException e) {
+                logger.warn("refresh members of partition group {} failed, keep current partitions.", group, e);
+                return;
+            }
+            Set<Integer> target = PartitionAssignor.assign(group, partitions, members, memberId);
+            Set<Integer> revoked = new TreeSet<>(held.keySet());
+            revoked.removeAll(target);
+            revoke(revoked);
+            Set<Integer> assigned = new TreeSet<>();
+            for (Integer partition : target) {
+                if (!held.containsKey(partition) && tryAcquire(partition)) {
+                    assigned.add(partition);
+                }
+            }
+            if (!assigned.isEmpty()) {
+                listener.onPartitionsAssigned(Collections.unmodifiableSet(assigned));
+            }
+        } catch (RuntimeException e) {
+            logger.error("rebalance partition group {} failed.", group, e);
+        }
+    }
+
+    /**
+     * 收回租约已失效(如会话丢失、锁过期或被其他节点接管)的分区,每个周期通过{@link FencedLock#isHeld()}向存储核实;
+     * 核实失败时保留分区,由下一周期重试
+     */
+    private void revokeLost() {
+        Set<Integer> lost = new TreeSet<>();
+        for (Map.Entry<Integer, Lock> entry : held.entrySet()) {
+            try {
+                if (!FencingTokenHolder.isHeld(entry.getValue())) {
+                    lost.add(entry.getKey());
+                }
+            } catch (RuntimeException e) {
+                logger.warn("verify lease of partition {} in group {} failed.", entry.getKey(), group, e);
+            }
+        }
+        if (!lost.isEmpty()) {
+            logger.warn("leases of partitions {} in group {} were lost.", lost, group);
+            revoke(lost);
+        }
+    }
+
+    private boolean tryAcquire(int partition) {
+        Lock lock = lockRegistry.obtain(PARTITION_LOCK_PREFIX + group + ":" + partition);
+        try {
+            if (!lock.tryLock()) {
+                return false;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("acquire partition {} of group {} failed.", partition, group, e);
+            return false;
+        }
+        held.put(partition, lock);
+        fencingTokens.put(partition, FencingTokenHolder.tokenOf(lock));
+        return true;
+    }
+
+    /**
+     * 回调收回并释放分区锁,租约已失效的分区锁同样释放以清理本地持有状态
+     *
+     * @param revoked 收回的分区
+     */
+    private void revoke(Set<Integer> revoked) {
+        if (revoked.isEmpty()) {
+            return;
+        }
+        try {
+            listener.onPartitionsRevoked(Collections.unmodifiableSet(revoked));
+        } finally {
+            for (Integer partition : revoked) {
+                Lock lock = held.remove(partition);
+                fencingTokens.remove(partition);
+                unlockQuietly(partition, lock);
+            }
+        }
+    }
+
+    private void unlockQuietly(int partition, Lock lock) {
+        try {
+            lock.unlock();
+        } catch (RuntimeException e) {
+            logger.warn("release partition {} of group {} failed.", partition, group, e);
+        }
+    }
+
+    private void release() {
+        try {
+            revoke(new TreeSet<>(held.keySet()));
+        } finally {
+            membership.leave(group, memberId);
+        }
+    }
+
+    /**
+     * 当前持有的分区
+     *
+     * @return 分区快照
+     */
+    public Set<Integer> getOwnedPartitions() {
+        return Collections.unmodifiableSet(new HashSet<>(fencingTokens.keySet()));
+    }
+
+    /**
+     * 获取分区锁时签发的防护令牌,可随分区写入一并提交给下游存储
+     *
+     * @param partition 分区
+     * @return 防护令牌,未持有分区或锁实现不支持时为{@link FencedLock#NO_TOKEN}
+     */
+    public long getFencingToken(int partition) {
+        return fencingTokens.getOrDefault(partition, FencedLock.NO_TOKEN);
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public String getMemberId() {
+        return memberId;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", PartitionCoordinator.class.getSimpleName() + "[", "]")
+                .add("group='" + group + "'")
+                .add("partitions=" + partitions)
+                .add("memberId='" + memberId + "'")
+                .add("owned=" + fencingTokens.size())
+                .toString();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.partition;
+
+import java.util.Set;
+
+/**
+ * 分区分配监听
+ * <p>
+ * 回调在{@link PartitionCoordinator}的调度线程上执行,应尽快返回;
+ * {@link #onPartitionsRevoked(Set)}返回后分区租约随即释放,其他节点可能立即开始处理
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public interface PartitionListener {
+
+    /**
+     * 获得分区租约
+     *
+     * @param partitions 新分配给本节点的分区
+     */
+    void onPartitionsAssigned(Set<Integer> partitions);
+
+    /**
+     * 分区被收回,返回前应停止处理这些分区
+     *
+     * @param partitions 不再属于本节点的分区
+     */
+    void onPartitionsRevoked(Set<Integer> partitions);
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.partition;
+
+import java.util.List;
+
+/**
+ * 分区成员注册
+ * <p>
+ * 记录每个分区组当前存活的节点,节点异常退出后由实现按会话或租约自动移除
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public interface PartitionMembership {
+
+    /**
+     * 加入分区组,重复调用用于续约或在会话丢失后重新注册
+     *
+     * @param group    分区组名称
+     * @param memberId 节点标识
+     */
+    void join(String group, String memberId);
+
+    /**
+     * 离开分区组
+     *
+     * @param group    分区组名称
+     * @param memberId 节点标识
+     */
+    void leave(String group, String memberId);
+
+    /**
+     * 当前存活的节点
+     *
+     * @param group 分区组名称
+     * @return 节点标识
+     */
+    List<String> members(String group);
+}
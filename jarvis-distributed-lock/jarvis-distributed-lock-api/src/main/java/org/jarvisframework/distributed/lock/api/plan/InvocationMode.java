@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.plan;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 加锁方法的调用方式
+ * <p>
+ * 异步方法的锁在返回的Future或Publisher完成后才释放
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public enum InvocationMode {
+    /**
+     * 同步方法
+     */
+    SYNC,
+    /**
+     * 返回{@link CompletionStage}或{@link CompletableFuture}
+     */
+    COMPLETION_STAGE,
+    /**
+     * 返回Reactor Mono
+     */
+    MONO,
+    /**
+     * 返回Reactor Flux
+     */
+    FLUX,
+    ;
+
+    private static final String MONO_CLASS_NAME = "reactor.core.publisher.Mono";
+
+    private static final String FLUX_CLASS_NAME = "reactor.core.publisher.Flux";
+
+    /**
+     * 根据方法返回类型判断调用方式,按类名匹配Reactor类型以免强依赖Reactor
+     *
+     * @param returnType 方法返回类型
+     * @return {@link InvocationMode}
+     */
+    public static InvocationMode of(Class<?> returnType) {
+        if (returnType == CompletionStage.class || returnType == CompletableFuture.class) {
+            return COMPLETION_STAGE;
+        }
+        if (MONO_CLASS_NAME.equals(returnType.getName())) {
+            return MONO;
+        }
+        if (FLUX_CLASS_NAME.equals(returnType.getName())) {
+            return FLUX;
+        }
+        return SYNC;
+    }
+}
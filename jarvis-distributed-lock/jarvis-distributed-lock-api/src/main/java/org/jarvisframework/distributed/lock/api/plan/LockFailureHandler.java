@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.plan;
+
+import org.jarvisframework.common.exception.DistributedLockException;
+import org.jarvisframework.distributed.lock.api.annotation.DistributedLock;
+import org.jarvisframework.distributed.lock.api.constant.LockFailureStrategy;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 获取分布式锁失败时的处理
+ * <p>
+ * 按{@link DistributedLock#onFailure()}在启动时解析降级方法、默认返回值,获取锁失败时直接给出方法返回值;
+ * 异步方法的返回值为已完成的{@link CompletableFuture}或降级方法返回的{@link java.util.concurrent.CompletionStage}
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public final class LockFailureHandler {
+
+    /**
+     * 抛出异常的默认处理
+     */
+    public static final LockFailureHandler THROW = new LockFailureHandler(LockFailureStrategy.THROW, false, null, false, null);
+
+    /**
+     * {@link LockFailureStrategy#CACHED}每个方法缓存的最大Key值数量
+     */
+    private static final int MAX_CACHED_RESULTS = 1024;
+
+    /**
+     * 缓存中表示{@code null}结果
+     */
+    private static final Object NULL_RESULT = new Object();
+
+    private final LockFailureStrategy strategy;
+
+    /**
+     * 是否为{@link java.util.concurrent.CompletionStage}返回类型
+     */
+    private final boolean async;
+
+    /**
+     * 降级方法,非{@link LockFailureStrategy#FALLBACK}时为空
+     */
+    private final Method fallbackMethod;
+
+    /**
+     * 降级方法是否接收原方法参数
+     */
+    private final boolean fallbackWithArgs;
+
+    /**
+     * {@link LockFailureStrategy#SKIP}时的同步返回值
+     */
+    private final Object skipValue;
+
+    /**
+     * 最近一次成功执行的结果,按访问顺序淘汰
+     */
+    private final Map<Object, Object> cachedResults;
+
+    private final ReentrantLock cacheLock = new ReentrantLock();
+
+    private LockFailureHandler(LockFailureStrategy strategy, boolean async, Method fallbackMethod, boolean fallbackWithArgs,
+                               Object skipValue) {
+        this.strategy = strategy;
+        this.async = async;
+        this.fallbackMethod = fallbackMethod;
+        this.fallbackWithArgs = fallbackWithArgs;
+        this.skipValue = skipValue;
+        this.cachedResults = strategy == LockFailureStrategy.CACHED ? new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                return size() > MAX_CACHED_RESULTS;
+            }
+        } : null;
+    }
+
+    /**
+     * 解析注解配置的失败处理策略
+     *
+     * @param method         注解所在方法
+     * @param annotation     分布式锁注解
+     * @param invocationMode 调用方式
+     * @return {@link LockFailureHandler}
+     */
+    public static LockFailureHandler of(Method method, DistributedLock annotation, InvocationMode invocationMode) {
+        LockFailureStrategy strategy = annotation.onFailure();
+        if (strategy == LockFailureStrategy.THROW) {
+            return THROW;
+        }
+        if (invocationMode == InvocationMode.MONO || invocationMode == InvocationMode.FLUX) {
+            throw new IllegalStateException("Reactive methods only support onFailure THROW: " + method);
+        }
+        boolean async = invocationMode == InvocationMode.COMPLETION_STAGE;
+        switch (strategy) {
+            case SKIP:
+                return new LockFailureHandler(strategy, async, null, false, defaultValue(method.getReturnType()));
+            case FALLBACK:
+                return fallback(method, annotation.fallbackMethod(), async);
+            default:
+                return new LockFailureHandler(strategy, async, null, false, null);
+        }
+    }
+
+    private static LockFailureHandler fallback(Method method, String name, boolean async) {
+        if (!StringUtils.hasText(name)) {
+            throw new IllegalStateException("fallbackMethod must be specified with onFailure FALLBACK on " + method);
+        }
+        Method fallbackMethod = ReflectionUtils.findMethod(method.getDeclaringClass(), name, method.getParameterTypes());
+        boolean withArgs = fallbackMethod != null;
+        if (fallbackMethod == null) {
+            fallbackMethod = ReflectionUtils.findMethod(method.getDeclaringClass(), name);
+        }
+        if (fallbackMethod == null) {
+            throw new IllegalStateException("No fallback method '" + name + "' found for " + method);
+        }
+        if (!ClassUtils.isAssignable(method.getReturnType(), fallbackMethod.getReturnType())) {
+            throw new IllegalStateException("Fallback method " + fallbackMethod + " must return "
+                    + method.getReturnType().getName());
+        }
+        ReflectionUtils.makeAccessible(fallbackMethod);
+        return new LockFailureHandler(LockFailureStrategy.FALLBACK, async, fallbackMethod, withArgs, null);
+    }
+
+    /**
+     * 跳过执行时的返回值
+     */
+    private static Object defaultValue(Class<?> returnType) {
+        if (returnType == Optional.class) {
+            return Optional.empty();
+        }
+        if (returnType.isPrimitive() && returnType != void.class) {
+            // 基本类型数组元素的初始值即为该类型的默认值
+            return Array.get(Array.newInstance(returnType, 1), 0);
+        }
+        return null;
+    }
+
+    /**
+     * 获取锁失败,按策略给出方法返回值
+     *
+     * @param target   目标对象
+     * @param args     方法参数
+     * @param lockKeys 分布式锁Key值
+     * @return 方法返回值
+     * @throws Throwable 策略为抛出异常、没有缓存结果,或降级方法抛出的异常
+     */
+    public Object onFailure(Object target, Object[] args, Object lockKeys) throws Throwable {
+        switch (strategy) {
+            case SKIP:
+                return async ? CompletableFuture.completedFuture(null) : skipValue;
+            case FALLBACK:
+                try {
+                    return fallbackWithArgs ? fallbackMethod.invoke(target, args) : fallbackMethod.invoke(target);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            case CACHED:
+                Object cached;
+                cacheLock.lock();
+                try {
+                    cached = cachedResults.get(lockKeys);
+                } finally {
+                    cacheLock.unlock();
+                }
+                if (cached != null) {
+                    Object result = cached == NULL_RESULT ? null : cached;
+                    return async ? CompletableFuture.completedFuture(result) : result;
+                }
+                throw DistributedLockException.REJECTED;
+            default:
+                throw DistributedLockException.REJECTED;
+        }
+    }
+
+    /**
+     * 方法持有锁成功执行,{@link LockFailureStrategy#CACHED}时记录结果;异步方法传入完成后的值
+     *
+     * @param lockKeys 分布式锁Key值
+     * @param result   方法执行结果
+     */
+    public void onSuccess(Object lockKeys, Object result) {
+        if (cachedResults != null) {
+            cacheLock.lock();
+            try {
+                cachedResults.put(lockKeys, result != null ? result : NULL_RESULT);
+            } finally {
+                cacheLock.unlock();
+            }
+        }
+    }
+
+    public LockFailureStrategy getStrategy() {
+        return strategy;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", LockFailureHandler.class.getSimpleName() + "[", "]")
+                .add("strategy=" + strategy)
+                .add("fallbackMethod=" + fallbackMethod)
+                .toString();
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.plan;
+
+import org.jarvisframework.distributed.lock.api.annotation.DistributedLock;
+import org.jarvisframework.distributed.lock.api.constant.LockMode;
+import org.jarvisframework.distributed.lock.api.expression.LockKeyExpression;
+import org.jarvisframework.distributed.lock.api.metrics.LockMetrics;
+import org.jarvisframework.distributed.lock.api.support.AdaptiveLockWaitPolicy;
+import org.jarvisframework.distributed.lock.api.support.KeyStripes;
+import org.jarvisframework.distributed.lock.api.support.LockWaitPolicy;
+import org.jarvisframework.distributed.lock.api.support.MultiLocks;
+import org.jarvisframework.distributed.lock.api.support.ReadWriteLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.SingleFlight;
+import org.springframework.integration.support.locks.LockRegistry;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 分布式锁调用计划
+ * <p>
+ * 启动时按方法预先解析注解、锁实现及Key值表达式,切面每次调用只需一次查表
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public final class LockInvocationPlan {
+
+    /**
+     * 注解所在方法
+     */
+    private final Method method;
+
+    /**
+     * 分布式锁注解
+     */
+    private final DistributedLock annotation;
+
+    /**
+     * 分布式锁实现
+     */
+    private final LockRegistry lockRegistry;
+
+    /**
+     * 尝试获取锁的等待时间(纳秒)
+     */
+    private final long waitNanos;
+
+    /**
+     * 分布式锁Key值,多Key值时按声明顺序排列
+     */
+    private final LockKeyExpression[] lockKeys;
+
+    /**
+     * 单飞执行,未开启时为空
+     */
+    private final SingleFlight singleFlight;
+
+    /**
+     * 调用方式
+     */
+    private final InvocationMode invocationMode;
+
+    /**
+     * 调用指标
+     */
+    private final LockMetrics metrics;
+
+    /**
+     * 获取锁失败时的处理
+     */
+    private final LockFailureHandler failureHandler;
+
+    /**
+     * 获取锁的等待策略
+     */
+    private final LockWaitPolicy waitPolicy;
+
+    /**
+     * Key值分段,未开启分段模式时为空
+     */
+    private final KeyStripes keyStripes;
+
+    public LockInvocationPlan(Method method, DistributedLock annotation, LockRegistry lockRegistry, LockKeyExpression... lockKeys) {
+        this(method, annotation, lockRegistry, LockMetrics.NOOP, lockKeys);
+    }
+
+    public LockInvocationPlan(Method method, DistributedLock annotation, LockRegistry lockRegistry, LockMetrics metrics,
+                              LockKeyExpression... lockKeys) {
+        this(method, annotation, lockRegistry, metrics, null, lockKeys);
+    }
+
+    public LockInvocationPlan(Method method, DistributedLock annotation, LockRegistry lockRegistry, LockMetrics metrics,
+                              KeyStripes keyStripes, LockKeyExpression... lockKeys) {
+        this.method = method;
+        this.annotation = annotation;
+        this.lockRegistry = lockRegistry;
+        this.waitNanos = annotation.timeUnit().toNanos(annotation.time());
+        this.lockKeys = lockKeys;
+        this.invocationMode = InvocationMode.of(method.getReturnType());
+        this.singleFlight = annotation.singleFlight() && invocationMode == InvocationMode.SYNC ? new SingleFlight() : null;
+        this.metrics = metrics;
+        this.failureHandler = LockFailureHandler.of(method, annotation, invocationMode);
+        this.waitPolicy = annotation.adaptiveWait() ? new AdaptiveLockWaitPolicy() : LockWaitPolicy.FIXED;
+        this.keyStripes = keyStripes;
+    }
+
+    /**
+     * 根据方法参数计算Key值
+     *
+     * @param args 方法参数
+     * @return 分布式锁Key值
+     */
+    public String lockKey(Object[] args) {
+        return lockKeys[0].getValue(args);
+    }
+
+    /**
+     * 根据方法参数计算全部Key值
+     *
+     * @param args 方法参数
+     * @return 排序去重后的分布式锁Key值
+     */
+    public List<String> lockKeys(Object[] args) {
+        if (lockKeys.length == 1) {
+            return Collections.singletonList(lockKeys[0].getValue(args));
+        }
+        String[] values = new String[lockKeys.length];
+        for (int i = 0; i < lockKeys.length; i++) {
+            values[i] = lockKeys[i].getValue(args);
+        }
+        return MultiLocks.canonicalize(values);
+    }
+
+    /**
+     * 获取锁定全部Key值的锁,分段模式下获取Key值所在分段的锁
+     *
+     * @param lockKeys {@link LockInvocationPlan#lockKeys(Object[])}的结果
+     * @return {@link Lock}
+     */
+    public Lock obtainLock(List<String> lockKeys) {
+        if (keyStripes != null) {
+            return obtainStripeLock(lockKeys.get(0));
+        }
+        if (annotation.mode() == LockMode.READ) {
+            return ((ReadWriteLockRegistry) lockRegistry).obtainRead(lockKeys.get(0));
+        }
+        return lockKeys.size() == 1 ? lockRegistry.obtain(lockKeys.get(0)) : MultiLocks.obtain(lockRegistry, lockKeys);
+    }
+
+    /**
+     * 获取Key值所在分段的锁;读锁之间不互斥,不记录分段竞争
+     *
+     * @param lockKey 求值后的Key值
+     * @return {@link Lock}
+     */
+    private Lock obtainStripeLock(String lockKey) {
+        String stripeKey = keyStripes.stripeKeyOf(lockKey);
+        if (annotation.mode() == LockMode.READ) {
+            return ((ReadWriteLockRegistry) lockRegistry).obtainRead(stripeKey);
+        }
+        return keyStripes.wrap(lockRegistry.obtain(stripeKey), lockKey, metrics);
+    }
+
+    public boolean isMultiKey() {
+        return lockKeys.length > 1;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public DistributedLock getAnnotation() {
+        return annotation;
+    }
+
+    public String getLockType() {
+        return annotation.lockType();
+    }
+
+    public LockRegistry getLockRegistry() {
+        return lockRegistry;
+    }
+
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    public LockKeyExpression getLockKey() {
+        return lockKeys[0];
+    }
+
+    public List<LockKeyExpression> getLockKeys() {
+        return Collections.unmodifiableList(Arrays.asList(lockKeys));
+    }
+
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    public InvocationMode getInvocationMode() {
+        return invocationMode;
+    }
+
+    public LockMetrics getMetrics() {
+        return metrics;
+    }
+
+    public LockFailureHandler getFailureHandler() {
+        return failureHandler;
+    }
+
+    public LockWaitPolicy getWaitPolicy() {
+        return waitPolicy;
+    }
+
+    public KeyStripes getKeyStripes() {
+        return keyStripes;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", LockInvocationPlan.class.getSimpleName() + "[", "]")
+                .add("method=" + method)
+                .add("lockType='" + annotation.lockType() + "'")
+                .add("lockKeys=" + Arrays.toString(lockKeys))
+                .add("mode=" + annotation.mode())
+                .add("waitNanos=" + waitNanos)
+                .add("invocationMode=" + invocationMode)
+                .add("onFailure=" + failureHandler.getStrategy())
+                .add("adaptiveWait=" + annotation.adaptiveWait())
+                .add("keyStripes=" + keyStripes)
+                .toString();
+    }
+}
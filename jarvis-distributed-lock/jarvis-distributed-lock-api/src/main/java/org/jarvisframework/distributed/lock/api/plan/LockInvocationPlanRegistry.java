@@ -0,0 +1,437 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.plan;
+
+import org.jarvisframework.distributed.lock.api.annotation.DistributedLock;
+import org.jarvisframework.distributed.lock.api.annotation.DistributedPermits;
+import org.jarvisframework.distributed.lock.api.configuration.DistributedLockProperties;
+import org.jarvisframework.distributed.lock.api.constant.LockMode;
+import org.jarvisframework.distributed.lock.api.expression.LockKeyExpression;
+import org.jarvisframework.distributed.lock.api.expression.LockKeyExpressionEvaluator;
+import org.jarvisframework.distributed.lock.api.metrics.LockMetrics;
+import org.jarvisframework.distributed.lock.api.metrics.LockMetricsFactory;
+import org.jarvisframework.distributed.lock.api.support.KeyStripes;
+import org.jarvisframework.distributed.lock.api.support.ReadWriteLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.SemaphoreRegistry;
+import org.jarvisframework.distributed.lock.api.support.TieredLockRegistry;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.BeanNotOfRequiredTypeException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.integration.support.locks.LockRegistry;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分布式锁调用计划注册表
+ * <p>
+ * 启动时扫描Bean中的{@link DistributedLock}方法并生成{@link LockInvocationPlan},
+ * 锁类型配置错误时在容器启动阶段直接失败。计划同时登记在实现方法、桥接方法及接口方法上,
+ * 切面无论拿到哪个{@link Method}都能一次命中。{@link DistributedPermits}方法同样在启动时生成
+ * {@link PermitsInvocationPlan},与分布式锁共用按锁类型选择实现的方式
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class LockInvocationPlanRegistry implements BeanPostProcessor, BeanFactoryAware, SmartInitializingSingleton {
+
+    /**
+     * 调用计划,按切面可见的方法登记
+     */
+    private final Map<Method, LockInvocationPlan> plans = new ConcurrentHashMap<>(64);
+
+    /**
+     * 同一接口方法在不同实现类上计划不同时,按方法+目标类登记
+     */
+    private final Map<MethodClassKey, LockInvocationPlan> targetPlans = new ConcurrentHashMap<>(16);
+
+    /**
+     * 多个实现类计划不同的接口方法
+     */
+    private final Set<Method> ambiguousMethods = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 分布式信号量调用计划,按方法+目标类登记
+     */
+    private final Map<MethodClassKey, PermitsInvocationPlan> permitsPlans = new ConcurrentHashMap<>(16);
+
+    /**
+     * 容器初始化完成前扫描到的类,待锁实现就绪后统一生成计划
+     */
+    private final List<Class<?>> pendingClasses = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * 启用本地锁前置的锁实现,按锁类型共享本地分段锁
+     */
+    private final Map<String, LockRegistry> tieredRegistries = new ConcurrentHashMap<>(4);
+
+    /**
+     * Key值分段,按锁类型+Key值模板共享,不同方法锁定同一Key值时落在同一分段
+     */
+    private final Map<String, KeyStripes> keyStripes = new ConcurrentHashMap<>(16);
+
+    /**
+     * 按锁类型+Key值模板登记的分段数,未开启分段模式时为0
+     */
+    private final Map<String, Integer> templateStripes = new ConcurrentHashMap<>(64);
+
+    private final LockKeyExpressionEvaluator lockKeyEvaluator;
+
+    private BeanFactory beanFactory;
+
+    private volatile boolean initialized;
+
+    public LockInvocationPlanRegistry(LockKeyExpressionEvaluator lockKeyEvaluator) {
+        this.lockKeyEvaluator = lockKeyEvaluator;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        if (AnnotationUtils.isCandidateClass(targetClass, DistributedLock.class)
+                || AnnotationUtils.isCandidateClass(targetClass, DistributedPermits.class)) {
+            if (initialized) {
+                register(targetClass);
+            } else {
+                pendingClasses.add(targetClass);
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        synchronized (pendingClasses) {
+            for (Class<?> targetClass : pendingClasses) {
+                register(targetClass);
+            }
+            pendingClasses.clear();
+        }
+        initialized = true;
+    }
+
+    /**
+     * 获取调用计划
+     *
+     * @param method      切面拦截到的方法
+     * @param targetClass 目标类
+     * @return {@link LockInvocationPlan}
+     */
+    public LockInvocationPlan getPlan(Method method, Class<?> targetClass) {
+        LockInvocationPlan plan = plans.get(method);
+        if (plan != null) {
+            return plan;
+        }
+        if (!ambiguousMethods.contains(method)) {
+            // 未经扫描的Bean(如容器外创建的代理),首次调用时生成
+            plan = buildPlan(resolveSpecificMethod(method, targetClass));
+            plans.putIfAbsent(method, plan);
+            return plan;
+        }
+        return targetPlans.computeIfAbsent(new MethodClassKey(method, targetClass),
+                key -> buildPlan(resolveSpecificMethod(method, targetClass)));
+    }
+
+    /**
+     * 获取分布式信号量调用计划
+     *
+     * @param method      切面拦截到的方法
+     * @param targetClass 目标类
+     * @return {@link PermitsInvocationPlan}
+     */
+    public PermitsInvocationPlan getPermitsPlan(Method method, Class<?> targetClass) {
+        MethodClassKey key = new MethodClassKey(method, targetClass);
+        PermitsInvocationPlan plan = permitsPlans.get(key);
+        if (plan == null) {
+            plan = permitsPlans.computeIfAbsent(key, k -> buildPermitsPlan(resolveSpecificMethod(method, targetClass)));
+        }
+        return plan;
+    }
+
+    /**
+     * 扫描类中的分布式锁、分布式信号量方法并登记调用计划
+     *
+     * @param targetClass 目标类
+     */
+    private void register(Class<?> targetClass) {
+        registerPermits(targetClass);
+        Map<Method, DistributedLock> annotatedMethods = MethodIntrospector.selectMethods(targetClass,
+                (MethodIntrospector.MetadataLookup<DistributedLock>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, DistributedLock.class));
+        if (annotatedMethods.isEmpty()) {
+            return;
+        }
+        Map<Method, LockInvocationPlan> classPlans = new ConcurrentHashMap<>(annotatedMethods.size());
+        annotatedMethods.forEach((method, annotation) -> {
+            LockInvocationPlan plan = buildPlan(method, annotation);
+            classPlans.put(method, plan);
+            classPlans.put(BridgeMethodResolver.findBridgedMethod(method), plan);
+        });
+
+        // 桥接方法
+        ReflectionUtils.doWithMethods(targetClass, method -> {
+            LockInvocationPlan plan = classPlans.get(BridgeMethodResolver.findBridgedMethod(method));
+            if (plan != null) {
+                classPlans.put(method, plan);
+            }
+        }, Method::isBridge);
+
+        // 接口方法(JDK动态代理拦截到的是接口方法)
+        for (Class<?> ifc : ClassUtils.getAllInterfacesForClassAsSet(targetClass)) {
+            for (Method method : ifc.getMethods()) {
+                LockInvocationPlan plan = classPlans.get(resolveSpecificMethod(method, targetClass));
+                if (plan != null) {
+                    classPlans.put(method, plan);
+                }
+            }
+        }
+
+        classPlans.forEach((method, plan) -> {
+            if (ambiguousMethods.contains(method)) {
+                targetPlans.put(new MethodClassKey(method, targetClass), plan);
+                return;
+            }
+            LockInvocationPlan existing = plans.putIfAbsent(method, plan);
+            if (existing != null && existing != plan && !isEquivalent(existing, plan)) {
+                ambiguousMethods.add(method);
+                plans.remove(method);
+                targetPlans.put(new MethodClassKey(method, targetClass), plan);
+            }
+        });
+    }
+
+    /**
+     * 扫描类中的分布式信号量方法,启动阶段校验配置并登记调用计划
+     *
+     * @param targetClass 目标类
+     */
+    private void registerPermits(Class<?> targetClass) {
+        Map<Method, DistributedPermits> annotatedMethods = MethodIntrospector.selectMethods(targetClass,
+                (MethodIntrospector.MetadataLookup<DistributedPermits>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, DistributedPermits.class));
+        annotatedMethods.forEach((method, annotation) ->
+                permitsPlans.put(new MethodClassKey(method, targetClass), buildPermitsPlan(method, annotation)));
+    }
+
+    /**
+     * 定位目标类上的最终实现方法
+     *
+     * @param method      方法
+     * @param targetClass 目标类
+     * @return 实现方法
+     */
+    private static Method resolveSpecificMethod(Method method, Class<?> targetClass) {
+        Method specificMethod = targetClass != null ? AopUtils.getMostSpecificMethod(method, targetClass) : method;
+        return BridgeMethodResolver.findBridgedMethod(specificMethod);
+    }
+
+    private static boolean isEquivalent(LockInvocationPlan left, LockInvocationPlan right) {
+        return left.getMethod().equals(right.getMethod()) && left.getAnnotation().equals(right.getAnnotation());
+    }
+
+    private LockInvocationPlan buildPlan(Method method) {
+        DistributedLock annotation = AnnotatedElementUtils.findMergedAnnotation(method, DistributedLock.class);
+        if (annotation == null) {
+            throw new IllegalStateException("No @DistributedLock found on method " + method);
+        }
+        return buildPlan(method, annotation);
+    }
+
+    private LockInvocationPlan buildPlan(Method method, DistributedLock annotation) {
+        LockRegistry lockRegistry = getLockRegistry(method, annotation.lockType());
+        if (annotation.mode() == LockMode.READ) {
+            return buildReadPlan(method, annotation, lockRegistry);
+        }
+        if (annotation.localTier()) {
+            lockRegistry = tieredRegistries.computeIfAbsent(annotation.lockType(),
+                    lockType -> new TieredLockRegistry(getLockRegistry(method, lockType)));
+        }
+        LockKeyExpression[] lockKeys = parseLockKeys(method, annotation);
+        return new LockInvocationPlan(method, annotation, lockRegistry, createMetrics(annotation),
+                resolveKeyStripes(method, annotation, lockKeys), lockKeys);
+    }
+
+    /**
+     * 读锁计划,要求锁实现支持读写锁且只有一个Key值;读锁不经过本地锁前置,避免本地串行化读方法
+     *
+     * @param method       注解所在方法
+     * @param annotation   分布式锁注解
+     * @param lockRegistry 分布式锁实现
+     * @return {@link LockInvocationPlan}
+     */
+    private LockInvocationPlan buildReadPlan(Method method, DistributedLock annotation, LockRegistry lockRegistry) {
+        if (!(lockRegistry instanceof ReadWriteLockRegistry)) {
+            throw new IllegalStateException("LockRegistry '" + annotation.lockType()
+                    + "' does not support read locks, required by " + method);
+        }
+        LockKeyExpression[] lockKeys = parseLockKeys(method, annotation);
+        if (lockKeys.length > 1) {
+            throw new IllegalStateException("Read locks do not support lockKeys on " + method);
+        }
+        return new LockInvocationPlan(method, annotation, lockRegistry, createMetrics(annotation),
+                resolveKeyStripes(method, annotation, lockKeys), lockKeys);
+    }
+
+    /**
+     * 解析Key值分段。同一锁类型下相同Key值模板的分段数必须一致,否则不同方法锁定同一Key值时落在不同的锁上;
+     * 字面量Key值本身只有一个锁,不参与分段
+     *
+     * @param method     注解所在方法
+     * @param annotation 分布式锁注解
+     * @param lockKeys   已解析的Key值
+     * @return {@link KeyStripes},未开启分段模式时为空
+     */
+    private KeyStripes resolveKeyStripes(Method method, DistributedLock annotation, LockKeyExpression[] lockKeys) {
+        if (annotation.striped() && lockKeys.length > 1) {
+            throw new IllegalStateException("Striped locks do not support lockKeys on " + method);
+        }
+        int stripes = stripesOf(annotation);
+        KeyStripes result = null;
+        for (LockKeyExpression lockKey : lockKeys) {
+            if (lockKey.isLiteral()) {
+                continue;
+            }
+            String name = annotation.lockType() + ":" + lockKey.getTemplate();
+            Integer registered = templateStripes.putIfAbsent(name, stripes);
+            if (registered != null && registered != stripes) {
+                throw new IllegalStateException("lockKey [" + lockKey.getTemplate() + "] is declared with stripes=" + stripes
+                        + " on " + method + " but stripes=" + registered + " elsewhere for lockType '" + annotation.lockType() + "'");
+            }
+            if (stripes > 0) {
+                result = keyStripes.computeIfAbsent(name, key -> new KeyStripes(lockKey.getTemplate(), stripes));
+            }
+        }
+        return result;
+    }
+
+    private int stripesOf(DistributedLock annotation) {
+        if (!annotation.striped()) {
+            return 0;
+        }
+        return annotation.stripes() > 0 ? annotation.stripes() : getProperties().getKeyStripes();
+    }
+
+    /**
+     * 创建调用指标,锁名称取Key值模板,避免按求值后的Key值打标签导致指标数量失控
+     *
+     * @param annotation 分布式锁注解
+     * @return {@link LockMetrics}
+     */
+    private LockMetrics createMetrics(DistributedLock annotation) {
+        String lockName = StringUtils.hasText(annotation.lockKey()) ? annotation.lockKey()
+                : String.join(",", annotation.lockKeys());
+        return beanFactory.getBeanProvider(LockMetricsFactory.class).getIfAvailable(() -> LockMetricsFactory.NOOP)
+                .create(annotation.lockType(), lockName);
+    }
+
+    /**
+     * 解析Key值,{@code lockKey}与{@code lockKeys}必须且只能指定其一
+     *
+     * @param method     注解所在方法
+     * @param annotation 分布式锁注解
+     * @return {@link LockKeyExpression}
+     */
+    private LockKeyExpression[] parseLockKeys(Method method, DistributedLock annotation) {
+        boolean single = StringUtils.hasText(annotation.lockKey());
+        if (single == (annotation.lockKeys().length > 0)) {
+            throw new IllegalStateException("Exactly one of lockKey or lockKeys must be specified on " + method);
+        }
+        if (single) {
+            return new LockKeyExpression[]{lockKeyEvaluator.parse(method, annotation.lockKey())};
+        }
+        LockKeyExpression[] lockKeys = new LockKeyExpression[annotation.lockKeys().length];
+        for (int i = 0; i < lockKeys.length; i++) {
+            lockKeys[i] = lockKeyEvaluator.parse(method, annotation.lockKeys()[i]);
+        }
+        return lockKeys;
+    }
+
+    private PermitsInvocationPlan buildPermitsPlan(Method method) {
+        DistributedPermits annotation = AnnotatedElementUtils.findMergedAnnotation(method, DistributedPermits.class);
+        if (annotation == null) {
+            throw new IllegalStateException("No @DistributedPermits found on method " + method);
+        }
+        return buildPermitsPlan(method, annotation);
+    }
+
+    /**
+     * 分布式信号量计划,要求锁实现支持信号量;响应式方法暂不支持
+     *
+     * @param method     注解所在方法
+     * @param annotation 分布式信号量注解
+     * @return {@link PermitsInvocationPlan}
+     */
+    private PermitsInvocationPlan buildPermitsPlan(Method method, DistributedPermits annotation) {
+        if (annotation.permits() <= 0) {
+            throw new IllegalStateException("permits must be positive on " + method);
+        }
+        LockRegistry lockRegistry = getLockRegistry(method, annotation.lockType());
+        if (!(lockRegistry instanceof SemaphoreRegistry)) {
+            throw new IllegalStateException("LockRegistry '" + annotation.lockType()
+                    + "' does not support semaphores, required by " + method);
+        }
+        PermitsInvocationPlan plan = new PermitsInvocationPlan(method, annotation, (SemaphoreRegistry) lockRegistry,
+                lockKeyEvaluator.parse(method, annotation.key()));
+        if (plan.getInvocationMode() == InvocationMode.MONO || plan.getInvocationMode() == InvocationMode.FLUX) {
+            throw new IllegalStateException("@DistributedPermits does not support reactive methods: " + method);
+        }
+        return plan;
+    }
+
+    private DistributedLockProperties getProperties() {
+        return beanFactory.getBeanProvider(DistributedLockProperties.class).getIfAvailable(DistributedLockProperties::new);
+    }
+
+    /**
+     * 根据分布式锁类型获取实现
+     *
+     * @param method   注解所在方法
+     * @param lockType 分布式锁类型
+     * @return {@link LockRegistry}
+     */
+    private LockRegistry getLockRegistry(Method method, String lockType) {
+        try {
+            return beanFactory.getBean(lockType, LockRegistry.class);
+        } catch (NoSuchBeanDefinitionException | BeanNotOfRequiredTypeException e) {
+            throw new IllegalStateException("No LockRegistry named '" + lockType + "' required by " + method, e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.plan;
+
+import org.jarvisframework.distributed.lock.api.annotation.DistributedPermits;
+import org.jarvisframework.distributed.lock.api.expression.LockKeyExpression;
+import org.jarvisframework.distributed.lock.api.support.DistributedSemaphore;
+import org.jarvisframework.distributed.lock.api.support.SemaphoreRegistry;
+
+import java.lang.reflect.Method;
+import java.util.StringJoiner;
+
+/**
+ * 分布式信号量调用计划
+ * <p>
+ * 启动时按方法预先解析注解、信号量实现及Key值表达式
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public final class PermitsInvocationPlan {
+
+    /**
+     * 注解所在方法
+     */
+    private final Method method;
+
+    /**
+     * 分布式信号量注解
+     */
+    private final DistributedPermits annotation;
+
+    /**
+     * 分布式信号量实现
+     */
+    private final SemaphoreRegistry semaphoreRegistry;
+
+    /**
+     * 信号量Key值
+     */
+    private final LockKeyExpression key;
+
+    /**
+     * 尝试获取许可的等待时间(纳秒)
+     */
+    private final long waitNanos;
+
+    /**
+     * 调用方式
+     */
+    private final InvocationMode invocationMode;
+
+    public PermitsInvocationPlan(Method method, DistributedPermits annotation, SemaphoreRegistry semaphoreRegistry,
+                                 LockKeyExpression key) {
+        this.method = method;
+        this.annotation = annotation;
+        this.semaphoreRegistry = semaphoreRegistry;
+        this.key = key;
+        this.waitNanos = annotation.timeUnit().toNanos(annotation.time());
+        this.invocationMode = InvocationMode.of(method.getReturnType());
+    }
+
+    /**
+     * 根据方法参数获取分布式信号量
+     *
+     * @param args 方法参数
+     * @return {@link DistributedSemaphore}
+     */
+    public DistributedSemaphore obtainSemaphore(Object[] args) {
+        return semaphoreRegistry.obtainSemaphore(key.getValue(args), annotation.permits());
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public DistributedPermits getAnnotation() {
+        return annotation;
+    }
+
+    public SemaphoreRegistry getSemaphoreRegistry() {
+        return semaphoreRegistry;
+    }
+
+    public LockKeyExpression getKey() {
+        return key;
+    }
+
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    public InvocationMode getInvocationMode() {
+        return invocationMode;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", PermitsInvocationPlan.class.getSimpleName() + "[", "]")
+                .add("method=" + method)
+                .add("lockType='" + annotation.lockType() + "'")
+                .add("key=" + key)
+                .add("permits=" + annotation.permits())
+                .add("waitNanos=" + waitNanos)
+                .add("invocationMode=" + invocationMode)
+                .toString();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 按观测到的持有时间自适应的等待策略
+ * <p>
+ * 每个Key值模板维护持有时间的指数加权移动平均(EWMA)。样本足够后先立即尝试一次,
+ * 锁被占用且预期等待时间超过剩余等待时间时直接失败,不再占用请求线程轮询;
+ * 否则通过{@link LockWaitHint}把预期持有时间传给锁实现,用于选择带抖动的重试间隔
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class AdaptiveLockWaitPolicy implements LockWaitPolicy {
+
+    /**
+     * 默认平滑系数,越大越偏向最近的样本
+     */
+    public static final double DEFAULT_ALPHA = 0.2;
+
+    /**
+     * 默认开始自适应前的最少样本数
+     */
+    public static final int DEFAULT_MIN_SAMPLES = 16;
+
+    private final double alpha;
+
+    private final int minSamples;
+
+    /**
+     * 持有时间EWMA(纳秒),以{@link Double#doubleToRawLongBits(double)}存储
+     */
+    private final AtomicLong meanHoldBits = new AtomicLong(Double.doubleToRawLongBits(0.0));
+
+    private final AtomicLong samples = new AtomicLong();
+
+    /**
+     * 预期等待超过剩余时间而直接失败的次数
+     */
+    private final LongAdder failFastCount = new LongAdder();
+
+    public AdaptiveLockWaitPolicy() {
+        this(DEFAULT_ALPHA, DEFAULT_MIN_SAMPLES);
+    }
+
+    /**
+     * 自适应等待策略构造方法
+     *
+     * @param alpha      平滑系数,取值(0, 1]
+     * @param minSamples 开始自适应前的最少样本数
+     */
+    public AdaptiveLockWaitPolicy(double alpha, int minSamples) {
+        if (!(alpha > 0 && alpha <= 1)) {
+            throw new IllegalArgumentException("alpha must be in (0, 1]");
+        }
+        if (minSamples < 1) {
+            throw new IllegalArgumentException("minSamples must be positive");
+        }
+        this.alpha = alpha;
+        this.minSamples = minSamples;
+    }
+
+    @Override
+    public boolean tryLock(Lock lock, long waitNanos) throws InterruptedException {
+        if (waitNanos <= 0 || samples.get() < minSamples) {
+            return lock.tryLock(waitNanos, TimeUnit.NANOSECONDS);
+        }
+        long start = System.nanoTime();
+        if (lock.tryLock()) {
+            return true;
+        }
+        long expectedWait = getMeanHoldNanos();
+        long remaining = waitNanos - (System.nanoTime() - start);
+        if (expectedWait > remaining) {
+            failFastCount.increment();
+            return false;
+        }
+        long previous = LockWaitHint.set(expectedWait);
+        try {
+            return lock.tryLock(remaining, TimeUnit.NANOSECONDS);
+        } finally {
+            LockWaitHint.reset(previous);
+        }
+    }
+
+    @Override
+    public void recordHold(long nanos) {
+        boolean first = samples.getAndIncrement() == 0;
+        while (true) {
+            long bits = meanHoldBits.get();
+            double mean = Double.longBitsToDouble(bits);
+            double updated = first ? nanos : mean + alpha * (nanos - mean);
+            if (meanHoldBits.compareAndSet(bits, Double.doubleToRawLongBits(updated))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 持有时间EWMA
+     *
+     * @return 平均持有时间(纳秒)
+     */
+    public long getMeanHoldNanos() {
+        return (long) Double.longBitsToDouble(meanHoldBits.get());
+    }
+
+    public long getSampleCount() {
+        return samples.get();
+    }
+
+    public long getFailFastCount() {
+        return failFastCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", AdaptiveLockWaitPolicy.class.getSimpleName() + "[", "]")
+                .add("meanHoldNanos=" + getMeanHoldNanos())
+                .add("samples=" + samples.get())
+                .add("failFastCount=" + failFastCount.sum())
+                .toString();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.jarvisframework.common.exception.DistributedLockException;
+import org.jarvisframework.distributed.lock.api.metrics.LockMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 异步分布式锁执行器
+ * <p>
+ * 锁的获取在专用线程上完成,不占用请求线程或事件循环线程。Redis、Zookeeper等锁实现的持有者与线程绑定,
+ * 因此获取锁的专用线程会一直持有该锁,直到{@link LockLease#release()}被调用后在同一线程上释放
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class AsyncLockExecutor implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncLockExecutor.class);
+
+    /**
+     * 获取锁失败日志,每秒最多输出一条
+     */
+    private static final RateLimitedLogger rejectionLogger = new RateLimitedLogger(logger, 1L, TimeUnit.SECONDS);
+
+    private static final String THREAD_NAME_PREFIX = "distributed-lock-async-";
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 异步分布式锁执行器构造方法
+     *
+     * @param maxThreads 最大同时获取或持有的异步锁数量
+     */
+    public AsyncLockExecutor(int maxThreads) {
+        this(maxThreads, false);
+    }
+
+    /**
+     * 异步分布式锁执行器构造方法
+     * <p>
+     * 使用虚拟线程时等待和持有锁不再占用平台线程,{@code maxThreads}仍限制同时获取或持有的异步锁数量;
+     * 运行时不支持虚拟线程时回退为平台线程
+     *
+     * @param maxThreads     最大同时获取或持有的异步锁数量
+     * @param virtualThreads 是否使用虚拟线程
+     */
+    public AsyncLockExecutor(int maxThreads, boolean virtualThreads) {
+        this.executor = new ThreadPoolExecutor(0, maxThreads, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), threadFactory(virtualThreads));
+    }
+
+    private static ThreadFactory threadFactory(boolean virtualThreads) {
+        if (virtualThreads) {
+            if (VirtualThreads.isSupported()) {
+                return VirtualThreads.threadFactory(THREAD_NAME_PREFIX);
+            }
+            logger.warn("virtual threads are not supported by this runtime, async locks fall back to platform threads.");
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(THREAD_NAME_PREFIX);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * 异步获取锁
+     *
+     * @param lock      锁
+     * @param waitNanos 尝试获取锁的等待时间(纳秒)
+     * @return 获取成功时完成的{@link LockLease},获取失败时以{@link DistributedLockException}异常完成
+     */
+    public CompletableFuture<LockLease> acquire(Lock lock, long waitNanos) {
+        return acquire(lock, waitNanos, LockMetrics.NOOP);
+    }
+
+    /**
+     * 异步获取锁并记录调用指标
+     *
+     * @param lock      锁
+     * @param waitNanos 尝试获取锁的等待时间(纳秒)
+     * @param metrics   {@link LockMetrics}
+     * @return 获取成功时完成的{@link LockLease},获取失败时以{@link DistributedLockException}异常完成
+     */
+    public CompletableFuture<LockLease> acquire(Lock lock, long waitNanos, LockMetrics metrics) {
+        return acquire(lock, waitNanos, metrics, LockWaitPolicy.FIXED);
+    }
+
+    /**
+     * 按等待策略异步获取锁并记录调用指标
+     *
+     * @param lock       锁
+     * @param waitNanos  尝试获取锁的等待时间(纳秒)
+     * @param metrics    {@link LockMetrics}
+     * @param waitPolicy {@link LockWaitPolicy}
+     * @return 获取成功时完成的{@link LockLease},获取失败时以{@link DistributedLockException}异常完成
+     */
+    public CompletableFuture<LockLease> acquire(Lock lock, long waitNanos, LockMetrics metrics, LockWaitPolicy waitPolicy) {
+        CompletableFuture<LockLease> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> holdLock(lock, waitNanos, metrics, waitPolicy, future));
+        } catch (RejectedExecutionException e) {
+            rejectionLogger.warn("acquire distributed lock failed, async lock threads exhausted.");
+            future.completeExceptionally(DistributedLockException.REJECTED);
+        }
+        return future;
+    }
+
+    /**
+     * 在当前专用线程上获取锁并持有至租约释放
+     */
+    private static void holdLock(Lock lock, long waitNanos, LockMetrics metrics, LockWaitPolicy waitPolicy,
+                                 CompletableFuture<LockLease> future) {
+        boolean locked;
+        long start = System.nanoTime();
+        try {
+            locked = waitPolicy.tryLock(lock, waitNanos);
+        } catch (Throwable e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            } else {
+                metrics.recordError();
+            }
+            future.completeExceptionally(e);
+            return;
+        }
+        long lockedAt = System.nanoTime();
+        metrics.recordWait(lockedAt - start);
+        if (!locked) {
+            metrics.recordTimeout();
+            rejectionLogger.warn("acquire distributed lock failed.");
+            future.completeExceptionally(DistributedLockException.REJECTED);
+            return;
+        }
+        LockLease lease = new LockLease(FencingTokenHolder.tokenOf(lock));
+        try {
+            if (future.complete(lease)) {
+                lease.released.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            unlock(lock, metrics, waitPolicy, lockedAt);
+        }
+    }
+
+    private static void unlock(Lock lock, LockMetrics metrics, LockWaitPolicy waitPolicy, long lockedAt) {
+        try {
+            lock.unlock();
+        } catch (RuntimeException e) {
+            metrics.recordError();
+            throw e;
+        } finally {
+            long held = System.nanoTime() - lockedAt;
+            metrics.recordHold(held);
+            waitPolicy.recordHold(held);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 异步锁租约
+     */
+    public static final class LockLease {
+
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        /**
+         * 获取锁时的防护令牌
+         */
+        private final long fencingToken;
+
+        LockLease(long fencingToken) {
+            this.fencingToken = fencingToken;
+        }
+
+        public long getFencingToken() {
+            return fencingToken;
+        }
+
+        /**
+         * 释放锁,可在任意线程调用,重复调用无副作用
+         */
+        public void release() {
+            released.countDown();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * 容量受限的锁实例缓存
+ * <p>
+ * 超过容量时同步淘汰最久未使用的空闲锁实例,回落到容量的{@value #TRIM_PERCENT}%;
+ * 正在持有或等待中的锁实例不会被淘汰,淘汰时在Key值上重新判断是否空闲;
+ * 空闲锁实例不足以回落时,缓存再增长容量的{@value #TRIM_SLACK_PERCENT}%前不再整理,避免每次创建都扫描全部锁实例
+ *
+ * @param <L> 锁实例类型
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class BoundedLockCache<L> {
+
+    /**
+     * 超过容量时淘汰后保留的百分比
+     */
+    static final int TRIM_PERCENT = 90;
+
+    /**
+     * 整理未能回落时,再次整理前允许增长的百分比
+     */
+    static final int TRIM_SLACK_PERCENT = 10;
+
+    private final Map<String, L> locks = new ConcurrentHashMap<>(256);
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 同一时间只有一个线程整理缓存,其余线程不等待
+     */
+    private final ReentrantLock trimLock = new ReentrantLock();
+
+    private final Function<String, L> factory;
+
+    private final ToLongFunction<L> lastUsed;
+
+    private final Predicate<L> idle;
+
+    private final Consumer<L> onEvict;
+
+    private volatile int capacity = BoundedLockRegistry.DEFAULT_CAPACITY;
+
+    /**
+     * 下次整理的缓存大小,上次整理未能回落时大于容量
+     */
+    private volatile int nextTrimSize = capacity;
+
+    /**
+     * 容量受限的锁实例缓存构造方法
+     *
+     * @param factory  锁实例创建方法
+     * @param lastUsed 锁实例最近使用时间
+     * @param idle     锁实例是否空闲(未被持有且无等待线程)
+     */
+    public BoundedLockCache(Function<String, L> factory, ToLongFunction<L> lastUsed, Predicate<L> idle) {
+        this(factory, lastUsed, idle, lock -> {
+        });
+    }
+
+    /**
+     * 容量受限的锁实例缓存构造方法
+     *
+     * @param factory  锁实例创建方法
+     * @param lastUsed 锁实例最近使用时间
+     * @param idle     锁实例是否空闲(未被持有且无等待线程)
+     * @param onEvict  锁实例被淘汰后的回调
+     */
+    public BoundedLockCache(Function<String, L> factory, ToLongFunction<L> lastUsed,
+                            Predicate<L> idle, Consumer<L> onEvict) {
+        this.factory = factory;
+        this.lastUsed = lastUsed;
+        this.idle = idle;
+        this.onEvict = onEvict;
+    }
+
+    /**
+     * 获取或创建锁实例
+     *
+     * @param key 锁Key值
+     * @return 锁实例
+     */
+    public L get(String key) {
+        L lock = locks.get(key);
+        if (lock != null) {
+            return lock;
+        }
+        if (locks.size() >= nextTrimSize) {
+            trim();
+        }
+        return locks.computeIfAbsent(key, factory);
+    }
+
+    /**
+     * 获取或创建锁实例,并在与淘汰互斥的情况下登记一次使用
+     * <p>
+     * 锁实例本身即是互斥状态(如进程内信号量)时使用,登记后锁实例不再空闲,保证不会与淘汰交错而产生两个实例
+     *
+     * @param key    锁Key值
+     * @param retain 登记使用
+     * @return 锁实例
+     */
+    public L retain(String key, Consumer<L> retain) {
+        if (locks.size() >= nextTrimSize && !locks.containsKey(key)) {
+            trim();
+        }
+        return locks.compute(key, (k, lock) -> {
+            L value = lock != null ? lock : factory.apply(k);
+            retain.accept(value);
+            return value;
+        });
+    }
+
+    /**
+     * 淘汰空闲超过指定时间的锁实例
+     *
+     * @param age 空闲时间(毫秒)
+     */
+    public void expireOlderThan(long age) {
+        long now = System.currentTimeMillis();
+        locks.forEach((key, lock) -> {
+            if (now - lastUsed.applyAsLong(lock) > age && idle.test(lock)) {
+                evict(key, lock);
+            }
+        });
+        nextTrimSize = capacity;
+    }
+
+    private void trim() {
+        if (!trimLock.tryLock()) {
+            return;
+        }
+        try {
+            int size = locks.size();
+            int excess = size - capacity * TRIM_PERCENT / 100;
+            if (size < nextTrimSize || excess <= 0) {
+                return;
+            }
+            List<Map.Entry<String, L>> candidates = new ArrayList<>();
+            locks.entrySet().forEach(entry -> {
+                if (idle.test(entry.getValue())) {
+                    candidates.add(entry);
+                }
+            });
+            if (candidates.size() > excess) {
+                candidates.sort(Comparator.comparingLong(entry -> lastUsed.applyAsLong(entry.getValue())));
+            }
+            for (int i = 0; i < candidates.size() && i < excess; i++) {
+                evict(candidates.get(i).getKey(), candidates.get(i).getValue());
+            }
+            // 剩余锁实例均被持有时,等缓存再增长一段后才重新扫描
+            nextTrimSize = locks.size() < capacity ? capacity
+                    : locks.size() + Math.max(1, capacity * TRIM_SLACK_PERCENT / 100);
+        } finally {
+            trimLock.unlock();
+        }
+    }
+
+    private void evict(String key, L lock) {
+        AtomicBoolean evicted = new AtomicBoolean();
+        locks.computeIfPresent(key, (k, current) -> {
+            if (current != lock || !idle.test(current)) {
+                return current;
+            }
+            evicted.set(true);
+            return null;
+        });
+        if (evicted.get()) {
+            evictions.increment();
+            onEvict.accept(lock);
+        }
+    }
+
+    public void setCapacity(int capacity) {
+        Assert.isTrue(capacity > 0, "'capacity' must be positive");
+        this.capacity = capacity;
+        this.nextTrimSize = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return locks.size();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+}
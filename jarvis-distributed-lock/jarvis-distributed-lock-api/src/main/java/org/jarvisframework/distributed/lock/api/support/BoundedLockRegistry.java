@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.springframework.integration.support.locks.ExpirableLockRegistry;
+
+/**
+ * 容量受限的分布式锁注册表
+ * <p>
+ * 注册表为每个Key值缓存一个锁实例,超过容量时淘汰空闲的锁实例
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public interface BoundedLockRegistry extends ExpirableLockRegistry {
+
+    /**
+     * 默认容量
+     */
+    int DEFAULT_CAPACITY = 10000;
+
+    /**
+     * 设置容量
+     *
+     * @param capacity 缓存锁实例的最大数量
+     */
+    void setCapacity(int capacity);
+
+    /**
+     * 当前缓存的锁实例数量
+     *
+     * @return int
+     */
+    int size();
+
+    /**
+     * 累计淘汰的锁实例数量
+     *
+     * @return long
+     */
+    long getEvictionCount();
+}
@@ -0,0 +1,356 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.jarvisframework.common.exception.DistributedLockException;
+import org.jarvisframework.distributed.lock.api.metrics.LockMetrics;
+import org.jarvisframework.distributed.lock.api.metrics.LockMetricsFactory;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanNotOfRequiredTypeException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.integration.support.locks.LockRegistry;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 编程式分布式锁模板
+ * <p>
+ * 与{@link org.jarvisframework.distributed.lock.api.annotation.DistributedLock}使用相同的锁实现解析、调用指标与失败语义:
+ * 获取锁失败时{@code execute}系列抛出{@link DistributedLockException#REJECTED},{@code try}系列返回空结果;
+ * 不经过AOP代理,可只在临界区内持有锁,或在循环中逐个锁定实体。锁实现在首次使用时按Bean名称解析
+ * <pre>
+ * template.execute("order:" + orderId, Duration.ofSeconds(1), () -&gt; orderService.pay(orderId));
+ * List&lt;String&gt; skipped = template.tryRunEach(keys, Duration.ZERO, key -&gt; refresh(key));
+ * </pre>
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class DistributedLockTemplate {
+
+    /**
+     * 默认锁名称,用于调用指标
+     */
+    public static final String DEFAULT_LOCK_NAME = "template";
+
+    /**
+     * 获取锁失败日志,每秒最多输出一条
+     */
+    private static final RateLimitedLogger rejectionLogger = new RateLimitedLogger(
+            LoggerFactory.getLogger(DistributedLockTemplate.class), 1L, TimeUnit.SECONDS);
+
+    private final BeanFactory beanFactory;
+
+    /**
+     * 分布式锁类型,即锁实现的Bean名称
+     */
+    private final String lockType;
+
+    /**
+     * 锁名称,作为调用指标标签,取值数量应有限
+     */
+    private final String lockName;
+
+    /**
+     * 获取锁的等待策略
+     */
+    private final LockWaitPolicy waitPolicy;
+
+    private volatile LockRegistry lockRegistry;
+
+    private volatile LockMetrics metrics;
+
+    /**
+     * 编程式分布式锁模板构造方法
+     *
+     * @param beanFactory {@link BeanFactory}
+     * @param lockType    分布式锁类型
+     */
+    public DistributedLockTemplate(BeanFactory beanFactory, String lockType) {
+        this(beanFactory, lockType, DEFAULT_LOCK_NAME);
+    }
+
+    /**
+     * 编程式分布式锁模板构造方法
+     *
+     * @param beanFactory {@link BeanFactory}
+     * @param lockType    分布式锁类型
+     * @param lockName    锁名称
+     */
+    public DistributedLockTemplate(BeanFactory beanFactory, String lockType, String lockName) {
+        this(beanFactory, lockType, lockName, LockWaitPolicy.FIXED);
+    }
+
+    private DistributedLockTemplate(BeanFactory beanFactory, String lockType, String lockName, LockWaitPolicy waitPolicy) {
+        Assert.notNull(beanFactory, "beanFactory must not be null");
+        Assert.hasText(lockType, "lockType must not be empty");
+        Assert.hasText(lockName, "lockName must not be empty");
+        this.beanFactory = beanFactory;
+        this.lockType = lockType;
+        this.lockName = lockName;
+        this.waitPolicy = waitPolicy;
+    }
+
+    /**
+     * 使用其他锁实现的模板
+     *
+     * @param lockType 分布式锁类型
+     * @return {@link DistributedLockTemplate}
+     */
+    public DistributedLockTemplate withLockType(String lockType) {
+        return new DistributedLockTemplate(beanFactory, lockType, lockName, waitPolicy);
+    }
+
+    /**
+     * 使用其他锁名称记录调用指标的模板
+     *
+     * @param lockName 锁名称
+     * @return {@link DistributedLockTemplate}
+     */
+    public DistributedLockTemplate withName(String lockName) {
+        return new DistributedLockTemplate(beanFactory, lockType, lockName, waitPolicy);
+    }
+
+    /**
+     * 按观测到的持有时间自适应等待的模板
+     * <p>
+     * 返回的模板持有独立的{@link AdaptiveLockWaitPolicy},应按临界区复用,持有时间差异较大的临界区不要共用
+     *
+     * @return {@link DistributedLockTemplate}
+     */
+    public DistributedLockTemplate withAdaptiveWait() {
+        return new DistributedLockTemplate(beanFactory, lockType, lockName, new AdaptiveLockWaitPolicy());
+    }
+
+    public LockWaitPolicy getWaitPolicy() {
+        return waitPolicy;
+    }
+
+    /**
+     * 持有锁执行,获取锁失败时抛出异常
+     *
+     * @param lockKey 分布式锁Key值
+     * @param wait    尝试获取锁的等待时间
+     * @param action  临界区
+     * @param <T>     返回类型
+     * @return 临界区返回值
+     */
+    public <T> T execute(String lockKey, Duration wait, Supplier<T> action) {
+        return executeLocked(obtain(lockKey), wait, action, true).orElse(null);
+    }
+
+    /**
+     * 持有锁执行,获取锁失败时抛出异常
+     *
+     * @param lockKey 分布式锁Key值
+     * @param wait    尝试获取锁的等待时间
+     * @param action  临界区
+     */
+    public void run(String lockKey, Duration wait, Runnable action) {
+        executeLocked(obtain(lockKey), wait, toSupplier(action), true);
+    }
+
+    /**
+     * 尝试持有锁执行
+     *
+     * @param lockKey 分布式锁Key值
+     * @param wait    尝试获取锁的等待时间
+     * @param action  临界区
+     * @param <T>     返回类型
+     * @return 临界区返回值,获取锁失败或返回{@code null}时为空
+     */
+    public <T> Optional<T> tryExecute(String lockKey, Duration wait, Supplier<T> action) {
+        return executeLocked(obtain(lockKey), wait, action, false);
+    }
+
+    /**
+     * 尝试持有锁执行
+     *
+     * @param lockKey 分布式锁Key值
+     * @param wait    尝试获取锁的等待时间
+     * @param action  临界区
+     * @return 是否获取到锁并执行
+     */
+    public boolean tryRun(String lockKey, Duration wait, Runnable action) {
+        return executeLocked(obtain(lockKey), wait, toSupplier(action), false).isPresent();
+    }
+
+    /**
+     * 同时锁定多个Key值后执行,全部获取成功才执行,获取失败时抛出异常
+     *
+     * @param lockKeys 分布式锁Key值,按自然顺序获取,不会与其他多Key值调用相互死锁
+     * @param wait     尝试获取全部锁的等待时间
+     * @param action   临界区
+     * @param <T>      返回类型
+     * @return 临界区返回值
+     */
+    public <T> T executeAll(Collection<String> lockKeys, Duration wait, Supplier<T> action) {
+        return executeLocked(obtainAll(lockKeys), wait, action, true).orElse(null);
+    }
+
+    /**
+     * 尝试同时锁定多个Key值后执行
+     *
+     * @param lockKeys 分布式锁Key值
+     * @param wait     尝试获取全部锁的等待时间
+     * @param action   临界区
+     * @param <T>      返回类型
+     * @return 临界区返回值,获取锁失败或返回{@code null}时为空
+     */
+    public <T> Optional<T> tryExecuteAll(Collection<String> lockKeys, Duration wait, Supplier<T> action) {
+        return executeLocked(obtainAll(lockKeys), wait, action, false);
+    }
+
+    /**
+     * 逐个锁定Key值并执行,每次只持有一把锁,获取失败的Key值跳过
+     *
+     * @param lockKeys 分布式锁Key值
+     * @param wait     每个Key值尝试获取锁的等待时间
+     * @param action   以Key值为参数的临界区
+     * @return 获取锁失败而跳过的Key值
+     */
+    public List<String> tryRunEach(Collection<String> lockKeys, Duration wait, Consumer<String> action) {
+        List<String> skipped = new ArrayList<>();
+        for (String lockKey : lockKeys) {
+            if (!tryRun(lockKey, wait, () -> action.accept(lockKey))) {
+                skipped.add(lockKey);
+            }
+        }
+        return skipped;
+    }
+
+    private Lock obtain(String lockKey) {
+        Assert.hasText(lockKey, "lockKey must not be empty");
+        return getLockRegistry().obtain(lockKey);
+    }
+
+    private Lock obtainAll(Collection<String> lockKeys) {
+        Assert.notEmpty(lockKeys, "lockKeys must not be empty");
+        List<String> keys = MultiLocks.canonicalize(lockKeys.toArray(new String[0]));
+        return keys.size() == 1 ? getLockRegistry().obtain(keys.get(0)) : MultiLocks.obtain(getLockRegistry(), keys);
+    }
+
+    /**
+     * 获取锁、执行临界区并释放锁,记录等待时间、持有时间、超时及异常次数
+     *
+     * @param lock           锁
+     * @param wait           尝试获取锁的等待时间
+     * @param action         临界区
+     * @param throwOnTimeout 获取锁失败时是否抛出异常
+     * @param <T>            返回类型
+     * @return 临界区返回值,获取锁失败时为空
+     */
+    private <T> Optional<T> executeLocked(Lock lock, Duration wait, Supplier<T> action, boolean throwOnTimeout) {
+        LockMetrics lockMetrics = getMetrics();
+        long start = System.nanoTime();
+        boolean locked;
+        try {
+            locked = waitPolicy.tryLock(lock, wait.toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrupted while acquiring " + lock, e);
+        } catch (RuntimeException e) {
+            lockMetrics.recordError();
+            throw e;
+        }
+        long lockedAt = System.nanoTime();
+        lockMetrics.recordWait(lockedAt - start);
+        if (!locked) {
+            lockMetrics.recordTimeout();
+            rejectionLogger.warn("acquire distributed lock failed.");
+            if (throwOnTimeout) {
+                throw DistributedLockException.REJECTED;
+            }
+            return Optional.empty();
+        }
+        long outerToken = FencingTokenHolder.set(FencingTokenHolder.tokenOf(lock));
+        try {
+            return Optional.ofNullable(action.get());
+        } finally {
+            FencingTokenHolder.reset(outerToken);
+            try {
+                lock.unlock();
+            } catch (RuntimeException e) {
+                lockMetrics.recordError();
+                throw e;
+            } finally {
+                long held = System.nanoTime() - lockedAt;
+                lockMetrics.recordHold(held);
+                waitPolicy.recordHold(held);
+            }
+        }
+    }
+
+    private static Supplier<Boolean> toSupplier(Runnable action) {
+        return () -> {
+            action.run();
+            return Boolean.TRUE;
+        };
+    }
+
+    private LockRegistry getLockRegistry() {
+        LockRegistry registry = lockRegistry;
+        if (registry == null) {
+            try {
+                registry = beanFactory.getBean(lockType, LockRegistry.class);
+            } catch (NoSuchBeanDefinitionException | BeanNotOfRequiredTypeException e) {
+                throw new IllegalStateException("No LockRegistry named '" + lockType + "' required by " + this, e);
+            }
+            lockRegistry = registry;
+        }
+        return registry;
+    }
+
+    private LockMetrics getMetrics() {
+        LockMetrics lockMetrics = metrics;
+        if (lockMetrics == null) {
+            lockMetrics = beanFactory.getBeanProvider(LockMetricsFactory.class).getIfAvailable(() -> LockMetricsFactory.NOOP)
+                    .create(lockType, lockName);
+            metrics = lockMetrics;
+        }
+        return lockMetrics;
+    }
+
+    public String getLockType() {
+        return lockType;
+    }
+
+    public String getLockName() {
+        return lockName;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", DistributedLockTemplate.class.getSimpleName() + "[", "]")
+                .add("lockType='" + lockType + "'")
+                .add("lockName='" + lockName + "'")
+                .toString();
+    }
+}
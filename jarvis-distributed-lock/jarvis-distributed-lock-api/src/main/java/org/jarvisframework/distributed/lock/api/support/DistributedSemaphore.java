@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式信号量
+ * <p>
+ * 同一Key值在集群内最多同时发放{@link DistributedSemaphore#getPermits()}个许可。
+ * 许可不与线程绑定,可在其他线程中归还
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public interface DistributedSemaphore {
+
+    /**
+     * 在等待时间内尝试获取一个许可
+     *
+     * @param time 等待时间
+     * @param unit 时间单位
+     * @return 许可租约,超时未获取到时返回{@code null}
+     * @throws InterruptedException 等待期间线程被中断
+     */
+    Lease tryAcquire(long time, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 获取许可数
+     *
+     * @return 许可数
+     */
+    int getPermits();
+
+    /**
+     * 许可租约,关闭即归还许可
+     */
+    interface Lease extends AutoCloseable {
+
+        /**
+         * 归还许可,重复调用无效果
+         */
+        @Override
+        void close();
+    }
+}
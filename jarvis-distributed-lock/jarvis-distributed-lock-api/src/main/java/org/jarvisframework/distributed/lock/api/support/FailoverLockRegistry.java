@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.integration.support.locks.LockRegistry;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 熔断切换分布式锁实现
+ * <p>
+ * 主锁实现连续异常后熔断,熔断期间获取锁转到备用锁实现;未配置备用锁实现时直接失败,不再等待主锁实现超时。
+ * 配置了备用锁实现时,经主锁实现获取锁后还需同时获取备用锁实现的同一Key值,
+ * 因此任一持有者都持有备用锁,熔断节点只获取备用锁也不会与正常节点同时持有同一Key值;
+ * 备用锁实现异常时释放主锁并获取失败,不会出现只持有主锁的持有者。
+ * 主、备锁实现签发的防护令牌不可相互比较
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class FailoverLockRegistry implements LockRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(FailoverLockRegistry.class);
+
+    private final LockRegistry primary;
+
+    @Nullable
+    private final LockRegistry secondary;
+
+    private final LockCircuitBreaker circuitBreaker;
+
+    private final LongAdder primaryAcquisitions = new LongAdder();
+
+    private final LongAdder primaryLatencyNanos = new LongAdder();
+
+    private final LongAdder primaryFailures = new LongAdder();
+
+    private final LongAdder failovers = new LongAdder();
+
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * 熔断切换分布式锁实现构造方法
+     *
+     * @param primary        主锁实现
+     * @param secondary      备用锁实现,为{@code null}时熔断期间直接失败
+     * @param circuitBreaker 主锁实现熔断器
+     */
+    public FailoverLockRegistry(LockRegistry primary, @Nullable LockRegistry secondary, LockCircuitBreaker circuitBreaker) {
+        Assert.notNull(primary, "'primary' must not be null");
+        Assert.isTrue(primary != secondary, "'secondary' must differ from 'primary'");
+        Assert.notNull(circuitBreaker, "'circuitBreaker' must not be null");
+        this.primary = primary;
+        this.secondary = secondary;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public FencedLock obtain(Object lockKey) {
+        return new FailoverLock(lockKey);
+    }
+
+    public LockCircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * 主锁实现的获取锁次数,包括超时及异常
+     *
+     * @return long
+     */
+    public long getPrimaryAcquisitions() {
+        return primaryAcquisitions.sum();
+    }
+
+    /**
+     * 主锁实现获取锁的累计耗时(纳秒)
+     *
+     * @return long
+     */
+    public long getPrimaryLatencyNanos() {
+        return primaryLatencyNanos.sum();
+    }
+
+    /**
+     * 主锁实现获取或释放锁的异常次数
+     *
+     * @return long
+     */
+    public long getPrimaryFailures() {
+        return primaryFailures.sum();
+    }
+
+    /**
+     * 转到备用锁实现获取锁的次数
+     *
+     * @return long
+     */
+    public long getFailovers() {
+        return failovers.sum();
+    }
+
+    /**
+     * 熔断期间未配置备用锁实现而直接失败的次数
+     *
+     * @return long
+     */
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * 当前线程持有的锁
+     */
+    private static final class Hold {
+
+        @Nullable
+        private final Lock primary;
+
+        @Nullable
+        private final Lock secondary;
+
+        /**
+         * 重入次数,仅由持有锁的线程修改
+         */
+        private int count = 1;
+
+        Hold(@Nullable Lock primary, @Nullable Lock secondary) {
+            this.primary = primary;
+            this.secondary = secondary;
+        }
+    }
+
+    /**
+     * 熔断切换分布式锁
+     */
+    private final class FailoverLock implements FencedLock {
+
+        private final Object lockKey;
+
+        private final Map<Thread, Hold> holds = new ConcurrentHashMap<>(4);
+
+        FailoverLock(Object lockKey) {
+            this.lockKey = lockKey;
+        }
+
+        @Override
+        public void lock() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    if (tryLock(1, TimeUnit.SECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            boolean locked = false;
+            while (!locked) {
+                locked = tryLock(1, TimeUnit.SECONDS);
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            try {
+                return tryLock(0, TimeUnit.MICROSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            Hold hold = holds.get(Thread.currentThread());
+            if (hold != null) {
+                hold.count++;
+                return true;
+            }
+            hold = acquire(System.nanoTime() + unit.toNanos(time));
+            if (hold == null) {
+                return false;
+            }
+            holds.put(Thread.currentThread(), hold);
+            return true;
+        }
+
+        /**
+         * 熔断器放行时经主锁实现获取,否则转到备用锁实现或直接失败
+         *
+         * @param deadline 截止时间({@link System#nanoTime()})
+         * @return 持有的锁,超时返回{@code null}
+         */
+        @Nullable
+        private Hold acquire(long deadline) throws InterruptedException {
+            boolean probe = circuitBreaker.getState() == LockCircuitBreaker.State.OPEN;
+            if (!circuitBreaker.allowRequest()) {
+                if (secondary == null) {
+                    rejections.increment();
+                    throw new CannotAcquireLockException("Primary lock registry is unavailable, circuit is "
+                            + circuitBreaker.getState() + " for " + lockKey);
+                }
+                return acquireSecondary(deadline);
+            }
+            long start = System.nanoTime();
+            Lock lock;
+            boolean locked;
+            boolean responded = false;
+            try {
+                lock = primary.obtain(lockKey);
+                locked = lock.tryLock(Math.max(0L, deadline - start), TimeUnit.NANOSECONDS);
+                responded = true;
+            } catch (RuntimeException e) {
+                responded = true;
+                primaryResponded(start, false);
+                if (secondary == null) {
+                    throw e;
+                }
+                logger.warn("primary lock registry failed for {}, failing over.", lockKey, e);
+                return acquireSecondary(deadline);
+            } finally {
+                if (probe && !responded) {
+                    circuitBreaker.onInconclusive();
+                }
+            }
+            primaryResponded(start, true);
+            if (!locked) {
+                return null;
+            }
+            return secondary == null ? new Hold(lock, null) : mirror(lock, deadline);
+        }
+
+        private void primaryResponded(long start, boolean success) {
+            primaryAcquisitions.increment();
+            primaryLatencyNanos.add(System.nanoTime() - start);
+            if (success) {
+                circuitBreaker.onSuccess();
+            } else {
+                primaryFailures.increment();
+                circuitBreaker.onFailure();
+            }
+        }
+
+        /**
+         * 已持有主锁后在剩余时间内获取备用锁,超时或备用锁实现异常时释放主锁
+         * <p>
+         * 当前节点看到的备用锁实现异常不代表其他节点也无法访问,只持有主锁时熔断节点可能获取到同一Key值的备用锁
+         */
+        @Nullable
+        private Hold mirror(Lock primaryLock, long deadline) throws InterruptedException {
+            Lock lock;
+            boolean locked;
+            try {
+                lock = secondary.obtain(lockKey);
+                locked = lock.tryLock(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (RuntimeException e) {
+                CannotAcquireLockException failure = new CannotAcquireLockException("Secondary lock registry failed for " + lockKey, e);
+                try {
+                    unlockPrimary(primaryLock);
+                } catch (RuntimeException unlockFailure) {
+                    failure.addSuppressed(unlockFailure);
+                }
+                throw failure;
+            } catch (InterruptedException e) {
+                unlockPrimary(primaryLock);
+                throw e;
+            }
+            if (!locked) {
+                unlockPrimary(primaryLock);
+                return null;
+            }
+            return new Hold(primaryLock, lock);
+        }
+
+        @Nullable
+        private Hold acquireSecondary(long deadline) throws InterruptedException {
+            failovers.increment();
+            Lock lock = secondary.obtain(lockKey);
+            return lock.tryLock(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS) ? new Hold(null, lock) : null;
+        }
+
+        @Override
+        public void unlock() {
+            Hold hold = holds.get(Thread.currentThread());
+            if (hold == null) {
+                throw new IllegalStateException("You do not own lock at " + lockKey);
+            }
+            if (--hold.count > 0) {
+                return;
+            }
+            holds.remove(Thread.currentThread());
+            try {
+                if (hold.secondary != null) {
+                    hold.secondary.unlock();
+                }
+            } finally {
+                if (hold.primary != null) {
+                    unlockPrimary(hold.primary);
+                }
+            }
+        }
+
+        private void unlockPrimary(Lock lock) {
+            try {
+                lock.unlock();
+            } catch (RuntimeException e) {
+                primaryFailures.increment();
+                circuitBreaker.onFailure();
+                throw e;
+            }
+        }
+
+        @Override
+        public long getFencingToken() {
+            Hold hold = holds.get(Thread.currentThread());
+            if (hold == null) {
+                return NO_TOKEN;
+            }
+            return FencingTokenHolder.tokenOf(hold.primary != null ? hold.primary : hold.secondary);
+        }
+
+        @Override
+        public boolean isHeld() {
+            Hold hold = holds.get(Thread.currentThread());
+            return hold != null && FencingTokenHolder.isHeld(hold.primary != null ? hold.primary : hold.secondary);
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+
+        @Override
+        public String toString() {
+            return "FailoverLock [lockKey=" + lockKey + "]";
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 带防护令牌(fencing token)的分布式锁
+ * <p>
+ * 每次成功获取锁都会得到一个严格递增的令牌,下游存储可拒绝令牌小于已见最大值的写入,
+ * 从而屏蔽GC停顿或租约过期后仍在运行的旧持有者
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public interface FencedLock extends Lock {
+
+    /**
+     * 未持有锁时的令牌值
+     */
+    long NO_TOKEN = -1L;
+
+    /**
+     * 当前线程持有锁时的防护令牌
+     *
+     * @return 防护令牌,未持有锁时返回{@link #NO_TOKEN}
+     */
+    long getFencingToken();
+
+    /**
+     * 当前线程是否仍持有锁
+     * <p>
+     * 租约过期、会话失效或锁被其他持有者接管后返回false,长时间运行的任务可周期性检查并及时停止;
+     * 默认以防护令牌判断,实现可向存储核实持有者
+     *
+     * @return 是否仍持有锁
+     */
+    default boolean isHeld() {
+        return getFencingToken() != NO_TOKEN;
+    }
+}
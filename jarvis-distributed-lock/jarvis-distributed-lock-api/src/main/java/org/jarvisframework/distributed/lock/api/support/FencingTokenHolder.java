@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 防护令牌上下文
+ * <p>
+ * 由分布式锁切面在执行加锁方法期间设置,业务代码通过{@link #getFencingToken()}读取当前锁的令牌,
+ * 写入下游存储时携带该令牌
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public final class FencingTokenHolder {
+
+    private static final ThreadLocal<long[]> TOKEN = ThreadLocal.withInitial(() -> new long[]{FencedLock.NO_TOKEN});
+
+    private FencingTokenHolder() {
+    }
+
+    /**
+     * 当前加锁方法持有锁的防护令牌
+     *
+     * @return 防护令牌,不在加锁方法内或锁实现不支持时返回{@link FencedLock#NO_TOKEN}
+     */
+    public static long getFencingToken() {
+        return TOKEN.get()[0];
+    }
+
+    /**
+     * 当前是否持有防护令牌
+     *
+     * @return 是否持有防护令牌
+     */
+    public static boolean hasFencingToken() {
+        return getFencingToken() != FencedLock.NO_TOKEN;
+    }
+
+    /**
+     * 设置防护令牌,供切面在进入加锁方法时调用
+     *
+     * @param token 防护令牌
+     * @return 外层加锁方法的令牌,退出时通过{@link #reset(long)}恢复
+     */
+    public static long set(long token) {
+        long[] holder = TOKEN.get();
+        long previous = holder[0];
+        holder[0] = token;
+        return previous;
+    }
+
+    /**
+     * 恢复外层加锁方法的防护令牌
+     *
+     * @param previous {@link #set(long)}返回的令牌
+     */
+    public static void reset(long previous) {
+        TOKEN.get()[0] = previous;
+    }
+
+    /**
+     * 读取锁的防护令牌
+     *
+     * @param lock 锁
+     * @return 防护令牌,锁实现不支持时返回{@link FencedLock#NO_TOKEN}
+     */
+    public static long tokenOf(Lock lock) {
+        return lock instanceof FencedLock ? ((FencedLock) lock).getFencingToken() : FencedLock.NO_TOKEN;
+    }
+
+    /**
+     * 锁是否仍被当前线程持有
+     *
+     * @param lock 锁
+     * @return {@link FencedLock#isHeld()},锁实现不支持时无法核实,返回true
+     */
+    public static boolean isHeld(Lock lock) {
+        return !(lock instanceof FencedLock) || ((FencedLock) lock).isHeld();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.jarvisframework.distributed.lock.api.metrics.LockMetrics;
+import org.springframework.util.Assert;
+
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Key值分段
+ * <p>
+ * 将同一Key值模板下求值后的Key值按哈希映射到固定数量的分段Key值({@code <模板>:stripe-<序号>}),
+ * 锁实例与远程Key值数量固定且常驻,代价是落在同一分段的不同Key值相互等待。
+ * 每个分段记录本节点当前持有的原始Key值,获取分段锁时发现已被其他Key值持有即记为一次分段竞争,
+ * 其他节点造成的分段竞争不可见
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public final class KeyStripes {
+
+    /**
+     * Key值模板
+     */
+    private final String template;
+
+    /**
+     * 预先生成的分段Key值
+     */
+    private final String[] stripeKeys;
+
+    /**
+     * 本节点各分段当前持有的原始Key值
+     */
+    private final AtomicReferenceArray<String> holders;
+
+    /**
+     * Key值分段构造方法
+     *
+     * @param template Key值模板
+     * @param stripes  分段数
+     */
+    public KeyStripes(String template, int stripes) {
+        Assert.hasText(template, "'template' must not be empty");
+        Assert.isTrue(stripes > 0, "'stripes' must be positive");
+        this.template = template;
+        this.stripeKeys = new String[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripeKeys[i] = template + ":stripe-" + i;
+        }
+        this.holders = new AtomicReferenceArray<>(stripes);
+    }
+
+    /**
+     * 计算Key值所在分段
+     *
+     * @param lockKey 求值后的Key值
+     * @return 分段序号
+     */
+    public int indexOf(String lockKey) {
+        int h = lockKey.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), stripeKeys.length);
+    }
+
+    /**
+     * 获取Key值所在分段的Key值
+     *
+     * @param lockKey 求值后的Key值
+     * @return 分段Key值
+     */
+    public String stripeKeyOf(String lockKey) {
+        return stripeKeys[indexOf(lockKey)];
+    }
+
+    /**
+     * 包装分段锁,获取时记录分段竞争
+     *
+     * @param stripeLock 分段Key值对应的锁
+     * @param lockKey    求值后的Key值
+     * @param metrics    {@link LockMetrics}
+     * @return {@link FencedLock}
+     */
+    public FencedLock wrap(Lock stripeLock, String lockKey, LockMetrics metrics) {
+        return new StripedLock(stripeLock, lockKey, indexOf(lockKey), metrics);
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public int getStripes() {
+        return stripeKeys.length;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", KeyStripes.class.getSimpleName() + "[", "]")
+                .add("template='" + template + "'")
+                .add("stripes=" + stripeKeys.length)
+                .toString();
+    }
+
+    /**
+     * 分段锁
+     */
+    private final class StripedLock implements FencedLock {
+
+        private final Lock delegate;
+
+        private final String lockKey;
+
+        private final int index;
+
+        private final LockMetrics metrics;
+
+        StripedLock(Lock delegate, String lockKey, int index, LockMetrics metrics) {
+            this.delegate = delegate;
+            this.lockKey = lockKey;
+            this.index = index;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void lock() {
+            checkContention();
+            delegate.lock();
+            holders.set(index, lockKey);
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            checkContention();
+            delegate.lockInterruptibly();
+            holders.set(index, lockKey);
+        }
+
+        @Override
+        public boolean tryLock() {
+            checkContention();
+            return held(delegate.tryLock());
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            checkContention();
+            return held(delegate.tryLock(time, unit));
+        }
+
+        @Override
+        public void unlock() {
+            holders.compareAndSet(index, lockKey, null);
+            delegate.unlock();
+        }
+
+        @Override
+        public long getFencingToken() {
+            return FencingTokenHolder.tokenOf(delegate);
+        }
+
+        @Override
+        public boolean isHeld() {
+            return FencingTokenHolder.isHeld(delegate);
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+
+        private void checkContention() {
+            String holder = holders.get(index);
+            if (holder != null && !holder.equals(lockKey)) {
+                metrics.recordStripeContention();
+            }
+        }
+
+        private boolean held(boolean locked) {
+            if (locked) {
+                holders.set(index, lockKey);
+            }
+            return locked;
+        }
+    }
+}
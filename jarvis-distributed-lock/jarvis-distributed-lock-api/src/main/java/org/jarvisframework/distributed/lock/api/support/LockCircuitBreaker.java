@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.springframework.util.Assert;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 锁实现熔断器
+ * <p>
+ * 连续失败达到阈值后熔断,熔断期间拒绝请求;熔断时间过后只放行一个探测请求,
+ * 探测成功恢复,失败继续熔断。获取锁超时说明锁实现仍在响应,按成功处理
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class LockCircuitBreaker {
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        /**
+         * 正常放行
+         */
+        CLOSED,
+        /**
+         * 熔断,拒绝请求
+         */
+        OPEN,
+        /**
+         * 探测中,只放行一个请求
+         */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final long openNanos;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile long openedAt;
+
+    /**
+     * 锁实现熔断器构造方法
+     *
+     * @param failureThreshold 触发熔断的连续失败次数
+     * @param openDuration     熔断时间(毫秒),之后放行探测请求
+     */
+    public LockCircuitBreaker(int failureThreshold, long openDuration) {
+        Assert.isTrue(failureThreshold > 0, "'failureThreshold' must be positive");
+        Assert.isTrue(openDuration > 0, "'openDuration' must be positive");
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openDuration);
+    }
+
+    /**
+     * 请求是否放行,熔断时间过后第一个调用方成为探测请求
+     *
+     * @return 是否放行
+     */
+    public boolean allowRequest() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        return current == State.OPEN && System.nanoTime() - openedAt >= openNanos
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+    }
+
+    /**
+     * 记录一次成功
+     */
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        state.set(State.CLOSED);
+    }
+
+    /**
+     * 记录一次失败,探测失败或连续失败达到阈值时熔断
+     */
+    public void onFailure() {
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.nanoTime();
+            consecutiveFailures.set(0);
+            state.set(State.OPEN);
+        }
+    }
+
+    /**
+     * 探测请求未得出结果(如等待被中断)时恢复熔断,下一个调用方立即成为新的探测请求,
+     * 避免熔断器停留在半开状态
+     */
+    public void onInconclusive() {
+        state.compareAndSet(State.HALF_OPEN, State.OPEN);
+    }
+
+        public State getState() {
+        return state.get();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.integration.support.locks.ExpirableLockRegistry;
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁注册表空闲淘汰器
+ * <p>
+ * 在后台线程中周期性调用{@link ExpirableLockRegistry#expireUnusedOlderThan(long)},
+ * 淘汰长时间未使用的锁实例,避免动态Key值导致注册表无限增长
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class LockRegistryEvictor implements BeanFactoryAware, SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(LockRegistryEvictor.class);
+
+    private final long idleTimeout;
+
+    private final long evictionInterval;
+
+    private ListableBeanFactory beanFactory;
+
+    private Map<String, ExpirableLockRegistry> registries;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 分布式锁注册表空闲淘汰器构造方法
+     *
+     * @param idleTimeout      锁实例空闲超过该时间(毫秒)后淘汰
+     * @param evictionInterval 淘汰间隔(毫秒)
+     */
+    public LockRegistryEvictor(long idleTimeout, long evictionInterval) {
+        Assert.isTrue(idleTimeout > 0, "'idleTimeout' must be positive");
+        Assert.isTrue(evictionInterval > 0, "'evictionInterval' must be positive");
+        this.idleTimeout = idleTimeout;
+        this.evictionInterval = evictionInterval;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        Assert.isInstanceOf(ListableBeanFactory.class, beanFactory);
+        this.beanFactory = (ListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        registries = beanFactory.getBeansOfType(ExpirableLockRegistry.class);
+        if (registries.isEmpty()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "distributed-lock-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::evict, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 淘汰全部注册表中的空闲锁实例,异常不中断后续调度
+     */
+    void evict() {
+        registries.forEach((name, registry) -> {
+            try {
+                registry.expireUnusedOlderThan(idleTimeout);
+            } catch (RuntimeException e) {
+                logger.error("expire unused locks of {} failed.", name, e);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 获取锁的等待提示
+ * <p>
+ * 由{@link AdaptiveLockWaitPolicy}在调用{@link java.util.concurrent.locks.Lock#tryLock(long, TimeUnit)}期间设置当前Key值模板
+ * 的预期持有时间,轮询重试的锁实现据此选择带抖动的重试间隔:持有时间长时减少无效轮询,持有时间短时尽快重试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public final class LockWaitHint {
+
+    /**
+     * 最小重试间隔
+     */
+    private static final long MIN_RETRY_INTERVAL = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final ThreadLocal<long[]> EXPECTED_HOLD = ThreadLocal.withInitial(() -> new long[1]);
+
+    private LockWaitHint() {
+    }
+
+    /**
+     * 设置预期持有时间
+     *
+     * @param expectedHoldNanos 预期持有时间(纳秒)
+     * @return 之前的提示,结束时通过{@link #reset(long)}恢复
+     */
+    public static long set(long expectedHoldNanos) {
+        long[] holder = EXPECTED_HOLD.get();
+        long previous = holder[0];
+        holder[0] = expectedHoldNanos;
+        return previous;
+    }
+
+    /**
+     * 恢复之前的提示
+     *
+     * @param previous {@link #set(long)}返回的提示
+     */
+    public static void reset(long previous) {
+        EXPECTED_HOLD.get()[0] = previous;
+    }
+
+    /**
+     * 当前预期持有时间
+     *
+     * @return 预期持有时间(纳秒),没有提示时为0
+     */
+    public static long getExpectedHoldNanos() {
+        return EXPECTED_HOLD.get()[0];
+    }
+
+    /**
+     * 计算下一次重试前的等待时间
+     * <p>
+     * 有提示时以预期持有时间的一半为基准,在基准的0.5~1.5倍之间随机,避免多个等待者同时重试
+     *
+     * @param defaultNanos 没有提示时的重试间隔(纳秒)
+     * @return 重试间隔(纳秒)
+     */
+    public static long retryIntervalNanos(long defaultNanos) {
+        long expectedHold = getExpectedHoldNanos();
+        if (expectedHold <= 0) {
+            return defaultNanos;
+        }
+        long base = Math.max(MIN_RETRY_INTERVAL, expectedHold / 2);
+        return base / 2 + ThreadLocalRandom.current().nextLong(base);
+    }
+}
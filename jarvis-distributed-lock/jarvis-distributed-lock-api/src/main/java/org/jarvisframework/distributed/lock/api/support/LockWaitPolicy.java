@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 获取锁的等待策略
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public interface LockWaitPolicy {
+
+    /**
+     * 固定等待:在整个等待时间内由锁实现按自身间隔重试
+     */
+    LockWaitPolicy FIXED = (lock, waitNanos) -> lock.tryLock(waitNanos, TimeUnit.NANOSECONDS);
+
+    /**
+     * 在等待时间内尝试获取锁
+     *
+     * @param lock      锁
+     * @param waitNanos 等待时间(纳秒)
+     * @return 是否获取成功
+     * @throws InterruptedException 等待期间线程被中断
+     */
+    boolean tryLock(Lock lock, long waitNanos) throws InterruptedException;
+
+    /**
+     * 记录一次持有锁的时间
+     *
+     * @param nanos 持有时间(纳秒)
+     */
+    default void recordHold(long nanos) {
+    }
+}
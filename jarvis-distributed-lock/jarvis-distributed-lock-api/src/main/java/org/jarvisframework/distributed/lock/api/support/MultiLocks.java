@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.springframework.integration.support.locks.LockRegistry;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 多Key值分布式锁工具类
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public final class MultiLocks {
+
+    private MultiLocks() {
+    }
+
+    /**
+     * 将Key值去重并按自然顺序排序,作为多把锁的统一获取顺序
+     *
+     * @param lockKeys 分布式锁Key值
+     * @return 排序去重后的Key值
+     */
+    public static List<String> canonicalize(String... lockKeys) {
+        if (lockKeys.length == 1) {
+            return Collections.singletonList(lockKeys[0]);
+        }
+        return Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(Arrays.asList(lockKeys))));
+    }
+
+    /**
+     * 获取同时锁定多个Key值的锁
+     * <p>
+     * 实现了{@link MultiLockRegistry}的注册表一次性获取全部Key值,
+     * 否则按排序后的顺序逐个获取,失败时释放已获取的锁
+     *
+     * @param lockRegistry 分布式锁实现
+     * @param lockKeys     分布式锁Key值
+     * @return {@link Lock}
+     */
+    public static Lock obtain(LockRegistry lockRegistry, Collection<String> lockKeys) {
+        Assert.notEmpty(lockKeys, "lockKeys must not be empty");
+        List<String> keys = new ArrayList<>(new TreeSet<>(lockKeys));
+        if (keys.size() == 1) {
+            return lockRegistry.obtain(keys.get(0));
+        }
+        if (lockRegistry instanceof MultiLockRegistry) {
+            return ((MultiLockRegistry) lockRegistry).obtainAll(Collections.unmodifiableList(keys));
+        }
+        List<Lock> locks = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            locks.add(lockRegistry.obtain(key));
+        }
+        return new OrderedMultiLock(locks);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 按固定顺序逐个获取的组合锁
+ * <p>
+ * 所有调用方按同一顺序获取,避免交叉持有导致死锁;任一把锁获取失败时释放已获取的锁,
+ * 释放时按相反顺序进行
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class OrderedMultiLock implements FencedLock {
+
+    private final List<? extends Lock> locks;
+
+    /**
+     * 组合锁构造方法
+     *
+     * @param locks 按获取顺序排列的锁
+     */
+    public OrderedMultiLock(List<? extends Lock> locks) {
+        this.locks = locks;
+    }
+
+    @Override
+    public void lock() {
+        int acquired = 0;
+        try {
+            for (Lock lock : locks) {
+                lock.lock();
+                acquired++;
+            }
+        } catch (RuntimeException e) {
+            release(acquired);
+            throw e;
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        int acquired = 0;
+        try {
+            for (Lock lock : locks) {
+                lock.lockInterruptibly();
+                acquired++;
+            }
+        } catch (RuntimeException | InterruptedException e) {
+            release(acquired);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean tryLock() {
+        int acquired = 0;
+        try {
+            for (Lock lock : locks) {
+                if (!lock.tryLock()) {
+                    break;
+                }
+                acquired++;
+            }
+        } finally {
+            if (acquired < locks.size()) {
+                release(acquired);
+            }
+        }
+        return acquired == locks.size();
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(time);
+        int acquired = 0;
+        try {
+            for (Lock lock : locks) {
+                long remaining = deadline - System.nanoTime();
+                if (!(remaining > 0 ? lock.tryLock(remaining, TimeUnit.NANOSECONDS) : lock.tryLock())) {
+                    break;
+                }
+                acquired++;
+            }
+        } finally {
+            if (acquired < locks.size()) {
+                release(acquired);
+            }
+        }
+        return acquired == locks.size();
+    }
+
+    /**
+     * 按相反顺序释放前{@code count}把锁
+     *
+     * @param count 已获取的锁数量
+     */
+    private void release(int count) {
+        RuntimeException failure = null;
+        for (int i = count - 1; i >= 0; i--) {
+            try {
+                locks.get(i).unlock();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void unlock() {
+        release(locks.size());
+    }
+
+    /**
+     * 返回各把锁防护令牌中的最大值
+     *
+     * @return 防护令牌
+     */
+    @Override
+    public long getFencingToken() {
+        long token = NO_TOKEN;
+        for (Lock lock : locks) {
+            token = Math.max(token, FencingTokenHolder.tokenOf(lock));
+        }
+        return token;
+    }
+
+    /**
+     * 全部Key值的锁均仍被持有
+     *
+     * @return 是否仍持有锁
+     */
+    @Override
+    public boolean isHeld() {
+        for (Lock lock : locks) {
+            if (!FencingTokenHolder.isHeld(lock)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException("Conditions are not supported");
+    }
+}
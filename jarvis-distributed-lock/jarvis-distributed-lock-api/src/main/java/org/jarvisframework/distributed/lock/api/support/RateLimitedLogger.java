@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.slf4j.Logger;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按时间间隔限流的日志
+ * <p>
+ * 每个间隔内最多输出一条日志,其余只计数,下一次输出时附带被抑制的条数;
+ * 用于获取锁失败等高竞争下的高频日志,避免日志本身成为瓶颈
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class RateLimitedLogger {
+
+    private final Logger logger;
+
+    private final long intervalNanos;
+
+    /**
+     * 下一次允许输出的时间({@link System#nanoTime()})
+     */
+    private final AtomicLong nextLogAt = new AtomicLong(System.nanoTime());
+
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * 按时间间隔限流的日志构造方法
+     *
+     * @param logger   {@link Logger}
+     * @param interval 输出间隔
+     * @param unit     时间单位
+     */
+    public RateLimitedLogger(Logger logger, long interval, TimeUnit unit) {
+        Assert.notNull(logger, "logger must not be null");
+        Assert.isTrue(interval >= 0, "interval must not be negative");
+        this.logger = logger;
+        this.intervalNanos = unit.toNanos(interval);
+    }
+
+    /**
+     * 输出警告日志,间隔内已输出过时只计数
+     *
+     * @param message 日志内容
+     */
+    public void warn(String message) {
+        if (!logger.isWarnEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long next = nextLogAt.get();
+        if (now - next < 0 || !nextLogAt.compareAndSet(next, now + intervalNanos)) {
+            suppressed.increment();
+            return;
+        }
+        long count = suppressed.sumThenReset();
+        if (count > 0) {
+            logger.warn("{} ({} similar messages suppressed)", message, count);
+        } else {
+            logger.warn(message);
+        }
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.springframework.integration.support.locks.LockRegistry;
+
+/**
+ * 支持读写锁的分布式锁实现
+ * <p>
+ * {@link #obtain(Object)}返回排他的写锁,{@link #obtainRead(Object)}返回同一Key值上的共享读锁
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public interface ReadWriteLockRegistry extends LockRegistry {
+
+    /**
+     * 获取共享读锁
+     *
+     * @param lockKey 分布式锁Key值
+     * @return {@link FencedLock}
+     */
+    FencedLock obtainRead(Object lockKey);
+}
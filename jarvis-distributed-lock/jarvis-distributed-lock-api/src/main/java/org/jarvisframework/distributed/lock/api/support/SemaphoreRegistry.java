@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+/**
+ * 支持分布式信号量的锁实现
+ * <p>
+ * 与分布式锁共用同一个Bean,{@link org.jarvisframework.distributed.lock.api.annotation.DistributedPermits#lockType()}
+ * 按Bean名称选择实现;也可直接注入后以编程方式使用
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public interface SemaphoreRegistry {
+
+    /**
+     * 获取分布式信号量
+     *
+     * @param key     信号量Key值
+     * @param permits 集群内允许的最大并发数
+     * @return {@link DistributedSemaphore}
+     */
+    DistributedSemaphore obtainSemaphore(String key, int permits);
+}
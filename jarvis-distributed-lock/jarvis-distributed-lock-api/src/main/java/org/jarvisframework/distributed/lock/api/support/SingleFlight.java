@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 单飞执行
+ * <p>
+ * 同一Key值的并发调用只执行一次,执行期间到达的调用在等待时间内共享其结果或异常;
+ * 执行中的调用在同一线程内再次进入同一Key值时不再合并,直接执行,避免等待自身结果而死锁
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class SingleFlight {
+
+    /**
+     * 执行中的调用
+     */
+    private final ConcurrentMap<Object, Flight> calls = new ConcurrentHashMap<>(64);
+
+    /**
+     * 执行调用,若同一Key值已有调用执行中则在等待时间内等待并共享其结果
+     *
+     * @param key          Key值,需实现{@code equals}与{@code hashCode}
+     * @param timeoutNanos 等待执行中调用的最长时间(纳秒)
+     * @param call         调用
+     * @param onTimeout    等待超时后的调用
+     * @return 调用结果
+     * @throws Throwable 调用抛出的异常
+     */
+    public Object execute(Object key, long timeoutNanos, Call call, Call onTimeout) throws Throwable {
+        Flight flight = new Flight();
+        Flight inFlight = calls.putIfAbsent(key, flight);
+        if (inFlight != null) {
+            if (inFlight.leader == Thread.currentThread()) {
+                return call.call();
+            }
+            return await(inFlight, timeoutNanos, onTimeout);
+        }
+        Object result;
+        try {
+            result = call.call();
+        } catch (Throwable e) {
+            calls.remove(key, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+        calls.remove(key, flight);
+        flight.result.complete(result);
+        return result;
+    }
+
+    private static Object await(Flight inFlight, long timeoutNanos, Call onTimeout) throws Throwable {
+        try {
+            return inFlight.result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            return onTimeout.call();
+        }
+    }
+
+    /**
+     * 执行中的调用数
+     *
+     * @return 执行中的调用数
+     */
+    public int inFlightCount() {
+        return calls.size();
+    }
+
+    /**
+     * 执行中的调用
+     */
+    private static final class Flight {
+
+        /**
+         * 执行调用的线程
+         */
+        private final Thread leader = Thread.currentThread();
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+    }
+
+    /**
+     * 可抛出异常的调用
+     */
+    @FunctionalInterface
+    public interface Call {
+        /**
+         * 执行调用
+         *
+         * @return 调用结果
+         * @throws Throwable 调用异常
+         */
+        Object call() throws Throwable;
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.springframework.integration.support.locks.LockRegistry;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 两级分布式锁实现
+ * <p>
+ * 在远程锁(Redis、Zookeeper)之前增加一层按Key值的本地公平锁,同一节点同一Key值同时只有一个线程
+ * 竞争远程锁,其余线程在进程内按顺序排队,减少热点Key下的远程往返。每个Key值使用独立的本地锁,
+ * 不同Key值互不阻塞,嵌套获取不同Key值也不会因共享本地锁而死锁;本地锁按引用计数,
+ * 没有线程等待或持有时即移除
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class TieredLockRegistry implements MultiLockRegistry {
+
+    /**
+     * 远程锁实现
+     */
+    private final LockRegistry delegate;
+
+    /**
+     * 等待或持有中的本地锁
+     */
+    private final Map<Object, LocalLock> localLocks = new ConcurrentHashMap<>();
+
+    /**
+     * 两级分布式锁实现构造方法
+     *
+     * @param delegate 远程锁实现
+     */
+    public TieredLockRegistry(LockRegistry delegate) {
+        Assert.notNull(delegate, "delegate must not be null");
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Lock obtain(Object lockKey) {
+        return new TieredLock(new KeyLocalLock(lockKey), delegate.obtain(lockKey));
+    }
+
+    /**
+     * 按Key值顺序获取全部本地锁,再一次性获取全部远程锁
+     *
+     * @param lockKeys 按自然顺序排序且去重的Key值
+     * @return {@link FencedLock}
+     */
+    @Override
+    public FencedLock obtainAll(List<String> lockKeys) {
+        List<Lock> locals = new ArrayList<>(lockKeys.size());
+        for (String lockKey : lockKeys) {
+            locals.add(new KeyLocalLock(lockKey));
+        }
+        Lock local = locals.size() == 1 ? locals.get(0) : new OrderedMultiLock(locals);
+        return new TieredLock(local, MultiLocks.obtain(delegate, lockKeys));
+    }
+
+    /**
+     * 等待或持有中的本地锁数量
+     *
+     * @return 本地锁数量
+     */
+    int localLockCount() {
+        return localLocks.size();
+    }
+
+    private LocalLock retain(Object lockKey) {
+        return localLocks.compute(lockKey, (key, lock) -> {
+            LocalLock retained = lock != null ? lock : new LocalLock();
+            retained.references++;
+            return retained;
+        });
+    }
+
+    private void release(Object lockKey) {
+        localLocks.computeIfPresent(lockKey, (key, lock) -> --lock.references == 0 ? null : lock);
+    }
+
+    public LockRegistry getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 本地公平锁,引用计数仅在{@link ConcurrentHashMap#compute}内修改
+     */
+    private static final class LocalLock extends ReentrantLock {
+
+        private int references;
+
+        LocalLock() {
+            super(true);
+        }
+    }
+
+    /**
+     * Key值对应的本地锁,每次加锁增加一次引用,释放时减少
+     */
+    private final class KeyLocalLock implements Lock {
+
+        private final Object lockKey;
+
+        KeyLocalLock(Object lockKey) {
+            this.lockKey = lockKey;
+        }
+
+        @Override
+        public void lock() {
+            LocalLock lock = retain(lockKey);
+            try {
+                lock.lock();
+            } catch (RuntimeException e) {
+                release(lockKey);
+                throw e;
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            LocalLock lock = retain(lockKey);
+            try {
+                lock.lockInterruptibly();
+            } catch (RuntimeException | InterruptedException e) {
+                release(lockKey);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            if (retain(lockKey).tryLock()) {
+                return true;
+            }
+            release(lockKey);
+            return false;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            boolean acquired = false;
+            try {
+                acquired = retain(lockKey).tryLock(time, unit);
+                return acquired;
+            } finally {
+                if (!acquired) {
+                    release(lockKey);
+                }
+            }
+        }
+
+        @Override
+        public void unlock() {
+            LocalLock lock = localLocks.get(lockKey);
+            if (lock == null) {
+                throw new IllegalMonitorStateException("You do not own local lock for " + lockKey);
+            }
+            lock.unlock();
+            release(lockKey);
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+    }
+
+    /**
+     * 先本地后远程的两级锁
+     */
+    private static final class TieredLock implements FencedLock {
+
+        private final Lock local;
+
+        private final Lock remote;
+
+        TieredLock(Lock local, Lock remote) {
+            this.local = local;
+            this.remote = remote;
+        }
+
+        @Override
+        public void lock() {
+            local.lock();
+            try {
+                remote.lock();
+            } catch (RuntimeException e) {
+                local.unlock();
+                throw e;
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            local.lockInterruptibly();
+            try {
+                remote.lockInterruptibly();
+            } catch (RuntimeException | InterruptedException e) {
+                local.unlock();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            if (!local.tryLock()) {
+                return false;
+            }
+            boolean acquired = false;
+            try {
+                acquired = remote.tryLock();
+                return acquired;
+            } finally {
+                if (!acquired) {
+                    local.unlock();
+                }
+            }
+        }
+
+        /**
+         * 已持有本地锁后在剩余时间内竞争远程锁,失败或被中断时先释放本地锁
+         */
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(time);
+            if (!local.tryLock(time, unit)) {
+                return false;
+            }
+            boolean acquired = false;
+            try {
+                acquired = remote.tryLock(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                return acquired;
+            } finally {
+                if (!acquired) {
+                    local.unlock();
+                }
+            }
+        }
+
+        @Override
+        public void unlock() {
+            try {
+                remote.unlock();
+            } finally {
+                local.unlock();
+            }
+        }
+
+        @Override
+        public long getFencingToken() {
+            return FencingTokenHolder.tokenOf(remote);
+        }
+
+        @Override
+        public boolean isHeld() {
+            return FencingTokenHolder.isHeld(remote);
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程支持
+ * <p>
+ * 构件为多版本JAR:Java 21及以上构建时{@code META-INF/versions/21}下的实现基于{@code Thread.ofVirtual()},
+ * 本实现供低版本运行时使用,始终不可用
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     *
+     * @return 是否支持
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * 创建虚拟线程工厂
+     *
+     * @param prefix 线程名称前缀
+     * @return {@link ThreadFactory}
+     */
+    public static ThreadFactory threadFactory(String prefix) {
+        throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器
+     *
+     * @param prefix 线程名称前缀
+     * @return {@link ExecutorService}
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.aspect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jarvisframework.common.exception.DistributedLockException;
+import org.jarvisframework.distributed.lock.api.annotation.DistributedLock;
+import org.jarvisframework.distributed.lock.api.configuration.DistributedLockConfiguration;
+import org.jarvisframework.distributed.lock.api.constant.DistributedLockType;
+import org.jarvisframework.distributed.lock.api.constant.LockFailureStrategy;
+import org.jarvisframework.distributed.lock.api.metrics.MicrometerLockMetricsFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.integration.support.locks.DefaultLockRegistry;
+import org.springframework.integration.support.locks.LockRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 分布式锁切面测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class DistributedLockAspectTest {
+
+    private AnnotationConfigApplicationContext context;
+
+    private LockRegistry lockRegistry;
+
+    private AsyncService asyncService;
+
+    static class AsyncService {
+
+        final CompletableFuture<String> pending = new CompletableFuture<>();
+
+        final Sinks.One<String> sink = Sinks.one();
+
+        public CompletableFuture<String> pending() {
+            return pending;
+        }
+
+        public Sinks.One<String> sink() {
+            return sink;
+        }
+
+        @DistributedLock(lockKey = "'future:' + #p0")
+        public CompletableFuture<String> future(String id) {
+            return pending;
+        }
+
+        @DistributedLock(lockKey = "'sync:' + #p0", time = 50L, timeUnit = TimeUnit.MILLISECONDS)
+        public String sync(String id) {
+            return id;
+        }
+
+        @DistributedLock(lockKey = "'mono:' + #p0")
+        public Mono<String> mono(String id) {
+            return sink.asMono();
+        }
+    }
+
+    static class FailureService {
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        @DistributedLock(lockKey = "'skip:' + #p0", time = 50L, timeUnit = TimeUnit.MILLISECONDS,
+                onFailure = LockFailureStrategy.SKIP)
+        public int skip(String id) {
+            return 1;
+        }
+
+        @DistributedLock(lockKey = "'fallback:' + #p0", time = 50L, timeUnit = TimeUnit.MILLISECONDS,
+                onFailure = LockFailureStrategy.FALLBACK, fallbackMethod = "busy")
+        public String fallback(String id) {
+            return id;
+        }
+
+        public String busy(String id) {
+            return "busy:" + id;
+        }
+
+        @DistributedLock(lockKey = "'cached:' + #p0", time = 50L, timeUnit = TimeUnit.MILLISECONDS,
+                onFailure = LockFailureStrategy.CACHED)
+        public String cached(String id) {
+            return id + ":" + invocations.incrementAndGet();
+        }
+    }
+
+    @EnableAspectJAutoProxy(proxyTargetClass = true)
+    @Import(DistributedLockConfiguration.class)
+    static class LockConfiguration {
+        @Bean(DistributedLockType.DISTRIBUTED_LOCK_ZOOKEEPER)
+        public LockRegistry lockRegistry() {
+            return new DefaultLockRegistry();
+        }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        public AsyncService asyncService() {
+            return new AsyncService();
+        }
+
+        @Bean
+        public FailureService failureService() {
+            return new FailureService();
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(LockConfiguration.class);
+        lockRegistry = context.getBean(LockRegistry.class);
+        asyncService = context.getBean(AsyncService.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void completableFutureHoldsLockUntilCompletionTest() throws Exception {
+        CompletableFuture<String> result = asyncService.future("1");
+        Lock lock = lockRegistry.obtain("future:1");
+
+        Thread.sleep(100);
+        Assertions.assertFalse(lock.tryLock(), "lock released before the future completed");
+        Assertions.assertFalse(result.isDone());
+
+        asyncService.pending().complete("done");
+        Assertions.assertEquals("done", result.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(lock.tryLock(5, TimeUnit.SECONDS));
+        lock.unlock();
+    }
+
+    @Test
+    public void monoHoldsLockUntilCompletionTest() throws Exception {
+        CompletableFuture<String> result = asyncService.mono("1").toFuture();
+        Lock lock = lockRegistry.obtain("mono:1");
+
+        Thread.sleep(100);
+        Assertions.assertFalse(lock.tryLock(), "lock released before the mono completed");
+
+        asyncService.sink().tryEmitValue("done");
+        Assertions.assertEquals("done", result.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(lock.tryLock(5, TimeUnit.SECONDS));
+        lock.unlock();
+    }
+
+    @Test
+    public void monoIsLazyTest() throws Exception {
+        Mono<String> mono = asyncService.mono("2");
+        Lock lock = lockRegistry.obtain("mono:2");
+        Assertions.assertTrue(lock.tryLock(), "lock acquired before subscription");
+        lock.unlock();
+        asyncService.sink().tryEmitValue("done");
+        Assertions.assertEquals("done", mono.block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    public void metricsTaggedByKeyTemplateTest() throws Exception {
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+        Assertions.assertEquals("1", asyncService.sync("1"));
+        Assertions.assertEquals("2", asyncService.sync("2"));
+
+        Lock lock = lockRegistry.obtain("sync:3");
+        lock.lock();
+        try {
+            CompletableFuture<String> blocked = CompletableFuture.supplyAsync(() -> asyncService.sync("3"));
+            Assertions.assertThrows(DistributedLockException.class, () -> {
+                try {
+                    blocked.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    throw e.getCause();
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+
+        String template = "'sync:' + #p0";
+        Assertions.assertEquals(3L, meterRegistry.get(MicrometerLockMetricsFactory.LOCK_WAIT)
+                .tag("registry", DistributedLockType.DISTRIBUTED_LOCK_ZOOKEEPER).tag("lock", template).timer().count());
+        Assertions.assertEquals(2L, meterRegistry.get(MicrometerLockMetricsFactory.LOCK_HELD)
+                .tag("lock", template).timer().count());
+        Assertions.assertEquals(1.0, meterRegistry.get(MicrometerLockMetricsFactory.LOCK_TIMEOUTS)
+                .tag("lock", template).counter().count());
+        Assertions.assertEquals(0.0, meterRegistry.get(MicrometerLockMetricsFactory.LOCK_ERRORS)
+                .tag("lock", template).counter().count());
+    }
+
+    @Test
+    public void failureStrategiesTest() throws Throwable {
+        FailureService failureService = context.getBean(FailureService.class);
+        Assertions.assertEquals("1:1", failureService.cached("1"));
+
+        Lock skip = lockRegistry.obtain("skip:1");
+        Lock fallback = lockRegistry.obtain("fallback:1");
+        Lock cached = lockRegistry.obtain("cached:1");
+        Lock uncached = lockRegistry.obtain("cached:2");
+        skip.lock();
+        fallback.lock();
+        cached.lock();
+        uncached.lock();
+        try {
+            Assertions.assertEquals(0, (int) callFromOtherThread(() -> failureService.skip("1")));
+            Assertions.assertEquals("busy:1", callFromOtherThread(() -> failureService.fallback("1")));
+            Assertions.assertEquals("1:1", callFromOtherThread(() -> failureService.cached("1")));
+            DistributedLockException rejected = Assertions.assertThrows(DistributedLockException.class,
+                    () -> callFromOtherThread(() -> failureService.cached("2")));
+            Assertions.assertSame(DistributedLockException.REJECTED, rejected);
+            Assertions.assertEquals(0, rejected.getStackTrace().length);
+        } finally {
+            skip.unlock();
+            fallback.unlock();
+            cached.unlock();
+            uncached.unlock();
+        }
+        Assertions.assertEquals(1, failureService.skip("1"));
+        Assertions.assertEquals("1:2", failureService.cached("1"));
+    }
+
+    private static <T> T callFromOtherThread(Supplier<T> call) throws Throwable {
+        try {
+            return CompletableFuture.supplyAsync(call).get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+}
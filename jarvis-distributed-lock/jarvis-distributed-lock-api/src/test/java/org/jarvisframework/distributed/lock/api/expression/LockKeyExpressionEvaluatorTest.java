@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.expression;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+/**
+ * 分布式锁Key值表达式测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class LockKeyExpressionEvaluatorTest {
+
+    private final LockKeyExpressionEvaluator evaluator = new LockKeyExpressionEvaluator();
+
+    static class Order {
+        private final Long id;
+
+        Order(Long id) {
+            this.id = id;
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+
+    public void updateOrder(Long orderId, Order order) {
+    }
+
+    private Method method() throws NoSuchMethodException {
+        return LockKeyExpressionEvaluatorTest.class.getMethod("updateOrder", Long.class, Order.class);
+    }
+
+    @Test
+    public void literalKeyTest() throws Exception {
+        LockKeyExpression expression = evaluator.parse(method(), "order-lock");
+        Assertions.assertTrue(expression.isLiteral());
+        Assertions.assertEquals("order-lock", expression.getValue(new Object[]{1L, null}));
+    }
+
+    @Test
+    public void parameterNameKeyTest() throws Exception {
+        Assertions.assertEquals("order:10", evaluator.evaluate(method(), "'order:' + #orderId", new Object[]{10L, null}));
+        // 同一方法复用已编译的表达式
+        Assertions.assertEquals("order:11", evaluator.evaluate(method(), "'order:' + #orderId", new Object[]{11L, null}));
+        Assertions.assertSame(evaluator.getExpression(method(), "'order:' + #orderId"),
+                evaluator.getExpression(method(), "'order:' + #orderId"));
+    }
+
+    @Test
+    public void templatesOfOneMethodAreCachedSeparatelyTest() throws Exception {
+        Assertions.assertEquals("order:10", evaluator.evaluate(method(), "'order:' + #orderId", new Object[]{10L, null}));
+        Assertions.assertEquals("stock:10", evaluator.evaluate(method(), "'stock:' + #orderId", new Object[]{10L, null}));
+    }
+
+    @Test
+    public void compiledKeyTest() throws Exception {
+        LockKeyExpression expression = evaluator.parse(method(), "'order:' + #p1.id");
+        // MIXED模式下多次求值后编译,结果保持一致
+        for (long i = 0; i < 200; i++) {
+            Assertions.assertEquals("order:" + i, expression.getValue(new Object[]{null, new Order(i)}));
+        }
+    }
+
+    @Test
+    public void nullKeyTest() throws Exception {
+        LockKeyExpression expression = evaluator.parse(method(), "#orderId");
+        Assertions.assertThrows(IllegalStateException.class, () -> expression.getValue(new Object[]{null, null}));
+    }
+}
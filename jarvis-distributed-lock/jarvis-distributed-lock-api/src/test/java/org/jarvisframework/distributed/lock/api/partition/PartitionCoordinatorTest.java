@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.partition;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.support.locks.DefaultLockRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 分区归属协调测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class PartitionCoordinatorTest {
+
+    @Test
+    public void balancedAssignmentWithMinimalMovementTest() {
+        int partitions = 64;
+        List<String> members = new ArrayList<>(Arrays.asList("node-a", "node-b", "node-c"));
+        Map<String, Set<Integer>> before = assignAll(partitions, members);
+        Set<Integer> covered = new HashSet<>();
+        for (Set<Integer> owned : before.values()) {
+            Assertions.assertTrue(owned.size() <= 22);
+            covered.addAll(owned);
+        }
+        Assertions.assertEquals(partitions, covered.size());
+
+        members.add("node-d");
+        Map<String, Set<Integer>> after = assignAll(partitions, members);
+        int moved = 0;
+        for (String member : before.keySet()) {
+            Set<Integer> kept = new HashSet<>(before.get(member));
+            kept.retainAll(after.get(member));
+            moved += before.get(member).size() - kept.size();
+        }
+        // 理想情况下只需迁移 64 / 4 = 16 个分区
+        Assertions.assertTrue(moved <= 24, "moved " + moved);
+        Assertions.assertEquals(16, after.get("node-d").size());
+    }
+
+    @Test
+    public void partitionsHandOverOnJoinAndLeaveTest() throws Exception {
+        DefaultLockRegistry lockRegistry = new DefaultLockRegistry();
+        InMemoryMembership membership = new InMemoryMembership();
+        RecordingListener listenerA = new RecordingListener();
+        RecordingListener listenerB = new RecordingListener();
+        PartitionCoordinator nodeA = newCoordinator(lockRegistry, membership, "node-a", listenerA);
+        PartitionCoordinator nodeB = newCoordinator(lockRegistry, membership, "node-b", listenerB);
+
+        nodeA.start();
+        awaitTrue(() -> nodeA.getOwnedPartitions().size() == 8);
+
+        nodeB.start();
+        awaitTrue(() -> nodeA.getOwnedPartitions().size() == 4 && nodeB.getOwnedPartitions().size() == 4);
+        Set<Integer> ownedB = nodeB.getOwnedPartitions();
+        Assertions.assertTrue(nodeA.getOwnedPartitions().stream().noneMatch(ownedB::contains));
+        Assertions.assertEquals(ownedB, new HashSet<>(listenerA.revoked));
+        Assertions.assertEquals(ownedB, new HashSet<>(listenerB.assigned));
+
+        nodeB.stop();
+        Assertions.assertTrue(nodeB.getOwnedPartitions().isEmpty());
+        Assertions.assertEquals(ownedB, new HashSet<>(listenerB.revoked));
+        awaitTrue(() -> nodeA.getOwnedPartitions().size() == 8);
+        nodeA.stop();
+        Assertions.assertTrue(membership.members("jobs").isEmpty());
+    }
+
+    private static Map<String, Set<Integer>> assignAll(int partitions, List<String> members) {
+        Map<String, Set<Integer>> assignments = new ConcurrentHashMap<>();
+        for (String member : members) {
+            assignments.put(member, PartitionAssignor.assign("jobs", partitions, members, member));
+        }
+        return assignments;
+    }
+
+    private static PartitionCoordinator newCoordinator(DefaultLockRegistry lockRegistry, PartitionMembership membership,
+                                                       String memberId, PartitionListener listener) {
+        PartitionCoordinator coordinator = new PartitionCoordinator("jobs", 8, lockRegistry, membership, listener);
+        coordinator.setMemberId(memberId);
+        coordinator.setRebalanceInterval(20L);
+        return coordinator;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private static final class InMemoryMembership implements PartitionMembership {
+
+        private final Set<String> members = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void join(String group, String memberId) {
+            members.add(memberId);
+        }
+
+        @Override
+        public void leave(String group, String memberId) {
+            members.remove(memberId);
+        }
+
+        @Override
+        public List<String> members(String group) {
+            return new ArrayList<>(members);
+        }
+    }
+
+    private static final class RecordingListener implements PartitionListener {
+
+        private final List<Integer> assigned = new CopyOnWriteArrayList<>();
+
+        private final List<Integer> revoked = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onPartitionsAssigned(Set<Integer> partitions) {
+            assigned.addAll(partitions);
+        }
+
+        @Override
+        public void onPartitionsRevoked(Set<Integer> partitions) {
+            revoked.addAll(partitions);
+        }
+    }
+}
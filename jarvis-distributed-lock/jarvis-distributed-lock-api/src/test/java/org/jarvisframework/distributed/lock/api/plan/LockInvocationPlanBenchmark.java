@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.plan;
+
+import org.jarvisframework.distributed.lock.api.annotation.DistributedLock;
+import org.jarvisframework.distributed.lock.api.constant.DistributedLockType;
+import org.jarvisframework.distributed.lock.api.expression.LockKeyExpressionEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.integration.support.locks.LockRegistry;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 调用计划微基准测试
+ * <p>
+ * 对比每次调用反射读取注解+按名称查找Bean与预生成调用计划两种方式的单次开销,
+ * 锁实现为空操作,只衡量切面自身的解析成本。运行 {@link #main(String[])} 即可
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LockInvocationPlanBenchmark {
+
+    private static final Lock NOOP_LOCK = new ReentrantLock();
+
+    private final Object[] args = {"10001"};
+
+    private DefaultListableBeanFactory beanFactory;
+
+    private LockInvocationPlanRegistry planRegistry;
+
+    private LockKeyExpressionEvaluator evaluator;
+
+    private Method method;
+
+    @DistributedLock(lockKey = "'order:' + #p0", lockType = DistributedLockType.DISTRIBUTED_LOCK_REDIS)
+    public void updateOrder(String orderId) {
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        beanFactory = new DefaultListableBeanFactory();
+        LockRegistry lockRegistry = key -> NOOP_LOCK;
+        beanFactory.registerSingleton(DistributedLockType.DISTRIBUTED_LOCK_REDIS, lockRegistry);
+        // 与业务容器相近的Bean数量
+        for (int i = 0; i < 200; i++) {
+            beanFactory.registerSingleton("bean" + i, new Object());
+        }
+        evaluator = new LockKeyExpressionEvaluator();
+        planRegistry = new LockInvocationPlanRegistry(evaluator);
+        planRegistry.setBeanFactory(beanFactory);
+        planRegistry.postProcessAfterInitialization(this, "benchmark");
+        planRegistry.afterSingletonsInstantiated();
+        method = LockInvocationPlanBenchmark.class.getMethod("updateOrder", String.class);
+    }
+
+    /**
+     * 改造前:每次调用读取注解并按名称查找锁实现
+     */
+    @Benchmark
+    public Lock perCallReflection() {
+        DistributedLock annotation = method.getAnnotation(DistributedLock.class);
+        LockRegistry lockRegistry = beanFactory.getBean(annotation.lockType(), LockRegistry.class);
+        long waitNanos = annotation.timeUnit().toNanos(annotation.time());
+        return waitNanos > 0 ? lockRegistry.obtain(evaluator.evaluate(method, annotation.lockKey(), args)) : null;
+    }
+
+    /**
+     * 改造后:一次查表获取调用计划
+     */
+    @Benchmark
+    public Lock invocationPlan() {
+        LockInvocationPlan plan = planRegistry.getPlan(method, LockInvocationPlanBenchmark.class);
+        return plan.getWaitNanos() > 0 ? plan.getLockRegistry().obtain(plan.lockKey(args)) : null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LockInvocationPlanBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
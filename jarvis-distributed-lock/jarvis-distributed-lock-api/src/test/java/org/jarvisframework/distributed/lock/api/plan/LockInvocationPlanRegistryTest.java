@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.plan;
+
+import org.jarvisframework.distributed.lock.api.annotation.DistributedLock;
+import org.jarvisframework.distributed.lock.api.configuration.DistributedLockConfiguration;
+import org.jarvisframework.distributed.lock.api.constant.DistributedLockType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.integration.support.locks.DefaultLockRegistry;
+import org.springframework.integration.support.locks.LockRegistry;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 分布式锁调用计划测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class LockInvocationPlanRegistryTest {
+
+    interface Handler<T> {
+        String handle(T value);
+    }
+
+    static class OrderHandler implements Handler<String> {
+        @Override
+        @DistributedLock(lockKey = "'order:' + #p0")
+        public String handle(String value) {
+            return value;
+        }
+    }
+
+    static class BrokenService {
+        @DistributedLock(lockKey = "broken", lockType = "missingLockRegistry")
+        public void execute() {
+        }
+    }
+
+    static class TransferService {
+        @DistributedLock(lockKeys = {"'account:' + #to", "'account:' + #from"})
+        public void transfer(String from, String to) {
+        }
+    }
+
+    static class UserService {
+        @DistributedLock(lockKey = "'user:' + #p0", striped = true, stripes = 4)
+        public String rename(String userId) {
+            return userId;
+        }
+
+        @DistributedLock(lockKey = "'user:' + #p0", striped = true, stripes = 4)
+        public String delete(String userId) {
+            return userId;
+        }
+    }
+
+    static class MismatchedStripesService {
+        @DistributedLock(lockKey = "'user:' + #p0", striped = true, stripes = 4)
+        public void rename(String userId) {
+        }
+
+        @DistributedLock(lockKey = "'user:' + #p0")
+        public void delete(String userId) {
+        }
+    }
+
+    @EnableAspectJAutoProxy
+    @Import(DistributedLockConfiguration.class)
+    static class LockConfiguration {
+        @Bean(DistributedLockType.DISTRIBUTED_LOCK_ZOOKEEPER)
+        public LockRegistry lockRegistry() {
+            return new DefaultLockRegistry();
+        }
+    }
+
+    @Test
+    public void interfaceAndBridgeMethodTest() throws Exception {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.register(LockConfiguration.class, OrderHandler.class);
+            context.refresh();
+
+            @SuppressWarnings("unchecked")
+            Handler<String> handler = context.getBean(Handler.class);
+            Assertions.assertEquals("1", handler.handle("1"));
+
+            LockInvocationPlanRegistry registry = context.getBean(LockInvocationPlanRegistry.class);
+            Method interfaceMethod = Handler.class.getMethod("handle", Object.class);
+            Method implMethod = OrderHandler.class.getMethod("handle", String.class);
+            Method bridgeMethod = OrderHandler.class.getMethod("handle", Object.class);
+
+            LockInvocationPlan plan = registry.getPlan(implMethod, OrderHandler.class);
+            Assertions.assertSame(plan, registry.getPlan(interfaceMethod, OrderHandler.class));
+            Assertions.assertSame(plan, registry.getPlan(bridgeMethod, OrderHandler.class));
+            Assertions.assertEquals("order:42", plan.lockKey(new Object[]{"42"}));
+            Assertions.assertEquals(1_000_000_000L, plan.getWaitNanos());
+        }
+    }
+
+    @Test
+    public void unknownLockTypeFailsAtStartupTest() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.register(LockConfiguration.class, BrokenService.class);
+        Exception e = Assertions.assertThrows(Exception.class, context::refresh);
+        Assertions.assertTrue(e instanceof IllegalStateException || e instanceof BeanCreationException);
+        Assertions.assertTrue(e.getMessage().contains("missingLockRegistry"));
+    }
+
+    @Test
+    public void multiKeyPlanOrdersKeysTest() throws Exception {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.register(LockConfiguration.class, TransferService.class);
+            context.refresh();
+
+            TransferService service = context.getBean(TransferService.class);
+            service.transfer("1", "2");
+
+            LockInvocationPlanRegistry registry = context.getBean(LockInvocationPlanRegistry.class);
+            Method method = TransferService.class.getMethod("transfer", String.class, String.class);
+            LockInvocationPlan plan = registry.getPlan(method, TransferService.class);
+            Assertions.assertTrue(plan.isMultiKey());
+            Assertions.assertEquals(Arrays.asList("account:1", "account:2"), plan.lockKeys(new Object[]{"2", "1"}));
+            Assertions.assertEquals(Collections.singletonList("account:1"), plan.lockKeys(new Object[]{"1", "1"}));
+        }
+    }
+
+    @Test
+    public void stripedPlansShareStripesTest() throws Exception {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.register(LockConfiguration.class, UserService.class);
+            context.refresh();
+
+            Assertions.assertEquals("7", context.getBean(UserService.class).rename("7"));
+
+            LockInvocationPlanRegistry registry = context.getBean(LockInvocationPlanRegistry.class);
+            LockInvocationPlan rename = registry.getPlan(UserService.class.getMethod("rename", String.class), UserService.class);
+            LockInvocationPlan delete = registry.getPlan(UserService.class.getMethod("delete", String.class), UserService.class);
+            Assertions.assertSame(rename.getKeyStripes(), delete.getKeyStripes());
+            Assertions.assertEquals(4, rename.getKeyStripes().getStripes());
+
+            Set<String> stripeKeys = new HashSet<>();
+            for (int i = 0; i < 100; i++) {
+                String lockKey = rename.lockKey(new Object[]{String.valueOf(i)});
+                Assertions.assertEquals("user:" + i, lockKey);
+                stripeKeys.add(rename.getKeyStripes().stripeKeyOf(lockKey));
+            }
+            Assertions.assertEquals(4, stripeKeys.size());
+        }
+    }
+
+    @Test
+    public void mismatchedStripesFailAtStartupTest() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.register(LockConfiguration.class, MismatchedStripesService.class);
+        Exception e = Assertions.assertThrows(Exception.class, context::refresh);
+        Assertions.assertTrue(e.getMessage().contains("stripes="));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 自适应等待策略测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class AdaptiveLockWaitPolicyTest {
+
+    @Test
+    public void failsFastWhenExpectedWaitExceedsBudgetTest() throws Exception {
+        AdaptiveLockWaitPolicy policy = new AdaptiveLockWaitPolicy();
+        for (int i = 0; i < AdaptiveLockWaitPolicy.DEFAULT_MIN_SAMPLES; i++) {
+            policy.recordHold(TimeUnit.SECONDS.toNanos(1));
+        }
+        Assertions.assertEquals(TimeUnit.SECONDS.toNanos(1), policy.getMeanHoldNanos());
+
+        ReentrantLock lock = new ReentrantLock();
+        Thread holder = new Thread(lock::lock);
+        holder.start();
+        holder.join();
+
+        long start = System.nanoTime();
+        Assertions.assertFalse(policy.tryLock(lock, TimeUnit.MILLISECONDS.toNanos(500)));
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(250));
+        Assertions.assertEquals(1, policy.getFailFastCount());
+    }
+
+    @Test
+    public void waitsWithHintWithinBudgetTest() throws Exception {
+        AdaptiveLockWaitPolicy policy = new AdaptiveLockWaitPolicy();
+        for (int i = 0; i < AdaptiveLockWaitPolicy.DEFAULT_MIN_SAMPLES; i++) {
+            policy.recordHold(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+        AtomicLong observedHint = new AtomicLong();
+        ReentrantLock lock = new ReentrantLock() {
+            @Override
+            public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+                observedHint.set(LockWaitHint.getExpectedHoldNanos());
+                return super.tryLock(timeout, unit);
+            }
+        };
+        Thread holder = new Thread(() -> {
+            lock.lock();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        holder.start();
+        while (!lock.isLocked()) {
+            Thread.yield();
+        }
+
+        Assertions.assertTrue(policy.tryLock(lock, TimeUnit.SECONDS.toNanos(5)));
+        lock.unlock();
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(20), observedHint.get());
+        Assertions.assertEquals(0, LockWaitHint.getExpectedHoldNanos());
+        Assertions.assertEquals(0, policy.getFailFastCount());
+    }
+
+    @Test
+    public void retryIntervalFollowsHintTest() {
+        long defaultInterval = TimeUnit.MILLISECONDS.toNanos(100);
+        Assertions.assertEquals(defaultInterval, LockWaitHint.retryIntervalNanos(defaultInterval));
+
+        long hold = TimeUnit.SECONDS.toNanos(2);
+        long previous = LockWaitHint.set(hold);
+        try {
+            for (int i = 0; i < 100; i++) {
+                long interval = LockWaitHint.retryIntervalNanos(defaultInterval);
+                Assertions.assertTrue(interval >= hold / 4 && interval < hold * 3 / 4);
+            }
+        } finally {
+            LockWaitHint.reset(previous);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link BoundedLockCache} 测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class BoundedLockCacheTest {
+
+    private final List<ReentrantLock> evicted = new ArrayList<>();
+
+    private final BoundedLockCache<ReentrantLock> cache = new BoundedLockCache<>(key -> new ReentrantLock(),
+            lock -> 0L, lock -> !lock.isLocked(), evicted::add);
+
+    @Test
+    public void trimsIdleLocksWhenCapacityIsExceeded() {
+        cache.setCapacity(10);
+        ReentrantLock held = cache.get("held");
+        held.lock();
+        try {
+            for (int i = 0; i < 100; i++) {
+                cache.get("key-" + i);
+            }
+            Assertions.assertTrue(cache.size() <= 10);
+            Assertions.assertSame(held, cache.get("held"));
+            Assertions.assertEquals(evicted.size(), cache.getEvictionCount());
+        } finally {
+            held.unlock();
+        }
+    }
+
+    @Test
+    public void skipsTrimWhileAllLocksAreHeld() {
+        AtomicInteger idleChecks = new AtomicInteger();
+        BoundedLockCache<ReentrantLock> counting = new BoundedLockCache<>(key -> new ReentrantLock(),
+                lock -> 0L, lock -> {
+            idleChecks.incrementAndGet();
+            return !lock.isLocked();
+        });
+        counting.setCapacity(100);
+        List<ReentrantLock> held = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ReentrantLock lock = counting.get("held-" + i);
+            lock.lock();
+            held.add(lock);
+        }
+        try {
+            for (int i = 0; i < 10; i++) {
+                counting.get("key-" + i);
+            }
+            Assertions.assertEquals(110, counting.size());
+            Assertions.assertEquals(100, idleChecks.get());
+        } finally {
+            held.forEach(ReentrantLock::unlock);
+        }
+        counting.get("key-10");
+        Assertions.assertTrue(counting.size() <= 100);
+        Assertions.assertSame(counting.get("key-10"), counting.get("key-10"));
+    }
+
+    @Test
+    public void expiresOnlyIdleLocks() {
+        ReentrantLock held = cache.get("held");
+        cache.get("idle");
+        held.lock();
+        try {
+            cache.expireOlderThan(-1);
+            Assertions.assertEquals(1, cache.size());
+            Assertions.assertEquals(1, cache.getEvictionCount());
+            Assertions.assertSame(held, cache.get("held"));
+        } finally {
+            held.unlock();
+        }
+    }
+}
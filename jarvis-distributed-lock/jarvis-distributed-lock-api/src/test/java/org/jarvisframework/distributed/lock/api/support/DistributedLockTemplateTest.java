@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.jarvisframework.common.exception.DistributedLockException;
+import org.jarvisframework.distributed.lock.api.constant.DistributedLockType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.integration.support.locks.DefaultLockRegistry;
+import org.springframework.integration.support.locks.LockRegistry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * {@link DistributedLockTemplate} 测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class DistributedLockTemplateTest {
+
+    @Test
+    public void executesWithinLockAndRejectsWhenHeldElsewhere() throws Exception {
+        LockRegistry lockRegistry = new DefaultLockRegistry();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton(DistributedLockType.DISTRIBUTED_LOCK_ZOOKEEPER, lockRegistry);
+        DistributedLockTemplate template = new DistributedLockTemplate(beanFactory, DistributedLockType.DISTRIBUTED_LOCK_ZOOKEEPER);
+
+        Assertions.assertEquals("paid", template.execute("order:1", Duration.ZERO, () -> "paid"));
+        Assertions.assertEquals(Optional.of(3), template.tryExecuteAll(Arrays.asList("b", "a", "b"), Duration.ZERO, () -> 3));
+
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> {
+            Lock lock = lockRegistry.obtain("order:2");
+            lock.lock();
+            try {
+                held.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        Assertions.assertTrue(held.await(5, TimeUnit.SECONDS));
+        try {
+            Assertions.assertSame(DistributedLockException.REJECTED, Assertions.assertThrows(DistributedLockException.class,
+                    () -> template.execute("order:2", Duration.ofMillis(20), () -> "paid")));
+            Assertions.assertFalse(template.tryRun("order:2", Duration.ZERO, () -> Assertions.fail("must not run")));
+            Assertions.assertFalse(template.tryExecuteAll(Arrays.asList("order:1", "order:2"), Duration.ZERO, () -> 1).isPresent());
+            Assertions.assertEquals(Collections.singletonList("order:2"),
+                    template.tryRunEach(Arrays.asList("order:1", "order:2", "order:3"), Duration.ZERO, key -> {
+                    }));
+        } finally {
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+        Assertions.assertTrue(template.tryRun("order:2", Duration.ZERO, () -> {
+        }));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.integration.support.locks.DefaultLockRegistry;
+import org.springframework.integration.support.locks.LockRegistry;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 熔断切换分布式锁测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class FailoverLockRegistryTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final DefaultLockRegistry primaryBackend = new DefaultLockRegistry();
+
+    private final DefaultLockRegistry secondaryBackend = new DefaultLockRegistry();
+
+    private final AtomicBoolean primaryDown = new AtomicBoolean();
+
+    private final AtomicInteger primaryCalls = new AtomicInteger();
+
+    private final LockRegistry primary = key -> {
+        primaryCalls.incrementAndGet();
+        if (primaryDown.get()) {
+            throw new CannotAcquireLockException("primary down");
+        }
+        return primaryBackend.obtain(key);
+    };
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private boolean tryInOtherThread(Lock lock) throws Exception {
+        return executor.submit(() -> {
+            if (!lock.tryLock(50, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+            lock.unlock();
+            return true;
+        }).get();
+    }
+
+    @Test
+    public void failFastWhileCircuitOpenTest() throws Exception {
+        FailoverLockRegistry registry = new FailoverLockRegistry(primary, null, new LockCircuitBreaker(2, 100));
+        primaryDown.set(true);
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertThrows(CannotAcquireLockException.class, () -> registry.obtain("order").tryLock(1, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(LockCircuitBreaker.State.OPEN, registry.getCircuitState());
+        Assertions.assertThrows(CannotAcquireLockException.class, () -> registry.obtain("order").tryLock(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, primaryCalls.get());
+        Assertions.assertEquals(1, registry.getRejections());
+        Assertions.assertEquals(2, registry.getPrimaryFailures());
+
+        primaryDown.set(false);
+        TimeUnit.MILLISECONDS.sleep(150);
+        Lock probe = registry.obtain("order");
+        Assertions.assertTrue(probe.tryLock(1, TimeUnit.SECONDS));
+        probe.unlock();
+        Assertions.assertEquals(LockCircuitBreaker.State.CLOSED, registry.getCircuitState());
+    }
+
+    @Test
+    public void failoverNeverSplitsKeyWithHealthyNodesTest() throws Exception {
+        FailoverLockRegistry healthy = new FailoverLockRegistry(primary, secondaryBackend, new LockCircuitBreaker(1, 60000));
+        FailoverLockRegistry degraded = new FailoverLockRegistry(key -> {
+            throw new CannotAcquireLockException("primary unreachable");
+        }, secondaryBackend, new LockCircuitBreaker(1, 60000));
+
+        Lock held = healthy.obtain("order");
+        Assertions.assertTrue(held.tryLock());
+        Assertions.assertFalse(tryInOtherThread(primaryBackend.obtain("order")));
+        Assertions.assertFalse(tryInOtherThread(degraded.obtain("order")));
+        Assertions.assertEquals(LockCircuitBreaker.State.OPEN, degraded.getCircuitState());
+        Assertions.assertFalse(tryInOtherThread(degraded.obtain("order")));
+        Assertions.assertEquals(2, degraded.getFailovers());
+        held.unlock();
+
+        Assertions.assertTrue(tryInOtherThread(degraded.obtain("order")));
+        Assertions.assertTrue(tryInOtherThread(healthy.obtain("order")));
+        Assertions.assertEquals(0, healthy.getFailovers());
+    }
+
+    @Test
+    public void interruptedProbeReopensCircuitTest() throws Exception {
+        LockCircuitBreaker circuitBreaker = new LockCircuitBreaker(1, 50);
+        FailoverLockRegistry registry = new FailoverLockRegistry(primary, null, circuitBreaker);
+        primaryDown.set(true);
+        Assertions.assertThrows(CannotAcquireLockException.class, () -> registry.obtain("order").tryLock(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(LockCircuitBreaker.State.OPEN, registry.getCircuitState());
+
+        primaryDown.set(false);
+        TimeUnit.MILLISECONDS.sleep(100);
+        Thread.currentThread().interrupt();
+        Assertions.assertThrows(InterruptedException.class, () -> registry.obtain("order").tryLock(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(LockCircuitBreaker.State.OPEN, registry.getCircuitState());
+
+        Assertions.assertTrue(tryInOtherThread(registry.obtain("order")));
+        Assertions.assertEquals(LockCircuitBreaker.State.CLOSED, registry.getCircuitState());
+    }
+
+    @Test
+    public void secondaryFailureReleasesPrimaryTest() throws Exception {
+        FailoverLockRegistry registry = new FailoverLockRegistry(primary, key -> {
+            throw new CannotAcquireLockException("secondary unreachable");
+        }, new LockCircuitBreaker(1, 60000));
+
+        Assertions.assertThrows(CannotAcquireLockException.class, () -> registry.obtain("order").tryLock(1, TimeUnit.SECONDS));
+        Assertions.assertTrue(tryInOtherThread(primaryBackend.obtain("order")));
+        Assertions.assertEquals(LockCircuitBreaker.State.CLOSED, registry.getCircuitState());
+    }
+}
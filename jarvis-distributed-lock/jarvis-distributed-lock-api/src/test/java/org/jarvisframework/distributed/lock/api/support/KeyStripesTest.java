@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.jarvisframework.distributed.lock.api.metrics.LockMetrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.support.locks.DefaultLockRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Key值分段测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class KeyStripesTest {
+
+    @Test
+    public void differentKeyOnHeldStripeCountsAsContentionTest() {
+        KeyStripes keyStripes = new KeyStripes("'user:' + #userId", 1);
+        DefaultLockRegistry registry = new DefaultLockRegistry();
+        AtomicInteger contention = new AtomicInteger();
+        LockMetrics metrics = new CountingMetrics(contention);
+
+        Assertions.assertEquals(keyStripes.stripeKeyOf("user:1"), keyStripes.stripeKeyOf("user:2"));
+        Lock first = keyStripes.wrap(registry.obtain(keyStripes.stripeKeyOf("user:1")), "user:1", metrics);
+        Lock second = keyStripes.wrap(registry.obtain(keyStripes.stripeKeyOf("user:2")), "user:2", metrics);
+
+        Assertions.assertTrue(first.tryLock());
+        first.unlock();
+        Assertions.assertTrue(first.tryLock());
+        Assertions.assertEquals(0, contention.get());
+
+        // 同一线程可重入,仅验证分段已被其他Key值持有时计数
+        Assertions.assertTrue(second.tryLock());
+        second.unlock();
+        first.unlock();
+        Assertions.assertEquals(1, contention.get());
+
+        Assertions.assertTrue(second.tryLock());
+        second.unlock();
+        Assertions.assertEquals(1, contention.get());
+    }
+
+    private static final class CountingMetrics implements LockMetrics {
+
+        private final AtomicInteger contention;
+
+        CountingMetrics(AtomicInteger contention) {
+            this.contention = contention;
+        }
+
+        @Override
+        public void recordWait(long nanos) {
+        }
+
+        @Override
+        public void recordHold(long nanos) {
+        }
+
+        @Override
+        public void recordTimeout() {
+        }
+
+        @Override
+        public void recordError() {
+        }
+
+        @Override
+        public void recordStripeContention() {
+            contention.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单飞执行测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class SingleFlightTest {
+
+    private static final long WAIT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    @Test
+    public void concurrentCallsShareResultTest() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<Object> leader = submit(executor, () -> {
+                started.countDown();
+                release.await();
+                return "value-" + executions.incrementAndGet();
+            });
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            List<Future<Object>> followers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                followers.add(submit(executor, () -> "value-" + executions.incrementAndGet()));
+            }
+            // 等待跟随者加入执行中的调用
+            Thread.sleep(200);
+            release.countDown();
+
+            Assertions.assertEquals("value-1", leader.get(5, TimeUnit.SECONDS));
+            for (Future<Object> follower : followers) {
+                Assertions.assertEquals("value-1", follower.get(5, TimeUnit.SECONDS));
+            }
+            Assertions.assertEquals(1, executions.get());
+            Assertions.assertEquals(0, singleFlight.inFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Future<Object> submit(ExecutorService executor, SingleFlight.Call call) {
+        return executor.submit(() -> {
+            try {
+                return singleFlight.execute("cache:1", WAIT_NANOS, call, () -> "timeout");
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    public void exceptionIsSharedAndNotCachedTest() throws Throwable {
+        IllegalStateException error = new IllegalStateException("rebuild failed");
+        Assertions.assertSame(error, Assertions.assertThrows(IllegalStateException.class,
+                () -> singleFlight.execute("cache:2", WAIT_NANOS, () -> {
+                    throw error;
+                }, () -> "timeout")));
+        Assertions.assertEquals("ok", singleFlight.execute("cache:2", WAIT_NANOS, () -> "ok", () -> "timeout"));
+    }
+
+    @Test
+    public void reentrantCallBypassesFlightTest() throws Throwable {
+        Object result = singleFlight.execute("cache:3", WAIT_NANOS,
+                () -> "outer-" + singleFlight.execute("cache:3", WAIT_NANOS, () -> "inner", () -> "timeout"),
+                () -> "timeout");
+        Assertions.assertEquals("outer-inner", result);
+        Assertions.assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    public void followerWaitIsBoundedTest() throws Throwable {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> leader = submit(executor, () -> {
+                started.countDown();
+                release.await();
+                return "value";
+            });
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals("timeout", singleFlight.execute("cache:1", TimeUnit.MILLISECONDS.toNanos(50),
+                    () -> "follower", () -> "timeout"));
+            release.countDown();
+            Assertions.assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.api.support;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.support.locks.DefaultLockRegistry;
+import org.springframework.integration.support.locks.LockRegistry;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 两级分布式锁测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class TieredLockRegistryTest {
+
+    @Test
+    public void singleRemoteContenderPerNodeTest() throws Exception {
+        AtomicInteger remoteContenders = new AtomicInteger();
+        AtomicInteger maxRemoteContenders = new AtomicInteger();
+        DefaultLockRegistry remoteRegistry = new DefaultLockRegistry();
+        LockRegistry countingRegistry = key -> new CountingLock(remoteRegistry.obtain(key), remoteContenders, maxRemoteContenders);
+        TieredLockRegistry registry = new TieredLockRegistry(countingRegistry);
+
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        AtomicInteger acquired = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                try {
+                    Lock lock = registry.obtain("hot-key");
+                    if (lock.tryLock(5, TimeUnit.SECONDS)) {
+                        try {
+                            acquired.incrementAndGet();
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        Assertions.assertEquals(threads, acquired.get());
+        Assertions.assertEquals(1, maxRemoteContenders.get());
+    }
+
+    @Test
+    public void releaseLocalWhenRemoteFailsTest() throws Exception {
+        LockRegistry rejectingRegistry = key -> new CountingLock(new RejectingLock(), new AtomicInteger(), new AtomicInteger());
+        TieredLockRegistry registry = new TieredLockRegistry(rejectingRegistry);
+        Assertions.assertFalse(registry.obtain("key").tryLock(10, TimeUnit.MILLISECONDS));
+        Assertions.assertFalse(registry.obtain("key").tryLock());
+        Assertions.assertEquals(0, registry.localLockCount());
+    }
+
+    @Test
+    public void keysDoNotShareLocalLocksTest() throws Exception {
+        TieredLockRegistry registry = new TieredLockRegistry(new DefaultLockRegistry());
+        Lock outer = registry.obtain("a");
+        outer.lock();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // 另一线程持有b并等待a,不影响当前线程嵌套获取c
+            CountDownLatch holdingB = new CountDownLatch(1);
+            executor.submit(() -> {
+                Lock b = registry.obtain("b");
+                b.lock();
+                holdingB.countDown();
+                try {
+                    Lock a = registry.obtain("a");
+                    if (a.tryLock(5, TimeUnit.SECONDS)) {
+                        a.unlock();
+                    }
+                } finally {
+                    b.unlock();
+                }
+                return null;
+            });
+            Assertions.assertTrue(holdingB.await(5, TimeUnit.SECONDS));
+            Lock inner = registry.obtain("c");
+            Assertions.assertTrue(inner.tryLock(1, TimeUnit.SECONDS));
+            inner.unlock();
+        } finally {
+            outer.unlock();
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(0, registry.localLockCount());
+    }
+
+    @Test
+    public void interruptWhileWaitingForRemoteTest() throws Exception {
+        TieredLockRegistry registry = new TieredLockRegistry(key -> new InterruptedLock());
+        Assertions.assertThrows(InterruptedException.class, () -> registry.obtain("key").tryLock(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, registry.localLockCount());
+    }
+
+    /**
+     * 统计同时竞争远程锁的线程数
+     */
+    private static final class CountingLock extends DelegatingLock {
+
+        private final AtomicInteger contenders;
+
+        private final AtomicInteger maxContenders;
+
+        CountingLock(Lock delegate, AtomicInteger contenders, AtomicInteger maxContenders) {
+            super(delegate);
+            this.contenders = contenders;
+            this.maxContenders = maxContenders;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            maxContenders.accumulateAndGet(contenders.incrementAndGet(), Math::max);
+            try {
+                return super.tryLock(time, unit);
+            } finally {
+                contenders.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class RejectingLock extends DelegatingLock {
+
+        RejectingLock() {
+            super(null);
+        }
+
+        @Override
+        public boolean tryLock() {
+            return false;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) {
+            return false;
+        }
+    }
+
+    private static final class InterruptedLock extends DelegatingLock {
+
+        InterruptedLock() {
+            super(null);
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            throw new InterruptedException();
+        }
+    }
+
+    private static class DelegatingLock implements Lock {
+
+        private final Lock delegate;
+
+        DelegatingLock(Lock delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void lock() {
+            delegate.lock();
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            delegate.lockInterruptibly();
+        }
+
+        @Override
+        public boolean tryLock() {
+            return delegate.tryLock();
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            return delegate.tryLock(time, unit);
+        }
+
+        @Override
+        public void unlock() {
+            delegate.unlock();
+        }
+
+        @Override
+        public Condition newCondition() {
+            return delegate.newCondition();
+        }
+    }
+}
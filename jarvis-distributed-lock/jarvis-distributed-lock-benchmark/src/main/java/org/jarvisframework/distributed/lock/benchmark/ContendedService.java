@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.benchmark;
+
+import org.jarvisframework.distributed.lock.api.annotation.DistributedLock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压测方法,经{@link org.jarvisframework.distributed.lock.api.aspect.DistributedLockAspect}加锁后持有指定时间
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class ContendedService {
+
+    /**
+     * 压测使用的锁类型(Bean名称)
+     */
+    public static final String LOCK_TYPE = "benchmarkLockRegistry";
+
+    private final long holdNanos;
+
+    public ContendedService(long holdMillis) {
+        this.holdNanos = TimeUnit.MILLISECONDS.toNanos(holdMillis);
+    }
+
+    /**
+     * 持有锁指定时间,等待时间由{@link MeasuringLockRegistry}按场景决定
+     *
+     * @param key 锁Key值
+     */
+    @DistributedLock(lockKey = "'bench:' + #p0", lockType = LOCK_TYPE)
+    public void work(String key) {
+        long deadline = System.nanoTime() + holdNanos;
+        long remaining = holdNanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.benchmark;
+
+import org.jarvisframework.distributed.lock.local.registry.LocalDistributedLockRegistry;
+import org.springframework.integration.support.locks.LockRegistry;
+
+/**
+ * 进程内锁
+ * <p>
+ * 进程内锁只在同一JVM内互斥,全部模拟节点共用一个{@link LocalDistributedLockRegistry},作为网络实现的对照基线
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class LocalLockBackend implements LockBackend {
+
+    private LocalDistributedLockRegistry registry;
+
+    @Override
+    public void start() {
+        registry = new LocalDistributedLockRegistry();
+    }
+
+    @Override
+    public LockRegistry createRegistry() {
+        return registry;
+    }
+
+    @Override
+    public void close() {
+        registry = null;
+    }
+
+    @Override
+    public String toString() {
+        return "local";
+    }
+}
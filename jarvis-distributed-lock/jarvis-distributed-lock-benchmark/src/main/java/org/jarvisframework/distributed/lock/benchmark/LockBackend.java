@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.benchmark;
+
+import org.springframework.integration.support.locks.LockRegistry;
+
+/**
+ * 压测使用的锁服务端
+ * <p>
+ * 服务端在进程内启动,每个模拟节点通过{@link LockBackend#createRegistry()}获得独立的客户端连接与锁实现实例
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public interface LockBackend extends AutoCloseable {
+
+    /**
+     * 启动服务端
+     *
+     * @throws Exception 启动失败
+     */
+    void start() throws Exception;
+
+    /**
+     * 为一个模拟节点创建锁实现
+     *
+     * @return {@link LockRegistry}
+     * @throws Exception 连接失败
+     */
+    LockRegistry createRegistry() throws Exception;
+
+    /**
+     * 关闭全部客户端连接并停止服务端
+     *
+     * @throws Exception 关闭失败
+     */
+    @Override
+    void close() throws Exception;
+}
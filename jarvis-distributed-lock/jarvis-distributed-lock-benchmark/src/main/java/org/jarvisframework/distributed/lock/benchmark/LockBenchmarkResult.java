@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.benchmark;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测结果
+ * <p>
+ * 吞吐量按成功调用计算;获取锁耗时只统计成功获取的调用;
+ * 公平性为各线程成功次数的Jain公平指数,1表示完全公平,越接近{@code 1/线程数}越不公平
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public final class LockBenchmarkResult {
+
+    private static final String FORMAT = "%-14s %5s %7s %5s %6s %6s %10s %9s %9s %9s %9s %9s %8s %8s %7s";
+
+    private final LockBenchmarkScenario scenario;
+
+    /**
+     * 统计时长(纳秒)
+     */
+    private final long elapsedNanos;
+
+    /**
+     * 各线程成功次数
+     */
+    private final long[] successes;
+
+    /**
+     * 获取锁超时次数
+     */
+    private final long timeouts;
+
+    /**
+     * 锁实现异常次数
+     */
+    private final long errors;
+
+    /**
+     * 获取锁耗时(纳秒)
+     */
+    private final Histogram acquireLatency;
+
+    public LockBenchmarkResult(LockBenchmarkScenario scenario, long elapsedNanos, long[] successes, long timeouts,
+                               long errors, Histogram acquireLatency) {
+        this.scenario = scenario;
+        this.elapsedNanos = elapsedNanos;
+        this.successes = successes;
+        this.timeouts = timeouts;
+        this.errors = errors;
+        this.acquireLatency = acquireLatency;
+    }
+
+    /**
+     * 结果表头
+     *
+     * @return 表头
+     */
+    public static String header() {
+        return String.format(FORMAT, "backend", "nodes", "threads", "keys", "hold", "wait",
+                "ops/s", "p50(ms)", "p90(ms)", "p99(ms)", "p999(ms)", "max(ms)", "fairness", "timeout", "errors");
+    }
+
+    public long getSuccesses() {
+        long total = 0;
+        for (long success : successes) {
+            total += success;
+        }
+        return total;
+    }
+
+    public double getThroughput() {
+        return getSuccesses() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * 获取锁耗时百分位
+     *
+     * @param percentile 百分位,如99.9
+     * @return 耗时(毫秒)
+     */
+    public double getLatencyMillis(double percentile) {
+        return acquireLatency.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    public double getFairness() {
+        double sum = 0;
+        double squares = 0;
+        for (long success : successes) {
+            sum += success;
+            squares += (double) success * success;
+        }
+        return squares == 0 ? 0 : sum * sum / (successes.length * squares);
+    }
+
+    public double getTimeoutRate() {
+        long attempts = getSuccesses() + timeouts + errors;
+        return attempts == 0 ? 0 : (double) timeouts / attempts;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public LockBenchmarkScenario getScenario() {
+        return scenario;
+    }
+
+    /**
+     * 按表头格式输出一行结果
+     *
+     * @return 结果行
+     */
+    public String format() {
+        return String.format(FORMAT, scenario.getBackend(), scenario.getNodes(), scenario.getThreads(), scenario.getKeys(),
+                scenario.getHoldMillis(), scenario.getWaitMillis(),
+                String.format("%.0f", getThroughput()),
+                String.format("%.3f", getLatencyMillis(50)),
+                String.format("%.3f", getLatencyMillis(90)),
+                String.format("%.3f", getLatencyMillis(99)),
+                String.format("%.3f", getLatencyMillis(99.9)),
+                String.format("%.3f", acquireLatency.getMaxValue() / 1e6),
+                String.format("%.3f", getFairness()),
+                String.format("%.2f%%", getTimeoutRate() * 100),
+                errors);
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", LockBenchmarkResult.class.getSimpleName() + "[", "]")
+                .add("scenario=" + scenario)
+                .add("throughput=" + getThroughput())
+                .add("p99Millis=" + getLatencyMillis(99))
+                .add("fairness=" + getFairness())
+                .add("timeoutRate=" + getTimeoutRate())
+                .add("errors=" + errors)
+                .toString();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.benchmark;
+
+import java.util.StringJoiner;
+
+/**
+ * 压测场景
+ * <p>
+ * 线程均匀分布在多个模拟节点上,每个节点拥有独立的Spring容器与锁实现实例,
+ * 每次调用从{@code keys}个Key值中随机选取一个
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public final class LockBenchmarkScenario {
+
+    /**
+     * 锁实现
+     */
+    private final String backend;
+
+    /**
+     * 模拟节点数
+     */
+    private final int nodes;
+
+    /**
+     * 并发线程数
+     */
+    private final int threads;
+
+    /**
+     * Key值数量,越少竞争越激烈
+     */
+    private final int keys;
+
+    /**
+     * 持有锁的时间(毫秒)
+     */
+    private final long holdMillis;
+
+    /**
+     * 尝试获取锁的等待时间(毫秒)
+     */
+    private final long waitMillis;
+
+    public LockBenchmarkScenario(String backend, int nodes, int threads, int keys, long holdMillis, long waitMillis) {
+        this.backend = backend;
+        this.nodes = nodes;
+        this.threads = threads;
+        this.keys = keys;
+        this.holdMillis = holdMillis;
+        this.waitMillis = waitMillis;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getKeys() {
+        return keys;
+    }
+
+    public long getHoldMillis() {
+        return holdMillis;
+    }
+
+    public long getWaitMillis() {
+        return waitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", LockBenchmarkScenario.class.getSimpleName() + "[", "]")
+                .add("backend='" + backend + "'")
+                .add("nodes=" + nodes)
+                .add("threads=" + threads)
+                .add("keys=" + keys)
+                .add("holdMillis=" + holdMillis)
+                .add("waitMillis=" + waitMillis)
+                .toString();
+    }
+}
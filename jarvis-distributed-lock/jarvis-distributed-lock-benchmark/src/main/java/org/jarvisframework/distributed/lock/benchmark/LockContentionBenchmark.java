@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.jarvisframework.common.exception.DistributedLockException;
+import org.jarvisframework.distributed.lock.api.configuration.DistributedLockConfiguration;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.integration.support.locks.LockRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁竞争压测
+ * <p>
+ * 在进程内启动Redis、Zookeeper服务端,按 线程数 × Key值数量 × 持有时间 × 等待时间 的组合依次运行场景,
+ * 调用经过完整的{@link org.jarvisframework.distributed.lock.api.aspect.DistributedLockAspect},
+ * 输出吞吐量、获取锁耗时百分位(HdrHistogram)、公平性与失败率。无需联网,参数通过系统属性指定,多个取值以逗号分隔:
+ * <pre>
+ * -Dbench.backends=local,redis,redis-polling,zookeeper
+ * -Dbench.nodes=2 -Dbench.threads=8,32 -Dbench.keys=1,64
+ * -Dbench.hold=0,5 -Dbench.wait=100 -Dbench.warmup=5 -Dbench.duration=10
+ * </pre>
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class LockContentionBenchmark {
+
+    /**
+     * 开启释放锁通知时的兜底重试间隔(毫秒)
+     */
+    private static final long NOTIFICATION_FALLBACK_INTERVAL = 1000L;
+
+    public static void main(String[] args) throws Exception {
+        String[] backends = System.getProperty("bench.backends", "local,redis,redis-polling,zookeeper").split(",");
+        long[] nodes = values("bench.nodes", "2");
+        long[] threads = values("bench.threads", "8,32");
+        long[] keys = values("bench.keys", "1,64");
+        long[] holds = values("bench.hold", "0,5");
+        long[] waits = values("bench.wait", "100");
+        long warmupSeconds = Long.getLong("bench.warmup", 5L);
+        long durationSeconds = Long.getLong("bench.duration", 10L);
+
+        System.out.println(LockBenchmarkResult.header());
+        for (String backendName : backends) {
+            try (LockBackend backend = backendOf(backendName.trim())) {
+                backend.start();
+                for (long node : nodes) {
+                    for (long thread : threads) {
+                        for (long key : keys) {
+                            for (long hold : holds) {
+                                for (long wait : waits) {
+                                    LockBenchmarkScenario scenario = new LockBenchmarkScenario(backend.toString(),
+                                            (int) node, (int) thread, (int) key, hold, wait);
+                                    System.out.println(run(backend, scenario, warmupSeconds, durationSeconds).format());
+                                }
+                            }
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("backend " + backendName + " failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * 运行一个场景
+     *
+     * @param backend         {@link LockBackend}
+     * @param scenario        {@link LockBenchmarkScenario}
+     * @param warmupSeconds   预热时间(秒),不计入结果
+     * @param durationSeconds 统计时间(秒)
+     * @return {@link LockBenchmarkResult}
+     * @throws Exception 创建锁实现失败或线程被中断
+     */
+    public static LockBenchmarkResult run(LockBackend backend, LockBenchmarkScenario scenario,
+                                          long warmupSeconds, long durationSeconds) throws Exception {
+        Recorder acquireLatency = new Recorder(3);
+        List<AnnotationConfigApplicationContext> contexts = new ArrayList<>(scenario.getNodes());
+        try {
+            List<ContendedService> services = new ArrayList<>(scenario.getNodes());
+            for (int i = 0; i < scenario.getNodes(); i++) {
+                LockRegistry registry = new MeasuringLockRegistry(backend.createRegistry(),
+                        TimeUnit.MILLISECONDS.toNanos(scenario.getWaitMillis()), acquireLatency);
+                AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+                contexts.add(context);
+                context.registerBean(ContendedService.LOCK_TYPE, LockRegistry.class, () -> registry);
+                context.registerBean(ContendedService.class, () -> new ContendedService(scenario.getHoldMillis()));
+                context.register(BenchmarkConfiguration.class);
+                context.refresh();
+                services.add(context.getBean(ContendedService.class));
+            }
+
+            Worker[] workers = new Worker[scenario.getThreads()];
+            Thread[] workerThreads = new Thread[workers.length];
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new Worker(services.get(i % services.size()), scenario.getKeys());
+                workerThreads[i] = new Thread(workers[i], "lock-benchmark-" + i);
+                workerThreads[i].start();
+            }
+
+            TimeUnit.SECONDS.sleep(warmupSeconds);
+            acquireLatency.reset();
+            for (Worker worker : workers) {
+                worker.measuring = true;
+            }
+            long start = System.nanoTime();
+            TimeUnit.SECONDS.sleep(durationSeconds);
+            for (Worker worker : workers) {
+                worker.measuring = false;
+            }
+            long elapsed = System.nanoTime() - start;
+            Histogram histogram = acquireLatency.getIntervalHistogram();
+
+            for (Worker worker : workers) {
+                worker.running = false;
+            }
+            long[] successes = new long[workers.length];
+            long timeouts = 0;
+            long errors = 0;
+            for (int i = 0; i < workers.length; i++) {
+                workerThreads[i].join();
+                successes[i] = workers[i].successes;
+                timeouts += workers[i].timeouts;
+                errors += workers[i].errors;
+            }
+            return new LockBenchmarkResult(scenario, elapsed, successes, timeouts, errors, histogram);
+        } finally {
+            for (AnnotationConfigApplicationContext context : contexts) {
+                context.close();
+            }
+        }
+    }
+
+    private static LockBackend backendOf(String name) {
+        switch (name) {
+            case "redis":
+                return new RedisLockBackend(true, NOTIFICATION_FALLBACK_INTERVAL);
+            case "redis-polling":
+                return new RedisLockBackend(false, NOTIFICATION_FALLBACK_INTERVAL);
+            case "zookeeper":
+                return new ZookeeperLockBackend();
+            case "local":
+                return new LocalLockBackend();
+            default:
+                throw new IllegalArgumentException("Unknown backend: " + name);
+        }
+    }
+
+    private static long[] values(String property, String defaultValue) {
+        String[] parts = System.getProperty(property, defaultValue).split(",");
+        long[] values = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Long.parseLong(parts[i].trim());
+        }
+        return values;
+    }
+
+    /**
+     * 压测线程,只在统计阶段计数
+     */
+    private static final class Worker implements Runnable {
+
+        private final ContendedService service;
+
+        private final int keys;
+
+        private volatile boolean running = true;
+
+        private volatile boolean measuring;
+
+        private long successes;
+
+        private long timeouts;
+
+        private long errors;
+
+        Worker(ContendedService service, int keys) {
+            this.service = service;
+            this.keys = keys;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running) {
+                String key = "key-" + random.nextInt(keys);
+                try {
+                    service.work(key);
+                    if (measuring) {
+                        successes++;
+                    }
+                } catch (DistributedLockException e) {
+                    if (measuring) {
+                        timeouts++;
+                    }
+                } catch (RuntimeException e) {
+                    if (measuring) {
+                        errors++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 每个模拟节点的容器配置
+     */
+    @EnableAspectJAutoProxy(proxyTargetClass = true)
+    @Import(DistributedLockConfiguration.class)
+    static class BenchmarkConfiguration {
+    }
+}
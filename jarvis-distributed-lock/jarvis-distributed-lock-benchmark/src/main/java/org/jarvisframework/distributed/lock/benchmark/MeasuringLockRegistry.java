@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.benchmark;
+
+import org.HdrHistogram.Recorder;
+import org.springframework.integration.support.locks.LockRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 记录获取锁耗时的锁实现包装
+ * <p>
+ * 按场景的等待时间获取锁,忽略注解上的等待时间,使同一个压测方法可运行不同等待时间的场景;
+ * 成功获取锁的耗时记录到{@link Recorder}
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class MeasuringLockRegistry implements LockRegistry {
+
+    private final LockRegistry delegate;
+
+    private final long waitNanos;
+
+    private final Recorder acquireLatency;
+
+    /**
+     * 记录获取锁耗时的锁实现包装构造方法
+     *
+     * @param delegate       锁实现
+     * @param waitNanos      尝试获取锁的等待时间(纳秒)
+     * @param acquireLatency 获取锁耗时(纳秒)
+     */
+    public MeasuringLockRegistry(LockRegistry delegate, long waitNanos, Recorder acquireLatency) {
+        this.delegate = delegate;
+        this.waitNanos = waitNanos;
+        this.acquireLatency = acquireLatency;
+    }
+
+    @Override
+    public Lock obtain(Object lockKey) {
+        return new MeasuringLock(delegate.obtain(lockKey));
+    }
+
+    private final class MeasuringLock implements Lock {
+
+        private final Lock lock;
+
+        MeasuringLock(Lock lock) {
+            this.lock = lock;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            long start = System.nanoTime();
+            boolean locked = lock.tryLock(waitNanos, TimeUnit.NANOSECONDS);
+            if (locked) {
+                acquireLatency.recordValue(System.nanoTime() - start);
+            }
+            return locked;
+        }
+
+        @Override
+        public void lock() {
+            lock.lock();
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            lock.lockInterruptibly();
+        }
+
+        @Override
+        public boolean tryLock() {
+            return lock.tryLock();
+        }
+
+        @Override
+        public void unlock() {
+            lock.unlock();
+        }
+
+        @Override
+        public Condition newCondition() {
+            return lock.newCondition();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.benchmark;
+
+import org.jarvisframework.distributed.lock.redis.registry.RedisDistributedLockRegistry;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.integration.support.locks.LockRegistry;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 内嵌Redis服务端
+ * <p>
+ * 使用embedded-redis随包附带的redis-server,无需联网或预装Redis
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class RedisLockBackend implements LockBackend {
+
+    private static final String REGISTRY_KEY = "lock-benchmark";
+
+    private static final long EXPIRE_AFTER = 30000L;
+
+    /**
+     * 是否开启释放锁通知
+     */
+    private final boolean notifications;
+
+    /**
+     * 开启释放锁通知时的兜底重试间隔(毫秒)
+     */
+    private final long fallbackInterval;
+
+    private final List<LettuceConnectionFactory> connectionFactories = new ArrayList<>();
+
+    private final List<RedisMessageListenerContainer> containers = new ArrayList<>();
+
+    private RedisServer server;
+
+    private int port;
+
+    public RedisLockBackend(boolean notifications, long fallbackInterval) {
+        this.notifications = notifications;
+        this.fallbackInterval = fallbackInterval;
+    }
+
+    @Override
+    public void start() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new RedisServer(port);
+        server.start();
+    }
+
+    @Override
+    public LockRegistry createRegistry() {
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration("127.0.0.1", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactories.add(connectionFactory);
+        RedisDistributedLockRegistry registry = new RedisDistributedLockRegistry(connectionFactory, REGISTRY_KEY, EXPIRE_AFTER);
+        if (notifications) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            container.afterPropertiesSet();
+            container.start();
+            containers.add(container);
+            registry.enableUnlockNotifications(container, fallbackInterval);
+        }
+        return registry;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (RedisMessageListenerContainer container : containers) {
+            container.destroy();
+        }
+        containers.clear();
+        for (LettuceConnectionFactory connectionFactory : connectionFactories) {
+            connectionFactory.destroy();
+        }
+        connectionFactories.clear();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return notifications ? "redis" : "redis-polling";
+    }
+}
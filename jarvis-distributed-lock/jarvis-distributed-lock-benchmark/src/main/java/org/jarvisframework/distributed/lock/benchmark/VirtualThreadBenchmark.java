@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.benchmark;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.jarvisframework.distributed.lock.api.support.VirtualThreads;
+import org.springframework.integration.support.locks.LockRegistry;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * 虚拟线程与平台线程池压测
+ * <p>
+ * 一次性提交指定数量的请求,每个请求随机选择一个Key值加锁,持锁期间休眠模拟下游IO后释放,
+ * 统计从提交到完成的耗时与整体吞吐,对比固定大小的平台线程池(模拟Tomcat默认200个工作线程)与每请求一个虚拟线程。
+ * 虚拟线程需使用 JDK 21 运行,并先以 JDK 21 构建安装 api 模块以打包多版本实现,参数通过系统属性指定:
+ * <pre>
+ * -Dbench.backends=local,redis -Dbench.executors=platform,virtual -Dbench.requests=20000 -Dbench.keys=1000
+ * -Dbench.holdMillis=10 -Dbench.platformThreads=200
+ * </pre>
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class VirtualThreadBenchmark {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final long WAIT_SECONDS = 30L;
+
+    private static final long NOTIFICATION_FALLBACK_INTERVAL = 1000L;
+
+    public static void main(String[] args) throws Exception {
+        String[] backends = System.getProperty("bench.backends", "local,redis").split(",");
+        String[] executors = System.getProperty("bench.executors", "platform,virtual").split(",");
+        int requests = Integer.getInteger("bench.requests", 20000);
+        int keys = Integer.getInteger("bench.keys", 1000);
+        long holdMillis = Long.getLong("bench.holdMillis", 10L);
+        int platformThreads = Integer.getInteger("bench.platformThreads", 200);
+
+        System.out.println(String.format("%-8s %-16s %8s %12s %10s %10s %10s %8s",
+                "backend", "executor", "requests", "throughput", "p50", "p99", "max", "failed"));
+        for (String backendName : backends) {
+            try (LockBackend backend = backendOf(backendName.trim())) {
+                backend.start();
+                LockRegistry registry = backend.createRegistry();
+                for (String executorName : executors) {
+                    ExecutorService executor = executorOf(executorName.trim(), platformThreads);
+                    if (executor == null) {
+                        System.out.println(String.format("%-8s %-16s skipped: virtual threads require Java 21 or later",
+                                backend, executorName.trim()));
+                        continue;
+                    }
+                    try {
+                        // 预热连接与锁对象
+                        run(registry, executor, Math.min(requests, 1000), keys, 0L);
+                        System.out.println(String.format("%-8s %-16s %s", backend,
+                                label(executorName.trim(), platformThreads), run(registry, executor, requests, keys, holdMillis)));
+                    } finally {
+                        executor.shutdown();
+                        executor.awaitTermination(WAIT_SECONDS, TimeUnit.SECONDS);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 一次性提交全部请求并等待完成
+     *
+     * @param registry   {@link LockRegistry}
+     * @param executor   请求执行器
+     * @param requests   请求数量
+     * @param keys       Key值数量
+     * @param holdMillis 持锁时间(毫秒)
+     * @return 结果行
+     * @throws InterruptedException 等待被中断
+     */
+    private static String run(LockRegistry registry, ExecutorService executor, int requests, int keys, long holdMillis)
+            throws InterruptedException {
+        Histogram latency = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+        AtomicLong failed = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(requests);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            long submitted = System.nanoTime();
+            executor.execute(() -> {
+                try {
+                    Lock lock = registry.obtain("key-" + ThreadLocalRandom.current().nextInt(keys));
+                    if (lock.tryLock(WAIT_SECONDS, TimeUnit.SECONDS)) {
+                        try {
+                            if (holdMillis > 0) {
+                                Thread.sleep(holdMillis);
+                            }
+                        } finally {
+                            lock.unlock();
+                        }
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                } finally {
+                    latency.recordValue(Math.min(System.nanoTime() - submitted, MAX_LATENCY_NANOS));
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return String.format("%8d %10.0f/s %10s %10s %10s %8d", requests, requests / elapsedSeconds,
+                millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(99)),
+                millis(latency.getMaxValue()), failed.get());
+    }
+
+    private static ExecutorService executorOf(String name, int platformThreads) {
+        switch (name) {
+            case "platform":
+                return Executors.newFixedThreadPool(platformThreads);
+            case "virtual":
+                return VirtualThreads.isSupported() ? VirtualThreads.newThreadPerTaskExecutor("bench-") : null;
+            default:
+                throw new IllegalArgumentException("Unknown executor: " + name);
+        }
+    }
+
+    private static String label(String name, int platformThreads) {
+        return "platform".equals(name) ? name + "(" + platformThreads + ")" : name;
+    }
+
+    private static LockBackend backendOf(String name) {
+        switch (name) {
+            case "redis":
+                return new RedisLockBackend(true, NOTIFICATION_FALLBACK_INTERVAL);
+            case "local":
+                return new LocalLockBackend();
+            default:
+                throw new IllegalArgumentException("Unknown backend: " + name);
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1fms", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.api.transaction.CuratorOp;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.test.TestingServer;
+import org.apache.curator.utils.ZKPaths;
+import org.jarvisframework.distributed.lock.zookeeper.registry.ZookeeperDistributedLockRegistry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Zookeeper锁节点布局压测
+ * <p>
+ * 预先在锁根节点下写入指定数量的空锁节点,再对新Key值逐个加锁、解锁,分别统计创建(加锁)与删除(解锁)耗时,
+ * 以及列出锁根节点子节点的耗时,对比不分桶与分桶布局随Key值数量增长的变化。
+ * 参数通过系统属性指定,多个取值以逗号分隔:
+ * <pre>
+ * -Dbench.depths=0,2 -Dbench.fanout=256 -Dbench.populations=1000,10000,100000 -Dbench.samples=2000
+ * </pre>
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class ZnodeLayoutBenchmark {
+
+    /**
+     * 预写入时每个事务包含的节点数量
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    public static void main(String[] args) throws Exception {
+        String[] depths = System.getProperty("bench.depths", "0,2").split(",");
+        int fanout = Integer.getInteger("bench.fanout", 256);
+        String[] populations = System.getProperty("bench.populations", "1000,10000,100000").split(",");
+        int samples = Integer.getInteger("bench.samples", 2000);
+
+        System.out.println(String.format("%-6s %9s %10s %10s %10s %10s %10s %10s",
+                "depth", "keys", "lock p50", "lock p99", "unlock p50", "unlock p99", "root size", "list root"));
+        try (TestingServer server = new TestingServer();
+             CuratorFramework client = CuratorFrameworkFactory.newClient(server.getConnectString(),
+                     new ExponentialBackoffRetry(100, 3))) {
+            client.start();
+            if (!client.blockUntilConnected(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Unable to connect to " + server.getConnectString());
+            }
+            for (String depth : depths) {
+                ZookeeperDistributedLockRegistry registry = new ZookeeperDistributedLockRegistry(client,
+                        "/layout-" + depth.trim());
+                registry.setSharding(Integer.parseInt(depth.trim()), fanout);
+                Set<String> created = new HashSet<>();
+                int populated = 0;
+                for (String population : populations) {
+                    int target = Integer.parseInt(population.trim());
+                    populate(client, registry, created, populated, target);
+                    populated = target;
+                    System.out.println(run(client, registry, target, samples));
+                }
+            }
+        }
+    }
+
+    /**
+     * 以事务批量写入空锁节点,父节点先于子节点创建
+     *
+     * @param client   {@link CuratorFramework}
+     * @param registry {@link ZookeeperDistributedLockRegistry}
+     * @param created  已创建的节点路径
+     * @param from     起始Key值序号
+     * @param to       结束Key值序号(不含)
+     * @throws Exception Zookeeper访问异常
+     */
+    private static void populate(CuratorFramework client, ZookeeperDistributedLockRegistry registry, Set<String> created,
+                                 int from, int to) throws Exception {
+        client.createContainers(registry.getRoot());
+        created.add(registry.getRoot());
+        List<CuratorOp> operations = new ArrayList<>(BATCH_SIZE);
+        for (int i = from; i < to; i++) {
+            List<String> missing = new ArrayList<>();
+            String path = registry.getLockPath("key-" + i);
+            while (created.add(path)) {
+                missing.add(0, path);
+                path = ZKPaths.getPathAndNode(path).getPath();
+            }
+            for (String node : missing) {
+                operations.add(client.transactionOp().create().forPath(node));
+                if (operations.size() == BATCH_SIZE) {
+                    client.transaction().forOperations(operations);
+                    operations.clear();
+                }
+            }
+        }
+        if (!operations.isEmpty()) {
+            client.transaction().forOperations(operations);
+        }
+    }
+
+    /**
+     * 对未使用过的Key值逐个加锁、解锁并统计耗时
+     *
+     * @param client     {@link CuratorFramework}
+     * @param registry   {@link ZookeeperDistributedLockRegistry}
+     * @param population 已写入的锁节点数量
+     * @param samples    采样次数
+     * @return 结果行
+     * @throws Exception Zookeeper访问异常
+     */
+    private static String run(CuratorFramework client, ZookeeperDistributedLockRegistry registry, int population,
+                              int samples) throws Exception {
+        Histogram lockLatency = new Histogram(MAX_LATENCY_NANOS, 3);
+        Histogram unlockLatency = new Histogram(MAX_LATENCY_NANOS, 3);
+        for (int i = 0; i < samples; i++) {
+            Lock lock = registry.obtain("sample-" + population + "-" + i);
+            long start = System.nanoTime();
+            if (!lock.tryLock(1, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Unable to lock " + lock);
+            }
+            long locked = System.nanoTime();
+            lock.unlock();
+            long unlocked = System.nanoTime();
+            lockLatency.recordValue(Math.min(locked - start, MAX_LATENCY_NANOS));
+            unlockLatency.recordValue(Math.min(unlocked - locked, MAX_LATENCY_NANOS));
+        }
+        // 释放样本锁节点,保持预写入数量不变
+        registry.expireUnusedOlderThan(-1);
+
+        long start = System.nanoTime();
+        int rootSize = client.getChildren().forPath(registry.getRoot()).size();
+        long listRoot = System.nanoTime() - start;
+        return String.format("%-6d %9d %10s %10s %10s %10s %10d %10s", registry.getShardDepth(), population,
+                millis(lockLatency.getValueAtPercentile(50)), millis(lockLatency.getValueAtPercentile(99)),
+                millis(unlockLatency.getValueAtPercentile(50)), millis(unlockLatency.getValueAtPercentile(99)),
+                rootSize, millis(listRoot));
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3fms", nanos / 1_000_000.0);
+    }
+}
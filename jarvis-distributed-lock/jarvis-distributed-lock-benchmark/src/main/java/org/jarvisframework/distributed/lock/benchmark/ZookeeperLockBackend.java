@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.benchmark;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.test.TestingServer;
+import org.jarvisframework.distributed.lock.zookeeper.registry.ZookeeperDistributedLockRegistry;
+import org.springframework.integration.support.locks.LockRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内嵌Zookeeper服务端
+ * <p>
+ * 使用Curator {@link TestingServer}
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class ZookeeperLockBackend implements LockBackend {
+
+    private final List<CuratorFramework> clients = new ArrayList<>();
+
+    private TestingServer server;
+
+    @Override
+    public void start() throws Exception {
+        server = new TestingServer();
+    }
+
+    @Override
+    public LockRegistry createRegistry() throws Exception {
+        CuratorFramework client = CuratorFrameworkFactory.newClient(server.getConnectString(),
+                new ExponentialBackoffRetry(100, 3));
+        clients.add(client);
+        client.start();
+        if (!client.blockUntilConnected(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Unable to connect to " + server.getConnectString());
+        }
+        return new ZookeeperDistributedLockRegistry(client);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (CuratorFramework client : clients) {
+            client.close();
+        }
+        clients.clear();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "zookeeper";
+    }
+}
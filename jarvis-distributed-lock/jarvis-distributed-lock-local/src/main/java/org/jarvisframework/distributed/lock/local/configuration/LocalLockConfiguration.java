@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.local.configuration;
+
+import org.jarvisframework.distributed.lock.api.configuration.DistributedLockProperties;
+import org.jarvisframework.distributed.lock.local.registry.LocalDistributedLockRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * local distributed lock
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+@EnableConfigurationProperties(LocalLockProperties.class)
+public class LocalLockConfiguration {
+
+    /**
+     * LocalLock 实例注入
+     *
+     * @param localLockProperties       {@link LocalLockProperties}
+     * @param distributedLockProperties {@link DistributedLockProperties}
+     * @return {@link LocalDistributedLockRegistry}
+     */
+    @Bean
+    @ConditionalOnMissingBean(LocalDistributedLockRegistry.class)
+    public LocalDistributedLockRegistry localLockRegistry(LocalLockProperties localLockProperties,
+                                                          ObjectProvider<DistributedLockProperties> distributedLockProperties) {
+        LocalDistributedLockRegistry registry = new LocalDistributedLockRegistry(localLockProperties.getStripes(),
+                localLockProperties.isFair());
+        registry.setCapacity(distributedLockProperties.getIfAvailable(DistributedLockProperties::new).getRegistryCapacity());
+        return registry;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.local.configuration;
+
+import org.jarvisframework.distributed.lock.local.registry.LocalDistributedLockRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.StringJoiner;
+
+/**
+ * 进程内锁属性配置类
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "jarvis.local-lock")
+public class LocalLockProperties {
+
+    /**
+     * 锁分段数,向上取整为2的幂
+     */
+    private int stripes = LocalDistributedLockRegistry.DEFAULT_STRIPES;
+
+    /**
+     * 是否使用公平锁,公平锁按等待顺序获取,吞吐量较低
+     */
+    private boolean fair = false;
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public boolean isFair() {
+        return fair;
+    }
+
+    public void setFair(boolean fair) {
+        this.fair = fair;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", LocalLockProperties.class.getSimpleName() + "[", "]")
+                .add("stripes=" + stripes)
+                .add("fair=" + fair)
+                .toString();
+    }
+}
@@ -0,0 +1,534 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.local.registry;
+
+import org.jarvisframework.distributed.lock.api.support.BoundedLockCache;
+import org.jarvisframework.distributed.lock.api.support.BoundedLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.DistributedSemaphore;
+import org.jarvisframework.distributed.lock.api.support.FencedLock;
+import org.jarvisframework.distributed.lock.api.support.ReadWriteLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.SemaphoreRegistry;
+import org.springframework.util.Assert;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 进程内锁实现
+ * <p>
+ * 只在当前JVM内互斥,不产生网络往返。Key值按哈希分段,每个分段各自维护:
+ * 被持有或有线程等待的锁状态强引用保存,保证互斥不被打破;
+ * 空闲的锁状态以弱引用按转入空闲的顺序缓存,数量受容量限制,无人引用时随GC回收。
+ * {@link #obtain(Object)}返回的锁只记录Key值,每次获取时才定位锁状态,因此淘汰空闲锁状态不影响已取得的锁实例。
+ * 防护令牌由进程内计数器签发,只对排他锁有效;
+ * 信号量同样只在获取时定位状态,状态缓存受同一容量限制,没有许可被持有且无等待线程时才可淘汰
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class LocalDistributedLockRegistry implements BoundedLockRegistry, ReadWriteLockRegistry, SemaphoreRegistry {
+
+    /**
+     * 默认分段数
+     */
+    public static final int DEFAULT_STRIPES = 64;
+
+    private final Stripe[] stripes;
+
+    private final int mask;
+
+    private final boolean fair;
+
+    private final AtomicLong fencingTokens = new AtomicLong();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final BoundedLockCache<SemaphoreState> semaphores = new BoundedLockCache<>(key -> new SemaphoreState(),
+            state -> state.lastUsed, SemaphoreState::isIdle);
+
+    /**
+     * 每个分段缓存空闲锁状态的最大数量
+     */
+    private volatile int stripeCapacity;
+
+    /**
+     * 进程内锁实现构造方法
+     */
+    public LocalDistributedLockRegistry() {
+        this(DEFAULT_STRIPES, false);
+    }
+
+    /**
+     * 进程内锁实现构造方法
+     *
+     * @param stripes 分段数,向上取整为2的幂
+     * @param fair    是否使用公平锁
+     */
+    public LocalDistributedLockRegistry(int stripes, boolean fair) {
+        Assert.isTrue(stripes > 0, "'stripes' must be positive");
+        int size = Math.max(Integer.highestOneBit(stripes - 1) << 1, 1);
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+        this.fair = fair;
+        setCapacity(DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public FencedLock obtain(Object lockKey) {
+        Assert.isInstanceOf(String.class, lockKey);
+        return new LocalLock((String) lockKey, false);
+    }
+
+    /**
+     * 获取共享读锁,读锁不签发防护令牌
+     *
+     * @param lockKey 锁Key值
+     * @return {@link FencedLock}
+     */
+    @Override
+    public FencedLock obtainRead(Object lockKey) {
+        Assert.isInstanceOf(String.class, lockKey);
+        return new LocalLock((String) lockKey, true);
+    }
+
+    /**
+     * 获取进程内信号量,同一Key值的调用方应使用相同的许可数
+     *
+     * @param key     信号量Key值
+     * @param permits 允许的最大并发数
+     * @return {@link DistributedSemaphore}
+     */
+    @Override
+    public DistributedSemaphore obtainSemaphore(String key, int permits) {
+        Assert.hasText(key, "'key' must not be empty");
+        Assert.isTrue(permits > 0, "'permits' must be positive");
+        return new LocalSemaphore(key, permits);
+    }
+
+    /**
+     * 淘汰空闲超过指定时间的锁状态
+     *
+     * @param age 空闲时间(毫秒)
+     */
+    @Override
+    public void expireUnusedOlderThan(long age) {
+        long now = System.currentTimeMillis();
+        for (Stripe stripe : stripes) {
+            stripe.expire(now - age);
+        }
+        semaphores.expireOlderThan(age);
+    }
+
+    /**
+     * 设置容量,按分段均分
+     *
+     * @param capacity 缓存空闲锁状态的最大数量
+     */
+    @Override
+    public void setCapacity(int capacity) {
+        Assert.isTrue(capacity > 0, "'capacity' must be positive");
+        this.stripeCapacity = Math.max(capacity / stripes.length, 1);
+        semaphores.setCapacity(capacity);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size + semaphores.size();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum() + semaphores.getEvictionCount();
+    }
+
+    private Stripe stripeFor(String lockKey) {
+        int h = lockKey.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    /**
+     * 锁状态
+     */
+    private final class LockState {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(fair);
+
+        /**
+         * 持有及等待的次数,由所在分段的监视器保护
+         */
+        private int users;
+
+        private volatile long fencingToken = FencedLock.NO_TOKEN;
+    }
+
+    /**
+     * 空闲锁状态的弱引用
+     */
+    private static final class IdleReference extends WeakReference<LockState> {
+
+        private final String key;
+
+        private final long idleSince = System.currentTimeMillis();
+
+        IdleReference(String key, LockState state, ReferenceQueue<LockState> queue) {
+            super(state, queue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * 锁分段,全部操作在分段锁内完成,只做Map读写,临界区极短。
+     * 使用{@link ReentrantLock}而非监视器,虚拟线程竞争分段时不会占住载体线程
+     */
+    private final class Stripe {
+
+        private final ReentrantLock monitor = new ReentrantLock();
+
+        private final Map<String, LockState> active = new HashMap<>(16);
+
+        private final Map<String, IdleReference> idle = new LinkedHashMap<>(16);
+
+        private final ReferenceQueue<LockState> queue = new ReferenceQueue<>();
+
+        /**
+         * 登记一次持有或等待,返回Key值对应的锁状态
+         */
+        LockState enter(String key) {
+            monitor.lock();
+            try {
+                purge();
+                LockState state = active.get(key);
+                if (state == null) {
+                    IdleReference reference = idle.remove(key);
+                    state = reference != null ? reference.get() : null;
+                    if (state == null) {
+                        state = new LockState();
+                    }
+                    active.put(key, state);
+                }
+                state.users++;
+                return state;
+            } finally {
+                monitor.unlock();
+            }
+        }
+
+        /**
+         * 撤销一次持有或等待,不再使用的锁状态转入空闲缓存
+         */
+        void exit(String key, LockState state) {
+            monitor.lock();
+            try {
+                if (--state.users > 0) {
+                    return;
+                }
+                active.remove(key);
+                idle.put(key, new IdleReference(key, state, queue));
+                Iterator<IdleReference> iterator = idle.values().iterator();
+                while (idle.size() > stripeCapacity && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                    evictions.increment();
+                }
+            } finally {
+                monitor.unlock();
+            }
+        }
+
+        LockState get(String key) {
+            monitor.lock();
+            try {
+                return active.get(key);
+            } finally {
+                monitor.unlock();
+            }
+        }
+
+        void expire(long idleBefore) {
+            monitor.lock();
+            try {
+                purge();
+                Iterator<IdleReference> iterator = idle.values().iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().idleSince >= idleBefore) {
+                        // 按转入空闲的顺序排列,之后的锁状态都更新
+                        break;
+                    }
+                    iterator.remove();
+                    evictions.increment();
+                }
+            } finally {
+                monitor.unlock();
+            }
+        }
+
+        int size() {
+            monitor.lock();
+            try {
+                return active.size() + idle.size();
+            } finally {
+                monitor.unlock();
+            }
+        }
+
+        /**
+         * 清理已被GC回收的空闲锁状态
+         */
+        private void purge() {
+            IdleReference reference;
+            while ((reference = (IdleReference) queue.poll()) != null) {
+                if (idle.remove(reference.key, reference)) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * 进程内锁,只记录Key值,获取时定位锁状态
+     */
+    private final class LocalLock implements FencedLock {
+
+        private final String key;
+
+        private final boolean shared;
+
+        private final Stripe stripe;
+
+        LocalLock(String key, boolean shared) {
+            this.key = key;
+            this.shared = shared;
+            this.stripe = stripeFor(key);
+        }
+
+        private Lock lockOf(LockState state) {
+            return shared ? state.lock.readLock() : state.lock.writeLock();
+        }
+
+        @Override
+        public void lock() {
+            LockState state = stripe.enter(key);
+            try {
+                lockOf(state).lock();
+            } catch (RuntimeException | Error e) {
+                stripe.exit(key, state);
+                throw e;
+            }
+            acquired(state);
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            LockState state = stripe.enter(key);
+            try {
+                lockOf(state).lockInterruptibly();
+            } catch (InterruptedException | RuntimeException | Error e) {
+                stripe.exit(key, state);
+                throw e;
+            }
+            acquired(state);
+        }
+
+        @Override
+        public boolean tryLock() {
+            LockState state = stripe.enter(key);
+            boolean locked = false;
+            try {
+                locked = lockOf(state).tryLock();
+            } finally {
+                if (!locked) {
+                    stripe.exit(key, state);
+                }
+            }
+            if (!locked) {
+                return false;
+            }
+            acquired(state);
+            return true;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            LockState state = stripe.enter(key);
+            boolean locked = false;
+            try {
+                locked = lockOf(state).tryLock(time, unit);
+            } finally {
+                if (!locked) {
+                    stripe.exit(key, state);
+                }
+            }
+            if (!locked) {
+                return false;
+            }
+            acquired(state);
+            return true;
+        }
+
+        /**
+         * 首次(非重入)获取排他锁时签发防护令牌
+         */
+        private void acquired(LockState state) {
+            if (!shared && state.lock.getWriteHoldCount() == 1) {
+                state.fencingToken = fencingTokens.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void unlock() {
+            LockState state = stripe.get(key);
+            if (state == null || !isHeldByCurrentThread(state)) {
+                throw new IllegalStateException("You do not own lock at " + key);
+            }
+            if (!shared && state.lock.getWriteHoldCount() == 1) {
+                state.fencingToken = NO_TOKEN;
+            }
+            lockOf(state).unlock();
+            stripe.exit(key, state);
+        }
+
+        private boolean isHeldByCurrentThread(LockState state) {
+            return shared ? state.lock.getReadHoldCount() > 0 : state.lock.isWriteLockedByCurrentThread();
+        }
+
+        @Override
+        public long getFencingToken() {
+            if (shared) {
+                return NO_TOKEN;
+            }
+            LockState state = stripe.get(key);
+            return state != null && state.lock.isWriteLockedByCurrentThread() ? state.fencingToken : NO_TOKEN;
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+
+        @Override
+        public String toString() {
+            return "LocalLock [lockKey=" + key + ", shared=" + shared + "]";
+        }
+    }
+
+    /**
+     * 信号量状态
+     */
+    private static final class SemaphoreState {
+
+        /**
+         * 首次登记使用时按许可数创建,登记在缓存的Key值锁内完成,对之后登记的线程可见
+         */
+        private Semaphore semaphore;
+
+        private int permits;
+
+        /**
+         * 持有许可及等待的次数
+         */
+        private final AtomicInteger users = new AtomicInteger();
+
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        void enter(int permits) {
+            if (semaphore == null) {
+                this.semaphore = new Semaphore(permits);
+                this.permits = permits;
+            }
+            users.incrementAndGet();
+        }
+
+        void exit() {
+            lastUsed = System.currentTimeMillis();
+            users.decrementAndGet();
+        }
+
+        boolean isIdle() {
+            return users.get() == 0;
+        }
+    }
+
+    /**
+     * 进程内信号量,只记录Key值,获取时定位信号量状态
+     */
+    private final class LocalSemaphore implements DistributedSemaphore {
+
+        private final String key;
+
+        private final int permits;
+
+        LocalSemaphore(String key, int permits) {
+            this.key = key;
+            this.permits = permits;
+        }
+
+        @Override
+        public Lease tryAcquire(long time, TimeUnit unit) throws InterruptedException {
+            SemaphoreState state = semaphores.retain(key, s -> s.enter(permits));
+            boolean acquired = false;
+            try {
+                acquired = state.semaphore.tryAcquire(time, unit);
+            } finally {
+                if (!acquired) {
+                    state.exit();
+                }
+            }
+            if (!acquired) {
+                return null;
+            }
+            AtomicBoolean released = new AtomicBoolean();
+            return () -> {
+                if (released.compareAndSet(false, true)) {
+                    state.semaphore.release();
+                    state.exit();
+                }
+            };
+        }
+
+        @Override
+        public int getPermits() {
+            return permits;
+        }
+
+        @Override
+        public String toString() {
+            return "LocalSemaphore [key=" + key + ", permits=" + permits + "]";
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.local.registry;
+
+import org.jarvisframework.distributed.lock.api.support.DistributedSemaphore;
+import org.jarvisframework.distributed.lock.api.support.FencedLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * {@link LocalDistributedLockRegistry} 测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class LocalDistributedLockRegistryTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private boolean tryInOtherThread(Lock lock) throws Exception {
+        return executor.submit(() -> {
+            if (!lock.tryLock(50, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+            lock.unlock();
+            return true;
+        }).get();
+    }
+
+    @Test
+    public void locksExcludeAcrossInstancesAndIssueIncreasingTokens() throws Exception {
+        LocalDistributedLockRegistry registry = new LocalDistributedLockRegistry();
+        FencedLock lock = registry.obtain("order");
+
+        Assertions.assertTrue(lock.tryLock());
+        long first = lock.getFencingToken();
+        Assertions.assertTrue(first > 0);
+        Assertions.assertFalse(tryInOtherThread(registry.obtain("order")));
+        Assertions.assertTrue(tryInOtherThread(registry.obtain("other")));
+        lock.unlock();
+        Assertions.assertEquals(FencedLock.NO_TOKEN, lock.getFencingToken());
+        Assertions.assertThrows(IllegalStateException.class, lock::unlock);
+
+        Assertions.assertTrue(tryInOtherThread(registry.obtain("order")));
+        Assertions.assertTrue(lock.tryLock());
+        Assertions.assertTrue(lock.getFencingToken() > first);
+        lock.unlock();
+    }
+
+    @Test
+    public void readLocksShareAndExcludeWriters() throws Exception {
+        LocalDistributedLockRegistry registry = new LocalDistributedLockRegistry();
+        FencedLock read = registry.obtainRead("config");
+        Assertions.assertTrue(read.tryLock());
+
+        Assertions.assertTrue(tryInOtherThread(registry.obtainRead("config")));
+        Assertions.assertFalse(tryInOtherThread(registry.obtain("config")));
+        read.unlock();
+        Assertions.assertTrue(tryInOtherThread(registry.obtain("config")));
+    }
+
+    @Test
+    public void idleStatesAreBoundedWhileHeldLocksSurviveEviction() throws Exception {
+        LocalDistributedLockRegistry registry = new LocalDistributedLockRegistry(1, false);
+        registry.setCapacity(4);
+        FencedLock held = registry.obtain("held");
+        Assertions.assertTrue(held.tryLock());
+
+        for (int i = 0; i < 100; i++) {
+            FencedLock lock = registry.obtain("key-" + i);
+            Assertions.assertTrue(lock.tryLock());
+            lock.unlock();
+        }
+        Assertions.assertEquals(5, registry.size());
+        Assertions.assertEquals(96, registry.getEvictionCount());
+        registry.expireUnusedOlderThan(-1L);
+        Assertions.assertEquals(1, registry.size());
+
+        Assertions.assertFalse(tryInOtherThread(registry.obtain("held")));
+        held.unlock();
+        Assertions.assertTrue(tryInOtherThread(registry.obtain("held")));
+    }
+
+    @Test
+    public void semaphoreLimitsConcurrentLeases() throws Exception {
+        LocalDistributedLockRegistry registry = new LocalDistributedLockRegistry();
+        DistributedSemaphore semaphore = registry.obtainSemaphore("export", 1);
+
+        DistributedSemaphore.Lease lease = semaphore.tryAcquire(0, TimeUnit.MILLISECONDS);
+        Assertions.assertNotNull(lease);
+        Assertions.assertNull(semaphore.tryAcquire(10, TimeUnit.MILLISECONDS));
+        lease.close();
+        lease.close();
+        DistributedSemaphore.Lease next = registry.obtainSemaphore("export", 1).tryAcquire(0, TimeUnit.MILLISECONDS);
+        Assertions.assertNotNull(next);
+        Assertions.assertNull(semaphore.tryAcquire(0, TimeUnit.MILLISECONDS));
+        next.close();
+    }
+
+    @Test
+    public void idleSemaphoresAreBoundedAndExpire() throws Exception {
+        LocalDistributedLockRegistry registry = new LocalDistributedLockRegistry();
+        registry.setCapacity(10);
+        DistributedSemaphore.Lease held = registry.obtainSemaphore("held", 1).tryAcquire(0, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 100; i++) {
+            registry.obtainSemaphore("export-" + i, 1).tryAcquire(0, TimeUnit.MILLISECONDS).close();
+        }
+        Assertions.assertTrue(registry.size() <= 10);
+        Assertions.assertTrue(registry.getEvictionCount() > 0);
+
+        registry.expireUnusedOlderThan(-1L);
+        Assertions.assertEquals(1, registry.size());
+        Assertions.assertNull(registry.obtainSemaphore("held", 1).tryAcquire(0, TimeUnit.MILLISECONDS));
+        held.close();
+        Assertions.assertNotNull(registry.obtainSemaphore("held", 1).tryAcquire(0, TimeUnit.MILLISECONDS));
+    }
+}
@@ -17,9 +17,22 @@
 
 package org.jarvisframework.distributed.lock.redis.configuration;
 
+import org.jarvisframework.distributed.lock.api.configuration.DistributedLockProperties;
+import org.jarvisframework.distributed.lock.redis.partition.RedisPartitionMembership;
+import org.jarvisframework.distributed.lock.redis.registry.LockRenewalWatchdog;
+import org.jarvisframework.distributed.lock.redis.registry.RedisDistributedLockRegistry;
+import org.jarvisframework.distributed.lock.redis.registry.RedisQuorumLockRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.integration.redis.util.RedisLockRegistry;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 import javax.annotation.Resource;
 
@@ -29,22 +42,134 @@ import javax.annotation.Resource;
  * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
  * @since 1.0.0
  */
+@EnableConfigurationProperties(RedisLockProperties.class)
+@Import(RedisLockConfiguration.RedisQuorumLockConfiguration.class)
 public class RedisLockConfiguration {
 
     /**
      * Redis实现分布式锁注册的Key值根节点
+     * <p>
+     * 锁Key值为{@code redis-distributed-lock:{lockKey}}的Hash,与此前基于Spring {@code RedisLockRegistry}的版本不兼容,
+     * 升级需停止全部旧版本节点,不支持滚动升级
      */
     public static final String REDIS_DISTRIBUTED_LOCK_REGISTRY_KEY = "redis-distributed-lock";
 
+    /**
+     * 释放锁通知监听容器Bean名称
+     */
+    public static final String REDIS_LOCK_LISTENER_CONTAINER = "redisLockListenerContainer";
+
     /**
      * TODO: 待实现Jedis RedisTemplate
      */
     @Resource
     RedisConnectionFactory connectionFactory;
 
+    /**
+     * RedisLock 实例注入,每次获取锁时签发防护令牌
+     *
+     * @param redisLockProperties       {@link RedisLockProperties}
+     * @param distributedLockProperties {@link DistributedLockProperties}
+     * @param listenerContainer         释放锁通知监听容器,关闭通知时不存在
+     * @return {@link RedisDistributedLockRegistry}
+     */
     @Bean
-    public RedisLockRegistry redisLockRegistry() {
-        return new RedisLockRegistry(connectionFactory, REDIS_DISTRIBUTED_LOCK_REGISTRY_KEY);
+    public RedisDistributedLockRegistry redisLockRegistry(RedisLockProperties redisLockProperties,
+                                                          ObjectProvider<DistributedLockProperties> distributedLockProperties,
+                                                          @Qualifier(REDIS_LOCK_LISTENER_CONTAINER)
+                                                          ObjectProvider<RedisMessageListenerContainer> listenerContainer) {
+        RedisDistributedLockRegistry registry = new RedisDistributedLockRegistry(connectionFactory,
+                REDIS_DISTRIBUTED_LOCK_REGISTRY_KEY, redisLockProperties.getExpireAfter());
+        registry.setCapacity(distributedLockProperties.getIfAvailable(DistributedLockProperties::new).getRegistryCapacity());
+        listenerContainer.ifAvailable(container -> registry.enableUnlockNotifications(container,
+                redisLockProperties.getNotificationFallbackInterval()));
+        return registry;
+    }
+
+    /**
+     * 释放锁通知监听容器注入,全部等待者共用一个订阅连接;需显式开启{@code jarvis.redis-lock.notification-enabled},
+     * 避免默认占用额外的Redis连接
+     *
+     * @return {@link RedisMessageListenerContainer}
+     */
+    @Bean(REDIS_LOCK_LISTENER_CONTAINER)
+    @ConditionalOnMissingBean(name = REDIS_LOCK_LISTENER_CONTAINER)
+    @ConditionalOnProperty(prefix = "jarvis.redis-lock", name = "notification-enabled")
+    public RedisMessageListenerContainer redisLockListenerContainer() {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    /**
+     * 锁续期看门狗注入,持有锁期间周期性延长锁的过期时间
+     *
+     * @param redisLockRegistry   {@link RedisDistributedLockRegistry}
+     * @param redisLockProperties {@link RedisLockProperties}
+     * @return {@link LockRenewalWatchdog}
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "jarvis.redis-lock", name = "renewal-enabled", matchIfMissing = true)
+    public LockRenewalWatchdog lockRenewalWatchdog(RedisDistributedLockRegistry redisLockRegistry,
+                                                   RedisLockProperties redisLockProperties) {
+        return new LockRenewalWatchdog(redisLockRegistry, redisLockProperties.getRenewalInterval(),
+                redisLockProperties.getRenewalBatchSize());
+    }
+
+    /**
+     * 分区成员注册注入,与{@code redisLockRegistry}配合构建{@link org.jarvisframework.distributed.lock.api.partition.PartitionCoordinator}
+     *
+     * @param redisLockProperties {@link RedisLockProperties}
+     * @return {@link RedisPartitionMembership}
+     */
+    @Bean
+    @ConditionalOnMissingBean(RedisPartitionMembership.class)
+    public RedisPartitionMembership redisPartitionMembership(RedisLockProperties redisLockProperties) {
+        return new RedisPartitionMembership(connectionFactory, REDIS_DISTRIBUTED_LOCK_REGISTRY_KEY,
+                redisLockProperties.getPartitionMemberTtl());
+    }
+
+    /**
+     * 多数派锁配置,开启{@code jarvis.redis-lock.quorum-enabled}且存在Lettuce时生效
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.lettuce.core.RedisClient")
+    @ConditionalOnProperty(prefix = "jarvis.redis-lock", name = "quorum-enabled", havingValue = "true")
+    static class RedisQuorumLockConfiguration {
+
+        /**
+         * 多数派锁的独立Redis节点连接
+         *
+         * @param redisLockProperties {@link RedisLockProperties}
+         * @return {@link RedisQuorumNodes}
+         */
+        @Bean
+        @ConditionalOnMissingBean(RedisQuorumNodes.class)
+        public RedisQuorumNodes redisQuorumNodes(RedisLockProperties redisLockProperties) {
+            return new RedisQuorumNodes(redisLockProperties.getQuorumNodes(), redisLockProperties.getQuorumPassword());
+        }
+
+        /**
+         * RedisQuorumLock 实例注入
+         *
+         * @param redisQuorumNodes          {@link RedisQuorumNodes}
+         * @param redisLockProperties       {@link RedisLockProperties}
+         * @param distributedLockProperties {@link DistributedLockProperties}
+         * @return {@link RedisQuorumLockRegistry}
+         */
+        @Bean
+        @ConditionalOnMissingBean(RedisQuorumLockRegistry.class)
+        public RedisQuorumLockRegistry redisQuorumLockRegistry(RedisQuorumNodes redisQuorumNodes,
+                                                               RedisLockProperties redisLockProperties,
+                                                               ObjectProvider<DistributedLockProperties> distributedLockProperties) {
+            RedisQuorumLockRegistry registry = new RedisQuorumLockRegistry(redisQuorumNodes.getConnectionFactories(),
+                    REDIS_DISTRIBUTED_LOCK_REGISTRY_KEY, redisLockProperties.getExpireAfter(),
+                    redisLockProperties.getQuorumClockDriftFactor());
+            registry.setNodeTimeout(redisLockProperties.getQuorumNodeTimeout());
+            registry.setCapacity(distributedLockProperties.getIfAvailable(DistributedLockProperties::new).getRegistryCapacity());
+            return registry;
+        }
     }
 
 }
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.redis.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Redis分布式锁属性配置类
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+@ConfigurationProperties(prefix = "jarvis.redis-lock")
+public class RedisLockProperties {
+
+    /**
+     * 锁过期时间(毫秒),进程崩溃后锁最迟在该时间后释放
+     */
+    private long expireAfter = 30000L;
+
+    /**
+     * 是否开启锁自动续期
+     */
+    private boolean renewalEnabled = true;
+
+    /**
+     * 续期间隔(毫秒),需小于锁过期时间
+     */
+    private long renewalInterval = 10000L;
+
+    /**
+     * 单次续期脚本携带的最大锁数量
+     */
+    private int renewalBatchSize = 128;
+
+    /**
+     * 是否开启释放锁通知,开启后等待者订阅释放锁消息立即重试,不再按固定间隔轮询;
+     * 每个应用会额外占用一个Redis订阅连接,默认关闭
+     */
+    private boolean notificationEnabled = false;
+
+    /**
+     * 开启释放锁通知时的兜底重试间隔(毫秒),覆盖锁过期释放、消息丢失等收不到通知的情况
+     */
+    private long notificationFallbackInterval = 1000L;
+
+    /**
+     * 是否开启多数派锁,开启后注册{@code redisQuorumLockRegistry}
+     */
+    private boolean quorumEnabled = false;
+
+    /**
+     * 多数派锁的独立Redis节点 host:port,建议为奇数个
+     */
+    private List<String> quorumNodes = new ArrayList<>();
+
+    /**
+     * 多数派锁节点密码
+     */
+    private String quorumPassword;
+
+    /**
+     * 多数派锁时钟漂移系数
+     */
+    private double quorumClockDriftFactor = 0.01;
+
+    /**
+     * 多数派锁单轮加锁等待节点响应的最长时间(毫秒)
+     */
+    private long quorumNodeTimeout = 500L;
+
+    /**
+     * 分区成员租约时间(毫秒),需大于分区协调器的调度周期
+     */
+    private long partitionMemberTtl = 15000L;
+
+    public long getExpireAfter() {
+        return expireAfter;
+    }
+
+    public void setExpireAfter(long expireAfter) {
+        this.expireAfter = expireAfter;
+    }
+
+    public boolean isRenewalEnabled() {
+        return renewalEnabled;
+    }
+
+    public void setRenewalEnabled(boolean renewalEnabled) {
+        this.renewalEnabled = renewalEnabled;
+    }
+
+    public long getRenewalInterval() {
+        return renewalInterval;
+    }
+
+    public void setRenewalInterval(long renewalInterval) {
+        this.renewalInterval = renewalInterval;
+    }
+
+    public int getRenewalBatchSize() {
+        return renewalBatchSize;
+    }
+
+    public void setRenewalBatchSize(int renewalBatchSize) {
+        this.renewalBatchSize = renewalBatchSize;
+    }
+
+    public boolean isNotificationEnabled() {
+        return notificationEnabled;
+    }
+
+    public void setNotificationEnabled(boolean notificationEnabled) {
+        this.notificationEnabled = notificationEnabled;
+    }
+
+    public long getNotificationFallbackInterval() {
+        return notificationFallbackInterval;
+    }
+
+    public void setNotificationFallbackInterval(long notificationFallbackInterval) {
+        this.notificationFallbackInterval = notificationFallbackInterval;
+    }
+
+    public boolean isQuorumEnabled() {
+        return quorumEnabled;
+    }
+
+    public void setQuorumEnabled(boolean quorumEnabled) {
+        this.quorumEnabled = quorumEnabled;
+    }
+
+    public List<String> getQuorumNodes() {
+        return quorumNodes;
+    }
+
+    public void setQuorumNodes(List<String> quorumNodes) {
+        this.quorumNodes = quorumNodes;
+    }
+
+    public String getQuorumPassword() {
+        return quorumPassword;
+    }
+
+    public void setQuorumPassword(String quorumPassword) {
+        this.quorumPassword = quorumPassword;
+    }
+
+    public double getQuorumClockDriftFactor() {
+        return quorumClockDriftFactor;
+    }
+
+    public void setQuorumClockDriftFactor(double quorumClockDriftFactor) {
+        this.quorumClockDriftFactor = quorumClockDriftFactor;
+    }
+
+    public long getQuorumNodeTimeout() {
+        return quorumNodeTimeout;
+    }
+
+    public void setQuorumNodeTimeout(long quorumNodeTimeout) {
+        this.quorumNodeTimeout = quorumNodeTimeout;
+    }
+
+    public long getPartitionMemberTtl() {
+        return partitionMemberTtl;
+    }
+
+    public void setPartitionMemberTtl(long partitionMemberTtl) {
+        this.partitionMemberTtl = partitionMemberTtl;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", RedisLockProperties.class.getSimpleName() + "[", "]")
+                .add("expireAfter=" + expireAfter)
+                .add("renewalEnabled=" + renewalEnabled)
+                .add("renewalInterval=" + renewalInterval)
+                .add("renewalBatchSize=" + renewalBatchSize)
+                .add("notificationEnabled=" + notificationEnabled)
+                .add("notificationFallbackInterval=" + notificationFallbackInterval)
+                .add("quorumEnabled=" + quorumEnabled)
+                .add("quorumNodes=" + quorumNodes)
+                .add("quorumClockDriftFactor=" + quorumClockDriftFactor)
+                .add("quorumNodeTimeout=" + quorumNodeTimeout)
+                .add("partitionMemberTtl=" + partitionMemberTtl)
+                .toString();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.redis.configuration;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 多数派锁的独立Redis节点连接
+ * <p>
+ * 连接不注册为Bean,避免与应用自身的{@link org.springframework.data.redis.connection.RedisConnectionFactory}冲突,
+ * 随本Bean一同关闭
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class RedisQuorumNodes implements DisposableBean {
+
+    private final List<LettuceConnectionFactory> connectionFactories;
+
+    /**
+     * 多数派锁的独立Redis节点连接构造方法
+     *
+     * @param nodes    节点 host:port
+     * @param password 节点密码,可为空
+     */
+    public RedisQuorumNodes(List<String> nodes, String password) {
+        Assert.notEmpty(nodes, "'jarvis.redis-lock.quorum-nodes' must not be empty");
+        List<LettuceConnectionFactory> factories = new ArrayList<>(nodes.size());
+        for (String node : nodes) {
+            int separator = node.lastIndexOf(':');
+            Assert.isTrue(separator > 0, "Quorum node must be host:port, but was " + node);
+            RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(node.substring(0, separator).trim(),
+                    Integer.parseInt(node.substring(separator + 1).trim()));
+            if (StringUtils.hasText(password)) {
+                configuration.setPassword(RedisPassword.of(password));
+            }
+            LettuceConnectionFactory factory = new LettuceConnectionFactory(configuration);
+            factory.afterPropertiesSet();
+            factories.add(factory);
+        }
+        this.connectionFactories = Collections.unmodifiableList(factories);
+    }
+
+    public List<LettuceConnectionFactory> getConnectionFactories() {
+        return connectionFactories;
+    }
+
+    @Override
+    public void destroy() {
+        for (LettuceConnectionFactory factory : connectionFactories) {
+            factory.destroy();
+        }
+    }
+}
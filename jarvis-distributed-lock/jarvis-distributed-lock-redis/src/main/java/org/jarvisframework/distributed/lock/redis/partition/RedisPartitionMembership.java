@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.redis.partition;
+
+import org.jarvisframework.distributed.lock.api.partition.PartitionMembership;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis分区成员注册
+ * <p>
+ * 每个分区组对应一个有序集合,成员为节点标识,分值为租约到期时间(毫秒);
+ * 节点每次{@link #join(String, String)}续约,超过租约时间未续约的节点视为已离开。
+ * 到期时间按节点本地时钟计算,租约时间应远大于节点间的时钟偏差
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class RedisPartitionMembership implements PartitionMembership {
+
+    /**
+     * 默认成员租约时间(毫秒)
+     */
+    public static final long DEFAULT_MEMBER_TTL = 15000L;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String registryKey;
+
+    private final long memberTtl;
+
+    public RedisPartitionMembership(RedisConnectionFactory connectionFactory, String registryKey) {
+        this(connectionFactory, registryKey, DEFAULT_MEMBER_TTL);
+    }
+
+    /**
+     * Redis分区成员注册构造方法
+     *
+     * @param connectionFactory {@link RedisConnectionFactory}
+     * @param registryKey       Key值前缀
+     * @param memberTtl         成员租约时间(毫秒),需大于分区协调器的调度周期
+     */
+    public RedisPartitionMembership(RedisConnectionFactory connectionFactory, String registryKey, long memberTtl) {
+        Assert.notNull(connectionFactory, "'connectionFactory' cannot be null");
+        Assert.hasText(registryKey, "'registryKey' must not be empty");
+        Assert.isTrue(memberTtl > 0, "'memberTtl' must be positive");
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+        this.registryKey = registryKey;
+        this.memberTtl = memberTtl;
+    }
+
+    @Override
+    public void join(String group, String memberId) {
+        String key = groupKey(group);
+        redisTemplate.opsForZSet().add(key, memberId, System.currentTimeMillis() + memberTtl);
+        redisTemplate.expire(key, memberTtl, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void leave(String group, String memberId) {
+        redisTemplate.opsForZSet().remove(groupKey(group), memberId);
+    }
+
+    @Override
+    public List<String> members(String group) {
+        String key = groupKey(group);
+        long now = System.currentTimeMillis();
+        redisTemplate.opsForZSet().removeRangeByScore(key, Double.NEGATIVE_INFINITY, now);
+        Set<String> members = redisTemplate.opsForZSet().rangeByScore(key, now, Double.POSITIVE_INFINITY);
+        return members != null ? new ArrayList<>(members) : new ArrayList<>();
+    }
+
+    private String groupKey(String group) {
+        return registryKey + ":partition:" + group;
+    }
+
+    public long getMemberTtl() {
+        return memberTtl;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.redis.registry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁续期看门狗
+ * <p>
+ * 所有持有中的锁共用一个调度线程,每个周期按批次通过脚本统一续期,
+ * 方法退出释放锁后自然停止续期
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class LockRenewalWatchdog implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(LockRenewalWatchdog.class);
+
+    private final RedisDistributedLockRegistry registry;
+
+    private final long renewalInterval;
+
+    private final int batchSize;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 分布式锁续期看门狗构造方法
+     *
+     * @param registry        {@link RedisDistributedLockRegistry}
+     * @param renewalInterval 续期间隔(毫秒)
+     * @param batchSize       单次续期脚本携带的最大锁数量
+     */
+    public LockRenewalWatchdog(RedisDistributedLockRegistry registry, long renewalInterval, int batchSize) {
+        Assert.notNull(registry, "'registry' cannot be null");
+        Assert.isTrue(renewalInterval > 0 && renewalInterval < registry.getExpireAfter(),
+                "'renewalInterval' must be positive and less than the lock expiry");
+        Assert.isTrue(batchSize > 0, "'batchSize' must be positive");
+        this.registry = registry;
+        this.renewalInterval = renewalInterval;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "distributed-lock-renewal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::renew, renewalInterval, renewalInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 续期当前持有的全部锁,异常不中断后续调度
+     */
+    void renew() {
+        try {
+            int lost = registry.renewHeldLocks(batchSize);
+            if (lost > 0) {
+                logger.warn("{} distributed lock(s) expired before renewal.", lost);
+            }
+        } catch (RuntimeException e) {
+            logger.error("renew distributed locks failed.", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
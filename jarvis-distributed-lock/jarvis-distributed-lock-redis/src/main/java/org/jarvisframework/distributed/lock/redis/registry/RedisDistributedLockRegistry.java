@@ -0,0 +1,1388 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.redis.registry;
+
+import org.jarvisframework.distributed.lock.api.support.BoundedLockCache;
+import org.jarvisframework.distributed.lock.api.support.BoundedLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.DistributedSemaphore;
+import org.jarvisframework.distributed.lock.api.support.FencedLock;
+import org.jarvisframework.distributed.lock.api.support.LockWaitHint;
+import org.jarvisframework.distributed.lock.api.support.MultiLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.ReadWriteLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.SemaphoreRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Redis分布式锁实现
+ * <p>
+ * 同一Key值的锁、读锁持有者集合、写锁意向与防护令牌计数器通过Hash Tag({@code registryKey:{path}})落在Redis集群的同一槽位,
+ * 每个脚本只访问一个槽位。Key值始终整体包裹为Hash Tag,不同的Key值(如{@code x}与{@code {x}})不会映射到同一个锁Key值。
+ * <b>不兼容变更:</b>Key值布局与值类型(Hash)均与此前基于Spring {@code RedisLockRegistry}的实现
+ * (字符串Key值{@code registryKey:path})不同,新旧版本对同一业务Key值互不排斥,不支持滚动升级,
+ * 升级时需先停止全部旧版本节点再启动新版本。
+ * 加锁脚本在同一次调用中递增该Key值的防护令牌计数器,同一Key值每次成功获取锁都会得到严格递增的令牌({@link FencedLock});
+ * 释放锁时校验持有者,避免过期后误删其他客户端的锁;
+ * 持有中的锁可由{@link LockRenewalWatchdog}批量续期。
+ * 分布式信号量基于有序集合实现,每个许可以过期时间为分值,持有者异常退出后许可随租约过期自动回收。
+ * 释放锁时在Key值对应的频道上发布通知,开启{@link #enableUnlockNotifications}后等待者收到通知立即重试,
+ * 轮询仅作为兜底
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class RedisDistributedLockRegistry implements BoundedLockRegistry, MultiLockRegistry, ReadWriteLockRegistry,
+        SemaphoreRegistry {
+
+    /**
+     * 默认锁过期时间(毫秒)
+     */
+    public static final long DEFAULT_EXPIRE_AFTER = 60000L;
+
+    /**
+     * 默认重试获取锁的间隔(毫秒)
+     */
+    public static final long DEFAULT_RETRY_INTERVAL = 100L;
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisDistributedLockRegistry.class);
+
+    /**
+     * 防护令牌计数器Key值后缀,拼接在锁Key值之后,每个Key值一个计数器
+     */
+    private static final String FENCING_KEY_SUFFIX = ":fencing";
+
+    /**
+     * 读锁持有者集合Key值后缀,拼接在锁Key值之后
+     */
+    private static final String READERS_KEY_SUFFIX = ":readers";
+
+    /**
+     * 写锁意向Key值后缀,拼接在锁Key值之后,存在时拒绝新的读锁
+     */
+    private static final String WRITER_INTENT_KEY_SUFFIX = ":writer";
+
+    /**
+     * 写锁意向过期时间相对重试间隔的倍数,等待中的写锁每次尝试都会刷新
+     */
+    private static final int WRITER_INTENT_TTL_FACTOR = 3;
+
+    /**
+     * 信号量许可集合Key值后缀,拼接在{@code registryKey}之后
+     */
+    private static final String PERMITS_KEY_SUFFIX = "-permits:";
+
+    /**
+     * 释放锁通知频道后缀,拼接在{@code registryKey}之后,读写锁共用同一频道
+     */
+    private static final String UNLOCK_CHANNEL_SUFFIX = "-unlock:";
+
+    /**
+     * 信号量许可归还通知频道后缀
+     */
+    private static final String PERMITS_CHANNEL_SUFFIX = "-unlock-permits:";
+
+    /**
+     * 以Redis服务端时间计算当前毫秒数,读锁持有者按各自的过期时间淘汰
+     */
+    private static final String NOW_MILLIS =
+            "redis.replicate_commands()\n" +
+            "local time = redis.call('TIME')\n" +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)\n";
+
+    /**
+     * 加锁脚本(写锁)
+     * <p>
+     * KEYS[1] 锁Key值,KEYS[2] 该Key值的防护令牌计数器,KEYS[3] 读锁持有者集合,KEYS[4] 写锁意向,四者位于同一槽位;
+     * ARGV[1] 持有者标识,ARGV[2] 过期时间(毫秒),ARGV[3] 写锁意向过期时间(毫秒)。
+     * 成功返回防护令牌,锁被其他持有者占用或存在未过期的读锁时返回-1;
+     * 被读锁阻塞时登记写锁意向,阻止新的读锁加入,避免持续到达的读锁使写锁永远无法获取
+     */
+    private static final String OBTAIN_LOCK_SCRIPT =
+            "local owner = redis.call('HGET', KEYS[1], 'owner')\n" +
+            "if owner == ARGV[1] then\n" +
+            "  redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+            "  return tonumber(redis.call('HGET', KEYS[1], 'token'))\n" +
+            "elseif not owner then\n" +
+            NOW_MILLIS +
+            "  local intent = redis.call('GET', KEYS[4])\n" +
+            "  redis.call('ZREMRANGEBYSCORE', KEYS[3], '-inf', now)\n" +
+            "  if redis.call('ZCARD', KEYS[3]) > 0 then\n" +
+            "    if not intent or intent == ARGV[1] then\n" +
+            "      redis.call('SET', KEYS[4], ARGV[1], 'PX', ARGV[3])\n" +
+            "    end\n" +
+            "    return -1\n" +
+            "  end\n" +
+            "  if intent == ARGV[1] then\n" +
+            "    redis.call('DEL', KEYS[4])\n" +
+            "  end\n" +
+            "  local token = redis.call('INCR', KEYS[2])\n" +
+            "  redis.call('HSET', KEYS[1], 'owner', ARGV[1], 'token', token)\n" +
+            "  redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+            "  return token\n" +
+            "end\n" +
+            "return -1";
+
+    /**
+     * 释放锁脚本,仅持有者可删除,删除后在ARGV[2]频道发布通知
+     */
+    private static final String RELEASE_LOCK_SCRIPT =
+            "if redis.call('HGET', KEYS[1], 'owner') == ARGV[1] then\n" +
+            "  redis.call('DEL', KEYS[1])\n" +
+            "  redis.call('PUBLISH', ARGV[2], '')\n" +
+            "  return 1\n" +
+            "end\n" +
+            "return 0";
+
+    /**
+     * 读锁加锁脚本
+     * <p>
+     * KEYS、ARGV[1..2]同{@link #OBTAIN_LOCK_SCRIPT}。存在写锁或有写锁等待(写锁意向)时返回-1,
+     * 否则将持有者加入读锁集合(分值为其过期时间)并返回防护令牌
+     */
+    private static final String OBTAIN_READ_LOCK_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 1 or redis.call('EXISTS', KEYS[4]) == 1 then\n" +
+            "  return -1\n" +
+            "end\n" +
+            NOW_MILLIS +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[3], '-inf', now)\n" +
+            "redis.call('ZADD', KEYS[3], now + tonumber(ARGV[2]), ARGV[1])\n" +
+            "if redis.call('PTTL', KEYS[3]) < tonumber(ARGV[2]) then\n" +
+            "  redis.call('PEXPIRE', KEYS[3], ARGV[2])\n" +
+            "end\n" +
+            "return redis.call('INCR', KEYS[2])";
+
+    /**
+     * 撤销写锁意向脚本,写锁放弃等待时调用。KEYS 为写锁意向,ARGV[1] 持有者标识,ARGV[i + 1] 为KEYS[i]的通知频道,
+     * 仅撤销自己登记的意向,并通知因意向被拒绝的读锁重试
+     */
+    private static final String CANCEL_WRITER_INTENT_SCRIPT =
+            "local cancelled = 0\n" +
+            "for i, key in ipairs(KEYS) do\n" +
+            "  if redis.call('GET', key) == ARGV[1] then\n" +
+            "    redis.call('DEL', key)\n" +
+            "    redis.call('PUBLISH', ARGV[i + 1], '')\n" +
+            "    cancelled = cancelled + 1\n" +
+            "  end\n" +
+            "end\n" +
+            "return cancelled";
+
+    /**
+     * 核实写锁持有者脚本,KEYS 为锁Key值,ARGV[1] 持有者标识。全部Key值仍由该持有者持有时返回1,
+     * 锁已过期或被其他持有者接管时返回0
+     */
+    private static final String CHECK_OWNER_SCRIPT =
+            "for _, key in ipairs(KEYS) do\n" +
+            "  if redis.call('HGET', key, 'owner') ~= ARGV[1] then\n" +
+            "    return 0\n" +
+            "  end\n" +
+            "end\n" +
+            "return 1";
+
+    /**
+     * 核实读锁持有者脚本,KEYS[1] 读锁持有者集合,ARGV[1] 持有者标识。持有者未过期时返回1
+     */
+    private static final String CHECK_READER_SCRIPT =
+            NOW_MILLIS +
+            "local expireAt = redis.call('ZSCORE', KEYS[1], ARGV[1])\n" +
+            "if expireAt and tonumber(expireAt) > now then\n" +
+            "  return 1\n" +
+            "end\n" +
+            "return 0";
+
+    /**
+     * 读锁释放脚本,KEYS[1] 读锁持有者集合,ARGV[1] 持有者标识,ARGV[2] 通知频道。
+     * 最后一个读锁释放时才通知,此前等待的写锁无法获取
+     */
+    private static final String RELEASE_READ_LOCK_SCRIPT =
+            "local removed = redis.call('ZREM', KEYS[1], ARGV[1])\n" +
+            "if removed == 1 and redis.call('ZCARD', KEYS[1]) == 0 then\n" +
+            "  redis.call('PUBLISH', ARGV[2], '')\n" +
+            "end\n" +
+            "return removed";
+
+    /**
+     * 信号量许可归还脚本,KEYS[1] 许可集合,ARGV[1] 持有者标识,ARGV[2] 通知频道
+     */
+    private static final String RELEASE_PERMIT_SCRIPT =
+            "local removed = redis.call('ZREM', KEYS[1], ARGV[1])\n" +
+            "if removed == 1 then\n" +
+            "  redis.call('PUBLISH', ARGV[2], '')\n" +
+            "end\n" +
+            "return removed";
+
+    /**
+     * 获取信号量许可脚本
+     * <p>
+     * KEYS[1] 许可集合;ARGV[1] 持有者标识,ARGV[2] 过期时间(毫秒),ARGV[3] 许可数。
+     * 先淘汰已过期的许可,未发放的许可不足时返回0,否则登记持有者并返回1
+     */
+    private static final String OBTAIN_PERMIT_SCRIPT =
+            NOW_MILLIS +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now)\n" +
+            "if redis.call('ZCARD', KEYS[1]) >= tonumber(ARGV[3]) then\n" +
+            "  return 0\n" +
+            "end\n" +
+            "redis.call('ZADD', KEYS[1], now + tonumber(ARGV[2]), ARGV[1])\n" +
+            "if redis.call('PTTL', KEYS[1]) < tonumber(ARGV[2]) then\n" +
+            "  redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+            "end\n" +
+            "return 1";
+
+    /**
+     * 多Key值加锁脚本
+     * <p>
+     * KEYS[1..n] 按顺序排列的锁Key值,KEYS[n+1..2n] 对应的读锁持有者集合,KEYS[2n+1..3n] 对应的防护令牌计数器,
+     * KEYS[3n+1..4n] 对应的写锁意向;ARGV同{@link #OBTAIN_LOCK_SCRIPT}。任一Key值被其他持有者占用或存在读锁时不加锁并返回-1,
+     * 被读锁阻塞的Key值登记写锁意向;否则全部加锁并共享同一个防护令牌:取各计数器递增后的最大值,
+     * 并写回每个计数器,保证每个Key值的令牌仍严格递增
+     */
+    private static final String OBTAIN_LOCKS_SCRIPT =
+            "local n = #KEYS / 4\n" +
+            NOW_MILLIS +
+            "for i = 1, n do\n" +
+            "  local owner = redis.call('HGET', KEYS[i], 'owner')\n" +
+            "  if owner and owner ~= ARGV[1] then\n" +
+            "    return -1\n" +
+            "  end\n" +
+            "end\n" +
+            "local blocked = false\n" +
+            "for i = 1, n do\n" +
+            "  redis.call('ZREMRANGEBYSCORE', KEYS[n + i], '-inf', now)\n" +
+            "  if redis.call('ZCARD', KEYS[n + i]) > 0 then\n" +
+            "    local intent = redis.call('GET', KEYS[3 * n + i])\n" +
+            "    if not intent or intent == ARGV[1] then\n" +
+            "      redis.call('SET', KEYS[3 * n + i], ARGV[1], 'PX', ARGV[3])\n" +
+            "    end\n" +
+            "    blocked = true\n" +
+            "  end\n" +
+            "end\n" +
+            "if blocked then\n" +
+            "  return -1\n" +
+            "end\n" +
+            "for i = 1, n do\n" +
+            "  if redis.call('GET', KEYS[3 * n + i]) == ARGV[1] then\n" +
+            "    redis.call('DEL', KEYS[3 * n + i])\n" +
+            "  end\n" +
+            "end\n" +
+            "local token = 0\n" +
+            "for i = 1, n do\n" +
+            "  token = math.max(token, redis.call('INCR', KEYS[2 * n + i]))\n" +
+            "end\n" +
+            "for i = 1, n do\n" +
+            "  redis.call('SET', KEYS[2 * n + i], token)\n" +
+            "  redis.call('HSET', KEYS[i], 'owner', ARGV[1], 'token', token)\n" +
+            "  redis.call('PEXPIRE', KEYS[i], ARGV[2])\n" +
+            "end\n" +
+            "return token";
+
+    /**
+     * 多Key值释放锁脚本,ARGV[i + 1] 为KEYS[i]的通知频道,返回实际释放的Key值数量
+     */
+    private static final String RELEASE_LOCKS_SCRIPT =
+            "local released = 0\n" +
+            "for i, key in ipairs(KEYS) do\n" +
+            "  if redis.call('HGET', key, 'owner') == ARGV[1] then\n" +
+            "    redis.call('DEL', key)\n" +
+            "    redis.call('PUBLISH', ARGV[i + 1], '')\n" +
+            "    released = released + 1\n" +
+            "  end\n" +
+            "end\n" +
+            "return released";
+
+    /**
+     * 批量续期脚本
+     * <p>
+     * KEYS 为待续期的写锁Key值或读锁持有者集合;ARGV[1] 过期时间(毫秒),ARGV[i + 1] 为KEYS[i]的持有者标识。
+     * 按KEYS顺序返回续期结果,1表示续期成功,0表示锁已不属于当前持有者
+     */
+    private static final String RENEW_LOCKS_SCRIPT =
+            NOW_MILLIS +
+            "local renewed = {}\n" +
+            "for i, key in ipairs(KEYS) do\n" +
+            "  local holder = ARGV[i + 1]\n" +
+            "  renewed[i] = 0\n" +
+            "  if redis.call('TYPE', key).ok == 'zset' then\n" +
+            "    if redis.call('ZSCORE', key, holder) then\n" +
+            "      redis.call('ZADD', key, now + tonumber(ARGV[1]), holder)\n" +
+            "      if redis.call('PTTL', key) < tonumber(ARGV[1]) then\n" +
+            "        redis.call('PEXPIRE', key, ARGV[1])\n" +
+            "      end\n" +
+            "      renewed[i] = 1\n" +
+            "    end\n" +
+            "  elseif redis.call('HGET', key, 'owner') == holder then\n" +
+            "    redis.call('PEXPIRE', key, ARGV[1])\n" +
+            "    renewed[i] = 1\n" +
+            "  end\n" +
+            "end\n" +
+            "return renewed";
+
+    private final BoundedLockCache<RedisLock> locks = new BoundedLockCache<>(RedisLock::new,
+            lock -> lock.lastUsed, RedisLock::isIdle);
+
+    private final BoundedLockCache<RedisReadLock> readLocks = new BoundedLockCache<>(RedisReadLock::new,
+            lock -> lock.lastUsed, RedisReadLock::isIdle);
+
+    private final AtomicLong lockSequence = new AtomicLong();
+
+    /**
+     * 当前在Redis中持有的锁,供续期使用
+     */
+    private final Set<HeldKey> heldLocks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 客户端标识,与锁实例序号共同组成持有者标识
+     */
+    private final String clientId = UUID.randomUUID().toString();
+
+    private final String registryKey;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisScript<Long> obtainLockScript;
+
+    private final RedisScript<Long> releaseLockScript;
+
+    private final RedisScript<Long> obtainReadLockScript;
+
+    private final RedisScript<Long> releaseReadLockScript;
+
+    private final RedisScript<Long> obtainPermitScript;
+
+    private final RedisScript<Long> releasePermitScript;
+
+    private final RedisScript<Long> obtainLocksScript;
+
+    private final RedisScript<Long> releaseLocksScript;
+
+    private final RedisScript<Long> cancelWriterIntentScript;
+
+    private final RedisScript<Long> checkOwnerScript;
+
+    private final RedisScript<Long> checkReaderScript;
+
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> renewLocksScript;
+
+    private final long expireAfter;
+
+    private long retryInterval = DEFAULT_RETRY_INTERVAL;
+
+    /**
+     * 释放锁通知,未开启时为空
+     */
+    private volatile UnlockNotifier unlockNotifier;
+
+    private volatile long fallbackInterval = DEFAULT_RETRY_INTERVAL;
+
+    /**
+     * 是否连接Redis集群,未检测时为空
+     */
+    private volatile Boolean cluster;
+
+    /**
+     * Redis分布式锁实现构造方法
+     *
+     * @param connectionFactory {@link RedisConnectionFactory}
+     * @param registryKey       锁Key值前缀
+     */
+    public RedisDistributedLockRegistry(RedisConnectionFactory connectionFactory, String registryKey) {
+        this(connectionFactory, registryKey, DEFAULT_EXPIRE_AFTER);
+    }
+
+    /**
+     * Redis分布式锁实现构造方法
+     *
+     * @param connectionFactory {@link RedisConnectionFactory}
+     * @param registryKey       锁Key值前缀
+     * @param expireAfter       锁过期时间(毫秒)
+     */
+    public RedisDistributedLockRegistry(RedisConnectionFactory connectionFactory, String registryKey, long expireAfter) {
+        Assert.notNull(connectionFactory, "'connectionFactory' cannot be null");
+        Assert.hasText(registryKey, "'registryKey' must not be empty");
+        this.connectionFactory = connectionFactory;
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+        this.registryKey = registryKey;
+        this.expireAfter = expireAfter;
+        this.obtainLockScript = new DefaultRedisScript<>(OBTAIN_LOCK_SCRIPT, Long.class);
+        this.releaseLockScript = new DefaultRedisScript<>(RELEASE_LOCK_SCRIPT, Long.class);
+        this.obtainReadLockScript = new DefaultRedisScript<>(OBTAIN_READ_LOCK_SCRIPT, Long.class);
+        this.releaseReadLockScript = new DefaultRedisScript<>(RELEASE_READ_LOCK_SCRIPT, Long.class);
+        this.obtainPermitScript = new DefaultRedisScript<>(OBTAIN_PERMIT_SCRIPT, Long.class);
+        this.releasePermitScript = new DefaultRedisScript<>(RELEASE_PERMIT_SCRIPT, Long.class);
+        this.obtainLocksScript = new DefaultRedisScript<>(OBTAIN_LOCKS_SCRIPT, Long.class);
+        this.releaseLocksScript = new DefaultRedisScript<>(RELEASE_LOCKS_SCRIPT, Long.class);
+        this.cancelWriterIntentScript = new DefaultRedisScript<>(CANCEL_WRITER_INTENT_SCRIPT, Long.class);
+        this.checkOwnerScript = new DefaultRedisScript<>(CHECK_OWNER_SCRIPT, Long.class);
+        this.checkReaderScript = new DefaultRedisScript<>(CHECK_READER_SCRIPT, Long.class);
+        this.renewLocksScript = new DefaultRedisScript<>(RENEW_LOCKS_SCRIPT, List.class);
+    }
+
+    /**
+     * 设置重试获取锁的间隔
+     * <p>
+     * 未开启解锁通知时按该间隔轮询,存在{@link LockWaitHint}时改为按预期持有时间选择间隔
+     *
+     * @param retryInterval 重试间隔(毫秒)
+     */
+    public void setRetryInterval(long retryInterval) {
+        Assert.isTrue(retryInterval > 0, "'retryInterval' must be positive");
+        this.retryInterval = retryInterval;
+    }
+
+    /**
+     * 开启释放锁通知,通过共享的监听容器以一个模式订阅本注册表的全部通知频道
+     *
+     * @param container        {@link RedisMessageListenerContainer}
+     * @param fallbackInterval 未收到通知时的兜底重试间隔(毫秒)
+     */
+    public void enableUnlockNotifications(RedisMessageListenerContainer container, long fallbackInterval) {
+        Assert.notNull(container, "'container' cannot be null");
+        Assert.isTrue(fallbackInterval > 0, "'fallbackInterval' must be positive");
+        UnlockNotifier notifier = new UnlockNotifier();
+        container.addMessageListener(notifier, new PatternTopic(registryKey + "-unlock*"));
+        this.fallbackInterval = fallbackInterval;
+        this.unlockNotifier = notifier;
+    }
+
+    @Override
+    public FencedLock obtain(Object lockKey) {
+        Assert.isInstanceOf(String.class, lockKey);
+        return locks.get((String) lockKey);
+    }
+
+    /**
+     * 获取共享读锁,同一Key值的读锁可被多个客户端同时持有,与写锁互斥;有写锁等待时拒绝新的读锁,避免写锁饥饿
+     *
+     * @param lockKey 分布式锁Key值
+     * @return {@link FencedLock}
+     */
+    @Override
+    public FencedLock obtainRead(Object lockKey) {
+        Assert.isInstanceOf(String.class, lockKey);
+        return readLocks.get((String) lockKey);
+    }
+
+    /**
+     * 获取同时锁定多个Key值的锁,一次脚本调用完成全部加锁
+     * <p>
+     * 脚本只能访问同一槽位的Key值,Redis集群模式下全部Key值需以相同的Hash Tag开头(如{@code {order:1}:item:1}、
+     * {@code {order:1}:item:2}),否则直接拒绝
+     *
+     * @param lockKeys 按自然顺序排序且去重的Key值
+     * @return {@link FencedLock}
+     */
+    @Override
+    public FencedLock obtainAll(List<String> lockKeys) {
+        Assert.notEmpty(lockKeys, "'lockKeys' must not be empty");
+        if (lockKeys.size() > 1 && isCluster()) {
+            int slot = ClusterSlotHashUtil.calculateSlot(lockKeyOf(lockKeys.get(0)));
+            for (String lockKey : lockKeys) {
+                if (ClusterSlotHashUtil.calculateSlot(lockKeyOf(lockKey)) != slot) {
+                    throw new IllegalArgumentException("Multi-key locks on Redis Cluster require all keys to start with the same hash tag, "
+                            + "e.g. '{order:1}:item:1' and '{order:1}:item:2', but got " + lockKeys);
+                }
+            }
+        }
+        return new RedisMultiLock(lockKeys);
+    }
+
+    /**
+     * 是否连接Redis集群,首次调用时检测
+     *
+     * @return 是否为集群连接
+     */
+    boolean isCluster() {
+        Boolean result = cluster;
+        if (result == null) {
+            RedisConnection connection = connectionFactory.getConnection();
+            try {
+                result = connection instanceof RedisClusterConnection;
+            } finally {
+                connection.close();
+            }
+            cluster = result;
+        }
+        return result;
+    }
+
+    /**
+     * 获取分布式信号量,许可由{@link LockRenewalWatchdog}与锁一同续期
+     *
+     * @param key     信号量Key值
+     * @param permits 集群内允许的最大并发数
+     * @return {@link DistributedSemaphore}
+     */
+    @Override
+    public DistributedSemaphore obtainSemaphore(String key, int permits) {
+        Assert.hasText(key, "'key' must not be empty");
+        Assert.isTrue(permits > 0, "'permits' must be positive");
+        return new RedisSemaphore(registryKey + PERMITS_KEY_SUFFIX + key, registryKey + PERMITS_CHANNEL_SUFFIX + key, permits);
+    }
+
+    @Override
+    public void expireUnusedOlderThan(long age) {
+        locks.expireOlderThan(age);
+        readLocks.expireOlderThan(age);
+    }
+
+    @Override
+    public void setCapacity(int capacity) {
+        locks.setCapacity(capacity);
+        readLocks.setCapacity(capacity);
+    }
+
+    @Override
+    public int size() {
+        return locks.size() + readLocks.size();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return locks.getEvictionCount() + readLocks.getEvictionCount();
+    }
+
+    /**
+     * 锁Key值,始终以{@code registryKey:{path}}包裹,不同的Key值不会冲突。
+     * Redis取第一个'{'与其后第一个'}'之间的内容计算槽位,以相同Hash Tag开头的Key值(如{@code {order:1}:item:1})
+     * 因此仍落在同一槽位
+     *
+     * @param path 分布式锁Key值
+     * @return 锁Key值
+     */
+    String lockKeyOf(String path) {
+        return registryKey + ":{" + path + "}";
+    }
+
+    String readersKeyOf(String path) {
+        return lockKeyOf(path) + READERS_KEY_SUFFIX;
+    }
+
+    String fencingKeyOf(String path) {
+        return lockKeyOf(path) + FENCING_KEY_SUFFIX;
+    }
+
+    String writerIntentKeyOf(String path) {
+        return lockKeyOf(path) + WRITER_INTENT_KEY_SUFFIX;
+    }
+
+    /**
+     * 写锁意向过期时间,覆盖等待中的写锁两次尝试之间的间隔,不超过锁过期时间
+     */
+    private String writerIntentTtl() {
+        long interval = Math.max(retryInterval, unlockNotifier != null ? fallbackInterval : retryInterval);
+        return String.valueOf(Math.min(expireAfter, interval * WRITER_INTENT_TTL_FACTOR));
+    }
+
+    /**
+     * 锁Key值是否全部仍由持有者持有
+     */
+    private boolean ownedInRedis(List<String> lockKeys, String owner) {
+        Long owned = redisTemplate.execute(checkOwnerScript, lockKeys, owner);
+        return owned != null && owned == 1L;
+    }
+
+    /**
+     * 写锁放弃等待时撤销自己登记的写锁意向,失败不影响调用方,意向随过期时间自动清除
+     */
+    private void cancelWriterIntent(List<String> intentKeys, String owner, List<String> channels) {
+        Object[] args = new Object[channels.size() + 1];
+        args[0] = owner;
+        for (int i = 0; i < channels.size(); i++) {
+            args[i + 1] = channels.get(i);
+        }
+        try {
+            redisTemplate.execute(cancelWriterIntentScript, intentKeys, args);
+        } catch (RuntimeException e) {
+            logger.debug("cancel writer intent {} failed.", intentKeys, e);
+        }
+    }
+
+    private String unlockChannelOf(String path) {
+        return registryKey + UNLOCK_CHANNEL_SUFFIX + path;
+    }
+
+    /**
+     * 在等待时间内反复尝试,两次尝试之间等待释放锁通知,未开启通知时按重试间隔轮询
+     * <p>
+     * 首次尝试失败后才登记等待者,并在登记后再尝试一次,不会错过两次尝试之间发布的通知
+     *
+     * @param attempt  一次尝试
+     * @param channels 等待的通知频道
+     * @param nanos    等待时间(纳秒),{@link Long#MAX_VALUE}表示不限时
+     * @return 是否成功
+     * @throws InterruptedException 等待期间线程被中断
+     */
+    private boolean retry(BooleanSupplier attempt, List<String> channels, long nanos) throws InterruptedException {
+        if (attempt.getAsBoolean()) {
+            return true;
+        }
+        if (nanos <= 0) {
+            return false;
+        }
+        boolean timed = nanos != Long.MAX_VALUE;
+        long deadline = System.nanoTime() + nanos;
+        UnlockNotifier notifier = unlockNotifier;
+        UnlockNotifier.Waiter waiter = notifier != null ? notifier.register(channels) : null;
+        try {
+            while (!attempt.getAsBoolean()) {
+                long remaining = timed ? deadline - System.nanoTime() : Long.MAX_VALUE;
+                if (remaining <= 0) {
+                    return false;
+                }
+                if (waiter != null) {
+                    waiter.await(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(fallbackInterval)));
+                } else {
+                    long interval = LockWaitHint.retryIntervalNanos(TimeUnit.MILLISECONDS.toNanos(retryInterval));
+                    TimeUnit.NANOSECONDS.sleep(Math.min(remaining, interval));
+                }
+            }
+            return true;
+        } finally {
+            if (waiter != null) {
+                waiter.close();
+            }
+        }
+    }
+
+    /**
+     * 按批次续期当前持有的全部锁,每批一次Redis往返
+     * <p>
+     * Redis集群模式下一次脚本调用只能访问同一槽位的Key值,先按槽位分组再分批
+     *
+     * @param batchSize 单次续期脚本携带的最大锁数量
+     * @return 续期时已丢失的锁数量
+     */
+    public int renewHeldLocks(int batchSize) {
+        if (heldLocks.isEmpty()) {
+            return 0;
+        }
+        if (!isCluster()) {
+            return renewInBatches(heldLocks, batchSize);
+        }
+        Map<Integer, List<HeldKey>> slots = new HashMap<>();
+        for (HeldKey lock : heldLocks) {
+            slots.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(lock.lockKey), slot -> new ArrayList<>()).add(lock);
+        }
+        int lost = 0;
+        for (List<HeldKey> locks : slots.values()) {
+            lost += renewInBatches(locks, batchSize);
+        }
+        return lost;
+    }
+
+    private int renewInBatches(Collection<HeldKey> locks, int batchSize) {
+        List<HeldKey> batch = new ArrayList<>(Math.min(batchSize, locks.size()));
+        int lost = 0;
+        for (HeldKey lock : locks) {
+            batch.add(lock);
+            if (batch.size() == batchSize) {
+                lost += renew(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            lost += renew(batch);
+        }
+        return lost;
+    }
+
+    private int renew(List<HeldKey> batch) {
+        List<String> keys = new ArrayList<>(batch.size());
+        Object[] args = new Object[batch.size() + 1];
+        args[0] = String.valueOf(expireAfter);
+        for (int i = 0; i < batch.size(); i++) {
+            keys.add(batch.get(i).lockKey);
+            args[i + 1] = batch.get(i).owner;
+        }
+        List<?> renewed = redisTemplate.execute(renewLocksScript, keys, args);
+        int lost = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Object result = renewed == null || renewed.size() <= i ? null : renewed.get(i);
+            // 续期期间已释放的锁不再视为丢失
+            boolean expired = !(result instanceof Number) || ((Number) result).longValue() == 0L;
+            if (expired && heldLocks.remove(batch.get(i))) {
+                lost++;
+            }
+        }
+        return lost;
+    }
+
+    public String getRegistryKey() {
+        return registryKey;
+    }
+
+    public long getExpireAfter() {
+        return expireAfter;
+    }
+
+    /**
+     * Redis分布式锁
+     */
+    private final class RedisLock implements FencedLock {
+
+        private final String lockKey;
+
+        private final List<String> scriptKeys;
+
+        private final List<String> channels;
+
+        private final List<String> intentKeys;
+
+        /**
+         * 持有者标识,每个锁实例唯一,被淘汰的锁实例与新建实例在Redis中互斥
+         */
+        private final String owner = clientId + ":" + lockSequence.incrementAndGet();
+
+        /**
+         * 本地锁,保证同一客户端内的互斥与可重入
+         */
+        private final ReentrantLock localLock = new ReentrantLock();
+
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private volatile long fencingToken = NO_TOKEN;
+
+        private HeldKey held;
+
+        RedisLock(String path) {
+            this.lockKey = lockKeyOf(path);
+            this.intentKeys = Collections.singletonList(writerIntentKeyOf(path));
+            this.scriptKeys = Arrays.asList(lockKey, fencingKeyOf(path), readersKeyOf(path), intentKeys.get(0));
+            this.channels = Collections.singletonList(unlockChannelOf(path));
+        }
+
+        @Override
+        public void lock() {
+            localLock.lock();
+            if (localLock.getHoldCount() > 1) {
+                return;
+            }
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        retry(this::obtainLock, channels, Long.MAX_VALUE);
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } catch (RuntimeException e) {
+                cancelWriterIntent(intentKeys, owner, channels);
+                localLock.unlock();
+                throw lockFailure(e);
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            localLock.lockInterruptibly();
+            if (localLock.getHoldCount() > 1) {
+                return;
+            }
+            try {
+                retry(this::obtainLock, channels, Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                cancelWriterIntent(intentKeys, owner, channels);
+                localLock.unlock();
+                throw e;
+            } catch (RuntimeException e) {
+                cancelWriterIntent(intentKeys, owner, channels);
+                localLock.unlock();
+                throw lockFailure(e);
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            try {
+                return tryLock(0, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(time);
+            if (!localLock.tryLock(time, unit)) {
+                return false;
+            }
+            if (localLock.getHoldCount() > 1) {
+                return true;
+            }
+            boolean acquired = false;
+            try {
+                acquired = retry(this::obtainLock, channels, Math.max(0L, deadline - System.nanoTime()));
+                return acquired;
+            } catch (RuntimeException e) {
+                throw lockFailure(e);
+            } finally {
+                if (!acquired) {
+                    cancelWriterIntent(intentKeys, owner, channels);
+                    localLock.unlock();
+                }
+            }
+        }
+
+        private boolean obtainLock() {
+            Long token = redisTemplate.execute(obtainLockScript, scriptKeys, owner, String.valueOf(expireAfter),
+                    writerIntentTtl());
+            if (token == null || token < 0) {
+                return false;
+            }
+            fencingToken = token;
+            lastUsed = System.currentTimeMillis();
+            held = new HeldKey(lockKey, owner);
+            heldLocks.add(held);
+            return true;
+        }
+
+        private CannotAcquireLockException lockFailure(RuntimeException e) {
+            return new CannotAcquireLockException("Failed to lock mutex at " + lockKey, e);
+        }
+
+        @Override
+        public void unlock() {
+            if (!localLock.isHeldByCurrentThread()) {
+                throw new IllegalStateException("You do not own lock at " + lockKey);
+            }
+            if (localLock.getHoldCount() > 1) {
+                localLock.unlock();
+                return;
+            }
+            heldLocks.remove(held);
+            held = null;
+            try {
+                Long released = redisTemplate.execute(releaseLockScript, scriptKeys, owner, channels.get(0));
+                if (released == null || released == 0L) {
+                    throw new IllegalStateException("Lock was released in the store due to expiration. " +
+                            "The integrity of data protected by this lock may have been compromised.");
+                }
+            } finally {
+                fencingToken = NO_TOKEN;
+                lastUsed = System.currentTimeMillis();
+                localLock.unlock();
+            }
+        }
+
+        private boolean isIdle() {
+            return !localLock.isLocked() && !localLock.hasQueuedThreads();
+        }
+
+        @Override
+        public long getFencingToken() {
+            return localLock.isHeldByCurrentThread() ? fencingToken : NO_TOKEN;
+        }
+
+        /**
+         * 向Redis核实锁仍由本实例持有,本地令牌在锁过期或被接管后不会清除
+         *
+         * @return 是否仍持有锁
+         */
+        @Override
+        public boolean isHeld() {
+            return getFencingToken() != NO_TOKEN && ownedInRedis(Collections.singletonList(lockKey), owner);
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+
+        @Override
+        public String toString() {
+            return "RedisLock [lockKey=" + lockKey + ", fencingToken=" + fencingToken + "]";
+        }
+    }
+
+    /**
+     * 持有中的锁Key值,每次获取锁对应一个实例
+     */
+    private static final class HeldKey {
+
+        private final String lockKey;
+
+        private final String owner;
+
+        HeldKey(String lockKey, String owner) {
+            this.lockKey = lockKey;
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * Redis共享读锁
+     * <p>
+     * 每个线程使用独立的持有者标识加入读锁集合,同一线程可重入;不使用本地锁,读方法在节点内同样并行
+     */
+    private final class RedisReadLock implements FencedLock {
+
+        private final String readersKey;
+
+        private final List<String> scriptKeys;
+
+        private final String channel;
+
+        private final String owner = clientId + ":" + lockSequence.incrementAndGet();
+
+        private final Map<Thread, ReadHold> holds = new ConcurrentHashMap<>(8);
+
+        private final AtomicInteger acquiring = new AtomicInteger();
+
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        RedisReadLock(String path) {
+            this.readersKey = readersKeyOf(path);
+            this.scriptKeys = Arrays.asList(lockKeyOf(path), fencingKeyOf(path), readersKey, writerIntentKeyOf(path));
+            this.channel = unlockChannelOf(path);
+        }
+
+        @Override
+        public void lock() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    if (tryLock(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            tryLock(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public boolean tryLock() {
+            try {
+                return tryLock(0, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            Thread thread = Thread.currentThread();
+            ReadHold hold = holds.get(thread);
+            if (hold != null) {
+                hold.count++;
+                return true;
+            }
+            String holder = owner + ":" + thread.getId();
+            String expire = String.valueOf(expireAfter);
+            long[] token = {NO_TOKEN};
+            acquiring.incrementAndGet();
+            try {
+                if (!retry(() -> obtainReadLock(holder, expire, token), Collections.singletonList(channel), unit.toNanos(time))) {
+                    return false;
+                }
+                HeldKey held = new HeldKey(readersKey, holder);
+                heldLocks.add(held);
+                holds.put(thread, new ReadHold(held, token[0]));
+                return true;
+            } catch (RuntimeException e) {
+                throw new CannotAcquireLockException("Failed to acquire read lock at " + readersKey, e);
+            } finally {
+                lastUsed = System.currentTimeMillis();
+                acquiring.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void unlock() {
+            Thread thread = Thread.currentThread();
+            ReadHold hold = holds.get(thread);
+            if (hold == null) {
+                throw new IllegalStateException("You do not own read lock at " + readersKey);
+            }
+            if (--hold.count > 0) {
+                return;
+            }
+            holds.remove(thread);
+            heldLocks.remove(hold.held);
+            lastUsed = System.currentTimeMillis();
+            Long released = redisTemplate.execute(releaseReadLockScript,
+                    Collections.singletonList(readersKey), hold.held.owner, channel);
+            if (released == null || released == 0L) {
+                throw new IllegalStateException("Lock was released in the store due to expiration. " +
+                        "The integrity of data protected by this lock may have been compromised.");
+            }
+        }
+
+        private boolean obtainReadLock(String holder, String expire, long[] token) {
+            Long result = redisTemplate.execute(obtainReadLockScript, scriptKeys, holder, expire);
+            if (result == null || result < 0) {
+                return false;
+            }
+            token[0] = result;
+            return true;
+        }
+
+        private boolean isIdle() {
+            return acquiring.get() == 0 && holds.isEmpty();
+        }
+
+        @Override
+        public long getFencingToken() {
+            ReadHold hold = holds.get(Thread.currentThread());
+            return hold != null ? hold.fencingToken : NO_TOKEN;
+        }
+
+        /**
+         * 向Redis核实当前线程的读锁持有者未过期
+         *
+         * @return 是否仍持有读锁
+         */
+        @Override
+        public boolean isHeld() {
+            ReadHold hold = holds.get(Thread.currentThread());
+            if (hold == null) {
+                return false;
+            }
+            Long held = redisTemplate.execute(checkReaderScript, Collections.singletonList(readersKey), hold.held.owner);
+            return held != null && held == 1L;
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+
+        @Override
+        public String toString() {
+            return "RedisReadLock [readersKey=" + readersKey + ", holders=" + holds.size() + "]";
+        }
+    }
+
+    /**
+     * 单个线程持有的读锁
+     */
+    private static final class ReadHold {
+
+        private final HeldKey held;
+
+        private final long fencingToken;
+
+        private int count = 1;
+
+        ReadHold(HeldKey held, long fencingToken) {
+            this.held = held;
+            this.fencingToken = fencingToken;
+        }
+    }
+
+    /**
+     * 同时锁定多个Key值的Redis分布式锁
+     */
+    private final class RedisMultiLock implements FencedLock {
+
+        private final List<String> lockKeys;
+
+        private final List<String> scriptKeys;
+
+        private final List<String> channels;
+
+        private final List<String> intentKeys;
+
+        private final String owner = clientId + ":" + lockSequence.incrementAndGet();
+
+        private final ReentrantLock localLock = new ReentrantLock();
+
+        private volatile long fencingToken = NO_TOKEN;
+
+        private List<HeldKey> held = Collections.emptyList();
+
+        RedisMultiLock(List<String> keys) {
+            this.lockKeys = new ArrayList<>(keys.size());
+            this.scriptKeys = new ArrayList<>(keys.size() * 4);
+            this.channels = new ArrayList<>(keys.size());
+            this.intentKeys = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                this.lockKeys.add(lockKeyOf(key));
+                this.channels.add(unlockChannelOf(key));
+                this.intentKeys.add(writerIntentKeyOf(key));
+            }
+            this.scriptKeys.addAll(lockKeys);
+            for (String key : keys) {
+                this.scriptKeys.add(readersKeyOf(key));
+            }
+            for (String key : keys) {
+                this.scriptKeys.add(fencingKeyOf(key));
+            }
+            this.scriptKeys.addAll(intentKeys);
+        }
+
+        @Override
+        public void lock() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    if (tryLock(retryInterval, TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            while (!tryLock(retryInterval, TimeUnit.MILLISECONDS)) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            try {
+                return tryLock(0, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(time);
+            if (!localLock.tryLock(time, unit)) {
+                return false;
+            }
+            if (localLock.getHoldCount() > 1) {
+                return true;
+            }
+            boolean acquired = false;
+            try {
+                acquired = retry(this::obtainLocks, channels, Math.max(0L, deadline - System.nanoTime()));
+                return acquired;
+            } catch (RuntimeException e) {
+                throw new CannotAcquireLockException("Failed to lock mutex at " + lockKeys, e);
+            } finally {
+                if (!acquired) {
+                    cancelWriterIntent(intentKeys, owner, channels);
+                    localLock.unlock();
+                }
+            }
+        }
+
+        private boolean obtainLocks() {
+            Long token = redisTemplate.execute(obtainLocksScript, scriptKeys, owner, String.valueOf(expireAfter),
+                    writerIntentTtl());
+            if (token == null || token < 0) {
+                return false;
+            }
+            fencingToken = token;
+            held = new ArrayList<>(lockKeys.size());
+            for (String lockKey : lockKeys) {
+                HeldKey heldKey = new HeldKey(lockKey, owner);
+                held.add(heldKey);
+                heldLocks.add(heldKey);
+            }
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+            if (!localLock.isHeldByCurrentThread()) {
+                throw new IllegalStateException("You do not own lock at " + lockKeys);
+            }
+            if (localLock.getHoldCount() > 1) {
+                localLock.unlock();
+                return;
+            }
+            heldLocks.removeAll(held);
+            held = Collections.emptyList();
+            try {
+                Object[] args = new Object[channels.size() + 1];
+                args[0] = owner;
+                for (int i = 0; i < channels.size(); i++) {
+                    args[i + 1] = channels.get(i);
+                }
+                Long released = redisTemplate.execute(releaseLocksScript, lockKeys, args);
+                if (released == null || released < lockKeys.size()) {
+                    throw new IllegalStateException("Lock was released in the store due to expiration. " +
+                            "The integrity of data protected by this lock may have been compromised.");
+                }
+            } finally {
+                fencingToken = NO_TOKEN;
+                localLock.unlock();
+            }
+        }
+
+        @Override
+        public long getFencingToken() {
+            return localLock.isHeldByCurrentThread() ? fencingToken : NO_TOKEN;
+        }
+
+        /**
+         * 向Redis核实全部Key值仍由本实例持有
+         *
+         * @return 是否仍持有锁
+         */
+        @Override
+        public boolean isHeld() {
+            return getFencingToken() != NO_TOKEN && ownedInRedis(lockKeys, owner);
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+
+        @Override
+        public String toString() {
+            return "RedisMultiLock [lockKeys=" + lockKeys + ", fencingToken=" + fencingToken + "]";
+        }
+    }
+
+    /**
+     * Redis分布式信号量
+     */
+    private final class RedisSemaphore implements DistributedSemaphore {
+
+        private final String permitsKey;
+
+        private final List<String> scriptKeys;
+
+        private final String channel;
+
+        private final int permits;
+
+        RedisSemaphore(String permitsKey, String channel, int permits) {
+            this.permitsKey = permitsKey;
+            this.scriptKeys = Collections.singletonList(permitsKey);
+            this.channel = channel;
+            this.permits = permits;
+        }
+
+        @Override
+        public Lease tryAcquire(long time, TimeUnit unit) throws InterruptedException {
+            String holder = clientId + ":" + lockSequence.incrementAndGet();
+            String expire = String.valueOf(expireAfter);
+            String max = String.valueOf(permits);
+            try {
+                if (!retry(() -> obtainPermit(holder, expire, max), Collections.singletonList(channel), unit.toNanos(time))) {
+                    return null;
+                }
+            } catch (RuntimeException e) {
+                throw new CannotAcquireLockException("Failed to acquire permit at " + permitsKey, e);
+            }
+            HeldKey held = new HeldKey(permitsKey, holder);
+            heldLocks.add(held);
+            return new RedisPermitLease(held, channel);
+        }
+
+        private boolean obtainPermit(String holder, String expire, String max) {
+            Long acquired = redisTemplate.execute(obtainPermitScript, scriptKeys, holder, expire, max);
+            return acquired != null && acquired != 0L;
+        }
+
+        @Override
+        public int getPermits() {
+            return permits;
+        }
+
+        @Override
+        public String toString() {
+            return "RedisSemaphore [permitsKey=" + permitsKey + ", permits=" + permits + "]";
+        }
+    }
+
+    /**
+     * Redis信号量许可租约
+     */
+    private final class RedisPermitLease implements DistributedSemaphore.Lease {
+
+        private final HeldKey held;
+
+        private final String channel;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        RedisPermitLease(HeldKey held, String channel) {
+            this.held = held;
+            this.channel = channel;
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            heldLocks.remove(held);
+            Long released = redisTemplate.execute(releasePermitScript,
+                    Collections.singletonList(held.lockKey), held.owner, channel);
+            if (released == null || released == 0L) {
+                throw new IllegalStateException("Permit was released in the store due to expiration. " +
+                        "The integrity of data protected by this permit may have been compromised.");
+            }
+        }
+    }
+}
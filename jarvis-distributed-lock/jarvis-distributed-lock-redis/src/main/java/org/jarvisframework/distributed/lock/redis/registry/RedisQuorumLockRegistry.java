@@ -0,0 +1,496 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.redis.registry;
+
+import org.jarvisframework.distributed.lock.api.support.BoundedLockCache;
+import org.jarvisframework.distributed.lock.api.support.BoundedLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.LockWaitHint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 多数派Redis分布式锁实现(Redlock)
+ * <p>
+ * 在N个相互独立的Redis节点上并行加锁,过半节点加锁成功且剩余有效时间为正才视为获取成功,
+ * 单个节点故障或主从切换不会把同一把锁交给两个持有者。每轮尝试同时向全部节点发起请求,
+ * 达到多数或已不可能达到多数时立即结束,耗时取决于多数派中最慢的节点而不是各节点耗时之和。
+ * 剩余有效时间 = 过期时间 - 本轮耗时 - 时钟漂移(过期时间 × 漂移系数 + 2毫秒),
+ * 持有时间超过剩余有效时间或所有节点上的锁都已过期时,释放锁会抛出异常提示数据可能已被并发修改。
+ * 失败后向全部节点释放,包括仍未返回的节点,随后随机退避重试,避免多个客户端同步竞争导致都拿不到多数。
+ * 访问节点的线程池按节点数定长,排队也有上限,饱和时被拒绝的节点请求按该节点失败处理,不会无限创建线程。
+ * 不签发防护令牌,也不自动续期,过期时间需覆盖被保护的业务执行时间
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class RedisQuorumLockRegistry implements BoundedLockRegistry, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisQuorumLockRegistry.class);
+
+    /**
+     * 默认时钟漂移系数
+     */
+    public static final double DEFAULT_CLOCK_DRIFT_FACTOR = 0.01;
+
+    /**
+     * 默认单轮加锁等待节点响应的最长时间(毫秒)
+     */
+    public static final long DEFAULT_NODE_TIMEOUT = 500L;
+
+    /**
+     * 每个节点分配的访问线程数
+     */
+    public static final int THREADS_PER_NODE = 8;
+
+    /**
+     * 每个访问线程允许排队的请求数,排队超过单轮等待时间的请求已无意义
+     */
+    private static final int QUEUED_REQUESTS_PER_THREAD = 4;
+
+    /**
+     * 加锁脚本,KEYS[1] 锁Key值;ARGV[1] 持有者标识,ARGV[2] 过期时间(毫秒)。成功返回1,被其他持有者占用返回0
+     */
+    private static final String OBTAIN_LOCK_SCRIPT =
+            "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then\n" +
+            "  return 1\n" +
+            "end\n" +
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
+            "  redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+            "  return 1\n" +
+            "end\n" +
+            "return 0";
+
+    /**
+     * 释放锁脚本,仅持有者可删除
+     */
+    private static final String RELEASE_LOCK_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
+            "  return redis.call('DEL', KEYS[1])\n" +
+            "end\n" +
+            "return 0";
+
+    private final BoundedLockCache<QuorumLock> locks = new BoundedLockCache<>(QuorumLock::new,
+            lock -> lock.lastUsed, QuorumLock::isIdle);
+
+    private final AtomicLong lockSequence = new AtomicLong();
+
+    private final String clientId = UUID.randomUUID().toString();
+
+    private final List<StringRedisTemplate> nodes;
+
+    private final int quorum;
+
+    private final String registryKey;
+
+    private final long expireAfter;
+
+    private final long driftMillis;
+
+    private final RedisScript<Long> obtainLockScript = new DefaultRedisScript<>(OBTAIN_LOCK_SCRIPT, Long.class);
+
+    private final RedisScript<Long> releaseLockScript = new DefaultRedisScript<>(RELEASE_LOCK_SCRIPT, Long.class);
+
+    /**
+     * 并行访问各节点的线程池
+     */
+    private final ExecutorService executor;
+
+    private long retryInterval = RedisDistributedLockRegistry.DEFAULT_RETRY_INTERVAL;
+
+    private long nodeTimeout = DEFAULT_NODE_TIMEOUT;
+
+    /**
+     * 多数派Redis分布式锁实现构造方法
+     *
+     * @param connectionFactories 相互独立的Redis节点,建议为奇数个
+     * @param registryKey         锁Key值前缀
+     * @param expireAfter         锁过期时间(毫秒)
+     */
+    public RedisQuorumLockRegistry(List<? extends RedisConnectionFactory> connectionFactories, String registryKey,
+                                   long expireAfter) {
+        this(connectionFactories, registryKey, expireAfter, DEFAULT_CLOCK_DRIFT_FACTOR);
+    }
+
+    /**
+     * 多数派Redis分布式锁实现构造方法
+     *
+     * @param connectionFactories 相互独立的Redis节点,建议为奇数个
+     * @param registryKey         锁Key值前缀
+     * @param expireAfter         锁过期时间(毫秒)
+     * @param clockDriftFactor    时钟漂移系数
+     */
+    public RedisQuorumLockRegistry(List<? extends RedisConnectionFactory> connectionFactories, String registryKey,
+                                   long expireAfter, double clockDriftFactor) {
+        Assert.notEmpty(connectionFactories, "'connectionFactories' must not be empty");
+        Assert.hasText(registryKey, "'registryKey' must not be empty");
+        Assert.isTrue(expireAfter > 0, "'expireAfter' must be positive");
+        Assert.isTrue(clockDriftFactor >= 0 && clockDriftFactor < 1, "'clockDriftFactor' must be in [0, 1)");
+        List<StringRedisTemplate> templates = new ArrayList<>(connectionFactories.size());
+        for (RedisConnectionFactory connectionFactory : connectionFactories) {
+            templates.add(new StringRedisTemplate(connectionFactory));
+        }
+        this.nodes = Collections.unmodifiableList(templates);
+        this.quorum = templates.size() / 2 + 1;
+        this.registryKey = registryKey;
+        this.expireAfter = expireAfter;
+        this.driftMillis = (long) (expireAfter * clockDriftFactor) + 2;
+        AtomicInteger threadSequence = new AtomicInteger();
+        int threads = templates.size() * THREADS_PER_NODE;
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUED_REQUESTS_PER_THREAD), runnable -> {
+                    Thread thread = new Thread(runnable, "redis-quorum-lock-" + threadSequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * 设置重试获取锁的平均间隔,实际间隔在其一半到1.5倍之间随机
+     *
+     * @param retryInterval 重试间隔(毫秒)
+     */
+    public void setRetryInterval(long retryInterval) {
+        Assert.isTrue(retryInterval > 1, "'retryInterval' must be greater than 1");
+        this.retryInterval = retryInterval;
+    }
+
+    /**
+     * 设置单轮加锁等待节点响应的最长时间,应远小于锁过期时间,超时未达到多数按失败处理
+     *
+     * @param nodeTimeout 等待时间(毫秒)
+     */
+    public void setNodeTimeout(long nodeTimeout) {
+        Assert.isTrue(nodeTimeout > 0, "'nodeTimeout' must be positive");
+        this.nodeTimeout = nodeTimeout;
+    }
+
+    @Override
+    public Lock obtain(Object lockKey) {
+        Assert.isInstanceOf(String.class, lockKey);
+        return locks.get((String) lockKey);
+    }
+
+    @Override
+    public void expireUnusedOlderThan(long age) {
+        locks.expireOlderThan(age);
+    }
+
+    @Override
+    public void setCapacity(int capacity) {
+        locks.setCapacity(capacity);
+    }
+
+    @Override
+    public int size() {
+        return locks.size();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return locks.getEvictionCount();
+    }
+
+    public int getQuorum() {
+        return quorum;
+    }
+
+    public String getRegistryKey() {
+        return registryKey;
+    }
+
+    public long getExpireAfter() {
+        return expireAfter;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 在全部节点上并行执行一轮加锁
+     *
+     * @param lockKey 锁Key值
+     * @param owner   持有者标识
+     * @return 剩余有效期截止时间({@link System#nanoTime()}),未获取到多数时返回{@code null}
+     */
+    private Long acquireQuorum(String lockKey, String owner) throws InterruptedException {
+        long start = System.nanoTime();
+        List<String> keys = Collections.singletonList(lockKey);
+        String expire = String.valueOf(expireAfter);
+        CompletableFuture<Boolean> decided = new CompletableFuture<>();
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        List<CompletableFuture<Boolean>> attempts = new ArrayList<>(nodes.size());
+        for (StringRedisTemplate node : nodes) {
+            CompletableFuture<Boolean> attempt = supplyAsync(() -> {
+                Long result = node.execute(obtainLockScript, keys, owner, expire);
+                return result != null && result == 1L;
+            });
+            attempt.whenComplete((locked, error) -> {
+                if (error != null) {
+                    logger.debug("obtain lock {} from a quorum node failed.", lockKey, error);
+                }
+                if (error == null && locked) {
+                    if (successes.incrementAndGet() == quorum) {
+                        decided.complete(true);
+                    }
+                } else if (failures.incrementAndGet() == nodes.size() - quorum + 1) {
+                    decided.complete(false);
+                }
+            });
+            attempts.add(attempt);
+        }
+        boolean majority;
+        try {
+            majority = decided.get(Math.min(nodeTimeout, expireAfter), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            majority = false;
+        } catch (InterruptedException e) {
+            releaseAll(attempts, lockKey, owner);
+            throw e;
+        }
+        long validUntil = start + TimeUnit.MILLISECONDS.toNanos(expireAfter - driftMillis);
+        if (majority && validUntil - System.nanoTime() > 0) {
+            return validUntil;
+        }
+        releaseAll(attempts, lockKey, owner);
+        return null;
+    }
+
+    /**
+     * 提交节点请求,线程池饱和被拒绝时返回以{@link RejectedExecutionException}失败的结果,按该节点失败处理
+     */
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> request) {
+        try {
+            return CompletableFuture.supplyAsync(request, executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+
+    /**
+     * 在全部节点上异步释放,尚未返回的节点在加锁请求完成后释放
+     */
+    private void releaseAll(List<CompletableFuture<Boolean>> attempts, String lockKey, String owner) {
+        List<String> keys = Collections.singletonList(lockKey);
+        for (int i = 0; i < nodes.size(); i++) {
+            StringRedisTemplate node = nodes.get(i);
+            attempts.get(i).handleAsync((locked, error) -> node.execute(releaseLockScript, keys, owner), executor)
+                    .whenComplete((released, error) -> {
+                        if (error != null) {
+                            logger.debug("release lock {} on a quorum node failed.", lockKey, error);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * 在全部节点上并行释放并等待完成
+     *
+     * @return 释放成功的节点数
+     */
+    private int releaseQuorum(String lockKey, String owner) {
+        List<String> keys = Collections.singletonList(lockKey);
+        List<CompletableFuture<Long>> releases = new ArrayList<>(nodes.size());
+        for (StringRedisTemplate node : nodes) {
+            releases.add(supplyAsync(() -> node.execute(releaseLockScript, keys, owner)));
+        }
+        int released = 0;
+        for (CompletableFuture<Long> release : releases) {
+            try {
+                Long result = release.get(nodeTimeout, TimeUnit.MILLISECONDS);
+                if (result != null && result == 1L) {
+                    released++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException e) {
+                logger.debug("release lock {} on a quorum node failed.", lockKey, e);
+            }
+        }
+        return released;
+    }
+
+    /**
+     * 多数派Redis分布式锁
+     */
+    private final class QuorumLock implements Lock {
+
+        private final String lockKey;
+
+        /**
+         * 持有者标识,每个锁实例唯一
+         */
+        private final String owner = clientId + ":" + lockSequence.incrementAndGet();
+
+        /**
+         * 本地锁,保证同一客户端内的互斥与可重入
+         */
+        private final ReentrantLock localLock = new ReentrantLock();
+
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        /**
+         * 剩余有效期截止时间,仅由持有锁的线程读写
+         */
+        private long validUntil;
+
+        QuorumLock(String path) {
+            this.lockKey = registryKey + ":" + path;
+        }
+
+        @Override
+        public void lock() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    if (tryLock(1, TimeUnit.SECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            boolean locked = false;
+            while (!locked) {
+                locked = tryLock(1, TimeUnit.SECONDS);
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            try {
+                return tryLock(0, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(time);
+            if (!localLock.tryLock(time, unit)) {
+                return false;
+            }
+            if (localLock.getHoldCount() > 1) {
+                return true;
+            }
+            boolean acquired = false;
+            try {
+                while (true) {
+                    Long valid = acquireQuorum(lockKey, owner);
+                    if (valid != null) {
+                        validUntil = valid;
+                        lastUsed = System.currentTimeMillis();
+                        acquired = true;
+                        return true;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    long backoff = LockWaitHint.retryIntervalNanos(TimeUnit.MILLISECONDS.toNanos(
+                            ThreadLocalRandom.current().nextLong(retryInterval / 2, retryInterval * 3 / 2)));
+                    TimeUnit.NANOSECONDS.sleep(Math.min(remaining, backoff));
+                }
+            } catch (RuntimeException e) {
+                throw new CannotAcquireLockException("Failed to lock mutex at " + lockKey, e);
+            } finally {
+                if (!acquired) {
+                    localLock.unlock();
+                }
+            }
+        }
+
+        @Override
+        public void unlock() {
+            if (!localLock.isHeldByCurrentThread()) {
+                throw new IllegalStateException("You do not own lock at " + lockKey);
+            }
+            if (localLock.getHoldCount() > 1) {
+                localLock.unlock();
+                return;
+            }
+            try {
+                boolean expired = System.nanoTime() - validUntil > 0;
+                if (releaseQuorum(lockKey, owner) == 0 || expired) {
+                    throw new IllegalStateException("Lock was released in the store due to expiration. " +
+                            "The integrity of data protected by this lock may have been compromised.");
+                }
+            } finally {
+                lastUsed = System.currentTimeMillis();
+                localLock.unlock();
+            }
+        }
+
+        private boolean isIdle() {
+            return !localLock.isLocked() && !localLock.hasQueuedThreads();
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+
+        @Override
+        public String toString() {
+            return "QuorumLock [lockKey=" + lockKey + "]";
+        }
+    }
+}
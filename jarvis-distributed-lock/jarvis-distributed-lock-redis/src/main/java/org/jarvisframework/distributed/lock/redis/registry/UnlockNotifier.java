@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.redis.registry;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 释放锁通知分发器
+ * <p>
+ * 释放锁脚本在每个Key值对应的频道上发布消息,本节点通过共享的监听容器以一个模式订阅接收,
+ * 再唤醒在该频道上等待的线程。消息丢失或锁因过期释放时,等待线程在兜底间隔后重新尝试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+final class UnlockNotifier implements MessageListener {
+
+    /**
+     * 按频道登记的等待者
+     */
+    private final Map<String, Set<Waiter>> waiters = new ConcurrentHashMap<>(64);
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Set<Waiter> channelWaiters = waiters.get(new String(message.getChannel(), StandardCharsets.UTF_8));
+        if (channelWaiters != null) {
+            for (Waiter waiter : channelWaiters) {
+                waiter.signal();
+            }
+        }
+    }
+
+    /**
+     * 登记等待者,需在尝试获取锁之前登记,避免错过两次尝试之间发布的通知
+     *
+     * @param channels 等待的频道
+     * @return {@link Waiter}
+     */
+    Waiter register(List<String> channels) {
+        Waiter waiter = new Waiter(channels);
+        for (String channel : channels) {
+            waiters.compute(channel, (key, channelWaiters) -> {
+                Set<Waiter> result = channelWaiters != null ? channelWaiters : ConcurrentHashMap.newKeySet();
+                result.add(waiter);
+                return result;
+            });
+        }
+        return waiter;
+    }
+
+    /**
+     * 等待释放锁通知的线程
+     */
+    final class Waiter implements AutoCloseable {
+
+        private final List<String> channels;
+
+        private final Semaphore signal = new Semaphore(0);
+
+        Waiter(List<String> channels) {
+            this.channels = channels;
+        }
+
+        private void signal() {
+            if (signal.availablePermits() == 0) {
+                signal.release();
+            }
+        }
+
+        /**
+         * 等待通知或超时
+         *
+         * @param nanos 最长等待时间(纳秒)
+         * @throws InterruptedException 等待期间线程被中断
+         */
+        void await(long nanos) throws InterruptedException {
+            if (signal.tryAcquire(nanos, TimeUnit.NANOSECONDS)) {
+                signal.drainPermits();
+            }
+        }
+
+        @Override
+        public void close() {
+            for (String channel : channels) {
+                waiters.computeIfPresent(channel, (key, channelWaiters) -> {
+                    channelWaiters.remove(this);
+                    return channelWaiters.isEmpty() ? null : channelWaiters;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.redis.partition;
+
+import org.jarvisframework.distributed.lock.api.partition.PartitionCoordinator;
+import org.jarvisframework.distributed.lock.api.partition.PartitionListener;
+import org.jarvisframework.distributed.lock.redis.registry.RedisDistributedLockRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link RedisPartitionMembership} 测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class RedisPartitionMembershipTest {
+
+    private static final PartitionListener NOOP_LISTENER = new PartitionListener() {
+
+        @Override
+        public void onPartitionsAssigned(Set<Integer> partitions) {
+        }
+
+        @Override
+        public void onPartitionsRevoked(Set<Integer> partitions) {
+        }
+    };
+
+    private RedisServer server;
+
+    private LettuceConnectionFactory connectionFactory;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new RedisServer(port);
+        server.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @Test
+    public void membersExpireWithoutRenewalTest() throws Exception {
+        RedisPartitionMembership membership = new RedisPartitionMembership(connectionFactory, "test", 200L);
+        // 预先建立连接,避免首次连接耗时计入租约
+        Assertions.assertTrue(membership.members("jobs").isEmpty());
+        membership.join("jobs", "node-a");
+        membership.join("jobs", "node-b");
+        membership.leave("jobs", "node-b");
+        Assertions.assertEquals(Collections.singletonList("node-a"), membership.members("jobs"));
+
+        Thread.sleep(300);
+        Assertions.assertTrue(membership.members("jobs").isEmpty());
+    }
+
+    @Test
+    public void coordinatorsSplitPartitionsTest() throws Exception {
+        RedisPartitionMembership membership = new RedisPartitionMembership(connectionFactory, "test", 1000L);
+        PartitionCoordinator nodeA = newCoordinator(membership, "node-a");
+        PartitionCoordinator nodeB = newCoordinator(membership, "node-b");
+        nodeA.start();
+        nodeB.start();
+        try {
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (nodeA.getOwnedPartitions().size() + nodeB.getOwnedPartitions().size() != 16
+                    || nodeA.getOwnedPartitions().size() != 8) {
+                Assertions.assertTrue(System.currentTimeMillis() < deadline, "partitions not balanced in time");
+                Thread.sleep(20);
+            }
+            Set<Integer> ownedB = nodeB.getOwnedPartitions();
+            Assertions.assertTrue(nodeA.getOwnedPartitions().stream().noneMatch(ownedB::contains));
+            for (Integer partition : ownedB) {
+                Assertions.assertTrue(nodeB.getFencingToken(partition) > 0);
+            }
+        } finally {
+            nodeA.stop();
+            nodeB.stop();
+        }
+        Assertions.assertTrue(membership.members("jobs").isEmpty());
+    }
+
+    @Test
+    public void coordinatorRevokesPartitionsLostInRedisTest() throws Exception {
+        RedisPartitionMembership membership = new RedisPartitionMembership(connectionFactory, "test", 1000L);
+        Set<Integer> revoked = ConcurrentHashMap.newKeySet();
+        RedisDistributedLockRegistry registry = new RedisDistributedLockRegistry(connectionFactory, "test", 10000L);
+        PartitionCoordinator coordinator = new PartitionCoordinator("jobs", 4, registry, membership,
+                new PartitionListener() {
+
+                    @Override
+                    public void onPartitionsAssigned(Set<Integer> partitions) {
+                    }
+
+                    @Override
+                    public void onPartitionsRevoked(Set<Integer> partitions) {
+                        revoked.addAll(partitions);
+                    }
+                });
+        coordinator.setMemberId("node-a");
+        coordinator.setRebalanceInterval(50L);
+        coordinator.start();
+        try {
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (coordinator.getOwnedPartitions().size() != 4) {
+                Assertions.assertTrue(System.currentTimeMillis() < deadline, "partitions not assigned in time");
+                Thread.sleep(20);
+            }
+
+            // 分区锁在Redis中被其他持有者接管,本地仍保留着获取时的防护令牌
+            StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+            redisTemplate.opsForHash().put("test:{" + PartitionCoordinator.PARTITION_LOCK_PREFIX + "jobs:0}",
+                    "owner", "intruder");
+            while (coordinator.getOwnedPartitions().contains(0)) {
+                Assertions.assertTrue(System.currentTimeMillis() < deadline + 5000L, "lost partition not revoked");
+                Thread.sleep(20);
+            }
+            Assertions.assertEquals(Collections.singleton(0), revoked);
+            Assertions.assertEquals(3, coordinator.getOwnedPartitions().size());
+        } finally {
+            coordinator.stop();
+        }
+    }
+
+    private PartitionCoordinator newCoordinator(RedisPartitionMembership membership, String memberId) {
+        RedisDistributedLockRegistry registry = new RedisDistributedLockRegistry(connectionFactory, "test", 10000L);
+        PartitionCoordinator coordinator = new PartitionCoordinator("jobs", 16, registry, membership, NOOP_LISTENER);
+        coordinator.setMemberId(memberId);
+        coordinator.setRebalanceInterval(50L);
+        return coordinator;
+    }
+}
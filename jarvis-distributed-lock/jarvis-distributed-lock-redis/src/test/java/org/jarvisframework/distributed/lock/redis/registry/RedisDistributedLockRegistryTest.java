@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.redis.registry;
+
+import org.jarvisframework.distributed.lock.api.support.DistributedSemaphore;
+import org.jarvisframework.distributed.lock.api.support.FencedLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * {@link RedisDistributedLockRegistry} 测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class RedisDistributedLockRegistryTest {
+
+    private RedisServer server;
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new RedisServer(port);
+        server.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        connectionFactory.afterPropertiesSet();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    private RedisDistributedLockRegistry newRegistry() {
+        RedisDistributedLockRegistry registry = new RedisDistributedLockRegistry(connectionFactory, "test", 1000L);
+        registry.setRetryInterval(10L);
+        return registry;
+    }
+
+    private boolean tryInOtherThread(Lock lock) throws Exception {
+        return executor.submit(() -> {
+            if (!lock.tryLock(50, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+            lock.unlock();
+            return true;
+        }).get();
+    }
+
+    @Test
+    public void fencingTokenIncreasesOnEveryAcquisition() throws Exception {
+        RedisDistributedLockRegistry registry = newRegistry();
+        FencedLock lock = registry.obtain("order");
+
+        Assertions.assertTrue(lock.tryLock());
+        long first = lock.getFencingToken();
+        Assertions.assertTrue(first > 0);
+        Assertions.assertFalse(tryInOtherThread(newRegistry().obtain("order")));
+        lock.unlock();
+
+        Assertions.assertTrue(lock.tryLock());
+        Assertions.assertTrue(lock.getFencingToken() > first);
+        lock.unlock();
+    }
+
+    @Test
+    public void keysOfOnePathShareClusterSlot() throws Exception {
+        RedisDistributedLockRegistry registry = newRegistry();
+        int slot = ClusterSlotHashUtil.calculateSlot(registry.lockKeyOf("order:1"));
+        Assertions.assertEquals(slot, ClusterSlotHashUtil.calculateSlot(registry.readersKeyOf("order:1")));
+        Assertions.assertEquals(slot, ClusterSlotHashUtil.calculateSlot(registry.fencingKeyOf("order:1")));
+        Assertions.assertEquals(ClusterSlotHashUtil.calculateSlot(registry.lockKeyOf("{order:1}:item:1")),
+                ClusterSlotHashUtil.calculateSlot(registry.lockKeyOf("{order:1}:item:2")));
+        Assertions.assertNotEquals(registry.lockKeyOf("x"), registry.lockKeyOf("{x}"));
+        Assertions.assertFalse(registry.isCluster());
+
+        // 多Key值锁的令牌写回每个Key值的计数器,之后单Key值加锁的令牌仍然更大
+        FencedLock single = registry.obtain("account:9");
+        Assertions.assertTrue(single.tryLock());
+        single.unlock();
+        FencedLock multi = registry.obtainAll(Arrays.asList("account:1", "account:9"));
+        Assertions.assertTrue(multi.tryLock());
+        long multiToken = multi.getFencingToken();
+        multi.unlock();
+        FencedLock first = registry.obtain("account:1");
+        Assertions.assertTrue(first.tryLock());
+        Assertions.assertTrue(first.getFencingToken() > multiToken);
+        first.unlock();
+    }
+
+    @Test
+    public void multiLockExcludesOverlappingKeys() throws Exception {
+        RedisDistributedLockRegistry registry = newRegistry();
+        RedisDistributedLockRegistry other = newRegistry();
+        FencedLock transfer = registry.obtainAll(Arrays.asList("account:1", "account:2"));
+        Assertions.assertTrue(transfer.tryLock());
+
+        Assertions.assertFalse(tryInOtherThread(other.obtainAll(Arrays.asList("account:2", "account:3"))));
+        Assertions.assertFalse(tryInOtherThread(other.obtain("account:1")));
+        Assertions.assertTrue(tryInOtherThread(other.obtain("account:3")));
+        transfer.unlock();
+        Assertions.assertTrue(tryInOtherThread(other.obtainAll(Arrays.asList("account:2", "account:3"))));
+    }
+
+    @Test
+    public void readLocksShareAndExcludeWriters() throws Exception {
+        RedisDistributedLockRegistry registry = newRegistry();
+        RedisDistributedLockRegistry other = newRegistry();
+        FencedLock read = registry.obtainRead("config");
+        Assertions.assertTrue(read.tryLock());
+
+        Assertions.assertTrue(tryInOtherThread(other.obtainRead("config")));
+        Assertions.assertFalse(tryInOtherThread(other.obtain("config")));
+        Assertions.assertFalse(tryInOtherThread(other.obtainAll(Arrays.asList("config", "other"))));
+        read.unlock();
+
+        FencedLock write = registry.obtain("config");
+        Assertions.assertTrue(write.tryLock());
+        Assertions.assertFalse(tryInOtherThread(other.obtainRead("config")));
+        write.unlock();
+        Assertions.assertTrue(tryInOtherThread(other.obtain("config")));
+    }
+
+    @Test
+    public void waitingWriterBlocksNewReaders() throws Exception {
+        RedisDistributedLockRegistry registry = newRegistry();
+        RedisDistributedLockRegistry other = newRegistry();
+        FencedLock read = registry.obtainRead("config");
+        Assertions.assertTrue(read.tryLock());
+
+        // 写锁放弃等待后撤销写锁意向,读锁可以继续加入
+        Assertions.assertFalse(tryInOtherThread(other.obtain("config")));
+        Assertions.assertTrue(other.obtainRead("config").tryLock());
+
+        CompletableFuture<Long> waited = CompletableFuture.supplyAsync(() -> {
+            FencedLock write = other.obtain("config");
+            try {
+                Assertions.assertTrue(write.tryLock(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            long token = write.getFencingToken();
+            write.unlock();
+            return token;
+        }, executor);
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assertions.assertFalse(newRegistry().obtainRead("config").tryLock());
+        read.unlock();
+        other.obtainRead("config").unlock();
+
+        Assertions.assertTrue(waited.get(5, TimeUnit.SECONDS) > 0);
+        Assertions.assertTrue(newRegistry().obtainRead("config").tryLock());
+    }
+
+    @Test
+    public void renewalKeepsHeldLocksAlive() throws Exception {
+        RedisDistributedLockRegistry registry = newRegistry();
+        FencedLock write = registry.obtain("job");
+        FencedLock read = registry.obtainRead("report");
+        Assertions.assertTrue(write.tryLock());
+        Assertions.assertTrue(read.tryLock());
+        for (int i = 0; i < 4; i++) {
+            TimeUnit.MILLISECONDS.sleep(400);
+            Assertions.assertEquals(0, registry.renewHeldLocks(1));
+        }
+        Assertions.assertFalse(tryInOtherThread(newRegistry().obtain("job")));
+        Assertions.assertFalse(tryInOtherThread(newRegistry().obtain("report")));
+        write.unlock();
+        read.unlock();
+    }
+
+    @Test
+    public void clusterRenewalGroupsKeysBySlot() throws Exception {
+        RedisDistributedLockRegistry registry = new RedisDistributedLockRegistry(connectionFactory, "test", 1000L) {
+            @Override
+            boolean isCluster() {
+                return true;
+            }
+        };
+        FencedLock write = registry.obtain("job");
+        FencedLock read = registry.obtainRead("report");
+        Assertions.assertTrue(write.tryLock());
+        Assertions.assertTrue(read.tryLock());
+        TimeUnit.MILLISECONDS.sleep(600);
+        Assertions.assertEquals(0, registry.renewHeldLocks(10));
+        TimeUnit.MILLISECONDS.sleep(600);
+        Assertions.assertFalse(tryInOtherThread(newRegistry().obtain("job")));
+        write.unlock();
+        read.unlock();
+    }
+
+    @Test
+    public void semaphoreLimitsConcurrentLeases() throws Exception {
+        RedisDistributedLockRegistry registry = newRegistry();
+        DistributedSemaphore semaphore = registry.obtainSemaphore("downstream", 2);
+
+        DistributedSemaphore.Lease first = semaphore.tryAcquire(0, TimeUnit.MILLISECONDS);
+        DistributedSemaphore.Lease second = newRegistry().obtainSemaphore("downstream", 2).tryAcquire(0, TimeUnit.MILLISECONDS);
+        Assertions.assertNotNull(first);
+        Assertions.assertNotNull(second);
+        Assertions.assertNull(semaphore.tryAcquire(50, TimeUnit.MILLISECONDS));
+
+        first.close();
+        first.close();
+        DistributedSemaphore.Lease third = semaphore.tryAcquire(0, TimeUnit.MILLISECONDS);
+        Assertions.assertNotNull(third);
+        Assertions.assertNull(semaphore.tryAcquire(0, TimeUnit.MILLISECONDS));
+
+        second.close();
+
+        // 续期使许可跨过租约过期时间依然有效,过期后归还会抛出异常
+        TimeUnit.MILLISECONDS.sleep(600);
+        Assertions.assertEquals(0, registry.renewHeldLocks(16));
+        TimeUnit.MILLISECONDS.sleep(600);
+        third.close();
+    }
+
+    @Test
+    public void unlockNotificationWakesWaiterBeforeFallback() throws Exception {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.afterPropertiesSet();
+        container.start();
+        try {
+            RedisDistributedLockRegistry waiting = newRegistry();
+            waiting.enableUnlockNotifications(container, 10000L);
+            awaitSubscription(waiting.getRegistryKey() + "-unlock:probe");
+
+            FencedLock holder = newRegistry().obtain("hot");
+            Assertions.assertTrue(holder.tryLock());
+            CompletableFuture<Long> waited = CompletableFuture.supplyAsync(() -> {
+                FencedLock lock = waiting.obtain("hot");
+                long start = System.nanoTime();
+                try {
+                    Assertions.assertTrue(lock.tryLock(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                lock.unlock();
+                return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            }, executor);
+            TimeUnit.MILLISECONDS.sleep(200);
+            holder.unlock();
+
+            // 兜底间隔为10秒,能够及时获取说明由通知唤醒
+            Assertions.assertTrue(waited.get(5, TimeUnit.SECONDS) < 2000L);
+        } finally {
+            container.destroy();
+        }
+    }
+
+    private void awaitSubscription(String channel) throws InterruptedException {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            for (int i = 0; i < 100; i++) {
+                Long receivers = connection.publish(channel.getBytes(StandardCharsets.UTF_8), new byte[0]);
+                if (receivers != null && receivers > 0) {
+                    return;
+                }
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+        }
+        Assertions.fail("listener container did not subscribe");
+    }
+}
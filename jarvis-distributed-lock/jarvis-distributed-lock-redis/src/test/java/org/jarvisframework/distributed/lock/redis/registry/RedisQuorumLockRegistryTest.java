@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.redis.registry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * {@link RedisQuorumLockRegistry} 测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class RedisQuorumLockRegistryTest {
+
+    private static final int NODES = 3;
+
+    private final List<RedisServer> servers = new ArrayList<>();
+
+    private final List<LettuceConnectionFactory> connectionFactories = new ArrayList<>();
+
+    private final List<RedisQuorumLockRegistry> registries = new ArrayList<>();
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        for (int i = 0; i < NODES; i++) {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            RedisServer server = new RedisServer(port);
+            server.start();
+            servers.add(server);
+            LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                    new RedisStandaloneConfiguration("127.0.0.1", port));
+            connectionFactory.afterPropertiesSet();
+            // 预先建立连接,避免首轮加锁因建连耗时超过节点等待时间
+            connectionFactory.getConnection().ping();
+            connectionFactories.add(connectionFactory);
+        }
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        registries.forEach(RedisQuorumLockRegistry::destroy);
+        connectionFactories.forEach(LettuceConnectionFactory::destroy);
+        for (RedisServer server : servers) {
+            server.stop();
+        }
+    }
+
+    private RedisQuorumLockRegistry newRegistry() {
+        RedisQuorumLockRegistry registry = new RedisQuorumLockRegistry(connectionFactories, "test", 5000L);
+        registry.setRetryInterval(10L);
+        registry.setNodeTimeout(200L);
+        registries.add(registry);
+        return registry;
+    }
+
+    private boolean tryInOtherThread(Lock lock) throws Exception {
+        return executor.submit(() -> {
+            if (!lock.tryLock(50, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+            lock.unlock();
+            return true;
+        }).get();
+    }
+
+    @Test
+    public void majorityExcludesOtherClients() throws Exception {
+        RedisQuorumLockRegistry registry = newRegistry();
+        RedisQuorumLockRegistry other = newRegistry();
+        Assertions.assertEquals(2, registry.getQuorum());
+
+        Lock lock = registry.obtain("order");
+        Assertions.assertTrue(lock.tryLock());
+        Assertions.assertFalse(tryInOtherThread(other.obtain("order")));
+        Assertions.assertTrue(tryInOtherThread(other.obtain("other")));
+        lock.unlock();
+        Assertions.assertTrue(tryInOtherThread(other.obtain("order")));
+    }
+
+    @Test
+    public void survivesMinorityFailureButNotMajorityFailure() throws Exception {
+        RedisQuorumLockRegistry registry = newRegistry();
+        RedisQuorumLockRegistry other = newRegistry();
+
+        servers.get(0).stop();
+        Lock lock = registry.obtain("order");
+        Assertions.assertTrue(lock.tryLock(1, TimeUnit.SECONDS));
+        Assertions.assertFalse(tryInOtherThread(other.obtain("order")));
+        lock.unlock();
+
+        servers.get(1).stop();
+        Assertions.assertFalse(registry.obtain("order").tryLock(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void failedRoundReleasesPartialLocks() throws Exception {
+        RedisQuorumLockRegistry registry = newRegistry();
+        RedisQuorumLockRegistry other = newRegistry();
+
+        // 其他客户端只在一个节点上持有锁,本轮仍可获得多数
+        LettuceConnectionFactory first = connectionFactories.get(0);
+        first.getConnection().stringCommands().set("test:order".getBytes(), "stale".getBytes());
+        Lock lock = registry.obtain("order");
+        Assertions.assertTrue(lock.tryLock(1, TimeUnit.SECONDS));
+        lock.unlock();
+
+        // 两个节点被占用时本轮失败,已在第三个节点上获取的锁被释放
+        connectionFactories.get(1).getConnection().stringCommands().set("test:order".getBytes(), "stale".getBytes());
+        Assertions.assertFalse(lock.tryLock(100, TimeUnit.MILLISECONDS));
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assertions.assertNull(connectionFactories.get(2).getConnection().stringCommands().get("test:order".getBytes()));
+        Assertions.assertFalse(tryInOtherThread(other.obtain("order")));
+    }
+}
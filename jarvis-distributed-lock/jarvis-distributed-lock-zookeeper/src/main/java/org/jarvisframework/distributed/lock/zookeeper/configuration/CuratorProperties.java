@@ -48,6 +48,41 @@ public class CuratorProperties {
      */
     private int maxRetries = 5;
 
+    /**
+     * 两次重试之间的最大等待时间(毫秒),防止指数退避无限增长
+     */
+    private int maxSleepTimeMs = 10000;
+
+    /**
+     * 会话超时时间(毫秒),超时后服务端删除该会话创建的临时锁节点
+     */
+    private int sessionTimeoutMs = 60000;
+
+    /**
+     * 建立连接的超时时间(毫秒)
+     */
+    private int connectionTimeoutMs = 15000;
+
+    /**
+     * 命名空间,不为空时所有节点路径均位于该命名空间下
+     */
+    private String namespace;
+
+    /**
+     * 连接断开(SUSPENDED/LOST)期间是否立即拒绝获取锁,会话失效时撤销已持有的锁
+     */
+    private boolean failFast = true;
+
+    /**
+     * 锁节点分桶层级,0表示所有锁节点直接位于锁根节点下;集群内所有节点必须一致
+     */
+    private int shardDepth;
+
+    /**
+     * 每层桶数量,最大256
+     */
+    private int shardFanout = 256;
+
     public String getConnectString() {
         return connectString;
     }
@@ -72,12 +107,75 @@ public class CuratorProperties {
         this.maxRetries = maxRetries;
     }
 
+    public int getMaxSleepTimeMs() {
+        return maxSleepTimeMs;
+    }
+
+    public void setMaxSleepTimeMs(int maxSleepTimeMs) {
+        this.maxSleepTimeMs = maxSleepTimeMs;
+    }
+
+    public int getSessionTimeoutMs() {
+        return sessionTimeoutMs;
+    }
+
+    public void setSessionTimeoutMs(int sessionTimeoutMs) {
+        this.sessionTimeoutMs = sessionTimeoutMs;
+    }
+
+    public int getConnectionTimeoutMs() {
+        return connectionTimeoutMs;
+    }
+
+    public void setConnectionTimeoutMs(int connectionTimeoutMs) {
+        this.connectionTimeoutMs = connectionTimeoutMs;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public void setNamespace(String namespace) {
+        this.namespace = namespace;
+    }
+
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    public int getShardDepth() {
+        return shardDepth;
+    }
+
+    public void setShardDepth(int shardDepth) {
+        this.shardDepth = shardDepth;
+    }
+
+    public int getShardFanout() {
+        return shardFanout;
+    }
+
+    public void setShardFanout(int shardFanout) {
+        this.shardFanout = shardFanout;
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", CuratorProperties.class.getSimpleName() + "[", "]")
                 .add("connectString='" + connectString + "'")
                 .add("baseSleepTimeMs=" + baseSleepTimeMs)
                 .add("maxRetries=" + maxRetries)
+                .add("maxSleepTimeMs=" + maxSleepTimeMs)
+                .add("sessionTimeoutMs=" + sessionTimeoutMs)
+                .add("connectionTimeoutMs=" + connectionTimeoutMs)
+                .add("namespace='" + namespace + "'")
+                .add("failFast=" + failFast)
+                .add("shardDepth=" + shardDepth)
+                .add("shardFanout=" + shardFanout)
                 .toString();
     }
 }
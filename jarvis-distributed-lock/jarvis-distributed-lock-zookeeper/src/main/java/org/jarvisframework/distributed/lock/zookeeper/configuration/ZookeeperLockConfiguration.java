@@ -19,12 +19,16 @@ package org.jarvisframework.distributed.lock.zookeeper.configuration;
 
 import org.apache.curator.RetryPolicy;
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.jarvisframework.distributed.lock.api.configuration.DistributedLockProperties;
+import org.jarvisframework.distributed.lock.zookeeper.partition.ZookeeperPartitionMembership;
+import org.jarvisframework.distributed.lock.zookeeper.registry.ZookeeperDistributedLockRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
-import org.springframework.integration.zookeeper.config.CuratorFrameworkFactoryBean;
-import org.springframework.integration.zookeeper.lock.ZookeeperLockRegistry;
+import org.springframework.util.StringUtils;
 
 /**
  * Curator implements zookeeper distributedLock auto configuration
@@ -56,31 +60,59 @@ public class ZookeeperLockConfiguration {
     @Bean
     @ConditionalOnMissingBean(RetryPolicy.class)
     public RetryPolicy retryPolicy(CuratorProperties curatorProperties) {
-        return new ExponentialBackoffRetry(curatorProperties.getBaseSleepTimeMs(), curatorProperties.getMaxRetries());
+        return new ExponentialBackoffRetry(curatorProperties.getBaseSleepTimeMs(), curatorProperties.getMaxRetries(),
+                curatorProperties.getMaxSleepTimeMs());
     }
 
     /**
      * Curator Client 注入
+     * 显式设置会话、连接超时时间及命名空间,容器启动时连接、关闭时断开
      *
      * @param curatorProperties {@link CuratorProperties}
      * @param retryPolicy       {@link RetryPolicy}
-     * @return {@link CuratorFrameworkFactoryBean}
+     * @return {@link CuratorFramework}
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean(CuratorFramework.class)
+    public CuratorFramework curatorFramework(CuratorProperties curatorProperties, RetryPolicy retryPolicy) {
+        return CuratorFrameworkFactory.builder()
+                .connectString(curatorProperties.getConnectString())
+                .sessionTimeoutMs(curatorProperties.getSessionTimeoutMs())
+                .connectionTimeoutMs(curatorProperties.getConnectionTimeoutMs())
+                .namespace(StringUtils.hasText(curatorProperties.getNamespace()) ? curatorProperties.getNamespace() : null)
+                .retryPolicy(retryPolicy)
+                .build();
+    }
+
+    /**
+     * ZookeeperLock 实例注入,每次获取锁时签发防护令牌,锁节点按配置分桶
+     *
+     * @param curatorFramework          {@link CuratorFramework}
+     * @param curatorProperties         {@link CuratorProperties}
+     * @param distributedLockProperties {@link DistributedLockProperties}
+     * @return {@link ZookeeperDistributedLockRegistry}
      */
     @Bean
-    @ConditionalOnMissingBean(CuratorFrameworkFactoryBean.class)
-    public CuratorFrameworkFactoryBean curatorFrameworkFactoryBean(CuratorProperties curatorProperties, RetryPolicy retryPolicy) {
-        return new CuratorFrameworkFactoryBean(curatorProperties.getConnectString(), retryPolicy);
+    @ConditionalOnMissingBean(ZookeeperDistributedLockRegistry.class)
+    public ZookeeperDistributedLockRegistry zookeeperLockRegistry(CuratorFramework curatorFramework,
+                                                                  CuratorProperties curatorProperties,
+                                                                  ObjectProvider<DistributedLockProperties> distributedLockProperties) {
+        ZookeeperDistributedLockRegistry registry = new ZookeeperDistributedLockRegistry(curatorFramework);
+        registry.setFailFast(curatorProperties.isFailFast());
+        registry.setSharding(curatorProperties.getShardDepth(), curatorProperties.getShardFanout());
+        registry.setCapacity(distributedLockProperties.getIfAvailable(DistributedLockProperties::new).getRegistryCapacity());
+        return registry;
     }
 
     /**
-     * ZookeeperLock 实例注入
+     * 分区成员注册注入,与{@code zookeeperLockRegistry}配合构建{@link org.jarvisframework.distributed.lock.api.partition.PartitionCoordinator}
      *
      * @param curatorFramework {@link CuratorFramework}
-     * @return {@link ZookeeperLockRegistry}
+     * @return {@link ZookeeperPartitionMembership}
      */
     @Bean
-    @ConditionalOnMissingBean(ZookeeperLockRegistry.class)
-    public ZookeeperLockRegistry zookeeperLockRegistry(CuratorFramework curatorFramework) {
-        return new ZookeeperLockRegistry(curatorFramework);
+    @ConditionalOnMissingBean(ZookeeperPartitionMembership.class)
+    public ZookeeperPartitionMembership zookeeperPartitionMembership(CuratorFramework curatorFramework) {
+        return new ZookeeperPartitionMembership(curatorFramework);
     }
 }
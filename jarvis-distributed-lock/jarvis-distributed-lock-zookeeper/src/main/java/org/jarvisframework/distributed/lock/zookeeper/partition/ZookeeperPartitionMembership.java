@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.zookeeper.partition;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.jarvisframework.distributed.lock.api.partition.PartitionMembership;
+import org.springframework.util.Assert;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Zookeeper分区成员注册
+ * <p>
+ * 每个节点在{@code root/group}下创建以节点标识命名的临时节点,会话失效时由Zookeeper自动删除;
+ * 会话重建后下一次{@link #join(String, String)}重新创建
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class ZookeeperPartitionMembership implements PartitionMembership {
+
+    /**
+     * 默认根节点
+     */
+    public static final String DEFAULT_ROOT = "/SpringIntegration-Partitions";
+
+    private final CuratorFramework client;
+
+    private final String root;
+
+    public ZookeeperPartitionMembership(CuratorFramework client) {
+        this(client, DEFAULT_ROOT);
+    }
+
+    /**
+     * Zookeeper分区成员注册构造方法
+     *
+     * @param client {@link CuratorFramework}
+     * @param root   根节点
+     */
+    public ZookeeperPartitionMembership(CuratorFramework client, String root) {
+        Assert.notNull(client, "'client' cannot be null");
+        Assert.isTrue(root != null && root.startsWith("/"), "'root' must start with '/'");
+        this.client = client;
+        this.root = root.endsWith("/") ? root.substring(0, root.length() - 1) : root;
+    }
+
+    @Override
+    public void join(String group, String memberId) {
+        String path = memberPath(group, memberId);
+        try {
+            if (client.checkExists().forPath(path) == null) {
+                client.create().creatingParentContainersIfNeeded().withMode(CreateMode.EPHEMERAL).forPath(path);
+            }
+        } catch (KeeperException.NodeExistsException ignored) {
+            // 并发加入或上一会话的临时节点尚未删除,下一次加入时重新检查
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to join partition group at " + path, e);
+        }
+    }
+
+    @Override
+    public void leave(String group, String memberId) {
+        String path = memberPath(group, memberId);
+        try {
+            client.delete().forPath(path);
+        } catch (KeeperException.NoNodeException ignored) {
+            // 已离开或会话已失效
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to leave partition group at " + path, e);
+        }
+    }
+
+    @Override
+    public List<String> members(String group) {
+        String path = groupPath(group);
+        try {
+            return client.getChildren().forPath(path);
+        } catch (KeeperException.NoNodeException e) {
+            return Collections.emptyList();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to list partition group at " + path, e);
+        }
+    }
+
+    private String groupPath(String group) {
+        Assert.isTrue(group.indexOf('/') < 0, "'group' must not contain '/'");
+        return root + "/" + group;
+    }
+
+    private String memberPath(String group, String memberId) {
+        Assert.isTrue(memberId.indexOf('/') < 0, "'memberId' must not contain '/'");
+        return groupPath(group) + "/" + memberId;
+    }
+
+    public String getRoot() {
+        return root;
+    }
+}
@@ -0,0 +1,1211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.zookeeper.registry;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorOp;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.curator.framework.recipes.locks.InterProcessSemaphoreV2;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.data.Stat;
+import org.jarvisframework.distributed.lock.api.support.BoundedLockCache;
+import org.jarvisframework.distributed.lock.api.support.BoundedLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.DistributedSemaphore;
+import org.jarvisframework.distributed.lock.api.support.FencedLock;
+import org.jarvisframework.distributed.lock.api.support.MultiLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.ReadWriteLockRegistry;
+import org.jarvisframework.distributed.lock.api.support.SemaphoreRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Zookeeper分布式锁实现
+ * <p>
+ * 防护令牌取自本次获取锁创建的临时顺序节点的czxid,
+ * 由Zookeeper事务号保证全局严格递增,父节点被删除重建后依然单调;
+ * 锁实例数量受容量限制,淘汰后其遗留的空锁节点在后台清理;
+ * 分布式信号量使用{@link InterProcessSemaphoreV2},许可节点为临时节点,会话失效后自动回收;
+ * 监听Curator连接状态,连接中断(SUSPENDED/LOST)期间立即拒绝获取锁并唤醒等待中的读锁、多Key值锁,
+ * 阻塞在{@link InterProcessMutex}内部的单Key值锁等待线程则被中断,以{@link CannotAcquireLockException}结束等待,
+ * 会话失效(LOST)前获取的锁视为已撤销:锁节点已被服务端删除,防护令牌失效,{@link FencedLock#isHeld()}返回false,
+ * 持有者可在执行过程中轮询以及时停止,释放时抛出异常告知调用方;
+ * 可按Key值哈希将锁节点分散到多级桶节点下,避免海量Key值使根节点子节点列表过大,桶节点与锁节点均为容器节点,
+ * 没有子节点后由服务端自动回收。
+ * <b>要求Zookeeper服务端为 3.5 及以上版本:</b>3.4.x 服务端不支持容器节点,创建锁节点会失败
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class ZookeeperDistributedLockRegistry implements BoundedLockRegistry, MultiLockRegistry, ReadWriteLockRegistry,
+        SemaphoreRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZookeeperDistributedLockRegistry.class);
+
+    /**
+     * 默认锁根节点
+     */
+    public static final String DEFAULT_ROOT = "/SpringIntegration-LockRegistry";
+
+    /**
+     * 锁节点名称前缀,与{@link InterProcessMutex}一致以便单Key值与多Key值锁相互排队
+     */
+    private static final String LOCK_NAME = "lock-";
+
+    /**
+     * 读锁节点名称前缀,序号部分与排他节点统一排序,{@link InterProcessMutex}会将其视为前序节点等待
+     */
+    private static final String READ_LOCK_NAME = "read-" + LOCK_NAME;
+
+    /**
+     * 多Key值锁节点的保护前缀,与Curator保护模式格式一致,事务提交结果未知时据此找回本次创建的节点
+     */
+    private static final String PROTECTED_PREFIX = "_c_";
+
+    /**
+     * 多Key值锁事务提交结果未知时重新提交的最大次数
+     */
+    private static final int MAX_COMMIT_ATTEMPTS = 3;
+
+    /**
+     * 信号量根节点后缀,拼接在锁根节点之后,与锁节点分开存放
+     */
+    private static final String PERMITS_ROOT_SUFFIX = "-permits";
+
+    /**
+     * 最大分桶层级
+     */
+    private static final int MAX_SHARD_DEPTH = 4;
+
+    /**
+     * 每层最大桶数量
+     */
+    private static final int MAX_SHARD_FANOUT = 256;
+
+    private final BoundedLockCache<ZkLock> locks = new BoundedLockCache<>(ZkLock::new,
+            lock -> lock.lastUsed, ZkLock::isIdle, this::evicted);
+
+    /**
+     * 待清理的锁节点路径,去重;多Key值锁释放的路径不超过锁实例容量
+     */
+    private final Set<String> evictedPaths = ConcurrentHashMap.newKeySet();
+
+    private final BoundedLockCache<ZkReadLock> readLocks = new BoundedLockCache<>(ZkReadLock::new,
+            lock -> lock.lastUsed, ZkReadLock::isIdle, lock -> evictedPaths.add(lock.path));
+
+    private final CuratorFramework client;
+
+    private final String root;
+
+    /**
+     * 当前是否与Zookeeper保持连接,由连接状态事件维护
+     */
+    private volatile boolean connected;
+
+    /**
+     * 连接中断期间是否立即拒绝获取锁
+     */
+    private volatile boolean failFast = true;
+
+    /**
+     * 锁节点分桶层级,0表示所有锁节点直接位于根节点下
+     */
+    private int shardDepth;
+
+    /**
+     * 每层桶数量
+     */
+    private int shardFanout = MAX_SHARD_FANOUT;
+
+    /**
+     * 会话代数,每次会话失效加一;锁记录获取时的代数,不一致即已被撤销。仅由Curator事件线程修改
+     */
+    private volatile long sessionGeneration;
+
+    /**
+     * 等待前序节点删除的线程,连接中断时唤醒
+     */
+    private final Set<CountDownLatch> waiters = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 阻塞在{@link InterProcessMutex}内部的等待线程,连接中断时中断
+     */
+    private final Set<MutexWaiter> mutexWaiters = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Zookeeper分布式锁实现构造方法
+     *
+     * @param client {@link CuratorFramework}
+     */
+    public ZookeeperDistributedLockRegistry(CuratorFramework client) {
+        this(client, DEFAULT_ROOT);
+    }
+
+    /**
+     * Zookeeper分布式锁实现构造方法
+     *
+     * @param client {@link CuratorFramework}
+     * @param root   锁根节点
+     */
+    public ZookeeperDistributedLockRegistry(CuratorFramework client, String root) {
+        Assert.notNull(client, "'client' cannot be null");
+        Assert.isTrue(root != null && root.startsWith("/"), "'root' must start with '/'");
+        this.client = client;
+        this.root = root.endsWith("/") ? root.substring(0, root.length() - 1) : root;
+        client.getConnectionStateListenable().addListener((curator, newState) -> stateChanged(newState));
+        // 注册监听之前已建立的连接不会再收到CONNECTED事件
+        this.connected = client.getZookeeperClient().isConnected();
+    }
+
+    /**
+     * 连接状态变化:中断时唤醒等待中的线程,会话失效时撤销已持有的锁
+     *
+     * @param newState {@link ConnectionState}
+     */
+    private void stateChanged(ConnectionState newState) {
+        connected = newState.isConnected();
+        if (connected) {
+            return;
+        }
+        logger.warn("zookeeper connection {}, pending lock acquisitions are rejected.", newState);
+        if (newState == ConnectionState.LOST) {
+            sessionGeneration++;
+            logger.warn("zookeeper session lost, locks acquired in the previous session are revoked, "
+                    + "FencedLock#isHeld() returns false for their holders.");
+        }
+        for (CountDownLatch waiter : waiters) {
+            waiter.countDown();
+        }
+        if (failFast) {
+            for (MutexWaiter waiter : mutexWaiters) {
+                waiter.abort();
+            }
+        }
+    }
+
+    /**
+     * 连接中断时立即拒绝获取锁,避免请求线程堆积在不可用的Zookeeper集群上
+     *
+     * @param path 锁节点路径
+     */
+    private void ensureConnected(Object path) {
+        if (failFast && !connected) {
+            throw new CannotAcquireLockException("Zookeeper connection is not available, refusing to lock " + path);
+        }
+    }
+
+    /**
+     * 等待{@link InterProcessMutex},连接中断时等待线程被中断并以{@link CannotAcquireLockException}结束
+     *
+     * @param path        锁节点路径
+     * @param acquisition 获取锁操作
+     * @return 是否获得锁
+     * @throws InterruptedException 调用方中断等待线程
+     */
+    private boolean acquireMutex(String path, Callable<Boolean> acquisition) throws InterruptedException {
+        MutexWaiter waiter = new MutexWaiter();
+        mutexWaiters.add(waiter);
+        try {
+            // 先登记再检查连接,避免检查与等待之间的连接中断被遗漏
+            ensureConnected(path);
+            return acquisition.call();
+        } catch (InterruptedException e) {
+            if (waiter.finish()) {
+                throw new CannotAcquireLockException("Zookeeper connection dropped while waiting for mutex at "
+                        + path, e);
+            }
+            throw e;
+        } catch (CannotAcquireLockException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CannotAcquireLockException("Failed to acquire mutex at " + path, e);
+        } finally {
+            mutexWaiters.remove(waiter);
+            waiter.finish();
+        }
+    }
+
+    @Override
+    public FencedLock obtain(Object lockKey) {
+        Assert.isInstanceOf(String.class, lockKey);
+        return locks.get(getLockPath((String) lockKey));
+    }
+
+    /**
+     * 获取共享读锁,与同一Key值上的排他锁(包括多Key值锁)互斥
+     *
+     * @param lockKey 分布式锁Key值
+     * @return {@link FencedLock}
+     */
+    @Override
+    public FencedLock obtainRead(Object lockKey) {
+        Assert.isInstanceOf(String.class, lockKey);
+        return readLocks.get(getLockPath((String) lockKey));
+    }
+
+    /**
+     * 获取同时锁定多个Key值的锁
+     * <p>
+     * 在一个事务中为全部Key值创建临时顺序节点,事务的全局顺序保证任意两个多Key值锁
+     * 在所有共同Key值上的排队顺序一致,不会相互等待形成死锁
+     *
+     * @param lockKeys 按自然顺序排序且去重的Key值
+     * @return {@link FencedLock}
+     */
+    @Override
+    public FencedLock obtainAll(List<String> lockKeys) {
+        Assert.notEmpty(lockKeys, "'lockKeys' must not be empty");
+        List<String> paths = new ArrayList<>(lockKeys.size());
+        for (String lockKey : lockKeys) {
+            paths.add(getLockPath(lockKey));
+        }
+        return new ZkMultiLock(paths);
+    }
+
+    /**
+     * 获取分布式信号量
+     * <p>
+     * {@link InterProcessSemaphoreV2}本身不持有租约,按需创建即可;同一Key值的调用方应使用相同的许可数
+     *
+     * @param key     信号量Key值
+     * @param permits 集群内允许的最大并发数
+     * @return {@link DistributedSemaphore}
+     */
+    @Override
+    public DistributedSemaphore obtainSemaphore(String key, int permits) {
+        Assert.hasText(key, "'key' must not be empty");
+        Assert.isTrue(permits > 0, "'permits' must be positive");
+        return new ZkSemaphore(shardedPath(root + PERMITS_ROOT_SUFFIX, key), permits);
+    }
+
+    /**
+     * 获取Key值对应的锁节点路径
+     *
+     * @param lockKey 分布式锁Key值
+     * @return 锁节点路径
+     */
+    public String getLockPath(String lockKey) {
+        return shardedPath(root, lockKey);
+    }
+
+    /**
+     * 按Key值哈希逐层选择桶节点,桶节点名称为十六进制桶序号,如 {@code /root/3f/a2/order:1}
+     */
+    private String shardedPath(String base, String key) {
+        if (shardDepth == 0) {
+            return base + "/" + key;
+        }
+        StringBuilder path = new StringBuilder(base.length() + key.length() + shardDepth * 3 + 1).append(base);
+        int hash = mix(key.hashCode());
+        for (int i = 0; i < shardDepth; i++) {
+            path.append('/').append(Integer.toHexString(Integer.remainderUnsigned(hash, shardFanout)));
+            hash = Integer.divideUnsigned(hash, shardFanout);
+        }
+        return path.append('/').append(key).toString();
+    }
+
+    /**
+     * MurmurHash3 fmix32,{@link String#hashCode()}在各JVM上一致,混淆后各层桶分布均匀
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * 淘汰空闲的锁实例,并删除已淘汰锁实例遗留的空锁节点
+     *
+     * @param age 空闲时间(毫秒)
+     */
+    @Override
+    public void expireUnusedOlderThan(long age) {
+        locks.expireOlderThan(age);
+        readLocks.expireOlderThan(age);
+        Iterator<String> paths = evictedPaths.iterator();
+        while (paths.hasNext()) {
+            String path = paths.next();
+            paths.remove();
+            deleteIfEmpty(path);
+        }
+    }
+
+    private void evicted(ZkLock lock) {
+        evictedPaths.add(lock.path);
+    }
+
+    /**
+     * 删除没有子节点的锁节点及随之变空的桶节点,其他客户端正在使用时Zookeeper会拒绝删除;
+     * 容器节点由服务端按检查周期(默认60秒)回收,淘汰的锁实例在此立即清理,不必等待服务端回收
+     */
+    private void deleteIfEmpty(String path) {
+        String current = path;
+        for (int level = 0; level <= shardDepth; level++) {
+            try {
+                client.delete().forPath(current);
+            } catch (KeeperException.NotEmptyException | KeeperException.NoNodeException e) {
+                // 锁节点仍在使用或已被删除
+                return;
+            } catch (Exception e) {
+                logger.warn("delete empty lock node {} failed.", current, e);
+                return;
+            }
+            current = ZKPaths.getPathAndNode(current).getPath();
+        }
+    }
+
+    @Override
+    public void setCapacity(int capacity) {
+        locks.setCapacity(capacity);
+        readLocks.setCapacity(capacity);
+    }
+
+    @Override
+    public int size() {
+        return locks.size() + readLocks.size();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return locks.getEvictionCount() + readLocks.getEvictionCount();
+    }
+
+    public String getRoot() {
+        return root;
+    }
+
+    /**
+     * 设置连接中断期间是否立即拒绝获取锁,默认开启
+     *
+     * @param failFast 是否快速失败
+     */
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * 设置锁节点分桶布局,须在获取锁之前设置;同一锁根节点下的所有节点必须使用相同的布局,否则相同Key值不再互斥
+     *
+     * @param depth  分桶层级,0表示不分桶
+     * @param fanout 每层桶数量
+     */
+    public void setSharding(int depth, int fanout) {
+        Assert.isTrue(depth >= 0 && depth <= MAX_SHARD_DEPTH, "'depth' must be between 0 and " + MAX_SHARD_DEPTH);
+        Assert.isTrue(fanout > 1 && fanout <= MAX_SHARD_FANOUT, "'fanout' must be between 2 and " + MAX_SHARD_FANOUT);
+        this.shardDepth = depth;
+        this.shardFanout = fanout;
+    }
+
+    public int getShardDepth() {
+        return shardDepth;
+    }
+
+    public int getShardFanout() {
+        return shardFanout;
+    }
+
+    /**
+     * 暴露锁节点路径的{@link InterProcessMutex}
+     */
+    private static final class FencingMutex extends InterProcessMutex {
+
+        FencingMutex(CuratorFramework client, String path) {
+            super(client, path);
+        }
+
+        @Override
+        protected String getLockPath() {
+            return super.getLockPath();
+        }
+    }
+
+    /**
+     * 阻塞在{@link InterProcessMutex}内部的等待线程
+     * <p>
+     * 中断与结束等待互斥,保证中断只会落在仍在等待的线程上,且结束等待时清除由此产生的中断标志
+     */
+    private static final class MutexWaiter {
+
+        private final Thread thread = Thread.currentThread();
+
+        private final ReentrantLock guard = new ReentrantLock();
+
+        private boolean finished;
+
+        private boolean aborted;
+
+        /**
+         * 连接中断,中断仍在等待的线程
+         */
+        void abort() {
+            guard.lock();
+            try {
+                if (!finished && !aborted) {
+                    aborted = true;
+                    thread.interrupt();
+                }
+            } finally {
+                guard.unlock();
+            }
+        }
+
+        /**
+         * 结束等待,仅由等待线程调用
+         *
+         * @return 是否因连接中断被中断
+         */
+        boolean finish() {
+            guard.lock();
+            try {
+                if (!finished) {
+                    finished = true;
+                    if (aborted) {
+                        Thread.interrupted();
+                    }
+                }
+                return aborted;
+            } finally {
+                guard.unlock();
+            }
+        }
+    }
+
+    /**
+     * Zookeeper分布式锁
+     */
+    private final class ZkLock implements FencedLock {
+
+        private final String path;
+
+        private final FencingMutex mutex;
+
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        /**
+         * 正在获取锁的线程数
+         */
+        private final AtomicInteger acquiring = new AtomicInteger();
+
+        private volatile long fencingToken = NO_TOKEN;
+
+        /**
+         * 重入次数,仅由持有锁的线程修改
+         */
+        private int holdCount;
+
+        /**
+         * 获取锁时的会话代数
+         */
+        private volatile long generation;
+
+        ZkLock(String path) {
+            this.path = path;
+            this.mutex = new FencingMutex(client, path);
+        }
+
+        @Override
+        public void lock() {
+            acquiring.incrementAndGet();
+            try {
+                acquireMutex(path, () -> {
+                    mutex.acquire();
+                    return true;
+                });
+                acquired();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CannotAcquireLockException("Failed to acquire mutex at " + path, e);
+            } catch (CannotAcquireLockException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CannotAcquireLockException("Failed to acquire mutex at " + path, e);
+            } finally {
+                acquiring.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            boolean locked = false;
+            while (!locked) {
+                locked = tryLock(1, TimeUnit.SECONDS);
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            try {
+                return tryLock(0, TimeUnit.MICROSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            acquiring.incrementAndGet();
+            try {
+                if (!acquireMutex(path, () -> mutex.acquire(time, unit))) {
+                    return false;
+                }
+                acquired();
+                return true;
+            } catch (InterruptedException | CannotAcquireLockException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CannotAcquireLockException("Failed to acquire mutex at " + path, e);
+            } finally {
+                acquiring.decrementAndGet();
+            }
+        }
+
+        /**
+         * 首次(非重入)获取锁时读取锁节点的czxid作为防护令牌
+         */
+        private void acquired() throws Exception {
+            lastUsed = System.currentTimeMillis();
+            if (++holdCount > 1) {
+                return;
+            }
+            generation = sessionGeneration;
+            try {
+                Stat stat = client.checkExists().forPath(mutex.getLockPath());
+                if (stat == null) {
+                    throw new IllegalStateException("Lock node disappeared at " + path);
+                }
+                fencingToken = stat.getCzxid();
+            } catch (Exception e) {
+                holdCount = 0;
+                mutex.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void unlock() {
+            if (!mutex.isOwnedByCurrentThread()) {
+                throw new IllegalStateException("You do not own mutex at " + path);
+            }
+            boolean revoked = false;
+            if (--holdCount == 0) {
+                fencingToken = NO_TOKEN;
+                revoked = generation != sessionGeneration;
+            }
+            try {
+                mutex.release();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to release mutex at " + path, e);
+            } finally {
+                lastUsed = System.currentTimeMillis();
+            }
+            if (revoked) {
+                throw new IllegalStateException("Mutex at " + path + " was revoked since the zookeeper session was lost");
+            }
+        }
+
+        private boolean isIdle() {
+            return acquiring.get() == 0 && !mutex.isAcquiredInThisProcess();
+        }
+
+        @Override
+        public long getFencingToken() {
+            return mutex.isOwnedByCurrentThread() && generation == sessionGeneration ? fencingToken : NO_TOKEN;
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+
+        @Override
+        public String toString() {
+            return "ZkLock [lockKey=" + path + ", fencingToken=" + fencingToken + "]";
+        }
+    }
+
+    /**
+     * 同时锁定多个Key值的Zookeeper分布式锁
+     */
+    private final class ZkMultiLock implements FencedLock {
+
+        private final List<String> paths;
+
+        private final ReentrantLock localLock = new ReentrantLock();
+
+        /**
+         * 本次获取锁创建的临时顺序节点,与{@link #paths}一一对应
+         */
+        private List<String> nodes = Collections.emptyList();
+
+        private volatile long fencingToken = NO_TOKEN;
+
+        /**
+         * 获取锁时的会话代数
+         */
+        private volatile long generation;
+
+        ZkMultiLock(List<String> paths) {
+            this.paths = paths;
+        }
+
+        @Override
+        public void lock() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    if (tryLock(1, TimeUnit.SECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            boolean locked = false;
+            while (!locked) {
+                locked = tryLock(1, TimeUnit.SECONDS);
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            try {
+                return tryLock(0, TimeUnit.MICROSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(time);
+            if (!localLock.tryLock(time, unit)) {
+                return false;
+            }
+            if (localLock.getHoldCount() > 1) {
+                return true;
+            }
+            boolean acquired = false;
+            try {
+                ensureConnected(paths);
+                generation = sessionGeneration;
+                createNodes();
+                acquired = awaitNodes(deadline);
+                return acquired;
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CannotAcquireLockException("Failed to acquire mutex at " + paths, e);
+            } finally {
+                if (!acquired) {
+                    deleteNodes();
+                    localLock.unlock();
+                }
+            }
+        }
+
+        /**
+         * 一次事务创建全部锁节点,父节点不存在时补建后重试;
+         * 同一事务创建的节点czxid相同,作为防护令牌。
+         * 节点名称带本次获取唯一的保护前缀,事务直接提交不经Curator重试,
+         * 连接中断导致提交结果未知时按前缀找回已创建的节点,避免重复创建的节点成为无主节点阻塞后续竞争者
+         */
+        private void createNodes() throws Exception {
+            String nodeName = PROTECTED_PREFIX + UUID.randomUUID() + "-" + LOCK_NAME;
+            List<Op> operations = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                operations.add(client.transactionOp().create().withMode(CreateMode.EPHEMERAL_SEQUENTIAL)
+                        .forPath(ZKPaths.makePath(path, nodeName)).get());
+            }
+            List<String> created = null;
+            for (int attempt = 1; created == null; attempt++) {
+                ensureConnected(paths);
+                try {
+                    created = commitNodes(operations);
+                } catch (KeeperException.NoNodeException e) {
+                    for (String path : paths) {
+                        client.createContainers(path);
+                    }
+                } catch (KeeperException.ConnectionLossException e) {
+                    created = findNodes(nodeName);
+                    if (created == null && attempt >= MAX_COMMIT_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+            nodes = created;
+            Stat stat = client.checkExists().forPath(created.get(0));
+            if (stat == null) {
+                throw new IllegalStateException("Lock node disappeared at " + created.get(0));
+            }
+            fencingToken = stat.getCzxid();
+        }
+
+        private List<String> commitNodes(List<Op> operations) throws Exception {
+            List<OpResult> results = client.getZookeeperClient().getZooKeeper().multi(operations);
+            List<String> created = new ArrayList<>(results.size());
+            for (int i = 0; i < results.size(); i++) {
+                String nodePath = ((OpResult.CreateResult) results.get(i)).getPath();
+                created.add(ZKPaths.makePath(paths.get(i), ZKPaths.getNodeFromPath(nodePath)));
+            }
+            return created;
+        }
+
+        /**
+         * 按保护前缀查找本次事务创建的节点,事务原子提交,要么全部存在要么全部不存在
+         *
+         * @return 已创建的节点,事务未提交时返回{@code null}
+         */
+        private List<String> findNodes(String nodeName) throws Exception {
+            List<String> found = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                String node = null;
+                for (String child : client.getChildren().forPath(path)) {
+                    if (child.startsWith(nodeName)) {
+                        node = ZKPaths.makePath(path, child);
+                        break;
+                    }
+                }
+                if (node == null) {
+                    return null;
+                }
+                found.add(node);
+            }
+            return found;
+        }
+
+        /**
+         * 按顺序等待每个锁节点成为所在Key值下序号最小的节点
+         */
+        private boolean awaitNodes(long deadline) throws Exception {
+            for (int i = 0; i < paths.size(); i++) {
+                if (!awaitTurn(paths.get(i), nodes.get(i), false, deadline)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void deleteNodes() {
+            if (nodes.isEmpty()) {
+                return;
+            }
+            List<String> created = nodes;
+            nodes = Collections.emptyList();
+            fencingToken = NO_TOKEN;
+            try {
+                List<CuratorOp> operations = new ArrayList<>(created.size());
+                for (String node : created) {
+                    operations.add(client.transactionOp().delete().forPath(node));
+                }
+                client.transaction().forOperations(operations);
+            } catch (Exception e) {
+                // 部分节点已随会话失效删除时逐个清理
+                for (String node : created) {
+                    try {
+                        client.delete().forPath(node);
+                    } catch (KeeperException.NoNodeException ignored) {
+                        // 节点已删除
+                    } catch (Exception ex) {
+                        logger.warn("delete lock node {} failed.", node, ex);
+                    }
+                }
+            }
+            // 多Key值锁不缓存锁实例,留下的空锁节点在容量内登记清理
+            for (String path : paths) {
+                if (evictedPaths.size() >= locks.getCapacity()) {
+                    break;
+                }
+                evictedPaths.add(path);
+            }
+        }
+
+        @Override
+        public void unlock() {
+            if (!localLock.isHeldByCurrentThread()) {
+                throw new IllegalStateException("You do not own mutex at " + paths);
+            }
+            boolean revoked = false;
+            try {
+                if (localLock.getHoldCount() == 1) {
+                    revoked = generation != sessionGeneration;
+                    deleteNodes();
+                }
+            } finally {
+                localLock.unlock();
+            }
+            if (revoked) {
+                throw new IllegalStateException("Mutex at " + paths + " was revoked since the zookeeper session was lost");
+            }
+        }
+
+        @Override
+        public long getFencingToken() {
+            return localLock.isHeldByCurrentThread() && generation == sessionGeneration ? fencingToken : NO_TOKEN;
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+
+        @Override
+        public String toString() {
+            return "ZkMultiLock [lockKeys=" + paths + ", fencingToken=" + fencingToken + "]";
+        }
+    }
+
+    /**
+     * Zookeeper共享读锁
+     * <p>
+     * 每个线程创建各自的读锁节点,同一线程可重入
+     */
+    private final class ZkReadLock implements FencedLock {
+
+        private final String path;
+
+        private final Map<Thread, ReadHold> holds = new ConcurrentHashMap<>(8);
+
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        /**
+         * 正在获取锁的线程数
+         */
+        private final AtomicInteger acquiring = new AtomicInteger();
+
+        ZkReadLock(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public void lock() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    if (tryLock(1, TimeUnit.SECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            boolean locked = false;
+            while (!locked) {
+                locked = tryLock(1, TimeUnit.SECONDS);
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            try {
+                return tryLock(0, TimeUnit.MICROSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            ReadHold hold = holds.get(Thread.currentThread());
+            if (hold != null) {
+                hold.count++;
+                return true;
+            }
+            ensureConnected(path);
+            long deadline = System.nanoTime() + unit.toNanos(time);
+            long generation = sessionGeneration;
+            acquiring.incrementAndGet();
+            String node = null;
+            boolean acquired = false;
+            try {
+                node = client.create().creatingParentContainersIfNeeded().withProtection()
+                        .withMode(CreateMode.EPHEMERAL_SEQUENTIAL).forPath(ZKPaths.makePath(path, READ_LOCK_NAME));
+                acquired = awaitTurn(path, node, true, deadline);
+                if (acquired) {
+                    Stat stat = client.checkExists().forPath(node);
+                    if (stat == null) {
+                        acquired = false;
+                        throw new IllegalStateException("Lock node disappeared at " + node);
+                    }
+                    holds.put(Thread.currentThread(), new ReadHold(node, stat.getCzxid(), generation));
+                }
+                return acquired;
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CannotAcquireLockException("Failed to acquire read lock at " + path, e);
+            } finally {
+                lastUsed = System.currentTimeMillis();
+                acquiring.decrementAndGet();
+                if (!acquired && node != null) {
+                    deleteQuietly(node);
+                }
+            }
+        }
+
+        @Override
+        public void unlock() {
+            ReadHold hold = holds.get(Thread.currentThread());
+            if (hold == null) {
+                throw new IllegalStateException("You do not own read lock at " + path);
+            }
+            if (--hold.count > 0) {
+                return;
+            }
+            holds.remove(Thread.currentThread());
+            lastUsed = System.currentTimeMillis();
+            try {
+                client.delete().guaranteed().forPath(hold.node);
+            } catch (KeeperException.NoNodeException e) {
+                throw new IllegalStateException("Read lock node expired at " + hold.node, e);
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to release read lock at " + path, e);
+            }
+            if (hold.generation != sessionGeneration) {
+                throw new IllegalStateException("Read lock at " + path + " was revoked since the zookeeper session was lost");
+            }
+        }
+
+        private boolean isIdle() {
+            return acquiring.get() == 0 && holds.isEmpty();
+        }
+
+        @Override
+        public long getFencingToken() {
+            ReadHold hold = holds.get(Thread.currentThread());
+            return hold != null && hold.generation == sessionGeneration ? hold.fencingToken : NO_TOKEN;
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+
+        @Override
+        public String toString() {
+            return "ZkReadLock [lockKey=" + path + ", holders=" + holds.size() + "]";
+        }
+    }
+
+    /**
+     * 单个线程持有的读锁
+     */
+    private static final class ReadHold {
+
+        private final String node;
+
+        private final long fencingToken;
+
+        /**
+         * 获取锁时的会话代数
+         */
+        private final long generation;
+
+        private int count = 1;
+
+        ReadHold(String node, long fencingToken, long generation) {
+            this.node = node;
+            this.fencingToken = fencingToken;
+            this.generation = generation;
+        }
+    }
+
+    private void deleteQuietly(String node) {
+        try {
+            client.delete().guaranteed().forPath(node);
+        } catch (KeeperException.NoNodeException ignored) {
+            // 节点已删除
+        } catch (Exception e) {
+            logger.warn("delete lock node {} failed.", node, e);
+        }
+    }
+
+    /**
+     * 等待锁节点获得锁
+     * <p>
+     * 排他节点需成为Key值下序号最小的节点;共享(读)节点只需其前面没有排他节点
+     *
+     * @param path     锁节点父路径
+     * @param node     本次创建的锁节点
+     * @param shared   是否为共享节点
+     * @param deadline 截止时间({@link System#nanoTime()})
+     * @return 是否在截止时间前获得锁
+     * @throws Exception Zookeeper访问异常
+     */
+    private boolean awaitTurn(String path, String node, boolean shared, long deadline) throws Exception {
+        String nodeName = ZKPaths.getNodeFromPath(node);
+        while (true) {
+            ensureConnected(path);
+            List<String> children = new ArrayList<>(client.getChildren().forPath(path));
+            children.sort(Comparator.comparing(ZookeeperDistributedLockRegistry::sequenceOf));
+            int index = children.indexOf(nodeName);
+            if (index < 0) {
+                throw new IllegalStateException("Lock node disappeared at " + node);
+            }
+            int blocker = index - 1;
+            while (shared && blocker >= 0 && children.get(blocker).contains(READ_LOCK_NAME)) {
+                blocker--;
+            }
+            if (blocker < 0) {
+                return true;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            CountDownLatch released = new CountDownLatch(1);
+            waiters.add(released);
+            try {
+                Stat previous = client.checkExists().usingWatcher((Watcher) event -> released.countDown())
+                        .forPath(ZKPaths.makePath(path, children.get(blocker)));
+                if (previous != null && !released.await(remaining, TimeUnit.NANOSECONDS)) {
+                    return false;
+                }
+            } finally {
+                waiters.remove(released);
+            }
+        }
+    }
+
+    /**
+     * 锁节点序号,兼容{@link InterProcessMutex}带保护前缀的节点名称
+     */
+    private static String sequenceOf(String nodeName) {
+        int index = nodeName.lastIndexOf(LOCK_NAME);
+        return index < 0 ? nodeName : nodeName.substring(index + LOCK_NAME.length());
+    }
+
+    /**
+     * Zookeeper分布式信号量
+     */
+    private final class ZkSemaphore implements DistributedSemaphore {
+
+        private final String path;
+
+        private final int permits;
+
+        private final InterProcessSemaphoreV2 semaphore;
+
+        ZkSemaphore(String path, int permits) {
+            this.path = path;
+            this.permits = permits;
+            this.semaphore = new InterProcessSemaphoreV2(client, path, permits);
+        }
+
+        @Override
+        public Lease tryAcquire(long time, TimeUnit unit) throws InterruptedException {
+            ensureConnected(path);
+            org.apache.curator.framework.recipes.locks.Lease lease;
+            try {
+                lease = semaphore.acquire(time, unit);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CannotAcquireLockException("Failed to acquire permit at " + path, e);
+            }
+            return lease != null ? new ZkPermitLease(path, lease) : null;
+        }
+
+        @Override
+        public int getPermits() {
+            return permits;
+        }
+
+        @Override
+        public String toString() {
+            return "ZkSemaphore [path=" + path + ", permits=" + permits + "]";
+        }
+    }
+
+    /**
+     * Zookeeper信号量许可租约
+     */
+    private static final class ZkPermitLease implements DistributedSemaphore.Lease {
+
+        private final String path;
+
+        private final org.apache.curator.framework.recipes.locks.Lease lease;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        ZkPermitLease(String path, org.apache.curator.framework.recipes.locks.Lease lease) {
+            this.path = path;
+            this.lease = lease;
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                lease.close();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to release permit at " + path, e);
+            }
+        }
+    }
+}
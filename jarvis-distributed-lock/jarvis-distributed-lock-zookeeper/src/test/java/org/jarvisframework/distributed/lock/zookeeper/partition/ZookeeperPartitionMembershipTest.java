@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.zookeeper.partition;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.jarvisframework.distributed.lock.api.partition.PartitionCoordinator;
+import org.jarvisframework.distributed.lock.api.partition.PartitionListener;
+import org.jarvisframework.distributed.lock.zookeeper.registry.ZookeeperDistributedLockRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ZookeeperPartitionMembership} 测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class ZookeeperPartitionMembershipTest {
+
+    private static final PartitionListener NOOP_LISTENER = new PartitionListener() {
+
+        @Override
+        public void onPartitionsAssigned(Set<Integer> partitions) {
+        }
+
+        @Override
+        public void onPartitionsRevoked(Set<Integer> partitions) {
+        }
+    };
+
+    private TestingServer server;
+
+    private CuratorFramework client;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new TestingServer();
+        client = newClient();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    private CuratorFramework newClient() throws InterruptedException {
+        CuratorFramework curator = CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(100));
+        curator.start();
+        Assertions.assertTrue(curator.blockUntilConnected(10, TimeUnit.SECONDS));
+        return curator;
+    }
+
+    @Test
+    public void membersLeaveWithTheirSession() throws Exception {
+        CuratorFramework other = newClient();
+        new ZookeeperPartitionMembership(other).join("jobs", "node-b");
+        ZookeeperPartitionMembership membership = new ZookeeperPartitionMembership(client);
+        membership.join("jobs", "node-a");
+        membership.join("jobs", "node-a");
+        Assertions.assertEquals(2, membership.members("jobs").size());
+
+        other.close();
+        Assertions.assertEquals(Collections.singletonList("node-a"), membership.members("jobs"));
+        membership.leave("jobs", "node-a");
+        Assertions.assertTrue(membership.members("jobs").isEmpty());
+    }
+
+    @Test
+    public void coordinatorsSplitPartitions() throws Exception {
+        ZookeeperPartitionMembership membership = new ZookeeperPartitionMembership(client);
+        PartitionCoordinator nodeA = newCoordinator(membership, "node-a");
+        PartitionCoordinator nodeB = newCoordinator(membership, "node-b");
+        nodeA.start();
+        nodeB.start();
+        try {
+            long deadline = System.currentTimeMillis() + 10000L;
+            while (nodeA.getOwnedPartitions().size() != 8 || nodeB.getOwnedPartitions().size() != 8) {
+                Assertions.assertTrue(System.currentTimeMillis() < deadline, "partitions not balanced in time");
+                Thread.sleep(20);
+            }
+            Set<Integer> ownedB = nodeB.getOwnedPartitions();
+            Assertions.assertTrue(nodeA.getOwnedPartitions().stream().noneMatch(ownedB::contains));
+        } finally {
+            nodeA.stop();
+            nodeB.stop();
+        }
+        Assertions.assertTrue(membership.members("jobs").isEmpty());
+    }
+
+    private PartitionCoordinator newCoordinator(ZookeeperPartitionMembership membership, String memberId) {
+        PartitionCoordinator coordinator = new PartitionCoordinator("jobs", 16, new ZookeeperDistributedLockRegistry(client),
+                membership, NOOP_LISTENER);
+        coordinator.setMemberId(memberId);
+        coordinator.setRebalanceInterval(50L);
+        return coordinator;
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jarvisframework.distributed.lock.zookeeper.registry;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.apache.curator.utils.ZKPaths;
+import org.jarvisframework.distributed.lock.api.support.DistributedSemaphore;
+import org.jarvisframework.distributed.lock.api.support.FencedLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * {@link ZookeeperDistributedLockRegistry} 测试
+ *
+ * @author <a href="mailto:taofangf@gmail.com">fangtao</a>
+ * @since 1.0.0
+ */
+public class ZookeeperDistributedLockRegistryTest {
+
+    private static final String CONTAINER_CHECK_INTERVAL = "znode.container.checkIntervalMs";
+
+    private TestingServer server;
+
+    private CuratorFramework client;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        // 缩短内嵌服务端回收空容器节点的检查周期(默认60秒)
+        System.setProperty(CONTAINER_CHECK_INTERVAL, "100");
+        server = new TestingServer();
+        client = CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(100));
+        client.start();
+        Assertions.assertTrue(client.blockUntilConnected(10, TimeUnit.SECONDS));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+        System.clearProperty(CONTAINER_CHECK_INTERVAL);
+    }
+
+    @Test
+    public void fencingTokenIncreasesOnEveryAcquisition() throws Exception {
+        ZookeeperDistributedLockRegistry registry = new ZookeeperDistributedLockRegistry(client);
+        FencedLock lock = registry.obtain("order");
+
+        Assertions.assertTrue(lock.tryLock());
+        long first = lock.getFencingToken();
+        Assertions.assertTrue(first > 0);
+        Assertions.assertTrue(lock.tryLock());
+        Assertions.assertEquals(first, lock.getFencingToken());
+        lock.unlock();
+        Assertions.assertEquals(first, lock.getFencingToken());
+        lock.unlock();
+        Assertions.assertEquals(FencedLock.NO_TOKEN, lock.getFencingToken());
+
+        FencedLock other = new ZookeeperDistributedLockRegistry(client).obtain("order");
+        Assertions.assertTrue(other.tryLock());
+        Assertions.assertTrue(other.getFencingToken() > first);
+        other.unlock();
+    }
+
+    @Test
+    public void multiLockExcludesOverlappingKeys() throws Exception {
+        ZookeeperDistributedLockRegistry registry = new ZookeeperDistributedLockRegistry(client);
+        FencedLock transfer = registry.obtainAll(Arrays.asList("account:1", "account:2"));
+        Assertions.assertTrue(transfer.tryLock(1, TimeUnit.SECONDS));
+        Assertions.assertTrue(transfer.getFencingToken() > 0);
+        // 多Key值锁节点带保护前缀,提交结果未知时可找回
+        Assertions.assertTrue(client.getChildren().forPath(registry.getLockPath("account:1")).get(0).startsWith("_c_"));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ZookeeperDistributedLockRegistry other = new ZookeeperDistributedLockRegistry(client);
+            Future<Boolean> overlapping = executor.submit(
+                    () -> tryAndRelease(other.obtainAll(Arrays.asList("account:2", "account:3"))));
+            Assertions.assertFalse(overlapping.get());
+            Future<Boolean> single = executor.submit(() -> tryAndRelease(other.obtain("account:1")));
+            Assertions.assertFalse(single.get());
+            Future<Boolean> disjoint = executor.submit(
+                    () -> tryAndRelease(other.obtainAll(Arrays.asList("account:3", "account:4"))));
+            Assertions.assertTrue(disjoint.get());
+
+            transfer.unlock();
+            Assertions.assertTrue(executor.submit(
+                    () -> tryAndRelease(other.obtainAll(Arrays.asList("account:2", "account:3")))).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void readLocksShareAndExcludeWriters() throws Exception {
+        ZookeeperDistributedLockRegistry registry = new ZookeeperDistributedLockRegistry(client);
+        ZookeeperDistributedLockRegistry other = new ZookeeperDistributedLockRegistry(client);
+        FencedLock read = registry.obtainRead("config");
+        Assertions.assertTrue(read.tryLock());
+        Assertions.assertTrue(read.getFencingToken() > 0);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Assertions.assertTrue(executor.submit(() -> tryAndRelease(other.obtainRead("config"))).get());
+            Assertions.assertFalse(executor.submit(() -> tryAndRelease(other.obtain("config"))).get());
+            read.unlock();
+
+            FencedLock write = registry.obtain("config");
+            Assertions.assertTrue(write.tryLock());
+            Assertions.assertFalse(executor.submit(() -> tryAndRelease(other.obtainRead("config"))).get());
+            write.unlock();
+            Assertions.assertTrue(executor.submit(() -> tryAndRelease(other.obtainRead("config"))).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void semaphoreLimitsConcurrentLeases() throws Exception {
+        ZookeeperDistributedLockRegistry registry = new ZookeeperDistributedLockRegistry(client);
+        DistributedSemaphore semaphore = registry.obtainSemaphore("downstream", 2);
+
+        DistributedSemaphore.Lease first = semaphore.tryAcquire(1, TimeUnit.SECONDS);
+        DistributedSemaphore.Lease second = registry.obtainSemaphore("downstream", 2).tryAcquire(1, TimeUnit.SECONDS);
+        Assertions.assertNotNull(first);
+        Assertions.assertNotNull(second);
+        Assertions.assertNull(semaphore.tryAcquire(200, TimeUnit.MILLISECONDS));
+
+        first.close();
+        DistributedSemaphore.Lease third = semaphore.tryAcquire(1, TimeUnit.SECONDS);
+        Assertions.assertNotNull(third);
+        second.close();
+        third.close();
+    }
+
+    @Test
+    public void shardedLayoutKeepsRootSmall() throws Exception {
+        ZookeeperDistributedLockRegistry registry = new ZookeeperDistributedLockRegistry(client, "/sharded");
+        registry.setSharding(2, 16);
+        ZookeeperDistributedLockRegistry other = new ZookeeperDistributedLockRegistry(client, "/sharded");
+        other.setSharding(2, 16);
+
+        String path = registry.getLockPath("order:1");
+        Assertions.assertTrue(path.matches("/sharded/[0-9a-f]/[0-9a-f]/order:1"), path);
+        Assertions.assertEquals(path, other.getLockPath("order:1"));
+
+        for (int i = 0; i < 200; i++) {
+            Assertions.assertTrue(tryAndRelease(registry.obtain("order:" + i)));
+        }
+        Assertions.assertTrue(client.getChildren().forPath("/sharded").size() <= 16);
+        // 锁节点与桶节点均为容器节点,未被淘汰的锁释放后变空,也由服务端回收
+        String bucket = ZKPaths.getPathAndNode(registry.getLockPath("order:2")).getPath();
+        for (int i = 0; i < 50 && client.checkExists().forPath(bucket) != null; i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        Assertions.assertNull(client.checkExists().forPath(bucket));
+
+        FencedLock lock = registry.obtain("order:1");
+        Assertions.assertTrue(lock.tryLock());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Assertions.assertFalse(executor.submit(() -> tryAndRelease(other.obtain("order:1"))).get());
+            Assertions.assertFalse(executor.submit(
+                    () -> tryAndRelease(other.obtainAll(Arrays.asList("order:1", "order:2")))).get());
+        } finally {
+            executor.shutdownNow();
+        }
+        lock.unlock();
+
+        TimeUnit.MILLISECONDS.sleep(10);
+        registry.expireUnusedOlderThan(0);
+        Assertions.assertNull(client.checkExists().forPath(path));
+    }
+
+    @Test
+    public void failsFastWhileDisconnectedAndRevokesOnSessionLoss() throws Exception {
+        CuratorFramework shortSession = CuratorFrameworkFactory.newClient(server.getConnectString(), 2000, 1000,
+                new RetryOneTime(100));
+        shortSession.start();
+        try {
+            Assertions.assertTrue(shortSession.blockUntilConnected(10, TimeUnit.SECONDS));
+            ZookeeperDistributedLockRegistry registry = new ZookeeperDistributedLockRegistry(shortSession);
+            Assertions.assertTrue(registry.isConnected());
+            FencedLock lock = registry.obtain("order");
+            Assertions.assertTrue(lock.tryLock());
+            Assertions.assertTrue(lock.getFencingToken() > 0);
+            Assertions.assertTrue(lock.isHeld());
+
+            CountDownLatch suspended = new CountDownLatch(1);
+            CountDownLatch lost = new CountDownLatch(1);
+            shortSession.getConnectionStateListenable().addListener((c, state) -> {
+                if (state == ConnectionState.SUSPENDED) {
+                    suspended.countDown();
+                } else if (state == ConnectionState.LOST) {
+                    lost.countDown();
+                }
+            });
+            server.stop();
+
+            Assertions.assertTrue(suspended.await(10, TimeUnit.SECONDS));
+            long start = System.nanoTime();
+            Assertions.assertThrows(CannotAcquireLockException.class, () -> registry.obtain("other").tryLock(5, TimeUnit.SECONDS));
+            Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+
+            Assertions.assertTrue(lost.await(20, TimeUnit.SECONDS));
+            Assertions.assertEquals(FencedLock.NO_TOKEN, lock.getFencingToken());
+            Assertions.assertFalse(lock.isHeld());
+            Assertions.assertThrows(IllegalStateException.class, lock::unlock);
+        } finally {
+            shortSession.close();
+        }
+    }
+
+    @Test
+    public void disconnectAbortsMutexWaiters() throws Exception {
+        FencedLock holder = new ZookeeperDistributedLockRegistry(client).obtain("order");
+        Assertions.assertTrue(holder.tryLock());
+        ZookeeperDistributedLockRegistry registry = new ZookeeperDistributedLockRegistry(client);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch waiting = new CountDownLatch(1);
+            Future<Boolean> waiter = executor.submit(() -> {
+                waiting.countDown();
+                return registry.obtain("order").tryLock(30, TimeUnit.SECONDS);
+            });
+            Assertions.assertTrue(waiting.await(5, TimeUnit.SECONDS));
+            Thread.sleep(500);
+            server.stop();
+
+            long start = System.nanoTime();
+            ExecutionException failure = Assertions.assertThrows(
+                    ExecutionException.class, () -> waiter.get(20, TimeUnit.SECONDS));
+            Assertions.assertTrue(failure.getCause() instanceof CannotAcquireLockException);
+            Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(15));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+        private static boolean tryAndRelease(Lock lock) throws InterruptedException {
+        if (!lock.tryLock(200, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        lock.unlock();
+        return true;
+    }
+}